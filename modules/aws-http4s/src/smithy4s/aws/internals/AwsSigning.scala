@@ -21,6 +21,7 @@ import cats.effect.Concurrent
 import cats.effect.Resource
 import cats.syntax.all._
 import fs2.Chunk
+import fs2.Stream
 import org.http4s._
 import org.http4s.client.Client
 import org.typelevel.ci.CIString
@@ -29,17 +30,89 @@ import smithy4s.aws.kernel.AwsCrypto._
 
 import java.net.URLEncoder
 import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.AtomicReference
 
 /**
   * A Client middleware that signs http requests before they are sent to AWS.
-  * This works by compiling the body of the request in memory in a chunk before sending
-  * it back, which means it is not proper to use it in the context of streaming.
+  *
+  * The payload is hashed incrementally, by running the body stream through
+  * SHA-256 before it is sent, so memory does not grow with the size of the
+  * body. The body stream is therefore run twice, which requires it to be
+  * replayable : http4s does not guarantee it in general, but the requests
+  * built by smithy4s clients stream a payload that is already held in
+  * memory. Bodies that can only be read once must go through the modes that
+  * don't hash them ahead of time : operations annotated with
+  * `@aws.auth#unsignedPayload` are signed without hashing their payload, and
+  * S3 object uploads with a known length are signed chunk by chunk, as the
+  * body is sent (`STREAMING-AWS4-HMAC-SHA256-PAYLOAD`).
   */
 private[aws] object AwsSigning {
 
+  /**
+    * How the payload of a request is accounted for in its signature.
+    */
+  private[internals] sealed trait PayloadSigning
+  private[internals] object PayloadSigning {
+
+    /** The SHA-256 hash of the whole payload is signed. */
+    case object Signed extends PayloadSigning
+
+    /** The payload is not signed at all. */
+    case object Unsigned extends PayloadSigning
+
+    /**
+      * The payload is sent in `aws-chunked` encoding, each chunk carrying a
+      * signature chained to the previous one. Requires the length of the
+      * payload to be known : requests without a Content-Length get signed
+      * with [[Signed]] instead.
+      */
+    final case class Streaming(chunkSize: Int) extends PayloadSigning
+  }
+
+  /**
+    * Remembers the last signing key derived by a client. Keys only change with
+    * the date, the region, the service or the credentials, so the chain of
+    * HMACs deriving them runs about once a day, or when credentials rotate.
+    */
+  private[internals] final class SigningKeyCache {
+    private val last = new AtomicReference[SigningKeyCache.Entry]()
+
+    def get(
+        secretAccessKey: String,
+        date: String,
+        region: String,
+        service: String
+    ): Binary = {
+      val entry = last.get()
+      if (
+        entry != null && entry.date == date && entry.region == region &&
+        entry.service == service && entry.secretAccessKey == secretAccessKey
+      ) entry.key
+      else {
+        val key = getSignatureKey(secretAccessKey, date, region, service)
+        last.set(
+          new SigningKeyCache.Entry(secretAccessKey, date, region, service, key)
+        )
+        key
+      }
+    }
+  }
+
+  private[internals] object SigningKeyCache {
+    private final class Entry(
+        val secretAccessKey: String,
+        val date: String,
+        val region: String,
+        val service: String,
+        val key: Binary
+    )
+  }
+
   def middleware[F[_]: Concurrent](
       awsEnvironment: AwsEnvironment[F]
   ): Endpoint.Middleware[Client[F]] = new Endpoint.Middleware[Client[F]] {
+    private val signingKeys = new SigningKeyCache()
+
     def prepare[Alg[_[_, _, _, _, _]]](service: Service[Alg])(
         endpoint: service.Endpoint[_, _, _, _, _]
     ): Client[F] => Client[F] = transformClient(
@@ -47,7 +120,8 @@ private[aws] object AwsSigning {
       endpoint.id,
       service.hints,
       endpoint.hints,
-      awsEnvironment
+      awsEnvironment,
+      signingKeys
     )
   }
 
@@ -56,7 +130,8 @@ private[aws] object AwsSigning {
       endpointId: ShapeId,
       serviceHints: Hints,
       endpointHints: Hints,
-      awsEnvironment: AwsEnvironment[F]
+      awsEnvironment: AwsEnvironment[F],
+      signingKeys: SigningKeyCache
   ): Client[F] => Client[F] = {
     val endpointPrefix = serviceHints
       .get(_root_.aws.api.Service)
@@ -64,13 +139,26 @@ private[aws] object AwsSigning {
       .getOrElse(serviceId.name)
       .toLowerCase()
 
+    // S3 requires the payload hash to be sent in a header, whatever the
+    // operation, and supports chunked signing for object uploads.
+    val isS3 = endpointPrefix == "s3"
+    val payloadSigning =
+      if (endpointHints.has(_root_.aws.auth.UnsignedPayload))
+        PayloadSigning.Unsigned
+      else if (isS3 && s3UploadOperations.contains(endpointId.name))
+        PayloadSigning.Streaming(defaultChunkSize)
+      else PayloadSigning.Signed
+
     val sign = signingFunction(
       serviceId.name,
       endpointId.name,
       endpointPrefix,
       awsEnvironment.timestamp,
       awsEnvironment.credentials,
-      awsEnvironment.region
+      awsEnvironment.region,
+      payloadSigning,
+      contentSha256Header = isS3,
+      signingKeys = signingKeys
     )
     client =>
       Client { request =>
@@ -86,106 +174,213 @@ private[aws] object AwsSigning {
       endpointPrefix: String,
       timestamp: F[Timestamp],
       credentials: F[AwsCredentials],
-      region: F[AwsRegion]
+      region: F[AwsRegion],
+      payloadSigning: PayloadSigning = PayloadSigning.Signed,
+      contentSha256Header: Boolean = false,
+      signingKeys: SigningKeyCache = new SigningKeyCache()
   ): Request[F] => F[Request[F]] = {
     val contentType = org.http4s.headers.`Content-Type`.headerInstance
     val `Content-Type` = contentType.name
 
-    def getSignatureKey(
-        key: String,
-        dateStamp: String,
-        regionName: String,
-        serviceName: String
-    ): Binary = {
-      val kSecret = binaryFromString("AWS4" + key)
-      val kDate = hmacSha256(dateStamp, kSecret)
-      val kRegion = hmacSha256(regionName, kDate)
-      val kService = hmacSha256(serviceName, kRegion)
-      val kSigning = hmacSha256("aws4_request", kService)
-      kSigning
-    }
-
     // scalafmt: { align.preset = most, danglingParentheses.preset = false, maxColumn = 240, align.tokens = [{code = ":"}]}
     (request: Request[F]) => {
 
-      val bodyF = request.body.chunks.compile.to(Chunk).map(_.flatten)
-      val awsHeadersF = (bodyF, timestamp, credentials, region).mapN { case (body, timestamp, credentials, region) =>
+      val decodedLength = payloadSigning match {
+        case PayloadSigning.Streaming(_) => request.contentLength
+        case _                           => None
+      }
+      val payloadHashF: F[String] = (payloadSigning, decodedLength) match {
+        case (PayloadSigning.Unsigned, _)           => unsignedPayload.pure[F]
+        case (PayloadSigning.Streaming(_), Some(_)) => streamingPayload.pure[F]
+        // Runs the body once before it is sent, see above
+        case _                                      => sha256Hex(request.body)
+      }
+      (payloadHashF, timestamp, credentials, region).mapN { case (payloadHash, timestamp, credentials, region) =>
         val credentialsScope = s"${timestamp.conciseDate}/$region/$endpointPrefix/aws4_request"
-        val queryParams: Vector[(String, String)] =
-          request.uri.query.toVector.sorted.map { case (k, v) => k -> v.getOrElse("") }
-        val canonicalQueryString =
-          if (queryParams.isEmpty) ""
-          else
-            queryParams
-              .map { case (k, v) =>
-                URLEncoder.encode(k, StandardCharsets.UTF_8.name()) + "=" + URLEncoder.encode(v, StandardCharsets.UTF_8.name())
-              }
-              .mkString("&")
+        val sendsPayloadHash = contentSha256Header || payloadSigning != PayloadSigning.Signed
+        val contentEncoding = decodedLength.map { _ =>
+          request.headers.get(`Content-Encoding`).fold(awsChunked)(awsChunked + "," + _.head.value)
+        }
 
         // // !\ Important: these must remain in the same order
         val baseHeadersList = List(
-          `Content-Type` -> request.contentType.map(contentType.value(_)).orNull,
-          `Host` -> request.uri.host.map(_.renderString).orNull,
-          `X-Amz-Date` -> timestamp.conciseDateTime,
-          `X-Amz-Security-Token` -> credentials.sessionToken.orNull,
-          `X-Amz-Target` -> (serviceName + "." + operationName)
+          `Content-Encoding`             -> contentEncoding.orNull,
+          `Content-Type`                 -> request.contentType.map(contentType.value(_)).orNull,
+          `Host`                         -> request.uri.host.map(_.renderString).orNull,
+          `X-Amz-Content-Sha256`         -> (if (sendsPayloadHash) payloadHash else null),
+          `X-Amz-Date`                   -> timestamp.conciseDateTime,
+          `X-Amz-Decoded-Content-Length` -> decodedLength.map(_.toString).orNull,
+          `X-Amz-Security-Token`         -> credentials.sessionToken.orNull,
+          `X-Amz-Target`                 -> (serviceName + "." + operationName)
         ).filterNot(_._2 == null)
 
-        val canonicalHeadersString = baseHeadersList
-          .map { case (key, value) =>
-            key.toString.toLowerCase + ":" + value.trim
-          }
-          .mkString(newline)
-        lazy val signedHeadersString = baseHeadersList.map(_._1).map(_.toString.toLowerCase()).mkString(";")
-
-        val payloadHash = sha256HexDigest(body.toArray)
-        val pathString = request.uri.path.toAbsolute.renderString
-        val canonicalRequest = new StringBuilder()
+        // The canonical request is written in a single builder, rather than
+        // being assembled from intermediate strings.
+        val canonicalRequest = new StringBuilder(256)
           .append(request.method.name.toUpperCase())
           .append(newline)
-          .append(pathString)
-          .append(newline)
-          .append(canonicalQueryString)
-          .append(newline)
-          .append(canonicalHeadersString)
+          .append(request.uri.path.toAbsolute.renderString)
           .append(newline)
+        appendCanonicalQueryString(canonicalRequest, request.uri.query)
+        canonicalRequest.append(newline)
+
+        val signedHeaders = new StringBuilder(128)
+        baseHeadersList.foreach { case (key, value) =>
+          val name = key.toString.toLowerCase()
+          canonicalRequest.append(name).append(':').append(value.trim).append(newline)
+          if (signedHeaders.nonEmpty) signedHeaders.append(';')
+          signedHeaders.append(name)
+        }
+        val signedHeadersString = signedHeaders.result()
+        canonicalRequest
           .append(newline)
           .append(signedHeadersString)
           .append(newline)
           .append(payloadHash)
-          .result()
 
-        val canonicalRequestHash = sha256HexDigest(canonicalRequest)
-        val signatureKey = getSignatureKey(
+        val canonicalRequestHash = sha256HexDigest(canonicalRequest.result())
+        val signatureKey = signingKeys.get(
           credentials.secretAccessKey,
           timestamp.conciseDate,
           region.value,
           endpointPrefix
         )
-        val stringToSign = List[String](
-          algorithm,
-          timestamp.conciseDateTime,
-          credentialsScope,
-          canonicalRequestHash
-        ).mkString(newline)
+        val stringToSign = new StringBuilder(algorithm.length + credentialsScope.length + 96)
+          .append(algorithm)
+          .append(newline)
+          .append(timestamp.conciseDateTime)
+          .append(newline)
+          .append(credentialsScope)
+          .append(newline)
+          .append(canonicalRequestHash)
+          .result()
         val signature = toHexString(hmacSha256(stringToSign, signatureKey))
         val authHeaderValue = s"${algorithm} Credential=${credentials.accessKeyId}/$credentialsScope, SignedHeaders=$signedHeadersString, Signature=$signature"
         val authHeader = Headers("Authorization" -> authHeaderValue)
         val baseHeaders = Headers(baseHeadersList.map { case (k, v) => Header.Raw(k, v) })
-        authHeader ++ baseHeaders
-      }
+        val signedRequest = request.transformHeaders(_ ++ authHeader ++ baseHeaders)
 
-      awsHeadersF.map { headers =>
-        request.transformHeaders(_ ++ headers)
+        (payloadSigning, decodedLength) match {
+          case (PayloadSigning.Streaming(chunkSize), Some(length)) =>
+            val chunkSigner = new ChunkSigner(signatureKey, timestamp.conciseDateTime, credentialsScope)
+            signedRequest
+              .withBodyStream(chunkSigner.encode(request.body, chunkSize, signature))
+              .putHeaders(Header.Raw(`Content-Length`, chunkedContentLength(length, chunkSize).toString))
+          case _ => signedRequest
+        }
       }
     }
   }
 
+  private[internals] def getSignatureKey(
+      key: String,
+      dateStamp: String,
+      regionName: String,
+      serviceName: String
+  ): Binary = {
+    val kSecret = binaryFromString("AWS4" + key)
+    val kDate = hmacSha256(dateStamp, kSecret)
+    val kRegion = hmacSha256(regionName, kDate)
+    val kService = hmacSha256(serviceName, kRegion)
+    val kSigning = hmacSha256("aws4_request", kService)
+    kSigning
+  }
+
+  // Query parameters are sorted by (raw) name and value, then url-encoded.
+  private def appendCanonicalQueryString(builder: StringBuilder, query: Query): Unit = {
+    val utf8 = StandardCharsets.UTF_8.name()
+    var first = true
+    query.toVector.sorted.foreach { case (key, value) =>
+      if (!first) builder.append('&')
+      builder
+        .append(URLEncoder.encode(key, utf8))
+        .append('=')
+        .append(URLEncoder.encode(value.getOrElse(""), utf8))
+      first = false
+    }
+  }
+
+  /**
+    * Signs the chunks of an `aws-chunked` payload. Each chunk signature
+    * covers the data of the chunk and the signature of the previous one,
+    * starting from the signature of the request itself.
+    */
+  private[internals] final class ChunkSigner(
+      signatureKey: Binary,
+      dateTime: String,
+      credentialsScope: String
+  ) {
+
+    def sign(previousSignature: String, chunkHash: String): String = {
+      val stringToSign = List[String](
+        chunkAlgorithm,
+        dateTime,
+        credentialsScope,
+        previousSignature,
+        emptyPayloadHash,
+        chunkHash
+      ).mkString(newline)
+      toHexString(hmacSha256(stringToSign, signatureKey))
+    }
+
+    // Re-chunks the body into chunks of `chunkSize` bytes (the last one may be
+    // smaller), each of them being framed with its signature, and terminated
+    // by an empty signed chunk. Only one chunk is held in memory at a time.
+    def encode[F[_]: Concurrent](
+        body: Stream[F, Byte],
+        chunkSize: Int,
+        seedSignature: String
+    ): Stream[F, Byte] =
+      (body.chunkN(chunkSize).map(Some(_)) ++ Stream.emit(None))
+        .evalMapAccumulate(seedSignature) { (previousSignature, maybeChunk) =>
+          val chunk = maybeChunk.getOrElse(Chunk.empty[Byte])
+          sha256Hex(Stream.chunk(chunk).covary[F]).map { chunkHash =>
+            val signature = sign(previousSignature, chunkHash)
+            val frame = chunk.size.toHexString + chunkSignaturePrefix + signature + crlf
+            (signature, ascii(frame) ++ chunk ++ ascii(crlf))
+          }
+        }
+        .flatMap { case (_, frame) => Stream.chunk(frame) }
+  }
+
+  /**
+    * The length of a payload of `decodedLength` bytes, once encoded in
+    * `aws-chunked` with chunks of `chunkSize` bytes.
+    */
+  private[internals] def chunkedContentLength(decodedLength: Long, chunkSize: Int): Long = {
+    def frameLength(size: Long): Long =
+      java.lang.Long.toHexString(size).length.toLong + chunkSignaturePrefix.length + 64 + crlf.length * 2 + size
+    val remainder = decodedLength % chunkSize
+    (decodedLength / chunkSize) * frameLength(chunkSize.toLong) +
+      (if (remainder > 0) frameLength(remainder) else 0L) +
+      frameLength(0L)
+  }
+
+  private def sha256Hex[F[_]: Concurrent](bytes: Stream[F, Byte]): F[String] =
+    bytes.through(fs2.hash.sha256[F]).through(fs2.text.hex.encode[F]).compile.string
+
+  private def ascii(string: String): Chunk[Byte] =
+    Chunk.array(string.getBytes(StandardCharsets.US_ASCII))
+
   private val newline = System.lineSeparator()
+  private val crlf = "\r\n"
   private val `Host` = CIString("host")
+  private val `Content-Encoding` = CIString("Content-Encoding")
+  private val `Content-Length` = CIString("Content-Length")
+  private val `X-Amz-Content-Sha256` = CIString("X-Amz-Content-Sha256")
   private val `X-Amz-Date` = CIString("X-Amz-Date")
+  private val `X-Amz-Decoded-Content-Length` = CIString("X-Amz-Decoded-Content-Length")
   private val `X-Amz-Security-Token` = CIString("X-Amz-Security-Token")
   private val `X-Amz-Target` = CIString("X-Amz-Target")
   private val algorithm = "AWS4-HMAC-SHA256"
+  private val chunkAlgorithm = "AWS4-HMAC-SHA256-PAYLOAD"
+  private val chunkSignaturePrefix = ";chunk-signature="
+  private val awsChunked = "aws-chunked"
+  private val unsignedPayload = "UNSIGNED-PAYLOAD"
+  private val streamingPayload = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD"
+  private val emptyPayloadHash = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"
+  private val defaultChunkSize = 64 * 1024
+  // The operations the AWS SDKs upload with chunked signing.
+  private val s3UploadOperations = Set("PutObject", "UploadPart")
 
 }
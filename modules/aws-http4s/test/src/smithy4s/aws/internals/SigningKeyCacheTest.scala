@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.aws.internals
+
+import smithy4s.aws.kernel.AwsCrypto._
+import weaver._
+
+object SigningKeyCacheTest extends FunSuite {
+
+  private def hex(key: Binary): String = toHexString(key)
+
+  test("signing keys are derived once, then reused") {
+    val cache = new AwsSigning.SigningKeyCache()
+    val key = cache.get("secret", "20240101", "us-east-1", "dynamodb")
+    val expected =
+      AwsSigning.getSignatureKey("secret", "20240101", "us-east-1", "dynamodb")
+    expect.eql(hex(key), hex(expected)) &&
+    expect(cache.get("secret", "20240101", "us-east-1", "dynamodb") eq key)
+  }
+
+  test("signing keys are derived again on date change or key rotation") {
+    val cache = new AwsSigning.SigningKeyCache()
+    val key = cache.get("secret", "20240101", "us-east-1", "dynamodb")
+    val nextDay = cache.get("secret", "20240102", "us-east-1", "dynamodb")
+    val rotated = cache.get("rotated", "20240102", "us-east-1", "dynamodb")
+    expect(nextDay ne key) &&
+    expect(rotated ne nextDay) &&
+    expect.eql(
+      hex(rotated),
+      hex(
+        AwsSigning
+          .getSignatureKey("rotated", "20240102", "us-east-1", "dynamodb")
+      )
+    )
+  }
+
+}
@@ -16,6 +16,7 @@
 
 package smithy4s.aws.kernel
 
+import java.nio.charset.StandardCharsets
 import java.security.MessageDigest
 import javax.crypto.Mac
 import javax.crypto.spec.SecretKeySpec
@@ -23,25 +24,42 @@ import javax.crypto.spec.SecretKeySpec
 trait CryptoPlatformCompat {
   type Binary = Array[Byte]
 
+  // Looking up digests and MACs through the security providers is costly, and
+  // the instances are not thread-safe : each thread reuses its own. Both
+  // `digest` and `doFinal` reset the instances after use.
+  private[this] val sha256Digests: ThreadLocal[MessageDigest] =
+    ThreadLocal.withInitial(() => MessageDigest.getInstance("SHA-256"))
+  private[this] val hmacSha256Macs: ThreadLocal[Mac] =
+    ThreadLocal.withInitial(() => Mac.getInstance(HmacSHA256))
+
   def binaryFromString(str: String): Binary =
-    str.getBytes("UTF-8")
+    str.getBytes(StandardCharsets.UTF_8)
 
-  def toHexString(binary: Binary): String =
-    binary.map("%02x".format(_)).mkString
+  def toHexString(binary: Binary): String = {
+    val chars = new Array[Char](binary.length * 2)
+    var i = 0
+    while (i < binary.length) {
+      val b = binary(i) & 0xff
+      chars(2 * i) = hexDigits(b >>> 4)
+      chars(2 * i + 1) = hexDigits(b & 0x0f)
+      i += 1
+    }
+    new String(chars)
+  }
 
   def sha256HexDigest(message: Array[Byte]): String = toHexString {
-    MessageDigest
-      .getInstance("SHA-256")
-      .digest(message)
+    sha256Digests.get().digest(message)
   }
 
   def sha256HexDigest(message: String): String =
-    sha256HexDigest(message.getBytes("UTF-8"))
+    sha256HexDigest(message.getBytes(StandardCharsets.UTF_8))
 
   def hmacSha256(data: String, key: Array[Byte]): Array[Byte] = {
-    val algorithm = "HmacSHA256"
-    val mac = Mac.getInstance(algorithm)
-    mac.init(new SecretKeySpec(key, algorithm))
-    mac.doFinal(data.getBytes("UTF-8"))
+    val mac = hmacSha256Macs.get()
+    mac.init(new SecretKeySpec(key, HmacSHA256))
+    mac.doFinal(data.getBytes(StandardCharsets.UTF_8))
   }
+
+  private[this] final val HmacSHA256 = "HmacSHA256"
+  private[this] val hexDigits = "0123456789abcdef".toCharArray()
 }
@@ -29,8 +29,17 @@ trait CryptoPlatformCompat {
   def binaryFromString(str: String): Binary =
     str.getBytes("UTF-8")
 
-  def toHexString(binary: Binary): String =
-    binary.map("%02x".format(_)).mkString
+  def toHexString(binary: Binary): String = {
+    val chars = new Array[Char](binary.length * 2)
+    var i = 0
+    while (i < binary.length) {
+      val b = binary(i) & 0xff
+      chars(2 * i) = hexDigits(b >>> 4)
+      chars(2 * i + 1) = hexDigits(b & 0x0f)
+      i += 1
+    }
+    new String(chars)
+  }
 
   def sha256HexDigest(message: Array[Byte]): String = {
     val md = new Array[Byte](EVP_MAX_MD_SIZE)
@@ -73,6 +82,8 @@ trait CryptoPlatformCompat {
     md.take((!mdLen).toInt)
   }
 
+  private[this] val hexDigits = "0123456789abcdef".toCharArray()
+
   private[this] def getError(): String =
     fromCString(ERR_reason_error_string(ERR_get_error()))
 
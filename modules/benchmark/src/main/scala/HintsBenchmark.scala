@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package benchmark
+
+import org.openjdk.jmh.annotations._
+import smithy.api.JsonName
+import smithy.api.Required
+import smithy.api.TimestampFormat
+import smithy4s.example._
+import smithy4s.json.Json
+import smithy4s.schema.OperationSchema
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Measures the cost of hint lookups, and of compiling the codecs of every
+  * operation of a set of services, between hints backed by maps of shape ids
+  * and the slot-indexed hints that are built by default.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class HintsBenchmark {
+  import HintsBenchmark._
+
+  @Param(Array("map", "indexed"))
+  var representation: String = _
+
+  private var schemas: Vector[Schema[_]] = _
+  private var hints: Hints = _
+
+  @Setup
+  def setup(): Unit = {
+    val convert: Hints => Hints = representation match {
+      case "map" => h => MapHints(h.memberHintsMap, h.targetHintsMap)
+      case _     => identity
+    }
+    schemas = allSchemas.map(_.transformHintsTransitively(convert))
+    hints = convert(
+      Hints(
+        smithy.api.HttpLabel(),
+        Required(),
+        JsonName("foo")
+      ).addMemberHints(smithy.api.Documentation("documentation"))
+    )
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  def lookups(): Int = {
+    var found = 0
+    if (hints.get(JsonName).isDefined) found += 1
+    if (hints.get(Required).isDefined) found += 1
+    if (hints.get(TimestampFormat).isDefined) found += 1
+    if (hints.get(smithy.api.XmlName).isDefined) found += 1
+    found
+  }
+
+  @Benchmark
+  def compileJsonCodecs(): Int = {
+    // A fresh cache on every schema, so that everything gets compiled
+    schemas.foldLeft(0) { (count, schema) =>
+      val _ = Json.jsoniter.fromSchema(schema)
+      count + 1
+    }
+  }
+
+  @Benchmark
+  def compileDocumentCodecs(): Int = {
+    schemas.foldLeft(0) { (count, schema) =>
+      val _ = (
+        Document.Encoder.fromSchema(schema),
+        Document.Decoder.fromSchema(schema)
+      )
+      count + 1
+    }
+  }
+
+}
+
+object HintsBenchmark {
+
+  // The map-backed hints that were built before slot-indexed ones, kept as
+  // a baseline.
+  private final case class MapHints(
+      memberHintsMap: Map[ShapeId, Hint],
+      targetHintsMap: Map[ShapeId, Hint]
+  ) extends Hints {
+    val toMap = targetHintsMap ++ memberHintsMap
+    def isEmpty = toMap.isEmpty
+    def all: Iterable[Hint] = toMap.values
+    def get[A](implicit key: ShapeTag[A]): Option[A] =
+      toMap.get(key.id).flatMap {
+        case Hints.Binding.StaticBinding(k, value) =>
+          if (key.eq(k)) Some(value.asInstanceOf[A]) else None
+        case Hints.Binding.DynamicBinding(_, value) =>
+          Document.Decoder.fromSchema(key.schema).decode(value).toOption
+      }
+    def ++(other: Hints): Hints = MapHints(
+      memberHintsMap ++ other.memberHintsMap,
+      targetHintsMap ++ other.targetHintsMap
+    )
+
+    def targetHints: Hints = MapHints(Map.empty, targetHintsMap)
+    def memberHints: Hints = MapHints(memberHintsMap, Map.empty)
+    def addMemberHints(hints: Hints): Hints =
+      MapHints(memberHintsMap ++ hints.toMap, targetHintsMap)
+    def addTargetHints(hints: Hints): Hints =
+      MapHints(memberHintsMap, targetHintsMap ++ hints.toMap)
+  }
+
+  private val operations: Vector[OperationSchema[_, _, _, _, _]] = Vector(
+    PizzaAdminService.endpoints.map(_.schema),
+    Weather.endpoints.map(_.schema),
+    ObjectService.endpoints.map(_.schema),
+    ErrorHandlingService.endpoints.map(_.schema),
+    BrandService.endpoints.map(_.schema),
+    FooService.endpoints.map(_.schema),
+    DiscriminatedService.endpoints.map(_.schema),
+    KVStore.endpoints.map(_.schema),
+    Library.endpoints.map(_.schema),
+    RecursiveInputService.endpoints.map(_.schema),
+    ServiceWithNullsAndDefaults.endpoints.map(_.schema)
+  ).flatten
+
+  // The inputs, outputs and errors of all the operations
+  private val allSchemas: Vector[Schema[_]] =
+    operations.flatMap { operation =>
+      Vector(operation.input, operation.output) ++
+        operation.error.map(_.schema)
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import org.openjdk.jmh.annotations._
+import smithy4s.Blob
+import smithy4s.Interned
+import smithy4s.json.Json
+import smithy4s.protobuf.ProtobufCodec
+import smithy4s.schema.Schema
+
+import java.util.IdentityHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+  * Compares the decoding of a listing payload whose elements repeat the same
+  * few string values, with and without the `Interned` hint.
+  *
+  * Besides the decoding time, the `retainedStrings` and `retainedStringBytes`
+  * counters report the number of distinct string instances (and their
+  * approximate footprint) retained by each decoded listing.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class InternedStringBenchmark {
+  import InternedStringBenchmark._
+
+  @Param(Array("1000", "10000"))
+  var size: Int = _
+
+  @Param(Array("true", "false"))
+  var interned: Boolean = _
+
+  private var jsonDecoder: Blob => Listing = _
+  private var protobufDecoder: Blob => Listing = _
+  private var json: Blob = _
+  private var protobuf: Blob = _
+
+  @Setup
+  def setup(): Unit = {
+    val schema = Listing.schema(interned)
+    val jsonCodecs = Json.payloadCodecs
+    val jsonReader = jsonCodecs.decoders.fromSchema(schema)
+    val protobufCodec = ProtobufCodec.fromSchema(schema)
+    val listing = Listing(List.tabulate(size)(Item.make))
+    json = jsonCodecs.encoders.fromSchema(schema).encode(listing)
+    protobuf = protobufCodec.writeBlob(listing)
+    jsonDecoder = blob => jsonReader.decode(blob).fold(e => throw e, identity)
+    protobufDecoder = protobufCodec.unsafeReadBlob(_)
+  }
+
+  @Benchmark
+  def decodeJson(counters: RetainedStrings): Listing =
+    record(jsonDecoder(json), counters)
+
+  @Benchmark
+  def decodeProtobuf(counters: RetainedStrings): Listing =
+    record(protobufDecoder(protobuf), counters)
+
+}
+
+object InternedStringBenchmark {
+
+  // Approximation of the footprint of a compact (latin-1) string: object
+  // header, fields and backing array.
+  private def footprint(s: String): Long = 40L + s.length
+
+  def record(listing: Listing, counters: RetainedStrings): Listing = {
+    val seen = new IdentityHashMap[String, Unit]()
+    listing.items.foreach(_.strings.foreach(s => seen.put(s, ())))
+    var bytes = 0L
+    seen.keySet.forEach(s => bytes += footprint(s))
+    counters.retainedStrings = seen.size.toLong
+    counters.retainedStringBytes = bytes
+    listing
+  }
+
+  val regions = Vector("us-east-1", "us-west-2", "eu-west-1", "ap-south-1")
+  val storageClasses = Vector("STANDARD", "GLACIER", "INTELLIGENT_TIERING")
+  val owners = Vector.tabulate(10)(i => s"owner-$i")
+
+  case class Item(
+      key: String,
+      region: String,
+      storageClass: String,
+      owner: String
+  ) {
+    def strings: List[String] = List(key, region, storageClass, owner)
+  }
+
+  object Item {
+    def make(i: Int): Item = Item(
+      s"objects/$i",
+      regions(i % regions.size),
+      storageClasses(i % storageClasses.size),
+      owners(i % owners.size)
+    )
+
+    def schema(interned: Boolean): Schema[Item] = {
+      val str =
+        if (interned) Schema.string.addHints(Interned()) else Schema.string
+      Schema.struct(
+        Schema.string.required[Item]("key", _.key),
+        str.required[Item]("region", _.region),
+        str.required[Item]("storageClass", _.storageClass),
+        str.required[Item]("owner", _.owner)
+      )(Item.apply)
+    }
+  }
+
+  case class Listing(items: List[Item])
+
+  object Listing {
+    def schema(interned: Boolean): Schema[Listing] =
+      Schema.struct(
+        Schema.list(Item.schema(interned)).required[Listing]("items", _.items)
+      )(Listing.apply)
+  }
+
+}
+
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+class RetainedStrings {
+  var retainedStrings: Long = _
+  var retainedStringBytes: Long = _
+}
@@ -42,7 +42,7 @@ class JsonBenchmark {
   val codecs =
     Json.payloadCodecs
       .withJsoniterCodecCompiler(Json.jsoniter.withHintMask(HintMask.empty))
-  val jsonWriter = codecs.encoders.fromSchema(schema)
+  val jsonWriter = codecs.writers.fromSchema(schema)
   val jsonReader = codecs.decoders.fromSchema(schema)
 
   val original = s3objectGen(Gen.Parameters.default, Seed(2048)).get
@@ -54,11 +54,21 @@ class JsonBenchmark {
     val _ = io.circe.jawn.decodeByteArray[S3Object](bytes)
   }
 
+  // reused across invocations, as a pooled buffer would be
+  val buffer = java.nio.ByteBuffer.allocate(1024 * 1024)
+
   @Benchmark
   def measureSmithy4sJson(): Unit = {
-    val bytes =
-      jsonWriter.encode(original).toArray
     val _ =
-      jsonReader.decode(Blob(bytes))
+      jsonReader.decode(jsonWriter.encode(original))
+  }
+
+  @Benchmark
+  def measureSmithy4sJsonIntoBuffer(): Unit = {
+    buffer.clear()
+    jsonWriter.writeToByteBuffer(original, buffer)
+    buffer.flip()
+    val _ =
+      jsonReader.decode(Blob.view(buffer))
   }
 }
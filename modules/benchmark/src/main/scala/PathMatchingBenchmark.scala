@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import org.openjdk.jmh.annotations._
+import smithy4s.http.PathParams
+import smithy4s.http.PathSegment
+import smithy4s.http.PathSegment._
+import smithy4s.http.internals.PathMatcher
+
+import java.util.concurrent.TimeUnit
+import scala.annotation.tailrec
+
+/**
+  * Measures the cost of matching a request path against a single template
+  * and extracting its parameters, between the former list-based matcher
+  * (kept here as a baseline) and the compiled matcher.
+  *
+  * Allocations per matched request are reported by the GC profiler, as
+  * `gc.alloc.rate.norm`:
+  *
+  * {{{
+  * benchmark/Jmh/run -prof gc smithy4s.benchmark.PathMatchingBenchmark
+  * }}}
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class PathMatchingBenchmark {
+  import PathMatchingBenchmark._
+
+  @Param(Array("labels", "greedy"))
+  var template: String = _
+
+  private var segments: List[PathSegment] = _
+  private var matcher: PathMatcher = _
+  private var path: IndexedSeq[String] = _
+
+  @Setup
+  def setup(): Unit = {
+    template match {
+      case "labels" =>
+        segments = List(
+          StaticSegment("restaurants"),
+          LabelSegment("restaurant"),
+          StaticSegment("orders"),
+          LabelSegment("order")
+        )
+        path = IndexedSeq("restaurants", "pizza-place", "orders", "1234")
+      case _ =>
+        segments = List(LabelSegment("bucket"), GreedySegment("key"))
+        path = IndexedSeq("photos", "2024", "01", "cat.png")
+    }
+    matcher = PathMatcher(segments)
+  }
+
+  @Benchmark
+  def listBased(): Option[PathParams] =
+    legacyMatchPath(segments, path)
+
+  @Benchmark
+  def compiled(): Option[PathParams] =
+    matcher.matches(path)
+
+}
+
+object PathMatchingBenchmark {
+
+  // The list-based matcher, as it was before templates got compiled. Greedy
+  // labels are only supported in last position.
+  private def legacyMatchPath(
+      path: List[PathSegment],
+      received: IndexedSeq[String]
+  ): Option[PathParams] = {
+    val size = received.length
+    @tailrec
+    def matchPathAux(
+        path: List[PathSegment],
+        i: Int,
+        acc: Map[String, String],
+        greedyAcc: List[String]
+    ): Option[Map[String, String]] =
+      path match {
+        case Nil if i >= size => Some(acc)
+        case StaticSegment(value) :: lt if i < size && value == received(i) =>
+          matchPathAux(lt, i + 1, acc, Nil)
+        case (LabelSegment(name) :: lt) if i < size =>
+          matchPathAux(lt, i + 1, acc + (name -> received(i)), Nil)
+        case p @ (GreedySegment(_) :: Nil) if i < size =>
+          matchPathAux(p, i + 1, acc, received(i) :: greedyAcc)
+        case GreedySegment(name) :: Nil if greedyAcc.nonEmpty =>
+          val value = greedyAcc.reverse.mkString("/")
+          Some(acc + (name -> value))
+        case _ => None
+      }
+    matchPathAux(path, 0, Map.empty, List.empty)
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import org.openjdk.jmh.annotations._
+import scalapb.GeneratedMessage
+import smithy4s.Blob
+import smithy4s.example.protobuf
+import smithy4s.protobuf.ProtobufCodec
+import smithy4s.schema.Schema
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Compares the protobuf encoding of smithy4s against the code generated by
+  * ScalaPB (backed by protobuf-java) for the same messages:
+  *
+  *   - `nested`: a message nested `size` levels deep
+  *   - `map`: a map of `size` entries, each encoded as a nested message
+  *   - `list`: a message holding `size` strings
+  *
+  * Run with `-prof gc` to compare the allocation rates, which should stay
+  * close to the size of the encoded payload.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class ProtobufEncodingBenchmark {
+
+  @Param(Array("nested", "map", "list"))
+  var shape: String = _
+
+  @Param(Array("10", "100"))
+  var size: Int = _
+
+  private var smithy4sEncoder: () => Blob = _
+  private var scalapbMessage: GeneratedMessage = _
+
+  @Setup
+  def setup(): Unit = shape match {
+    case "nested" =>
+      val smithy = (1 to size).foldLeft(protobuf.Recursive()) { (inner, _) =>
+        protobuf.Recursive(Some(inner))
+      }
+      smithy4sEncoder = encoder(smithy)
+      scalapbMessage = (1 to size).foldLeft(protobuf.protobuf.Recursive()) {
+        (inner, _) => protobuf.protobuf.Recursive(Some(inner))
+      }
+    case "map" =>
+      val values = List.tabulate(size)(i => s"key-$i" -> i).toMap
+      smithy4sEncoder = encoder(protobuf.StringMapWrapper(values))
+      scalapbMessage = protobuf.protobuf.StringMapWrapper(values)
+    case "list" =>
+      val strings = List.tabulate(size)(i => s"value-$i")
+      smithy4sEncoder = encoder(protobuf.StringListWrapper(strings, strings))
+      scalapbMessage = protobuf.protobuf.StringListWrapper(
+        strings,
+        Some(protobuf.protobuf.WrappedStringList(strings))
+      )
+  }
+
+  @Benchmark
+  def smithy4s(): Blob = smithy4sEncoder()
+
+  @Benchmark
+  def scalapb(): Array[Byte] = scalapbMessage.toByteArray
+
+  private def encoder[A](value: A)(implicit
+      schema: Schema[A]
+  ): () => Blob = {
+    val codec = ProtobufCodec.fromSchema(schema)
+    () => codec.writeBlob(value)
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import org.openjdk.jmh.annotations._
+import smithy4s.meta.RefinementTrait
+import smithy4s.meta.ScalaImportsTrait
+import smithy4s.meta.TypeclassTrait
+import smithy4s.meta.validation._
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.shapes.ShapeId
+import software.amazon.smithy.model.validation.ValidationEvent
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Benchmarks of the `smithy4s.meta` protocol module: trait providers, model
+  * assembly with the smithy4s.meta prelude on the classpath, and each of the
+  * validators registered in `META-INF/services`.
+  *
+  * Run with `-prof gc` to get allocation rates alongside throughput.
+  */
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+class ProtocolBenchmark {
+
+  @Param(Array("1000", "10000"))
+  var shapeCount: Int = _
+
+  @Param(Array("0.1", "0.5"))
+  var adtDensity: Double = _
+
+  @Param(Array("0.1", "0.5"))
+  var refinementDensity: Double = _
+
+  var idl: String = _
+  var model: Model = _
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    idl = ProtocolBenchmark.syntheticModel(
+      shapeCount,
+      adtDensity,
+      refinementDensity
+    )
+    model = ProtocolBenchmark.assemble(idl, validate = false)
+  }
+
+  @Benchmark
+  def assembleModel(): Model =
+    ProtocolBenchmark.assemble(idl, validate = true)
+
+  @Benchmark
+  def adtTraitValidator(): java.util.List[ValidationEvent] =
+    new AdtTraitValidator().validate(model)
+
+  @Benchmark
+  def adtMemberTraitValidator(): java.util.List[ValidationEvent] =
+    new AdtMemberTraitValidator().validate(model)
+
+  @Benchmark
+  def errorMessageTraitValidator(): java.util.List[ValidationEvent] =
+    new ErrorMessageTraitValidator().validate(model)
+
+  @Benchmark
+  def refinementTraitValidator(): java.util.List[ValidationEvent] =
+    new RefinementTraitValidator().validate(model)
+
+}
+
+@BenchmarkMode(Array(Mode.Throughput))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(2)
+class ProtocolTraitBenchmark {
+
+  val target = ShapeId.from("bench#Target")
+
+  val refinementNode = Node
+    .objectNodeBuilder()
+    .withMember("targetType", "bench.Refined")
+    .withMember("providerImport", "bench.Refined.provider._")
+    .build()
+  val typeclassNode = Node
+    .objectNodeBuilder()
+    .withMember("targetType", "cats.Show")
+    .withMember("interpreter", "bench.ShowInterpreter")
+    .build()
+  val scalaImportsNode = Node.fromStrings(
+    "bench.one._",
+    "bench.two._",
+    "bench.three._"
+  )
+
+  val refinementProvider = new RefinementTrait.Provider()
+  val typeclassProvider = new TypeclassTrait.Provider()
+  val scalaImportsProvider = new ScalaImportsTrait.Provider()
+
+  @Benchmark
+  def refinementTrait(): RefinementTrait =
+    refinementProvider.createTrait(target, refinementNode)
+
+  @Benchmark
+  def typeclassTrait(): TypeclassTrait =
+    typeclassProvider.createTrait(target, typeclassNode)
+
+  @Benchmark
+  def scalaImportsTrait(): ScalaImportsTrait =
+    scalaImportsProvider.createTrait(target, scalaImportsNode)
+
+}
+
+object ProtocolBenchmark {
+
+  def assemble(idl: String, validate: Boolean): Model = {
+    val assembler = Model
+      .assembler()
+      .discoverModels(classOf[ProtocolBenchmark].getClassLoader())
+      .addUnparsedModel("bench.smithy", idl)
+    if (!validate) assembler.disableValidation()
+    assembler.assemble().unwrap()
+  }
+
+  /**
+    * Renders a synthetic model of roughly `shapeCount` shapes (not counting
+    * members), where `adtDensity` is the proportion of shapes taking part in
+    * `@adt` unions and `refinementDensity` the proportion of refined strings.
+    * The remaining shapes are plain structures.
+    */
+  def syntheticModel(
+      shapeCount: Int,
+      adtDensity: Double,
+      refinementDensity: Double
+  ): String = {
+    val adtMembersPerUnion = 2
+    val unionCount =
+      (shapeCount * adtDensity / (adtMembersPerUnion + 1)).toInt
+    val refinedCount = (shapeCount * refinementDensity).toInt
+    val plainCount =
+      math.max(
+        0,
+        shapeCount - unionCount * (adtMembersPerUnion + 1) - refinedCount
+      )
+
+    val sb = new StringBuilder()
+    sb.append(
+      """|$version: "2"
+         |
+         |namespace bench
+         |
+         |use smithy4s.meta#adt
+         |use smithy4s.meta#errorMessage
+         |use smithy4s.meta#refinement
+         |
+         |@trait(selector: "string")
+         |@refinement(targetType: "bench.Refined", providerImport: "bench.Refined.provider._")
+         |structure refined {}
+         |
+         |@error("client")
+         |structure BenchError {
+         |  @errorMessage
+         |  message: String
+         |}
+         |
+         |""".stripMargin
+    )
+    (0 until unionCount).foreach { u =>
+      sb.append(s"@adt\nunion Union$u {\n")
+      (0 until adtMembersPerUnion).foreach { m =>
+        sb.append(s"  member$m: Union${u}Member$m\n")
+      }
+      sb.append("}\n\n")
+      (0 until adtMembersPerUnion).foreach { m =>
+        sb.append(s"structure Union${u}Member$m {\n  value: String\n}\n\n")
+      }
+    }
+    (0 until refinedCount).foreach { r =>
+      sb.append(s"@refined\nstring Refined$r\n\n")
+    }
+    (0 until plainCount).foreach { p =>
+      val previous = if (p > 0) s"  previous: Plain${p - 1}\n" else ""
+      sb.append(
+        s"structure Plain$p {\n  name: String\n  count: Integer\n$previous}\n\n"
+      )
+    }
+    sb.result()
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import org.openjdk.jmh.annotations._
+import smithy4s.http.PathParams
+import smithy4s.http.PathSegment
+import smithy4s.http.PathSegment._
+import smithy4s.http.internals.PathMatcher
+import smithy4s.http.internals.PathTrie
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Compares the routing of request paths across services of increasing
+  * sizes, between a linear scan of the path templates (matching each of
+  * them in turn) and the prefix tree used by the http routers.
+  *
+  * Templates mix static segments, labels and greedy labels, and the routed
+  * paths are spread evenly across all operations.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class RoutingBenchmark {
+  import RoutingBenchmark._
+
+  @Param(Array("10", "100", "1000"))
+  var operations: Int = _
+
+  private var templates: Vector[(List[PathSegment], Int)] = _
+  private var matchers: Vector[(PathMatcher, Int)] = _
+  private var trie: PathTrie[Int] = _
+  private var paths: Array[IndexedSeq[String]] = _
+  private var index: Int = 0
+
+  @Setup
+  def setup(): Unit = {
+    templates = Vector.tabulate(operations)(i => template(i) -> i)
+    matchers = templates.map { case (segments, op) =>
+      PathMatcher(segments) -> op
+    }
+    trie = PathTrie(templates)
+    paths = Array.tabulate(operations)(path)
+  }
+
+  private def next(): IndexedSeq[String] = {
+    index = (index + 1) % paths.length
+    paths(index)
+  }
+
+  @Benchmark
+  def linearScan(): Option[(Int, PathParams)] = {
+    val path = next()
+    matchers.iterator
+      .map { case (matcher, op) => matcher.matches(path).map(op -> _) }
+      .collectFirst { case Some(matched) => matched }
+  }
+
+  @Benchmark
+  def prefixTree(): Option[(Int, PathParams)] =
+    trie.lookup(next())
+
+}
+
+object RoutingBenchmark {
+
+  // Operations are spread over resources, each of them exposing a few
+  // operations, in the way of a typical REST API.
+  private def template(op: Int): List[PathSegment] = {
+    val resource = StaticSegment(s"resource${op / 4}")
+    op % 4 match {
+      case 0 => List(resource)
+      case 1 => List(resource, LabelSegment("id"))
+      case 2 =>
+        List(resource, LabelSegment("id"), StaticSegment("items"), LabelSegment("item"))
+      case _ => List(resource, StaticSegment("files"), GreedySegment("path"))
+    }
+  }
+
+  private def path(op: Int): IndexedSeq[String] = {
+    val resource = s"resource${op / 4}"
+    op % 4 match {
+      case 0 => IndexedSeq(resource)
+      case 1 => IndexedSeq(resource, "1234")
+      case 2 => IndexedSeq(resource, "1234", "items", "5678")
+      case _ => IndexedSeq(resource, "files", "a", "b", "c.txt")
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import cats.effect.SyncIO
+import fs2.Stream
+import fs2.data.xml._
+import fs2.data.xml.dom._
+import org.openjdk.jmh.annotations._
+import smithy.api.XmlFlattened
+import smithy4s.Blob
+import smithy4s.schema.Schema
+import smithy4s.xml.Xml
+import smithy4s.xml.XmlDocument
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Compares the decoding of a listing shaped like an S3 `ListObjectsV2`
+  * response, either by parsing it into an `XmlDocument` first, or by
+  * consuming the XML events directly. Each listed object carries an `Owner`
+  * element that is absent from the schema, and gets skipped.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class XmlDecodingBenchmark {
+  import XmlDecodingBenchmark._
+
+  @Param(Array("100", "1000"))
+  var size: Int = _
+
+  private var payload: Blob = _
+  private val documentDecoder = XmlDocument.Decoder.fromSchema(Listing.schema)
+  private val eventDecoder = Xml.decoders.fromSchema(Listing.schema)
+
+  @Setup
+  def setup(): Unit = {
+    val contents = List.tabulate(size) { i =>
+      s"""|<Contents>
+          |  <Key>objects/$i</Key>
+          |  <Size>${i * 1024}</Size>
+          |  <ETag>&quot;etag-$i&quot;</ETag>
+          |  <StorageClass>STANDARD</StorageClass>
+          |  <Owner><ID>owner-id</ID><DisplayName>owner</DisplayName></Owner>
+          |</Contents>""".stripMargin
+    }
+    payload = Blob(
+      s"""|<ListBucketResult>
+          |  <Name>bucket</Name>
+          |  <KeyCount>$size</KeyCount>
+          |  <IsTruncated>false</IsTruncated>
+          |  ${contents.mkString("\n")}
+          |</ListBucketResult>""".stripMargin
+    )
+  }
+
+  @Benchmark
+  def documentDecoding(): Listing =
+    Stream
+      .emit(payload.toUTF8String)
+      .through(events[SyncIO, String]())
+      .through(referenceResolver())
+      .through(normalize)
+      .through(documents[SyncIO, XmlDocument])
+      .compile
+      .onlyOrError
+      .map(documentDecoder.decode(_).fold(e => throw e, identity))
+      .unsafeRunSync()
+
+  @Benchmark
+  def eventDecoding(): Listing =
+    eventDecoder.decode(payload).fold(e => throw e, identity)
+
+}
+
+object XmlDecodingBenchmark {
+
+  case class Entry(key: String, size: Long, eTag: String, storageClass: String)
+
+  object Entry {
+    val schema: Schema[Entry] = Schema.struct(
+      Schema.string.required[Entry]("Key", _.key),
+      Schema.long.required[Entry]("Size", _.size),
+      Schema.string.required[Entry]("ETag", _.eTag),
+      Schema.string.required[Entry]("StorageClass", _.storageClass)
+    )(Entry.apply)
+  }
+
+  case class Listing(
+      name: String,
+      keyCount: Int,
+      isTruncated: Boolean,
+      contents: List[Entry]
+  )
+
+  object Listing {
+    implicit val schema: Schema[Listing] = Schema
+      .struct(
+        Schema.string.required[Listing]("Name", _.name),
+        Schema.int.required[Listing]("KeyCount", _.keyCount),
+        Schema.boolean.required[Listing]("IsTruncated", _.isTruncated),
+        Schema
+          .list(Entry.schema)
+          .addHints(XmlFlattened())
+          .required[Listing]("Contents", _.contents)
+      )(Listing.apply)
+      .withId("smithy4s.benchmark", "ListBucketResult")
+  }
+
+}
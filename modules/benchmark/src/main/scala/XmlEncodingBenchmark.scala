@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.benchmark
+
+import fs2.data.xml.render
+import org.openjdk.jmh.annotations._
+import smithy4s.Blob
+import smithy4s.xml.Xml
+import smithy4s.xml.XmlDocument
+
+import java.util.concurrent.TimeUnit
+
+/**
+  * Compares the encoding of the listing of [[XmlDecodingBenchmark]], either
+  * by rendering an `XmlDocument` through fs2-data and the UTF-8 encoder of
+  * fs2, or by writing bytes directly.
+  */
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 20, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+class XmlEncodingBenchmark {
+  import XmlDecodingBenchmark._
+
+  @Param(Array("100", "1000"))
+  var size: Int = _
+
+  private var listing: Listing = _
+  private val documentEncoder = XmlDocument.Encoder.fromSchema(Listing.schema)
+  private val bytesEncoder = Xml.encoders.fromSchema(Listing.schema)
+
+  @Setup
+  def setup(): Unit = {
+    val entries = List.tabulate(size) { i =>
+      Entry(s"objects/$i", i * 1024L, s""""etag-$i"""", "STANDARD")
+    }
+    listing = Listing("bucket", size, isTruncated = false, entries)
+  }
+
+  @Benchmark
+  def documentEncoding(): Blob = Blob {
+    XmlDocument.documentEventifier
+      .eventify(documentEncoder.encode(listing))
+      .through(render.raw(collapseEmpty = false))
+      .through(fs2.text.utf8.encode[fs2.Pure])
+      .compile
+      .to(fs2.Collector.supportsArray(Array))
+  }
+
+  @Benchmark
+  def bytesEncoding(): Blob = bytesEncoder.encode(listing)
+
+}
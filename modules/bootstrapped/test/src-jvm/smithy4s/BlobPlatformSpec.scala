@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.GatheringByteChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import smithy4s.codecs.StringAndBlobCodecs
+
+class BlobPlatformSpec() extends munit.FunSuite {
+
+  // writes at most `maxBytes` per call, recording the number of buffers
+  private class RecordingChannel(maxBytes: Int) extends GatheringByteChannel {
+    val out = new ByteArrayOutputStream()
+    private val underlying = Channels.newChannel(out)
+    var gatheredBuffers: List[Int] = Nil
+
+    def write(srcs: Array[ByteBuffer], offset: Int, length: Int): Long = {
+      gatheredBuffers = gatheredBuffers :+ length
+      var written = 0L
+      var i = offset
+      while (i < offset + length && written < maxBytes) {
+        val src = srcs(i)
+        val n = math.min(src.remaining().toLong, maxBytes - written).toInt
+        val slice = src.duplicate()
+        slice.limit(slice.position() + n)
+        underlying.write(slice)
+        src.position(src.position() + n)
+        written += n
+        i += 1
+      }
+      written
+    }
+    def write(srcs: Array[ByteBuffer]): Long = write(srcs, 0, srcs.length)
+    def write(src: ByteBuffer): Int = write(Array(src)).toInt
+    def isOpen(): Boolean = true
+    def close(): Unit = ()
+  }
+
+  test("writeTo(channel) gathers the segments of concatenated blobs") {
+    val blob = Blob("foo") ++ Blob.direct(Blob("bar")) ++ Blob.empty ++
+      Blob.slice("xbazx".getBytes(), 1, 3)
+    val channel = new RecordingChannel(maxBytes = Int.MaxValue)
+    blob.writeTo(channel)
+    assertEquals(channel.out.toString(), "foobarbaz")
+    assertEquals(channel.gatheredBuffers, List(3))
+  }
+
+  test("writeTo(channel) resumes after partial writes") {
+    val blob = Blob("foo") ++ Blob("bar")
+    val channel = new RecordingChannel(maxBytes = 2)
+    blob.writeTo(channel)
+    assertEquals(channel.out.toString(), "foobar")
+    assertEquals(channel.gatheredBuffers.size, 3)
+  }
+
+  test("writeTo(channel) does not alter the blob") {
+    val buffer = ByteBuffer.wrap("foobar".getBytes())
+    val blob = Blob.view(buffer)
+    blob.writeTo(new RecordingChannel(maxBytes = 4))
+    assertEquals(buffer.position(), 0)
+    assertEquals(blob.toUTF8String, "foobar")
+  }
+
+  private def withTempFile(content: String)(f: Path => Unit): Unit = {
+    val path = Files.createTempFile("smithy4s-blob", ".bin")
+    try {
+      Files.write(path, content.getBytes())
+      f(path)
+    } finally Files.delete(path)
+  }
+
+  test("mapped blobs are loaded lazily") {
+    withTempFile("foobarbaz") { path =>
+      val blob = Blob.mapped(path)
+      assertEquals(blob.size, 9)
+      assert(!blob.isLoaded)
+      assertEquals(blob.toUTF8String, "foobarbaz")
+      assert(blob.isLoaded)
+      assertEquals(blob, Blob("foobarbaz"))
+    }
+  }
+
+  test("mapped blobs can be sliced, before or after being loaded") {
+    withTempFile("foobarbaz") { path =>
+      val blob = Blob.mapped(path)
+      val lazySlice = blob.slice(3, 3)
+      assert(!lazySlice.isLoaded)
+      assertEquals(lazySlice.toUTF8String, "bar")
+      assert(!blob.isLoaded)
+      blob.toArray
+      val loadedSlice = blob.slice(6, 3)
+      assert(loadedSlice.isLoaded)
+      assertEquals(loadedSlice.toUTF8String, "baz")
+      assertEquals(loadedSlice.position, 6L)
+    }
+  }
+
+  test("mapped blobs are mapped again after being released") {
+    withTempFile("foobar") { path =>
+      val blob = Blob.mapped(path)
+      assertEquals(blob(3), 'b'.toByte)
+      blob.release()
+      assert(!blob.isLoaded)
+      assertEquals((Blob("<") ++ blob).toUTF8String, "<foobar")
+    }
+  }
+
+  test("mapped blobs over a channel region") {
+    withTempFile("foobarbaz") { path =>
+      val channel = java.nio.channels.FileChannel.open(path)
+      try {
+        val blob = Blob.mapped(channel, 3, 3)
+        val out = new ByteArrayOutputStream()
+        blob.writeTo(out)
+        assertEquals(out.toString(), "bar")
+      } finally channel.close()
+    }
+  }
+
+  test("mapped blobs go through blob payload codecs as is") {
+    withTempFile("foobar") { path =>
+      val blob = Blob.mapped(path)
+      val encoder = StringAndBlobCodecs.encoders.fromSchema(Schema.bytes).get
+      val decoder = StringAndBlobCodecs.decoders.fromSchema(Schema.bytes).get
+      assert(encoder.encode(blob) eq blob)
+      assert(decoder.decode(blob).exists(_ eq blob))
+      assert(!blob.isLoaded)
+    }
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package smithy4s
+package schema
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import munit._
+import Schema._
+
+final class CompilationCachePlatformSpec extends FunSuite {
+
+  type Compiled[A] = String
+
+  case class Foo(int: Int)
+
+  def fooSchema: Schema[Foo] = struct(int.required[Foo]("int", _.int))(Foo(_))
+
+  test("bounded cache returns the first stored result to concurrent calls") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    val threads = 8
+    val started = new CountDownLatch(threads)
+    val pool = Executors.newFixedThreadPool(threads)
+    try {
+      val results = (0 until threads).map { i =>
+        pool.submit(new Callable[String] {
+          def call(): String = cache.getOrElseUpdate[Foo](
+            fooSchema,
+            _ => {
+              // every call compiles before any result gets stored
+              started.countDown()
+              started.await()
+              s"compiled-$i"
+            }
+          )
+        })
+      }
+      val compiled = results.map(_.get(10, TimeUnit.SECONDS)).toSet
+      expect.same(compiled.size, 1)
+      expect.same(compile(cache), compiled.head)
+      expect.same(cache.stats.misses, threads.toLong)
+    } finally pool.shutdown()
+  }
+
+  private def compile(cache: CompilationCache[Compiled]): String =
+    cache.getOrElseUpdate[Foo](fooSchema, _ => "late")
+
+}
@@ -99,8 +99,17 @@ class BlobSpec() extends ScalaCheckSuite {
 
   val all = List(
     "Queue" -> (Blob("foo") ++ Blob("bar")),
+    "Nested queue" -> (Blob("f") ++ (Blob("oo") ++ Blob("ba")) ++ Blob("r")),
     "Array" -> Blob("foobar"),
-    "Buffer" -> Blob(ByteBuffer.wrap("foobar".getBytes()))
+    "Array slice" -> Blob.slice("xxfoobarxx".getBytes(), 2, 6),
+    "Buffer" -> Blob(ByteBuffer.wrap("foobar".getBytes())),
+    "Buffer with position" -> {
+      val buffer = ByteBuffer.wrap("xxfoobarxx".getBytes())
+      buffer.position(2)
+      buffer.limit(8)
+      Blob(buffer)
+    },
+    "Direct buffer" -> Blob.direct(Blob("foobar"))
   )
 
   for {
@@ -154,6 +163,55 @@ class BlobSpec() extends ScalaCheckSuite {
         assert(stream.toByteArray().sameElements("foobar".getBytes()))
       }
     }
+
+    test(s"$name: toArray") {
+      assert(data.toArray.sameElements("foobar".getBytes()))
+    }
+
+    test(s"$name: foreach") {
+      val builder = Array.newBuilder[Byte]
+      data.foreach(builder += _)
+      assert(builder.result().sameElements("foobar".getBytes()))
+    }
+
+    test(s"$name: copyToArray, partial") {
+      val target = Array.fill[Byte](6)(0)
+      data.copyToArray(target, 1, 2, 3)
+      val expected = Array[Byte](0) ++ "oba".getBytes() ++ Array[Byte](0, 0)
+      assert(target.sameElements(expected))
+    }
+
+    test(s"$name: copyToBuffer, bounded by the target") {
+      val target = ByteBuffer.wrap(Array.fill[Byte](4)(0))
+      assertEquals(data.copyToBuffer(target, 1, 5), 4)
+      assert(target.array.sameElements("ooba".getBytes()))
+    }
+
+    test(s"$name: copyToStream, partial") {
+      Using.resource(new ByteArrayOutputStream()) { stream =>
+        data.copyToStream(stream, 2, 3)
+        assert(stream.toByteArray().sameElements("oba".getBytes()))
+      }
+    }
+
+    test(s"$name: writeTo") {
+      Using.resource(new ByteArrayOutputStream()) { stream =>
+        data.writeTo(stream)
+        assert(stream.toByteArray().sameElements("foobar".getBytes()))
+      }
+    }
+
+    test(s"$name: asByteBuffer") {
+      val buffer = data.asByteBuffer(1, 4)
+      val bytes = new Array[Byte](buffer.remaining())
+      buffer.get(bytes)
+      assert(bytes.sameElements("ooba".getBytes()))
+    }
+
+    test(s"$name: different bytes") {
+      assert(!data.sameBytesAs(Blob("foobaz")))
+      assert(!data.sameBytesAs(Blob("foo") ++ Blob("baz")))
+    }
   }
 
   test("asByteBufferUnsafe") {
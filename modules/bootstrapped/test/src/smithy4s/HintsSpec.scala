@@ -169,6 +169,45 @@ class HintsSpec() extends FunSuite {
     assertEquals(hints.get(Tags), Some(Tags(List("one", "two", "three"))))
   }
 
+  test("Later hints replace earlier ones with the same key") {
+    val hints = Hints(HttpHeader("X-First"), HttpLabel(), HttpHeader("X-Last"))
+    expect.same(hints.get(HttpHeader), Some(HttpHeader("X-Last")))
+    expect.same(hints.all.size, 2)
+  }
+
+  test("Lookups find hints among many others") {
+    val many = Hints.dynamic((0 until 200).map { i =>
+      s"smithy4s.test#hint$i" -> Document.fromString(i.toString)
+    }: _*)
+    val hints = many ++ Hints(HttpHeader("X-Foobar"))
+    expect.same(hints.get(HttpHeader), Some(HttpHeader("X-Foobar")))
+    expect.same(hints.get(HttpLabel), None)
+    expect.same(hints.all.size, 201)
+  }
+
+  test("Dynamic hint keys don't get slots assigned") {
+    val id = ShapeId("smithy4s.test", "dynamicOnly")
+    val hints = Hints.dynamic(id.show -> Document.fromString("value"))
+    val masked = HintMask(Set(id))(hints ++ Hints(HttpLabel()))
+    expect.same(internals.HintSlots.existingSlotOf(id), -1)
+    expect.same(masked.toMap.keySet, Set(id))
+    expect.same(masked.all.size, 1)
+  }
+
+  test("Static and dynamic hints with the same key replace each other") {
+    val staticHeader = HttpHeader("X-Static")
+    val static = Hints(staticHeader)
+    val dynamic = Hints.dynamic(
+      HttpHeader.id.show -> Document.fromString("X-Dynamic")
+    )
+    expect.same((dynamic ++ static).get(HttpHeader), Some(staticHeader))
+    expect.same(
+      (static ++ dynamic).get(HttpHeader),
+      Some(HttpHeader("X-Dynamic"))
+    )
+    expect.same((dynamic ++ static).all.size, 1)
+  }
+
   private def makeLazyHints(hints: => Hints): (Hints, () => Boolean) = {
     var evaled = false
 
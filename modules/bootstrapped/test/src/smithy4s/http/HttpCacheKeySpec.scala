@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package http
+
+import munit._
+import smithy.api
+import smithy4s.schema.Schema
+
+final class HttpCacheKeySpec extends FunSuite {
+
+  case class Foo(tenant: String, id: String)
+
+  private val schema: Schema[Foo] = Schema
+    .struct(
+      Schema.string
+        .required[Foo]("tenant", _.tenant)
+        .addHints(api.HttpHeader("X-Tenant")),
+      Schema.string.required[Foo]("id", _.id).addHints(api.HttpLabel())
+    )(Foo(_, _))
+
+  private val keyOf = HttpCacheKey(schema)
+
+  private def request(
+      path: IndexedSeq[String],
+      query: Map[String, Seq[String]],
+      headers: Map[CaseInsensitive, Seq[String]]
+  ): HttpRequest[Blob] = {
+    val uri = HttpUri(
+      HttpUriScheme.Https,
+      "example.com",
+      None,
+      path,
+      query,
+      None
+    )
+    HttpRequest(HttpMethod.GET, uri, headers, Blob.empty)
+  }
+
+  test("ignores headers that are not bound to the input") {
+    val tenant = CaseInsensitive("x-tenant") -> Seq("acme")
+    val first = request(
+      IndexedSeq("foo", "1"),
+      Map.empty,
+      Map(tenant, CaseInsensitive("User-Agent") -> Seq("curl"))
+    )
+    val second = request(IndexedSeq("foo", "1"), Map.empty, Map(tenant))
+    expect.same(keyOf(first), keyOf(second))
+  }
+
+  test("distinguishes input-bound headers and path segments") {
+    val path = IndexedSeq("foo", "1")
+    def tenant(name: String) = Map(CaseInsensitive("X-Tenant") -> Seq(name))
+    val acme = request(path, Map.empty, tenant("acme"))
+    val other = request(path, Map.empty, tenant("other"))
+    val joined = request(IndexedSeq("foo1"), Map.empty, Map.empty)
+    val split = request(IndexedSeq("foo", "1"), Map.empty, Map.empty)
+    expect(keyOf(acme) != keyOf(other))
+    expect(keyOf(joined) != keyOf(split))
+  }
+
+  test("distinguishes the identity of callers") {
+    val path = IndexedSeq("foo", "1")
+    def header(name: String, value: String) =
+      Map(CaseInsensitive(name) -> Seq(value))
+    val anonymous = request(path, Map.empty, Map.empty)
+    val alice = request(path, Map.empty, header("Authorization", "alice"))
+    val bob = request(path, Map.empty, header("authorization", "bob"))
+    val cookie = request(path, Map.empty, header("Cookie", "session=1"))
+    val keys = List(anonymous, alice, bob, cookie).map(keyOf)
+    expect.same(keys.distinct.size, 4)
+  }
+
+  test("does not depend on the order of query parameters") {
+    val path = IndexedSeq("foo")
+    val first = request(path, Map("a" -> Seq("1"), "b" -> Seq("2")), Map.empty)
+    val second = request(path, Map("b" -> Seq("2"), "a" -> Seq("1")), Map.empty)
+    expect.same(keyOf(first), keyOf(second))
+  }
+
+}
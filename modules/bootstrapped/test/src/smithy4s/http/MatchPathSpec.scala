@@ -128,4 +128,30 @@ class MatchPathSpec() extends munit.FunSuite with munit.ScalaCheckSuite {
     expect.eql(result, Some(expected))
   }
 
+  test("Allows for greedy labels followed by static segments") {
+    // /{bucket}/{key+}/tags
+    val path: List[PathSegment] =
+      List(
+        PathSegment.label("bucket"),
+        PathSegment.greedy("key"),
+        PathSegment.static("tags")
+      )
+
+    val result = doMatch(path)("photos", "2024", "cat.png", "tags")
+
+    val expected = Map("bucket" -> "photos", "key" -> "2024/cat.png")
+    expect.eql(result, Some(expected))
+    expect.eql(doMatch(path)("photos", "tags"), None)
+    expect.eql(doMatch(path)("photos", "2024", "tags", "extra"), None)
+  }
+
+  test("Splits raw paths into segments") {
+    expect.eql(matchPath.make(""), IndexedSeq.empty[String])
+    expect.eql(matchPath.make("/"), IndexedSeq.empty[String])
+    expect.eql(matchPath.make("/a/b"), IndexedSeq("a", "b"))
+    expect.eql(matchPath.make("a/b/"), IndexedSeq("a", "b"))
+    expect.eql(matchPath.make("/a//b/"), IndexedSeq("a", "", "b"))
+    expect.eql(matchPath.make("//"), IndexedSeq(""))
+  }
+
 }
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package http.internals
+
+import smithy4s.http.PathSegment
+import smithy4s.http.PathSegment._
+
+class PathTrieSpec() extends munit.FunSuite {
+
+  private def trie(templates: String*): PathTrie[String] =
+    PathTrie(templates.map { template =>
+      pathSegments(template).get.toList -> template
+    })
+
+  private def lookup(trie: PathTrie[String], path: String*) =
+    trie.lookup(path.toIndexedSeq)
+
+  test("matches static segments and labels") {
+    val routes = trie("/menu", "/menu/{restaurant}", "/orders/{id}/items")
+    expect.same(
+      lookup(routes, "menu"),
+      Some("/menu" -> Map.empty[String, String])
+    )
+    expect.same(
+      lookup(routes, "menu", "pizza-place"),
+      Some("/menu/{restaurant}" -> Map("restaurant" -> "pizza-place"))
+    )
+    expect.same(
+      lookup(routes, "orders", "42", "items"),
+      Some("/orders/{id}/items" -> Map("id" -> "42"))
+    )
+    expect.same(lookup(routes, "orders", "42"), None)
+    expect.same(lookup(routes), None)
+  }
+
+  test("prefers static segments over labels, and labels over greedy labels") {
+    val routes = trie("/files/{path+}", "/files/{name}", "/files/latest")
+    expect.same(
+      lookup(routes, "files", "latest").map(_._1),
+      Some("/files/latest")
+    )
+    expect.same(lookup(routes, "files", "a").map(_._1), Some("/files/{name}"))
+    expect.same(
+      lookup(routes, "files", "a", "b"),
+      Some("/files/{path+}" -> Map("path" -> "a/b"))
+    )
+  }
+
+  test("backtracks when a static branch does not match") {
+    val routes = trie("/a/b/d", "/a/{x}/c")
+    expect.same(
+      lookup(routes, "a", "b", "c"),
+      Some("/a/{x}/c" -> Map("x" -> "b"))
+    )
+  }
+
+  test("captures the labels preceding greedy labels") {
+    val routes = trie("/{bucket}/{key+}")
+    expect.same(
+      lookup(routes, "photos", "2024", "cat.png"),
+      Some(
+        "/{bucket}/{key+}" ->
+          Map("bucket" -> "photos", "key" -> "2024/cat.png")
+      )
+    )
+  }
+
+  test("matches static segments following greedy labels") {
+    val routes = trie("/{bucket}/{key+}/tags", "/{bucket}/{key+}")
+    expect.same(
+      lookup(routes, "photos", "2024", "cat.png", "tags"),
+      Some(
+        "/{bucket}/{key+}/tags" ->
+          Map("bucket" -> "photos", "key" -> "2024/cat.png")
+      )
+    )
+    expect.same(
+      lookup(routes, "photos", "2024", "cat.png").map(_._1),
+      Some("/{bucket}/{key+}")
+    )
+  }
+
+  test("resolves equally specific templates in insertion order") {
+    val routes = PathTrie(
+      List(
+        List[PathSegment](StaticSegment("a"), LabelSegment("x")) -> "first",
+        List[PathSegment](StaticSegment("a"), LabelSegment("y")) -> "second"
+      )
+    )
+    expect.same(
+      routes.lookup(IndexedSeq("a", "1")),
+      Some("first" -> Map("x" -> "1"))
+    )
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2021-2023 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.internals
+
+import munit._
+
+class StringInternerSpec() extends FunSuite {
+
+  test("equal strings are deduplicated") {
+    val interner = StringInterner()
+    val first = new String("eu-west-1")
+    val second = new String("eu-west-1")
+    assert(interner.intern(first) eq first)
+    assert(interner.intern(second) eq first)
+  }
+
+  test("strings longer than the max length are not retained") {
+    val interner = new StringInterner(capacity = 16, maxLength = 4)
+    val first = new String("abcde")
+    val second = new String("abcde")
+    assert(interner.intern(first) eq first)
+    assert(interner.intern(second) eq second)
+  }
+
+  test("the table is bounded by its capacity") {
+    val interner = new StringInterner(capacity = 2, maxLength = 128)
+    val strings = (0 until 1000).map(i => s"value-$i")
+    strings.foreach(interner.intern)
+    // All strings still round-trip, even though most of them were evicted.
+    strings.foreach { s => assertEquals(interner.intern(new String(s)), s) }
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package schema
+
+import munit._
+import Schema._
+
+final class CompilationCacheSpec extends FunSuite {
+
+  type Compiled[A] = String
+
+  case class Foo(int: Int)
+  case class Bar(int: Int)
+  case class Tree(children: List[Tree])
+  case class Nested[A](value: A)
+
+  // A new schema instance on every call, as a dynamic schema index would do
+  def fooSchema: Schema[Foo] = struct(int.required[Foo]("int", _.int))(Foo(_))
+
+  def treeSchema: Schema[Tree] = recursive {
+    struct(list(treeSchema).required[Tree]("children", _.children))(Tree(_))
+  }
+
+  def barSchema: Schema[Bar] = struct(int.required[Bar]("int", _.int))(Bar(_))
+
+  // Lazy schemas which targets all have the same placeholder id
+  def nested[A](schema: Schema[A]): Schema[Nested[A]] = recursive {
+    struct(recursive(schema).required[Nested[A]]("value", _.value))(Nested(_))
+  }
+
+  private def compile[A](
+      cache: CompilationCache[Compiled],
+      schema: Schema[A],
+      result: String
+  ): String = cache.getOrElseUpdate[A](schema, _ => result)
+
+  test("bounded cache shares entries across equal schema instances") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    expect.same(compile(cache, fooSchema, "first"), "first")
+    expect.same(compile(cache, fooSchema, "second"), "first")
+    expect.same(cache.stats, CompilationCache.Stats(1, 1, 0, 1))
+  }
+
+  test("bounded cache caches recursive schemas") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    expect.same(compile(cache, treeSchema, "first"), "first")
+    expect.same(compile(cache, treeSchema, "second"), "first")
+  }
+
+  test("bounded cache distinguishes lazy schemas sharing an id") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    expect.same(compile(cache, nested(fooSchema), "foo"), "foo")
+    expect.same(compile(cache, nested(barSchema), "bar"), "bar")
+    expect.same(compile(cache, nested(fooSchema), "foo-again"), "foo")
+  }
+
+  test("bounded cache finds nested schemas compiled within their parent") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    val foo = fooSchema
+    val foos = list(foo)
+    val compiled = cache.getOrElseUpdate[List[Foo]](
+      foos,
+      _ => compile(cache, foo, "foo") + "s"
+    )
+    expect.same(compiled, "foos")
+    expect.same(compile(cache, fooSchema, "foo-again"), "foo")
+    expect.same(compile(cache, list(fooSchema), "foos-again"), "foos")
+  }
+
+  test("bounded cache keeps the first stored result") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    val compiled = cache.getOrElseUpdate[Foo](
+      fooSchema,
+      _ => {
+        // stored while the outer compilation is running
+        compile(cache, fooSchema, "inner")
+        "outer"
+      }
+    )
+    expect.same(compiled, "inner")
+    expect.same(compile(cache, fooSchema, "again"), "inner")
+  }
+
+  test("bounded cache distinguishes schemas by their functions") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    val foo = bijection[Int, Foo](int, Foo(_), _.int)
+    val bar = bijection[Int, Bar](int, Bar(_), _.int)
+    expect.same(compile(cache, foo, "foo"), "foo")
+    expect.same(compile(cache, bar, "bar"), "bar")
+  }
+
+  test("bounded cache distinguishes schemas by their hints") {
+    val cache = CompilationCache.bounded[Compiled](10)
+    val documented = string.addHints(smithy.api.Documentation("doc"))
+    expect.same(compile(cache, string, "plain"), "plain")
+    expect.same(compile(cache, documented, "documented"), "documented")
+  }
+
+  test("bounded cache evicts the least recently used entries") {
+    val cache = CompilationCache.bounded[Compiled](2)
+    compile(cache, int, "int")
+    compile(cache, string, "string")
+    compile(cache, int, "int")
+    compile(cache, boolean, "boolean")
+    expect.same(compile(cache, int, "int-again"), "int")
+    expect.same(compile(cache, string, "string-again"), "string-again")
+    expect.same(cache.stats, CompilationCache.Stats(2, 4, 2, 2))
+  }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package server
+
+import munit._
+
+final class ResponseCacheSpec extends FunSuite {
+
+  private def store(ttlSeconds: Int, maxEntries: Int, clock: () => Long) =
+    ResponseCache.Store[String](Cacheable(ttlSeconds, maxEntries), clock)
+
+  test("counts hits and misses") {
+    val cache = store(60, 10, () => 0L)
+    val key = Blob("key")
+    expect.same(cache.get(key), None)
+    cache.put(key, "value")
+    expect.same(cache.get(Blob("key")), Some("value"))
+    expect.same(cache.stats, ResponseCache.Stats(1, 1, 0, 1))
+  }
+
+  test("evicts the least recently used entry") {
+    val cache = store(60, 2, () => 0L)
+    cache.put(Blob("a"), "a")
+    cache.put(Blob("b"), "b")
+    cache.get(Blob("a"))
+    cache.put(Blob("c"), "c")
+    expect.same(cache.get(Blob("b")), None)
+    expect.same(cache.get(Blob("a")), Some("a"))
+    expect.same(cache.stats.evictions, 1L)
+    expect.same(cache.stats.size, 2)
+  }
+
+  test("expires entries after their ttl") {
+    var now = 0L
+    val cache = store(1, 10, () => now)
+    cache.put(Blob("a"), "a")
+    now = 999999999L
+    expect.same(cache.get(Blob("a")), Some("a"))
+    now = 1000000000L
+    expect.same(cache.get(Blob("a")), None)
+    expect.same(cache.stats.size, 0)
+  }
+
+}
@@ -19,6 +19,7 @@ package smithy4s.codegen.internals
 import cats.~>
 
 import Type.Alias
+import Type.Deferred
 import Type.Nullable
 import Type.PrimitiveType
 import Type.ValidatedAlias
@@ -150,6 +151,7 @@ private[internals] object CollisionAvoidance {
         modNativeHint(refinementHint)
       )
     case Nullable(underlying) => Nullable(modType(underlying))
+    case Deferred(underlying) => Deferred(modType(underlying))
   }
 
   private def modField(field: Field): Field = {
@@ -298,6 +298,10 @@ private[internals] object Type {
       underlying: Type
   ) extends Type
 
+  case class Deferred(
+      underlying: Type
+  ) extends Type
+
   case class Map(
       key: Type,
       keyHints: List[Hint],
@@ -373,6 +377,19 @@ private[internals] object Hint {
   case object GenerateOptics extends Hint
   case class ScalaImports(imports: List[String]) extends Hint
   case object ValidateNewtype extends Hint
+  case object Interned extends Hint
+  case object UnboxedPrimitives extends Hint
+  case class DecodeLimits(maxElements: Option[Int], maxBytes: Option[Int])
+      extends Hint
+  case class Cacheable(ttlSeconds: Int, maxEntries: Int) extends Hint
+  case object SingleFlight extends Hint
+  case class BatchedBy(
+      operation: ShapeId,
+      inputMember: String,
+      outputMember: String,
+      maxBatchSize: Int,
+      maxDelayMillis: Int
+  ) extends Hint
 
   implicit val eq: Eq[Hint] = Eq.fromUniversalEquals
 }
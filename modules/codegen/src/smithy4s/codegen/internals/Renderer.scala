@@ -1467,6 +1467,7 @@ private[internals] class Renderer(compilationUnit: CompilationUnit) { self =>
           .map { providerImport => Import(providerImport).toLine }
           .getOrElse(Line.empty)}"
       case Nullable(underlying) => line"${underlying.schemaRef}.option"
+      case Type.Deferred(underlying) => line"${underlying.schemaRef}.deferred"
     }
 
     private def schemaRefP(primitive: Primitive): String = primitive match {
@@ -1509,7 +1510,28 @@ private[internals] class Renderer(compilationUnit: CompilationUnit) { self =>
 
   private def renderHint(hint: Hint): Option[Line] = hint match {
     case h: Hint.Native => renderNativeHint(h).some
-    case _              => None
+    case Hint.Interned  => line"${NameRef("smithy4s.Interned")}()".some
+    case Hint.UnboxedPrimitives =>
+      line"${NameRef("smithy4s.UnboxedPrimitives")}()".some
+    case Hint.DecodeLimits(maxElements, maxBytes) =>
+      val args = List(
+        maxElements.map(max => s"maxElements = Some($max)"),
+        maxBytes.map(max => s"maxBytes = Some($max)")
+      ).flatten.mkString(", ")
+      line"${NameRef("smithy4s.DecodeLimits")}($args)".some
+    case Hint.Cacheable(ttlSeconds, maxEntries) =>
+      line"${NameRef("smithy4s.Cacheable")}(ttlSeconds = $ttlSeconds, maxEntries = $maxEntries)".some
+    case Hint.SingleFlight => line"${NameRef("smithy4s.SingleFlight")}()".some
+    case Hint.BatchedBy(operation, inputMember, outputMember, maxBatchSize, maxDelayMillis) =>
+      val (ns, name) = (operation.getNamespace(), operation.getName())
+      val args = List(
+        s"""inputMember = "$inputMember"""",
+        s"""outputMember = "$outputMember"""",
+        s"maxBatchSize = $maxBatchSize",
+        s"maxDelayMillis = $maxDelayMillis"
+      ).mkString(", ")
+      line"""${NameRef("smithy4s.BatchedBy")}(operation = $ShapeId_("$ns", "$name"), $args)""".some
+    case _ => None
   }
 
   def renderId(shapeId: ShapeId): Line = {
@@ -21,15 +21,22 @@ import cats.data.NonEmptyList
 import cats.implicits._
 import smithy4s.meta.AdtMemberTrait
 import smithy4s.meta.AdtTrait
+import smithy4s.meta.BatchedByTrait
+import smithy4s.meta.CacheableTrait
+import smithy4s.meta.DecodeLimitsTrait
 import smithy4s.meta.ErrorMessageTrait
 import smithy4s.meta.GenerateOpticsTrait
 import smithy4s.meta.GenerateServiceProductTrait
 import smithy4s.meta.IndexedSeqTrait
+import smithy4s.meta.InternedTrait
+import smithy4s.meta.LazyMemberTrait
 import smithy4s.meta.NoStackTraceTrait
 import smithy4s.meta.PackedInputsTrait
 import smithy4s.meta.RefinementTrait
 import smithy4s.meta.ScalaImportsTrait
+import smithy4s.meta.SingleFlightTrait
 import smithy4s.meta.TypeclassTrait
+import smithy4s.meta.UnboxedPrimitivesTrait
 import smithy4s.meta.ValidateNewtypeTrait
 import smithy4s.meta.VectorTrait
 import software.amazon.smithy.aws.traits.ServiceTrait
@@ -697,7 +704,10 @@ private[codegen] class SmithyToIR(
               Type.Collection(CollectionType.Set, tpe, memberHints)
             } else if (_hints.contains(Hint.SpecializedList.Vector)) {
               Type.Collection(CollectionType.Vector, tpe, memberHints)
-            } else if (_hints.contains(Hint.SpecializedList.IndexedSeq)) {
+            } else if (
+              _hints.contains(Hint.SpecializedList.IndexedSeq) ||
+              _hints.contains(Hint.UnboxedPrimitives)
+            ) {
               Type.Collection(CollectionType.IndexedSeq, tpe, memberHints)
             } else {
               Type.Collection(CollectionType.List, tpe, memberHints)
@@ -958,6 +968,8 @@ private[codegen] class SmithyToIR(
       Hint.SpecializedList.Vector
     case _: IndexedSeqTrait =>
       Hint.SpecializedList.IndexedSeq
+    case _: UnboxedPrimitivesTrait =>
+      Hint.UnboxedPrimitives
     case _: UniqueItemsTrait =>
       Hint.UniqueItems
     case _: GenerateServiceProductTrait =>
@@ -968,6 +980,25 @@ private[codegen] class SmithyToIR(
       Hint.ScalaImports(s.getImports().asScala.toList)
     case _: ValidateNewtypeTrait =>
       Hint.ValidateNewtype
+    case _: InternedTrait =>
+      Hint.Interned
+    case d: DecodeLimitsTrait =>
+      Hint.DecodeLimits(
+        d.getMaxElements().asScala.map(_.intValue),
+        d.getMaxBytes().asScala.map(_.intValue)
+      )
+    case c: CacheableTrait =>
+      Hint.Cacheable(c.getTtlSeconds(), c.getMaxEntries())
+    case _: SingleFlightTrait =>
+      Hint.SingleFlight
+    case b: BatchedByTrait =>
+      Hint.BatchedBy(
+        b.getOperation(),
+        b.getInputMember(),
+        b.getOutputMember(),
+        b.getMaxBatchSize(),
+        b.getMaxDelayMillis()
+      )
     case t if t.toShapeId() == ShapeId.fromParts("smithy.api", "trait") =>
       Hint.Trait
     case ConstraintTrait(tr) => Hint.Constraint(toTypeRef(tr), unfoldTrait(tr))
@@ -1059,6 +1090,10 @@ private[codegen] class SmithyToIR(
 
     def tpe: Option[Type] = shape.accept(toType)
 
+    private def deferIfLazy(member: MemberShape, tpe: Type): Type =
+      if (member.hasTrait(classOf[LazyMemberTrait])) Type.Deferred(tpe)
+      else tpe
+
     private def fieldsInternal(hintsExtractor: Shape => List[Hint]) = {
       val noDefault =
         if (defaultRenderMode == DefaultRenderMode.NoDefaults)
@@ -1075,7 +1110,7 @@ private[codegen] class SmithyToIR(
             else List.empty
           val modifier = fieldModifier(member)
           (
-            member.getMemberName(),
+            member,
             member.tpe,
             modifier,
             hintsExtractor(member) ++ default ++ noDefault
@@ -1083,11 +1118,16 @@ private[codegen] class SmithyToIR(
         }
         .zipWithIndex
         .collect {
-          case ((name, Some(tpe: Type.ExternalType), modifier, hints), index) =>
+          case (
+                (member, Some(tpe: Type.ExternalType), modifier, hints),
+                index
+              ) =>
             val newHints = hints.filterNot(_ == tpe.refinementHint)
-            Field(name, tpe, modifier, index, newHints)
-          case ((name, Some(tpe), modifier, hints), index) =>
-            Field(name, tpe, modifier, index, hints)
+            val name = member.getMemberName()
+            Field(name, deferIfLazy(member, tpe), modifier, index, newHints)
+          case ((member, Some(tpe), modifier, hints), index) =>
+            val name = member.getMemberName()
+            Field(name, deferIfLazy(member, tpe), modifier, index, hints)
         }
         .toList
 
@@ -76,6 +76,10 @@ private[internals] object ToLine {
         NameRef("scala", "Option").copy(typeParams =
           List(typeToNameRef(underlying))
         )
+      case Type.Deferred(underlying) =>
+        NameRef("smithy4s", "Deferred").copy(typeParams =
+          List(typeToNameRef(underlying))
+        )
     }
   }
 
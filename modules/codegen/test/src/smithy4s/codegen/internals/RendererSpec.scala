@@ -686,4 +686,43 @@ final class RendererSpec extends munit.ScalaCheckSuite {
       )
     )
   }
+
+  test("lazyMember members are rendered as deferred values") {
+    val smithy = """
+                   |$version: "2"
+                   |
+                   |namespace smithy4s.example
+                   |
+                   |use smithy4s.meta#lazyMember
+                   |
+                   |structure Envelope {
+                   |  @required
+                   |  id: String
+                   |
+                   |  @lazyMember
+                   |  payload: Payload
+                   |}
+                   |
+                   |structure Payload {
+                   |  data: String
+                   |}
+                   |""".stripMargin
+
+    val contents = generateScalaCode(smithy).values
+
+    assert(
+      contents.exists(
+        _.contains(
+          "final case class Envelope(id: String, payload: Option[Deferred[Payload]] = None)"
+        )
+      )
+    )
+    assert(
+      contents.exists(
+        _.contains(
+          """Payload.schema.deferred.optional[Envelope]("payload", _.payload)"""
+        )
+      )
+    )
+  }
 }
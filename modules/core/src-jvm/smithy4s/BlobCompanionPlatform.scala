@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+private[smithy4s] trait BlobCompanionPlatform {
+
+  /**
+    * JVM platform only method
+    *
+    * Creates a blob over a region of a file. The region is memory-mapped
+    * (read-only) when the blob is first accessed, rather than being read onto
+    * the heap. The channel must be open at that point, and remain so until
+    * the blob is loaded.
+    *
+    * The http4s integration hands mapped blobs over without copying them
+    * when they are sent, but bodies it receives are still read onto the
+    * heap.
+    */
+  def mapped(
+      channel: FileChannel,
+      position: Long,
+      size: Int
+  ): Blob.MappedBlob = {
+    require(position >= 0 && size >= 0)
+    new Blob.MappedBlob(map(channel, _, _), position, size)
+  }
+
+  /**
+    * JVM platform only method
+    *
+    * Creates a blob over the whole content of a file, which must not exceed
+    * `Int.MaxValue` bytes. The file is opened every time a region gets
+    * mapped, and closed right after, as mappings remain valid once their
+    * channel is closed.
+    */
+  def mapped(path: Path): Blob.MappedBlob = {
+    val size = withChannel(path)(_.size())
+    require(size <= Int.MaxValue, s"$path is too large to be mapped in a blob")
+    new Blob.MappedBlob(
+      (position, size) => withChannel(path)(map(_, position, size)),
+      0L,
+      size.toInt
+    )
+  }
+
+  private def map(channel: FileChannel, position: Long, size: Int) =
+    channel.map(FileChannel.MapMode.READ_ONLY, position, size.toLong)
+
+  private def withChannel[A](path: Path)(f: FileChannel => A): A = {
+    val channel = FileChannel.open(path, StandardOpenOption.READ)
+    try f(channel)
+    finally channel.close()
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+import java.nio.ByteBuffer
+import java.nio.channels.GatheringByteChannel
+import scala.collection.mutable.ArrayBuffer
+
+private[smithy4s] trait BlobPlatform { self: Blob =>
+
+  /**
+    * JVM platform only method
+    *
+    * Writes the whole blob to a (blocking) channel. The segments of
+    * concatenated blobs are handed over to the channel in a single gathering
+    * write, without being flattened first.
+    */
+  def writeTo(channel: GatheringByteChannel): Unit = {
+    val buffers = ArrayBuffer.empty[ByteBuffer]
+    foreachSegment { segment =>
+      if (!segment.isEmpty) buffers += segment.asByteBuffer
+    }
+    val array = buffers.toArray
+    var remaining = size.toLong
+    while (remaining > 0) {
+      remaining -= channel.write(array)
+    }
+  }
+
+}
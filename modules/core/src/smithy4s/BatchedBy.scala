@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+/**
+  * Hint rendered for operations annotated with `smithy4s.meta#batchedBy`.
+  * It links an operation to a batch `operation` of the same service, which
+  * takes a list of inputs of the former under `inputMember`, and returns
+  * the list of the corresponding outputs, in the same order, under
+  * `outputMember`. Batching clients group the calls to the annotated
+  * operation until `maxBatchSize` of them are pending, or until
+  * `maxDelayMillis` elapsed since the first one.
+  */
+final case class BatchedBy(
+    operation: ShapeId,
+    inputMember: String,
+    outputMember: String,
+    maxBatchSize: Int,
+    maxDelayMillis: Int
+)
+
+object BatchedBy extends ShapeTag.Companion[BatchedBy] {
+
+  val id: ShapeId = ShapeId("smithy4s.meta", "batchedBy")
+
+  implicit val schema: Schema[BatchedBy] = Schema
+    .struct(
+      ShapeId.schema.required[BatchedBy]("operation", _.operation),
+      Schema.string.required[BatchedBy]("inputMember", _.inputMember),
+      Schema.string.required[BatchedBy]("outputMember", _.outputMember),
+      Schema.int.required[BatchedBy]("maxBatchSize", _.maxBatchSize),
+      Schema.int.required[BatchedBy]("maxDelayMillis", _.maxDelayMillis)
+    )(BatchedBy.apply)
+    .withId(id)
+
+}
@@ -28,7 +28,7 @@ import java.io.OutputStream
   *
   * Its underlying data structure enables several types of layouts, as well as efficient concatenation.
   */
-sealed trait Blob {
+sealed trait Blob extends BlobPlatform {
 
   def apply(i: Int): Byte
   def size: Int
@@ -49,23 +49,14 @@ sealed trait Blob {
 
   def toArray: Array[Byte] = {
     val result = Array.ofDim[Byte](size)
-    foreachWithIndex((b, i) => result(i) = b)
+    copyToArray(result, 0, 0, size)
     result
   }
 
   def toArrayUnsafe: Array[Byte] = toArray
 
-  def sameBytesAs(other: Blob): Boolean = {
-    size == other.size && {
-      var i = 0
-      var result = true
-      while (i < size && result) {
-        result = this(i) == other(i)
-        i += 1
-      }
-      result
-    }
-  }
+  def sameBytesAs(other: Blob): Boolean =
+    size == other.size && Blob.sameBytes(this, other)
 
   def asByteBuffer(offset: Int, size: Int): ByteBuffer = {
     val arr = new Array[Byte](size)
@@ -101,6 +92,18 @@ sealed trait Blob {
     }
   }
 
+  /**
+    * Writes the whole blob to an OutputStream. Concatenated blobs get written segment by segment, without being
+    * flattened first.
+    */
+  final def writeTo(outputStream: OutputStream): Unit = copyToStream(outputStream, 0, size)
+
+  /**
+    * Applies a function to the contiguous segments of this blob, in order : concatenated blobs are traversed, other
+    * layouts are their own single segment.
+    */
+  private[smithy4s] def foreachSegment(f: Blob => Unit): Unit = f(this)
+
   final def toBase64String: String = Base64.getEncoder().encodeToString(toArray)
   final def toUTF8String: String = new String(toArray, StandardCharsets.UTF_8)
 
@@ -129,7 +132,7 @@ sealed trait Blob {
 
 }
 
-object Blob {
+object Blob extends BlobCompanionPlatform {
 
   val empty: Blob = new Blob.ArraySliceBlob(Array.emptyByteArray, 0, 0)
 
@@ -141,22 +144,135 @@ object Blob {
   def view(buffer: ByteBuffer): Blob = new ByteBufferBlob(buffer)
   def queue(blobs: Queue[Blob], size: Int) = new QueueBlob(blobs, size)
 
+  /**
+    * Copies the content of a blob into a direct (off-heap) buffer. Such blobs can be handed over to NIO channels
+    * without the intermediate copies the JDK performs for heap buffers.
+    */
+  def direct(blob: Blob): Blob = {
+    val buffer = ByteBuffer.allocateDirect(blob.size)
+    blob.copyToBuffer(buffer, 0, blob.size)
+    buffer.flip()
+    new ByteBufferBlob(buffer)
+  }
+
+  // Compares blobs of the same size, by comparing ByteBuffer views of their contiguous segments.
+  private def sameBytes(left: Blob, right: Blob): Boolean = (left, right) match {
+    case (_: QueueBlob, _: QueueBlob) =>
+      sameBytes(left, right.toArraySliceBlob)
+    case (_, _: QueueBlob) =>
+      sameBytes(right, left)
+    case (queue: QueueBlob, _) =>
+      var position = 0
+      var result = true
+      queue.foreachSegment { segment =>
+        if (result) {
+          result = segment.asByteBufferUnsafe == right.asByteBufferUnsafe(position, segment.size)
+          position += segment.size
+        }
+      }
+      result
+    case _ =>
+      left.asByteBufferUnsafe == right.asByteBufferUnsafe
+  }
+
+  /**
+    * A blob over a region of a file, backed by a memory mapping that only gets established when the bytes are first
+    * accessed, and that is dropped by `release()`. The content of the file is read by the operating system as the
+    * pages are touched, rather than being copied onto the heap.
+    *
+    * Instances are created by the `Blob.mapped` constructors, which are only available on the JVM.
+    */
+  final class MappedBlob private[smithy4s] (
+      region: (Long, Int) => ByteBuffer,
+      val position: Long,
+      val size: Int
+  ) extends Blob {
+
+    @volatile private var mapping: ByteBufferBlob = null
+
+    private def underlying: ByteBufferBlob = {
+      val current = mapping
+      if (current != null) current
+      else
+        synchronized {
+          if (mapping == null) mapping = new ByteBufferBlob(region(position, size))
+          mapping
+        }
+    }
+
+    /** Whether the region is currently mapped. */
+    def isLoaded: Boolean = mapping != null
+
+    /**
+      * Drops the reference this blob holds to its mapping. The memory is unmapped by the JVM once the mapping (and
+      * any buffer or chunk obtained from it) becomes unreachable. The region gets mapped again if the blob is accessed
+      * after being released.
+      */
+    def release(): Unit = mapping = null
+
+    /**
+      * A blob over a sub-region of this one. If this blob is loaded, the slice shares its mapping, otherwise the slice
+      * maps its own (smaller) region lazily.
+      */
+    def slice(offset: Int, length: Int): MappedBlob = {
+      require(offset >= 0 && length >= 0 && offset + length <= size)
+      val result = new MappedBlob(region, position + offset, length)
+      val current = mapping
+      if (current != null) result.mapping = new ByteBufferBlob(current.asByteBufferUnsafe(offset, length))
+      result
+    }
+
+    def apply(i: Int): Byte = underlying(i)
+    def isEmpty: Boolean = size == 0
+
+    override def foreach(f: Byte => Unit): Unit = underlying.foreach(f)
+    override def foreachWithIndex(f: (Byte, Int) => Unit): Unit = underlying.foreachWithIndex(f)
+    override def toArray: Array[Byte] = underlying.toArray
+    override def copyToArray(xs: Array[Byte], start: Int, offset: Int, size: Int): Unit =
+      underlying.copyToArray(xs, start, offset, size)
+    override def copyToBuffer(buffer: ByteBuffer, offset: Int, size: Int): Int =
+      underlying.copyToBuffer(buffer, offset, size)
+    override def copyToStream(s: OutputStream, offset: Int, size: Int): Unit =
+      underlying.copyToStream(s, offset, size)
+    override def asByteBuffer(offset: Int, size: Int): ByteBuffer = underlying.asByteBuffer(offset, size)
+    override def asByteBufferUnsafe(offset: Int, size: Int): ByteBuffer = underlying.asByteBufferUnsafe(offset, size)
+    override def asByteBufferUnsafe: ByteBuffer = underlying.asByteBufferUnsafe
+
+    override def toString(): String = s"MappedBlob(..., $position, $size)"
+  }
+
   final class ByteBufferBlob private[smithy4s] (val buf: ByteBuffer) extends Blob {
-    def apply(i: Int) = buf.get(i.toInt)
+    // indexes are relative to the position of the buffer
+    def apply(i: Int) = {
+      if (i < 0 || i >= size) throw new IndexOutOfBoundsException()
+      buf.get(buf.position() + i)
+    }
+
+    override def foreach(f: Byte => Unit): Unit = {
+      var i = buf.position()
+      val end = buf.limit()
+      while (i < end) { f(buf.get(i)); i += 1 }
+    }
+
+    override def foreachWithIndex(f: (Byte, Int) => Unit): Unit = {
+      val start = buf.position()
+      var i = 0
+      while (i < size) { f(buf.get(start + i), i); i += 1 }
+    }
 
     override def toArraySliceBlob: ArraySliceBlob = if (buf.hasArray()) {
-      new ArraySliceBlob(buf.array, buf.arrayOffset, size)
+      new ArraySliceBlob(buf.array, buf.arrayOffset + buf.position(), size)
     } else super.toArraySliceBlob
 
     override def copyToArray(xs: Array[Byte], start: Int, offset: Int, size: Int): Unit = {
       val n = buf.duplicate()
-      n.position(offset.toInt)
+      n.position(n.position() + offset)
       n.get(xs, start, size)
       ()
     }
 
     override def toArray: Array[Byte] = {
-      val arr = Array.ofDim[Byte](buf.remaining())
+      val arr = Array.ofDim[Byte](size)
       copyToArray(arr, 0, 0, size)
       arr
     }
@@ -168,8 +284,9 @@ object Blob {
       val b = buf.duplicate()
       if (offset == 0 && b.position() == 0 && size == b.remaining()) b
       else {
-        b.position(offset.toInt)
-        b.limit(offset.toInt + size)
+        val start = b.position() + offset
+        b.limit(start + size)
+        b.position(start)
         b.slice()
       }
     }
@@ -178,10 +295,23 @@ object Blob {
 
     override def copyToBuffer(buffer: ByteBuffer, offset: Int, size: Int): Int = {
       val toCopy = buffer.remaining.min(size)
-      buffer.put(asByteBuffer(offset, toCopy))
+      buffer.put(asByteBufferUnsafe(offset, toCopy))
       toCopy
     }
 
+    override def copyToStream(s: OutputStream, offset: Int, size: Int): Unit =
+      if (buf.hasArray()) s.write(buf.array, buf.arrayOffset + buf.position() + offset, size)
+      else {
+        // direct buffers get written through a bounded intermediate array
+        val chunk = new Array[Byte](math.min(size, 8192))
+        val n = asByteBufferUnsafe(offset, size)
+        while (n.hasRemaining()) {
+          val length = math.min(chunk.length, n.remaining())
+          n.get(chunk, 0, length)
+          s.write(chunk, 0, length)
+        }
+      }
+
     override def toString = s"ByteBufferBlob(...)"
     override def isEmpty: Boolean = !buf.hasRemaining()
     override def size: Int = buf.remaining()
@@ -205,14 +335,41 @@ object Blob {
     def size: Int = length
     def isEmpty: Boolean = (length == 0)
 
-    override def toArray: Array[Byte] = {
-      val result = Array.ofDim[Byte](length)
-      arr.copyToArray(result, offset, length)
-      result
+    override def foreach(f: Byte => Unit): Unit = {
+      var i = offset
+      val end = offset + length
+      while (i < end) { f(arr(i)); i += 1 }
+    }
+
+    override def foreachWithIndex(f: (Byte, Int) => Unit): Unit = {
+      var i = 0
+      while (i < length) { f(arr(offset + i), i); i += 1 }
     }
 
+    override def toArray: Array[Byte] = java.util.Arrays.copyOfRange(arr, offset, offset + length)
+
     override def toArrayUnsafe: Array[Byte] = if (arr.length == length && offset == 0) arr else toArray
 
+    override def copyToArray(xs: Array[Byte], start: Int, offset: Int, size: Int): Unit =
+      System.arraycopy(arr, this.offset + offset, xs, start, size)
+
+    override def copyToBuffer(buffer: ByteBuffer, offset: Int, size: Int): Int = {
+      val toCopy = buffer.remaining.min(size)
+      buffer.put(arr, this.offset + offset, toCopy)
+      toCopy
+    }
+
+    override def copyToStream(s: OutputStream, offset: Int, size: Int): Unit =
+      s.write(arr, this.offset + offset, size)
+
+    override def asByteBuffer(offset: Int, size: Int): ByteBuffer =
+      asByteBufferUnsafe(offset, size).asReadOnlyBuffer()
+
+    override def asByteBufferUnsafe(offset: Int, size: Int): ByteBuffer =
+      ByteBuffer.wrap(arr, this.offset + offset, size).slice()
+
+    override def asByteBufferUnsafe: ByteBuffer = asByteBufferUnsafe(0, length)
+
     override def toString(): String = s"ArraySliceBlob(..., $offset, $length)"
 
   }
@@ -244,6 +401,47 @@ object Blob {
     }
     def isEmpty: Boolean = size == 0
 
+    override private[smithy4s] def foreachSegment(f: Blob => Unit): Unit =
+      blobs.foreach(_.foreachSegment(f))
+
+    // Applies `f` to the segments overlapping the range, along with the offset and size of the overlap within the
+    // segment, and the position of the overlap within the range. Stops when `f` returns false.
+    private def foreachOverlap(offset: Int, size: Int)(f: (Blob, Int, Int, Int) => Boolean): Unit = {
+      var segmentStart = 0
+      var more = true
+      val end = offset + size
+      foreachSegment { segment =>
+        val segmentEnd = segmentStart + segment.size
+        if (more && segmentEnd > offset && segmentStart < end) {
+          val from = math.max(offset, segmentStart)
+          val to = math.min(end, segmentEnd)
+          more = f(segment, from - segmentStart, to - from, from - offset)
+        }
+        segmentStart = segmentEnd
+      }
+    }
+
+    override def copyToArray(xs: Array[Byte], start: Int, offset: Int, size: Int): Unit =
+      foreachOverlap(offset, size) { (segment, segmentOffset, length, position) =>
+        segment.copyToArray(xs, start + position, segmentOffset, length)
+        true
+      }
+
+    override def copyToBuffer(buffer: ByteBuffer, offset: Int, size: Int): Int = {
+      var copied = 0
+      foreachOverlap(offset, size) { (segment, segmentOffset, length, _) =>
+        copied += segment.copyToBuffer(buffer, segmentOffset, length)
+        buffer.hasRemaining()
+      }
+      copied
+    }
+
+    override def copyToStream(s: OutputStream, offset: Int, size: Int): Unit =
+      foreachOverlap(offset, size) { (segment, segmentOffset, length, _) =>
+        segment.copyToStream(s, segmentOffset, length)
+        true
+      }
+
     override def toString(): String = s"QueueBlob(..., $size)"
   }
 
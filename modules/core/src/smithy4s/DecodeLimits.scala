@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+import smithy4s.schema.Primitive
+
+/**
+  * Hint rendered for shapes annotated with `smithy4s.meta#decodeLimits`.
+  * Decoders enforce these limits while reading payloads, and fail as soon as
+  * one of them is exceeded:
+  *
+  *   - `maxElements` bounds the number of elements of a list or map, taking
+  *     precedence over the global `maxArity` of the codecs.
+  *   - `maxBytes` bounds the size of a blob, or the UTF-8 encoded size of a
+  *     string.
+  */
+final case class DecodeLimits(
+    maxElements: Option[Int] = None,
+    maxBytes: Option[Int] = None
+)
+
+object DecodeLimits extends ShapeTag.Companion[DecodeLimits] {
+
+  val id: ShapeId = ShapeId("smithy4s.meta", "decodeLimits")
+
+  implicit val schema: Schema[DecodeLimits] = Schema
+    .struct(
+      Schema.int.optional[DecodeLimits]("maxElements", _.maxElements),
+      Schema.int.optional[DecodeLimits]("maxBytes", _.maxBytes)
+    )(DecodeLimits.apply)
+    .withId(id)
+
+  /**
+    * The maximum number of elements allowed for a collection carrying the
+    * given hints, falling back to the codec-wide default.
+    */
+  private[smithy4s] def maxElements(hints: Hints, default: Int): Int =
+    hints.get(DecodeLimits).flatMap(_.maxElements).getOrElse(default)
+
+  private[smithy4s] def maxBytes(hints: Hints): Option[Int] =
+    hints.get(DecodeLimits).flatMap(_.maxBytes)
+
+  /**
+    * Checks a decoded string or blob against the `maxBytes` limit, for the
+    * decoders that can only check sizes once the value is extracted.
+    */
+  private[smithy4s] def checkBytes[P](tag: Primitive[P], maxBytes: Int)(
+      value: P
+  ): Either[ConstraintError, P] = {
+    val exceeds = (tag, value) match {
+      case (Primitive.PString, s: String) => exceedsUtf8Bytes(s, maxBytes)
+      case (Primitive.PBlob, blob: Blob)  => blob.size > maxBytes
+      case _                              => false
+    }
+    if (exceeds)
+      Left(
+        ConstraintError(
+          DecodeLimits(maxBytes = Some(maxBytes)),
+          s"Input exceeded max size of $maxBytes bytes"
+        )
+      )
+    else Right(value)
+  }
+
+  /**
+    * Whether the UTF-8 encoding of `s` is larger than `max` bytes, computed
+    * without encoding the string. Every UTF-16 code unit encodes to one to
+    * three bytes, which settles most cases without iterating.
+    */
+  private[smithy4s] def exceedsUtf8Bytes(s: String, max: Int): Boolean = {
+    val length = s.length
+    if (length > max) true
+    else if (length.toLong * 3 <= max) false
+    else {
+      var bytes = 0L
+      var i = 0
+      while (i < length) {
+        val c = s.charAt(i)
+        if (c < 0x80) bytes += 1
+        else if (c < 0x800) bytes += 2
+        else if (Character.isHighSurrogate(c)) {
+          // a surrogate pair encodes to four bytes
+          bytes += 4
+          i += 1
+        } else bytes += 3
+        i += 1
+      }
+      bytes > max
+    }
+  }
+
+}
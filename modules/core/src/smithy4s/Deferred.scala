@@ -0,0 +1,144 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+/**
+ * A value whose decoding may be deferred until it is first accessed.
+ *
+ * Decoders that support it capture the raw bytes of the value rather than
+ * decoding it, and only decode them (once) when `value` is first called.
+ * Because the value is immutable, encoders of the same format can copy the
+ * captured bytes verbatim instead of serialising the value again.
+ *
+ * Decoding failures surface when `value` is called, in the form of the
+ * exception thrown by the underlying decoder.
+ */
+sealed abstract class Deferred[A] {
+  def value: A
+
+  /**
+   * Whether the value has been decoded (or was never encoded in the first
+   * place).
+   */
+  def isEvaluated: Boolean
+
+  private[smithy4s] def raw(format: Deferred.Format): Option[Blob]
+
+  // the captured bytes, if any, whatever their format
+  private[smithy4s] def bytes: Option[Blob]
+
+  /**
+   * The value, or the failure to decode it. Used by `equals` and `hashCode`,
+   * which must not throw.
+   */
+  private[smithy4s] def attempt: Either[Throwable, A]
+
+  /**
+   * Deferred values are compared by their values, which gets them decoded.
+   * Values that cannot be decoded are only equal to values captured from the
+   * same bytes.
+   */
+  final override def equals(other: Any): Boolean = other match {
+    case d: Deferred[_] =>
+      (this.attempt, d.attempt) match {
+        case (Right(a), Right(b)) => a == b
+        case (Left(_), Left(_))   => this.bytes == d.bytes
+        case _                    => false
+      }
+    case _ => false
+  }
+
+  final override def hashCode(): Int = attempt match {
+    case Right(a) => a.##
+    case Left(_)  => bytes.##
+  }
+}
+
+object Deferred {
+
+  def apply[A](a: A): Deferred[A] = new Evaluated(a)
+
+  def fromBlob[A](format: Format, bytes: Blob)(decode: Blob => A): Deferred[A] =
+    new Captured(format, bytes, decode)
+
+  /**
+   * Identifies the format of the bytes captured by a deferred value, so that
+   * they only get copied verbatim by encoders of that same format. Formats
+   * are equal when they have the same name and `settings`, which hold the
+   * configuration that affects how values are encoded and which bytes get
+   * accepted : codecs built separately out of the same configuration
+   * recognise each other's bytes.
+   */
+  final class Format private[smithy4s] (val name: String, settings: Any) {
+    override def equals(other: Any): Boolean = other match {
+      case that: Format => name == that.name && settings == that.settings
+      case _            => false
+    }
+    override def hashCode(): Int = (name, settings).##
+    override def toString(): String = name
+  }
+
+  private final class Evaluated[A](val value: A) extends Deferred[A] {
+    def isEvaluated: Boolean = true
+    private[smithy4s] def raw(format: Format): Option[Blob] = None
+    private[smithy4s] def attempt: Either[Throwable, A] = Right(value)
+    private[smithy4s] def bytes: Option[Blob] = None
+    override def toString(): String = s"Deferred($value)"
+  }
+
+  private final class Captured[A](
+      format: Format,
+      captured: Blob,
+      decode: Blob => A
+  ) extends Deferred[A] {
+    @volatile private[this] var evaluated: Boolean = false
+
+    lazy val value: A = {
+      val result = decode(captured)
+      evaluated = true
+      result
+    }
+
+    def isEvaluated: Boolean = evaluated
+
+    private[smithy4s] def raw(f: Format): Option[Blob] =
+      if (f == format) Some(captured) else None
+
+    private[smithy4s] def attempt: Either[Throwable, A] =
+      try Right(value)
+      catch { case scala.util.control.NonFatal(e) => Left(e) }
+
+    private[smithy4s] def bytes: Option[Blob] = Some(captured)
+
+    override def toString(): String =
+      if (evaluated) s"Deferred($value)"
+      else s"Deferred(<${captured.size} bytes of $format>)"
+  }
+
+  private[smithy4s] def schema[A](schemaA: Schema[A]): Schema[Deferred[A]] =
+    schemaA.biject(new SchemaBijection[A])
+
+  /**
+   * The bijection used by deferred schemas, which codecs can match on to
+   * provide a deferred implementation. Other codecs decode eagerly.
+   */
+  private[smithy4s] final class SchemaBijection[A]
+      extends Bijection[A, Deferred[A]] {
+    def to(a: A): Deferred[A] = Deferred(a)
+    def from(d: Deferred[A]): A = d.value
+  }
+}
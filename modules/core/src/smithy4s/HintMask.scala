@@ -41,16 +41,33 @@ object HintMask {
   }
 
   private[this] final class Impl(val shapeIds: Set[ShapeId]) extends HintMask {
+    // A bitset of the slots of the allowed ids, see `ShapeId.slot`
+    private[this] val slots: Array[Long] = {
+      val ids = shapeIds.map(_.slot) - internals.HintSlots.NoSlot
+      val bits = new Array[Long](if (ids.isEmpty) 0 else (ids.max >>> 6) + 1)
+      ids.foreach(slot => bits(slot >>> 6) |= 1L << (slot & 63))
+      bits
+    }
+
     def ++(other: HintMask): HintMask = other match {
       case i: Impl    => new Impl(shapeIds ++ i.shapeIds)
       case Permissive => Permissive
     }
 
-    def apply(hints: Hints): Hints = {
-      val hintsToKeep =
-        hints.all.filter(h => shapeIds.contains(h.keyId)).toSeq
-      Hints(hintsToKeep: _*)
+    def apply(hints: Hints): Hints = hints match {
+      case indexed: Hints.Indexed => indexed.mask(slots, shapeIds)
+      case _ =>
+        val hintsToKeep =
+          hints.all.filter(h => shapeIds.contains(h.keyId)).toSeq
+        Hints(hintsToKeep: _*)
     }
+
+    override def equals(other: Any): Boolean = other match {
+      case that: Impl => shapeIds == that.shapeIds
+      case _          => false
+    }
+
+    override def hashCode(): Int = shapeIds.hashCode()
   }
 
 }
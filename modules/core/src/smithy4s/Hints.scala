@@ -16,6 +16,8 @@
 
 package smithy4s
 
+import smithy4s.internals.HintSlots
+
 /**
   * A hint is an arbitrary piece of data that can be added to a schema,
   * at the struct level, or at the field/member level.
@@ -26,9 +28,13 @@ package smithy4s
   *
   * This `Hints` interface is a container for hints.
   *
-  * Under the hood, the hints are composed of two maps : one for member-level hints,
+  * Under the hood, the hints are composed of two levels : one for member-level hints,
   * one for target-level hints. Member-level hints typically hold values corresponding
   * to member traits, whereas target hints hold values corresponding to normal data shapes.
+  *
+  * Each level is stored as a small array of bindings, indexed by the slot that
+  * their key ids get assigned process-wide, so that typed lookups compare
+  * integers rather than hashing shape ids.
   */
 trait Hints {
   def isEmpty: Boolean
@@ -112,7 +118,7 @@ trait Hints {
 
 object Hints {
 
-  val empty: Hints = new Impl(Map.empty, Map.empty)
+  val empty: Hints = new Indexed(Level.empty, Level.empty)
 
   def apply(bindings: Hint*): Hints =
     fromSeq(bindings)
@@ -132,47 +138,51 @@ object Hints {
   }
 
   def member(bindings: Hint*): Hints =
-    Impl(memberHintsMap = mapFromSeq(bindings), targetHintsMap = Map.empty)
+    new Indexed(Level.fromSeq(bindings), Level.empty)
 
   def fromSeq(bindings: Seq[Hint]): Hints =
-    Impl(memberHintsMap = Map.empty, targetHintsMap = mapFromSeq(bindings))
-
-  private def mapFromSeq(bindings: Seq[Hint]): Map[ShapeId, Hint] = {
-    bindings.map {
-      case b @ Binding.StaticBinding(k, _)  => k.id -> b
-      case b @ Binding.DynamicBinding(k, _) => k -> b
-    }.toMap
-  }
+    new Indexed(Level.empty, Level.fromSeq(bindings))
 
-  private[smithy4s] final case class Impl(
-      memberHintsMap: Map[ShapeId, Hint],
-      targetHintsMap: Map[ShapeId, Hint]
+  private[smithy4s] final class Indexed(
+      private[smithy4s] val member: Level,
+      private[smithy4s] val target: Level
   ) extends Hints {
-    val toMap = targetHintsMap ++ memberHintsMap
-    def isEmpty = toMap.isEmpty
-    def all: Iterable[Hint] = toMap.values
-    def get[A](implicit key: ShapeTag[A]): Option[A] =
-      toMap.get(key.id).flatMap {
+    // both levels, the member-level overriding the target-level
+    private[smithy4s] lazy val merged: Level = target ++ member
+
+    def isEmpty: Boolean = member.isEmpty && target.isEmpty
+    def all: Iterable[Hint] = merged.bindings
+    def memberHintsMap: Map[ShapeId, Hint] = member.toMap
+    def targetHintsMap: Map[ShapeId, Hint] = target.toMap
+    def toMap: Map[ShapeId, Hint] = merged.toMap
+
+    def get[A](implicit key: ShapeTag[A]): Option[A] = {
+      val id = key.id
+      val fromMember = member.find(id, id.slot)
+      val binding =
+        if (fromMember != null) fromMember else target.find(id, id.slot)
+      binding match {
+        case null => None
         case Binding.StaticBinding(k, value) =>
           if (key.eq(k)) Some(value.asInstanceOf[A]) else None
         case Binding.DynamicBinding(_, value) =>
           Document.Decoder.fromSchema(key.schema).decode(value).toOption
       }
+    }
+
     def ++(other: Hints): Hints = concat(this, other)
 
-    def targetHints: Hints = Impl(Map.empty, targetHintsMap)
-    def memberHints: Hints = Impl(memberHintsMap, Map.empty)
+    def targetHints: Hints = new Indexed(Level.empty, target)
+    def memberHints: Hints = new Indexed(member, Level.empty)
     def addMemberHints(hints: Hints): Hints =
-      Impl(
-        memberHintsMap = memberHintsMap ++ hints.toMap,
-        targetHintsMap = targetHintsMap
-      )
-
+      new Indexed(member ++ Level.ofAll(hints), target)
     def addTargetHints(hints: Hints): Hints =
-      Impl(
-        memberHintsMap = memberHintsMap,
-        targetHintsMap = targetHintsMap ++ hints.toMap
-      )
+      new Indexed(member, target ++ Level.ofAll(hints))
+
+    // Keeps the hints whose slots are set in `slots`, or whose ids are in
+    // `ids` when they have no slot, as target-level hints.
+    private[smithy4s] def mask(slots: Array[Long], ids: Set[ShapeId]): Hints =
+      new Indexed(Level.empty, merged.filter(slots, ids))
 
     override def toString(): String =
       s"Hints(${all.mkString(", ")})"
@@ -185,6 +195,119 @@ object Hints {
     override def hashCode(): Int = toMap.hashCode()
   }
 
+  /**
+    * The bindings of one level of hints, in insertion order, along with the
+    * slots of their keys. Levels typically hold a handful of bindings, so
+    * lookups scan the slots linearly. `summary` has the bit `slot % 64` set
+    * for every slotted binding, which answers most negative lookups without
+    * scanning. Bindings without slots (see `HintSlots`) are found by id.
+    */
+  private[smithy4s] final class Level private (
+      private val slots: Array[Int],
+      private val values: Array[Hint],
+      private val summary: Long,
+      private val unslotted: Boolean
+  ) {
+    def isEmpty: Boolean = slots.length == 0
+
+    lazy val bindings: Iterable[Hint] = values.toVector
+
+    lazy val toMap: Map[ShapeId, Hint] = {
+      val builder = Map.newBuilder[ShapeId, Hint]
+      values.foreach(binding => builder += binding.keyId -> binding)
+      builder.result()
+    }
+
+    // Returns null if there's no binding for that id.
+    def find(id: ShapeId, slot: Int): Hint = {
+      val bySlot =
+        if (slot == HintSlots.NoSlot) -1
+        else if ((summary & (1L << (slot & 63))) == 0L) -1
+        else indexWhere(slots(_) == slot)
+      val index =
+        if (bySlot >= 0 || !unslotted) bySlot
+        else
+          indexWhere(i =>
+            slots(i) == HintSlots.NoSlot && values(i).keyId == id
+          )
+      if (index >= 0) values(index) else null
+    }
+
+    private def indexWhere(p: Int => Boolean): Int = {
+      var i = 0
+      while (i < slots.length && !p(i)) i += 1
+      if (i < slots.length) i else -1
+    }
+
+    // Bindings of `other` replace the ones of this level with the same key.
+    def ++(other: Level): Level =
+      if (other.isEmpty) this
+      else if (isEmpty) other
+      else Level.fromArray(values ++ other.values)
+
+    def filter(keep: Array[Long], ids: Set[ShapeId]): Level = {
+      def kept(i: Int): Boolean = {
+        val slot = slots(i)
+        if (slot == HintSlots.NoSlot) ids.contains(values(i).keyId)
+        else {
+          val word = slot >>> 6
+          word < keep.length && (keep(word) & (1L << (slot & 63))) != 0L
+        }
+      }
+      Level.fromArray(values.indices.filter(kept).map(values(_)).toArray)
+    }
+  }
+
+  private[smithy4s] object Level {
+    val empty: Level =
+      new Level(Array.emptyIntArray, Array.empty[Hint], 0L, false)
+
+    def fromSeq(bindings: Seq[Hint]): Level = fromArray(bindings.toArray)
+
+    def fromMap(bindings: Map[ShapeId, Hint]): Level =
+      fromArray(bindings.values.toArray)
+
+    // Later bindings replace earlier ones with the same key, in place.
+    def fromArray(bindings: Array[Hint]): Level =
+      if (bindings.isEmpty) empty
+      else {
+        val slots = new Array[Int](bindings.length)
+        val values = new Array[Hint](bindings.length)
+        var size = 0
+        var summary = 0L
+        var unslotted = false
+        bindings.foreach { binding =>
+          val slot = slotOf(binding)
+          def sameKey(i: Int): Boolean =
+            if (slot != HintSlots.NoSlot && slots(i) != HintSlots.NoSlot)
+              slots(i) == slot
+            else values(i).keyId == binding.keyId
+          var i = 0
+          while (i < size && !sameKey(i)) i += 1
+          if (i == size) size += 1
+          slots(i) = slot
+          values(i) = binding
+          if (slot == HintSlots.NoSlot) unslotted = true
+          else summary |= 1L << (slot & 63)
+        }
+        if (size == slots.length) new Level(slots, values, summary, unslotted)
+        else
+          new Level(slots.take(size), values.take(size), summary, unslotted)
+      }
+
+    // Dynamic keys don't get slots assigned, see `HintSlots`.
+    private def slotOf(binding: Hint): Int = binding match {
+      case Binding.StaticBinding(key, _) => key.id.slot
+      case Binding.DynamicBinding(id, _) => HintSlots.existingSlotOf(id)
+    }
+
+    // All the bindings of some hints, regardless of their level.
+    def ofAll(hints: Hints): Level = hints match {
+      case indexed: Indexed => indexed.merged
+      case other            => fromMap(other.toMap)
+    }
+  }
+
   private[smithy4s] final case class LazyHints(underlying: Lazy[Hints])
       extends Hints {
     override def isEmpty: Boolean = underlying.value.isEmpty
@@ -224,10 +347,12 @@ object Hints {
       LazyHints(Lazy(lazyA.value ++ lazyB.value))
     case (LazyHints(lazyA), _) => LazyHints(Lazy(lazyA.value ++ rhs))
     case (_, LazyHints(lazyB)) => LazyHints(Lazy(lhs ++ lazyB.value))
+    case (a: Indexed, b: Indexed) =>
+      new Indexed(a.member ++ b.member, a.target ++ b.target)
     case _ => {
-      Impl(
-        memberHintsMap = lhs.memberHintsMap ++ rhs.memberHintsMap,
-        targetHintsMap = lhs.targetHintsMap ++ rhs.targetHintsMap
+      new Indexed(
+        Level.fromMap(lhs.memberHintsMap ++ rhs.memberHintsMap),
+        Level.fromMap(lhs.targetHintsMap ++ rhs.targetHintsMap)
       )
     }
   }
@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package smithy4s
+
+/**
+  * Hint rendered for string shapes annotated with `smithy4s.meta#interned`.
+  * It instructs decoders to deduplicate the strings they decode for these
+  * shapes through a bounded intern table, so that values repeated throughout
+  * a payload share a single instance once decoded.
+  */
+final case class Interned()
+
+object Interned extends ShapeTag.Companion[Interned] {
+
+  val id: ShapeId = ShapeId("smithy4s.meta", "interned")
+
+  implicit val schema: Schema[Interned] =
+    Schema.constant(Interned()).withId(id)
+
+}
@@ -23,6 +23,9 @@ final case class ShapeId(namespace: String, name: String) extends HasId {
   def withMember(member: String): ShapeId.Member = ShapeId.Member(this, member)
   override def toString = show
   override def id: ShapeId = this
+
+  // The slot of this id when used as a hint key.
+  private[smithy4s] lazy val slot: Int = internals.HintSlots.slotOf(this)
 }
 
 object ShapeId extends ShapeTag.Has[ShapeId] { self =>
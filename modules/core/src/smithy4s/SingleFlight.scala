@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+/**
+  * Hint rendered for operations annotated with `smithy4s.meta#singleFlight`.
+  * It allows clients to coalesce concurrent calls that have the same input,
+  * sharing the outcome of a single call between all callers.
+  */
+final case class SingleFlight()
+
+object SingleFlight extends ShapeTag.Companion[SingleFlight] {
+
+  val id: ShapeId = ShapeId("smithy4s.meta", "singleFlight")
+
+  implicit val schema: Schema[SingleFlight] =
+    Schema.constant(SingleFlight()).withId(id)
+
+}
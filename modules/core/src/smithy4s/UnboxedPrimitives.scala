@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+
+/**
+  * Hint rendered for list shapes annotated with
+  * `smithy4s.meta#unboxedPrimitives`. Such lists are rendered as
+  * `IndexedSeq`, and the codecs back them with primitive arrays when their
+  * members are numeric or boolean primitives (or newtypes thereof), reading
+  * and writing the elements without boxing them.
+  */
+final case class UnboxedPrimitives()
+
+object UnboxedPrimitives extends ShapeTag.Companion[UnboxedPrimitives] {
+
+  val id: ShapeId = ShapeId("smithy4s.meta", "unboxedPrimitives")
+
+  implicit val schema: Schema[UnboxedPrimitives] =
+    Schema.constant(UnboxedPrimitives()).withId(id)
+
+}
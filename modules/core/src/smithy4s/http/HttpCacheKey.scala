@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package http
+
+import smithy.api.HttpHeader
+import smithy.api.HttpPrefixHeaders
+import smithy4s.schema.Schema
+
+/**
+  * Derives a canonical cache key from an encoded http request, for use
+  * with `@cacheable` endpoints.
+  *
+  * The key covers the path, the query parameters (sorted by name), the
+  * headers bound to the input shape (sorted by lower-cased name) and the
+  * body. Headers that are not bound to the input cannot influence the
+  * decoded input, and are therefore ignored, with the exception of the
+  * `identityHeaders`: responses may depend on who the caller is, so
+  * requests from distinct principals never share a key. Every component is
+  * length prefixed so that distinct requests cannot produce the same key.
+  */
+object HttpCacheKey {
+
+  /**
+    * The headers carrying the identity of the caller, which are part of the
+    * key whether they are bound to the input or not.
+    */
+  val identityHeaders: Set[CaseInsensitive] = Set(
+    CaseInsensitive("Authorization"),
+    CaseInsensitive("Proxy-Authorization"),
+    CaseInsensitive("Cookie")
+  )
+
+  def apply(input: Schema[_]): HttpRequest[Blob] => Blob = {
+    val (names, prefixes) = boundHeaders(input)
+    def isBound(header: CaseInsensitive): Boolean =
+      names.contains(header) || prefixes.exists(header.startsWith(_)) ||
+        identityHeaders.contains(header)
+
+    request => {
+      val builder = new StringBuilder()
+      def append(s: String): Unit = {
+        builder.append(s.length).append(':').append(s)
+        ()
+      }
+      request.uri.path.foreach(append)
+      builder.append('?')
+      request.uri.queryParams.toVector.sortBy(_._1).foreach {
+        case (name, values) =>
+          append(name)
+          builder.append(values.size).append('#')
+          values.foreach(append)
+      }
+      builder.append('|')
+      request.headers.toVector
+        .filter { case (name, _) => isBound(name) }
+        .map { case (name, values) => (name.toString.toLowerCase, values) }
+        .sortBy(_._1)
+        .foreach { case (name, values) =>
+          append(name)
+          builder.append(values.size).append('#')
+          values.foreach(append)
+        }
+      builder.append('|')
+      Blob(builder.result()).concat(request.body)
+    }
+  }
+
+  private def boundHeaders(
+      schema: Schema[_]
+  ): (Set[CaseInsensitive], Vector[String]) = schema match {
+    case Schema.StructSchema(_, _, fields, _) =>
+      val hints = fields.map(_.memberHints)
+      val names = hints.flatMap(_.get(HttpHeader)).map { case HttpHeader(n) =>
+        CaseInsensitive(n)
+      }
+      val prefixes = hints.flatMap(_.get(HttpPrefixHeaders)).map {
+        case HttpPrefixHeaders(prefix) => prefix
+      }
+      (names.toSet, prefixes)
+    case Schema.LazySchema(suspend)             => boundHeaders(suspend.value)
+    case Schema.BijectionSchema(underlying, _)  => boundHeaders(underlying)
+    case Schema.RefinementSchema(underlying, _) => boundHeaders(underlying)
+    case _                                      => (Set.empty, Vector.empty)
+  }
+
+}
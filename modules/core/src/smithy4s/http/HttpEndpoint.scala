@@ -33,7 +33,7 @@ trait HttpEndpoint[I] {
   def method: HttpMethod
   def code: Int
 
-  final def matches(rPath: IndexedSeq[String]): Option[Map[String, String]] =
+  def matches(rPath: IndexedSeq[String]): Option[Map[String, String]] =
     matchPath(path, rPath)
 
 }
@@ -74,6 +74,10 @@ object HttpEndpoint {
         val path: List[PathSegment] = httpPath.toList
         val method: HttpMethod = httpMethod
         val code: Int = http.code
+        private val matcher = internals.PathMatcher(httpPath)
+        override def matches(
+            rPath: IndexedSeq[String]
+        ): Option[Map[String, String]] = matcher.matches(rPath)
       }
     }
   }
@@ -20,6 +20,7 @@ package http
 import smithy4s.kinds._
 import smithy4s.server.UnaryServerCodecs
 import smithy4s.capability.MonadThrowLike
+import smithy4s.http.internals.PathTrie
 import scala.annotation.nowarn
 
 // scalafmt: {maxColumn = 120}
@@ -96,16 +97,10 @@ object HttpUnaryServerRouter {
       val method = getMethod(request)
       val path = getUri(request).path
       perMethodEndpoint.get(method) match {
-        case Some(httpUnaryEndpoints) =>
-          val maybeMatched =
-            httpUnaryEndpoints.iterator
-              .map(ep => (ep.handler, ep.httpEndpoint.matches(path)))
-              .find(_._2.isDefined)
-          maybeMatched.flatMap {
-            case (handler, Some(pathParams)) =>
-              val amendedRequest = addDecodedPathParams(request, pathParams)
-              Some(handler(amendedRequest))
-            case (_, None) => None
+        case Some(routes) =>
+          routes.lookup(path).map { case (ep, pathParams) =>
+            val amendedRequest = addDecodedPathParams(request, pathParams)
+            ep.handler(amendedRequest)
           }
 
         case None => None
@@ -132,8 +127,10 @@ object HttpUnaryServerRouter {
         .map { makeHttpEndpointHandler(_) }
         .collect { case Right(endpointWrapper) => endpointWrapper }
 
-    private val perMethodEndpoint: Map[HttpMethod, List[HttpEndpointHandler]] =
-      httpEndpointHandlers.groupBy(_.httpEndpoint.method)
+    private val perMethodEndpoint: Map[HttpMethod, PathTrie[HttpEndpointHandler]] =
+      httpEndpointHandlers.groupBy(_.httpEndpoint.method).map { case (method, handlers) =>
+        method -> PathTrie(handlers.map(handler => handler.httpEndpoint.path -> handler))
+      }
 
   }
 
@@ -155,26 +152,28 @@ object HttpUnaryServerRouter {
         handler: Request => F[Response]
     )
 
-    def isDefinedAt(requestHead: RequestHead): Boolean = {
+    private def lookup(requestHead: RequestHead): Option[(HttpEndpointHandler, PathParams)] = {
       val method = getMethod(requestHead)
       val pathSegments = getUri(requestHead).path
-      perMethodEndpoint.get(method).exists { httpUnaryEndpoints =>
-        httpUnaryEndpoints.iterator.exists(_.httpEndpoint.matches(pathSegments).isDefined)
-      }
+      perMethodEndpoint.get(method).flatMap(_.lookup(pathSegments))
     }
 
+    def isDefinedAt(requestHead: RequestHead): Boolean =
+      lookup(requestHead).isDefined
+
     def apply(requestHead: RequestHead): Request => F[Response] = {
-      val method = getMethod(requestHead)
-      val pathSegments = getUri(requestHead).path
-      val httpUnaryEndpoints = perMethodEndpoint(method)
-      httpUnaryEndpoints.iterator
-        .map(ep => (ep.handler, ep.httpEndpoint.matches(pathSegments)))
-        .collectFirst { case (handler, Some(pathParams)) =>
-          (request: Request) => handler(addDecodedPathParams(request, pathParams))
-        }
-        .get
+      val (ep, pathParams) = lookup(requestHead).get
+      (request: Request) => ep.handler(addDecodedPathParams(request, pathParams))
     }
 
+    // Overridden so that `lift` and `orElse` only route requests once.
+    override def applyOrElse[RH <: RequestHead, B >: Request => F[Response]](requestHead: RH, default: RH => B): B =
+      lookup(requestHead) match {
+        case Some((ep, pathParams)) =>
+          (request: Request) => ep.handler(addDecodedPathParams(request, pathParams))
+        case None => default(requestHead)
+      }
+
     private def makeHttpEndpointHandler[I, E, O, SI, SO](
         endpoint: service.Endpoint[I, E, O, SI, SO]
     ): Either[HttpEndpoint.HttpEndpointError, HttpEndpointHandler] = {
@@ -194,8 +193,10 @@ object HttpUnaryServerRouter {
         .map { makeHttpEndpointHandler(_) }
         .collect { case Right(endpointWrapper) => endpointWrapper }
 
-    private val perMethodEndpoint: Map[HttpMethod, List[HttpEndpointHandler]] =
-      httpEndpointHandlers.groupBy(_.httpEndpoint.method)
+    private val perMethodEndpoint: Map[HttpMethod, PathTrie[HttpEndpointHandler]] =
+      httpEndpointHandlers.groupBy(_.httpEndpoint.method).map { case (method, handlers) =>
+        method -> PathTrie(handlers.map(handler => handler.httpEndpoint.path -> handler))
+      }
 
   }
 
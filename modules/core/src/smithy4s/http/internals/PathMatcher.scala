@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.http
+package internals
+
+import smithy4s.http.PathSegment._
+
+/**
+  * A path template compiled into flat arrays, matching request paths
+  * segment by segment without allocating intermediate collections: label
+  * values are written into an array sized upfront, and only the resulting
+  * [[PathParams]] (and the value of a greedy label, if any) are allocated.
+  *
+  * A greedy label captures at least one segment. When followed by a static
+  * segment, it extends up to the first occurrence of that segment.
+  */
+private[smithy4s] final class PathMatcher private (
+    kinds: Array[Int],
+    values: Array[String],
+    val labelNames: Array[String]
+) {
+  import PathMatcher._
+
+  def matches(path: IndexedSeq[String]): Option[PathParams] = {
+    val captured = new Array[String](labelNames.length)
+    if (matchInto(path, 0, captured, 0)) Some(toParams(labelNames, captured))
+    else None
+  }
+
+  /**
+    * Matches `path` from index `from` to its end, writing the values of
+    * the labels into `captured`, from index `offset`.
+    */
+  def matchInto(
+      path: IndexedSeq[String],
+      from: Int,
+      captured: Array[String],
+      offset: Int
+  ): Boolean = {
+    val size = path.length
+    var i = from
+    var t = 0
+    var n = offset
+    var matching = true
+    while (matching && t < kinds.length) {
+      kinds(t) match {
+        case STATIC =>
+          matching = i < size && values(t) == path(i)
+          i += 1
+          t += 1
+        case LABEL =>
+          matching = i < size
+          if (matching) {
+            captured(n) = path(i)
+            n += 1
+          }
+          i += 1
+          t += 1
+        case _ =>
+          if (t == kinds.length - 1) {
+            matching = i < size
+            if (matching) {
+              captured(n) = join(path, i, size)
+              n += 1
+            }
+            i = size
+            t += 1
+          } else if (kinds(t + 1) == STATIC) {
+            val next = values(t + 1)
+            var j = i + 1
+            while (j < size && path(j) != next) j += 1
+            matching = j < size
+            if (matching) {
+              captured(n) = join(path, i, j)
+              n += 1
+            }
+            i = j + 1
+            t += 2
+          } else matching = false
+      }
+    }
+    matching && i == size
+  }
+
+}
+
+private[smithy4s] object PathMatcher {
+
+  private final val STATIC = 0
+  private final val LABEL = 1
+  private final val GREEDY = 2
+
+  def apply(template: Seq[PathSegment]): PathMatcher = {
+    val kinds = new Array[Int](template.size)
+    val values = new Array[String](template.size)
+    template.zipWithIndex.foreach {
+      case (StaticSegment(value), i) =>
+        kinds(i) = STATIC
+        values(i) = value
+      case (LabelSegment(name), i) =>
+        kinds(i) = LABEL
+        values(i) = name
+      case (GreedySegment(name), i) =>
+        kinds(i) = GREEDY
+        values(i) = name
+    }
+    val labelNames = template.collect {
+      case LabelSegment(name)  => name
+      case GreedySegment(name) => name
+    }.toArray
+    new PathMatcher(kinds, values, labelNames)
+  }
+
+  /**
+    * Builds the path parameters out of the names and the captured values
+    * of labels, without going through intermediate tuples for the usual
+    * case of templates with at most 4 labels.
+    */
+  def toParams(names: Array[String], captured: Array[String]): PathParams =
+    names.length match {
+      case 0 => Map.empty
+      case 1 => new Map.Map1(names(0), captured(0))
+      case 2 => new Map.Map2(names(0), captured(0), names(1), captured(1))
+      case 3 =>
+        new Map.Map3(
+          names(0),
+          captured(0),
+          names(1),
+          captured(1),
+          names(2),
+          captured(2)
+        )
+      case 4 =>
+        new Map.Map4(
+          names(0),
+          captured(0),
+          names(1),
+          captured(1),
+          names(2),
+          captured(2),
+          names(3),
+          captured(3)
+        )
+      case n =>
+        val builder = Map.newBuilder[String, String]
+        var i = 0
+        while (i < n) {
+          builder += names(i) -> captured(i)
+          i += 1
+        }
+        builder.result()
+    }
+
+  private def join(path: IndexedSeq[String], from: Int, until: Int): String =
+    if (until - from == 1) path(from)
+    else {
+      val builder = new java.lang.StringBuilder()
+      var i = from
+      while (i < until) {
+        if (i > from) builder.append('/')
+        builder.append(path(i))
+        i += 1
+      }
+      builder.toString()
+    }
+
+}
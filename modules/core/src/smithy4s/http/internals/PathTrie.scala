@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.http
+package internals
+
+import smithy4s.http.PathSegment._
+
+import scala.annotation.tailrec
+
+/**
+  * A prefix tree of path templates, compiled once, that matches a request
+  * path in a single walk over its segments, rather than trying every
+  * template in turn.
+  *
+  * When several templates match a path, static segments take precedence
+  * over labels, which take precedence over greedy labels, segment by
+  * segment. Equally specific templates are resolved in insertion order.
+  */
+private[smithy4s] final class PathTrie[A] private (
+    root: PathTrie.Node[A],
+    maxLabels: Int
+) {
+  import PathTrie._
+
+  def lookup(path: IndexedSeq[String]): Option[(A, PathParams)] = {
+    val size = path.length
+    val captured = new Array[String](maxLabels)
+
+    // returns null when no route matches, to avoid allocating on the way
+    def go(node: Node[A], i: Int, n: Int): Route[A] =
+      if (i == size) node.leaf
+      else {
+        val segment = path(i)
+        val static = node.statics.get(segment)
+        val viaStatic = if (static == null) null else go(static, i + 1, n)
+        if (viaStatic != null) viaStatic
+        else {
+          val viaLabel =
+            if (node.label == null) null
+            else {
+              captured(n) = segment
+              go(node.label, i + 1, n + 1)
+            }
+          if (viaLabel != null) viaLabel
+          else matchGreedy(node.greedy, path, i, captured, n)
+        }
+      }
+
+    val route = go(root, 0, 0)
+    if (route == null) None
+    else Some(route.value -> PathMatcher.toParams(route.labels, captured))
+  }
+
+}
+
+private[smithy4s] object PathTrie {
+
+  def apply[A](routes: Seq[(List[PathSegment], A)]): PathTrie[A] = {
+    val root = new Node[A]
+    val maxLabels = routes.foldLeft(0) { case (max, (segments, value)) =>
+      math.max(max, insert(root, segments, Nil, value))
+    }
+    new PathTrie(root, maxLabels)
+  }
+
+  private[internals] final class Node[A] {
+    val statics = new java.util.HashMap[String, Node[A]]()
+    var label: Node[A] = null
+    // routes ending at this node, only the first one is kept
+    var leaf: Route[A] = null
+    // routes whose greedy label starts at this node
+    var greedy: Vector[Route[A]] = Vector.empty
+  }
+
+  // `labels` are the names of all the labels of the template, in order.
+  // `rest` matches the segments from the greedy label onwards, if any.
+  private[internals] final case class Route[A](
+      labels: Array[String],
+      rest: PathMatcher,
+      value: A
+  )
+
+  // Returns the number of labels captured by the route.
+  @tailrec
+  private def insert[A](
+      node: Node[A],
+      segments: List[PathSegment],
+      labels: List[String],
+      value: A
+  ): Int = segments match {
+    case Nil =>
+      if (node.leaf == null) {
+        node.leaf = Route(labels.reverse.toArray, null, value)
+      }
+      labels.size
+    case StaticSegment(segment) :: rest =>
+      val next = node.statics.get(segment) match {
+        case null =>
+          val created = new Node[A]
+          node.statics.put(segment, created)
+          created
+        case existing => existing
+      }
+      insert(next, rest, labels, value)
+    case LabelSegment(name) :: rest =>
+      if (node.label == null) node.label = new Node[A]
+      insert(node.label, rest, name :: labels, value)
+    case greedy @ (GreedySegment(_) :: _) =>
+      val rest = PathMatcher(greedy)
+      val route = Route(labels.reverse.toArray ++ rest.labelNames, rest, value)
+      node.greedy = node.greedy :+ route
+      route.labels.length
+  }
+
+  private def matchGreedy[A](
+      routes: Vector[Route[A]],
+      path: IndexedSeq[String],
+      from: Int,
+      captured: Array[String],
+      offset: Int
+  ): Route[A] = {
+    val it = routes.iterator
+    var result: Route[A] = null
+    while (result == null && it.hasNext) {
+      val route = it.next()
+      if (route.rest.matchInto(path, from, captured, offset)) result = route
+    }
+    result
+  }
+
+}
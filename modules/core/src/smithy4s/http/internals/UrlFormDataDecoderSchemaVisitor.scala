@@ -40,12 +40,20 @@ private[http] class UrlFormDataDecoderSchemaVisitor(
       tag: Primitive[P]
   ): UrlFormDataDecoder[P] = {
     val desc = SchemaDescription.primitive(shapeId, hints, tag)
-    Primitive.stringParser(tag, hints) match {
-      case Some(parser) =>
-        UrlFormDataDecoder.fromStringParser(desc)(parser)
-
-      case None =>
-        UrlFormDataDecoder.alwaysFailing(s"Cannot decode $desc from URL form")
+    val decoder: UrlFormDataDecoder[P] =
+      Primitive.stringParser(tag, hints) match {
+        case Some(parser) =>
+          UrlFormDataDecoder.fromStringParser(desc)(parser)
+
+        case None =>
+          UrlFormDataDecoder.alwaysFailing(
+            s"Cannot decode $desc from URL form"
+          )
+      }
+    DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) =>
+        decoder.emap(DecodeLimits.checkBytes(tag, maxBytes))
+      case None => decoder
     }
   }
 
@@ -57,6 +65,7 @@ private[http] class UrlFormDataDecoderSchemaVisitor(
       member: Schema[A]
   ): UrlFormDataDecoder[C[A]] = {
     val memberDecoder = compile(member)
+    val maxElements = DecodeLimits.maxElements(hints, Int.MaxValue)
     val maybeKey =
       if (ignoreUrlFormFlattened || hints.has[UrlFormFlattened]) None
       else Option(getKey(member.hints, "member"))
@@ -76,7 +85,7 @@ private[http] class UrlFormDataDecoderSchemaVisitor(
           // We can't assume they were encoded in order. That's why we have to
           // then sort by index.
           import scala.collection.compat._
-          val groupedAndSortedCursors = values
+          val groupedCursors = values
             .collect {
               case formData @ UrlForm.FormData(
                     PayloadPath(PayloadPath.Segment.Index(index) :: _),
@@ -85,18 +94,27 @@ private[http] class UrlFormDataDecoderSchemaVisitor(
                 index -> formData
             }
             .groupMap { case (index, _) => index } { case (_, value) => value }
-            .toVector
-            .sortBy { case (index, _) =>
-              index
-            }
-            .map { case (index, values) =>
-              UrlFormCursor(history, values).down(
-                PayloadPath.Segment.Index(index)
+          if (groupedCursors.size > maxElements) {
+            // checked before any of the members gets decoded
+            Left(
+              UrlFormDecodeError(
+                history,
+                s"Input exceeded max number of elements of $maxElements"
               )
-            }
-          groupedAndSortedCursors
-            .traverse[UrlFormDecodeError, A](memberDecoder.decode(_))
-            .map(vector => tag.fromIterator(vector.iterator))
+            )
+          } else {
+            groupedCursors.toVector
+              .sortBy { case (index, _) =>
+                index
+              }
+              .map { case (index, values) =>
+                UrlFormCursor(history, values).down(
+                  PayloadPath.Segment.Index(index)
+                )
+              }
+              .traverse[UrlFormDecodeError, A](memberDecoder.decode(_))
+              .map(vector => tag.fromIterator(vector.iterator))
+          }
       }
   }
 
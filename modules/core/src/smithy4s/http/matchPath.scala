@@ -16,66 +16,42 @@
 
 package smithy4s.http
 
-import scala.annotation.tailrec
+import smithy4s.http.internals.PathMatcher
 
-import PathSegment._
 object matchPath extends smithy4s.ScalaCompat {
 
   def apply(
       path: List[PathSegment],
       received: IndexedSeq[String]
-  ): Option[Map[String, String]] = {
-    val size = received.length
-    @tailrec
-    def matchPathAux(
-        path: List[PathSegment],
-        i: Int,
-        acc: Map[String, String],
-        greedyAcc: List[String]
-    ): Option[Map[String, String]] =
-      path match {
-        case Nil if i >= size => Some(acc)
-        case StaticSegment(value) :: lt
-            if i < size && compareStrings(value, received(i)) =>
-          matchPathAux(lt, i + 1, acc, Nil)
-        case (LabelSegment(name) :: lt) if i < size =>
-          matchPathAux(lt, i + 1, acc + (name -> received(i)), Nil)
-        case (GreedySegment(name) :: StaticSegment(value) :: lt)
-            if i < size && compareStrings(
-              value,
-              received(i)
-            ) && greedyAcc.nonEmpty =>
-          val value = greedyAcc.reverse.mkString("/")
-          matchPathAux(lt, i + 1, acc + (name -> value), Nil)
-        case p @ (GreedySegment(_) :: Nil) if i < size =>
-          matchPathAux(p, i + 1, acc, received(i) :: greedyAcc)
-        case GreedySegment(name) :: Nil if greedyAcc.nonEmpty =>
-          val value = greedyAcc.reverse.mkString("/")
-          Some(acc + (name -> value))
-        case _ => None
-      }
-    matchPathAux(path, 0, Map.empty, List.empty)
-  }
+  ): Option[Map[String, String]] = PathMatcher(path).matches(received)
 
   private[http] def make(str: String): IndexedSeq[String] =
     if (str == "" || str == "/")
       IndexedSeq.empty
     else {
-      val segments = str.split("/", -1)
-      val length = segments.length
-      // .head/.last is safe because split always returns non-empty array
-      val start = if (segments.head.isEmpty()) 1 else 0
+      val length = str.length
+      // a single leading and trailing slash are ignored
+      val start = if (str.charAt(0) == '/') 1 else 0
       val end =
-        if (length > 1 && segments.last.isEmpty()) length - 1 else length
-      val resultArray =
-        if (start > 0 || end < length) segments.slice(start, end)
-        else segments
-      unsafeWrapArray(resultArray)
+        if (length > start && str.charAt(length - 1) == '/') length - 1
+        else length
+      var count = 1
+      var i = str.indexOf('/', start)
+      while (i >= 0 && i < end) {
+        count += 1
+        i = str.indexOf('/', i + 1)
+      }
+      val segments = new Array[String](count)
+      var from = start
+      var n = 0
+      while (n < count) {
+        val slash = str.indexOf('/', from)
+        val until = if (slash < 0 || slash > end) end else slash
+        segments(n) = str.substring(from, until)
+        from = until + 1
+        n += 1
+      }
+      unsafeWrapArray(segments)
     }
 
-  private def compareStrings(left: String, right: String): Boolean = {
-    (left.hashCode() == right.hashCode()) &&
-    left == right
-  }
-
 }
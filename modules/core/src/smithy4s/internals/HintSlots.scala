@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package internals
+
+/**
+  * Assigns a process-wide integer slot to the shape ids used as keys of
+  * static hints, in order of first use. Slots are memoised on the ids
+  * themselves (see `ShapeId.slot`), so that hint lookups don't need to hash
+  * ids.
+  *
+  * The keys of dynamic hints may come from arbitrary models loaded at
+  * runtime, so they never get a slot assigned : they only reuse the slot of
+  * a static key with the same id, if there's one. Past `MaxSlots` ids, no
+  * slot gets assigned anymore either. Ids without slots are compared by
+  * equality instead.
+  */
+private[smithy4s] object HintSlots {
+
+  final val NoSlot = -1
+
+  private[this] final val MaxSlots = 4096
+
+  private[this] val slots = new java.util.HashMap[ShapeId, Integer]()
+
+  def slotOf(id: ShapeId): Int = synchronized {
+    val existing = slots.get(id)
+    if (existing != null) existing.intValue()
+    else if (slots.size() >= MaxSlots) NoSlot
+    else {
+      val slot = slots.size()
+      slots.put(id, Integer.valueOf(slot))
+      slot
+    }
+  }
+
+  // The slot already assigned to `id`, without assigning one.
+  def existingSlotOf(id: ShapeId): Int = synchronized {
+    val existing = slots.get(id)
+    if (existing != null) existing.intValue() else NoSlot
+  }
+
+}
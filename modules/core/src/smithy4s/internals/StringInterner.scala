@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package smithy4s
+package internals
+
+/**
+  * A bounded table used by decoders to deduplicate the strings of schemas
+  * annotated with the [[smithy4s.Interned]] hint.
+  *
+  * The table is direct-mapped: a string is stored in the slot indexed by its
+  * hash, evicting whichever string previously occupied it. Lookups are
+  * therefore constant-time and the footprint of the table never grows past its
+  * capacity. Strings longer than `maxLength` are returned as is, as they are
+  * unlikely to be repeated and would only evict useful entries.
+  *
+  * Slots are read and written without synchronisation. This is thread-safe as
+  * strings are immutable and safely published through their final fields: the
+  * worst a race can cause is a missed deduplication.
+  */
+private[smithy4s] final class StringInterner(capacity: Int, maxLength: Int) {
+
+  private[this] val slots: Array[String] =
+    new Array[String](Integer.highestOneBit(math.max(capacity, 2) - 1) << 1)
+  private[this] val mask: Int = slots.length - 1
+
+  def intern(string: String): String =
+    if (string.length > maxLength) string
+    else {
+      val hash = string.hashCode()
+      val index = (hash ^ (hash >>> 16)) & mask
+      val existing = slots(index)
+      if (existing != null && existing == string) existing
+      else {
+        slots(index) = string
+        string
+      }
+    }
+
+}
+
+private[smithy4s] object StringInterner {
+
+  val defaultCapacity: Int = 4096
+  val defaultMaxLength: Int = 128
+
+  def apply(): StringInterner =
+    new StringInterner(defaultCapacity, defaultMaxLength)
+
+}
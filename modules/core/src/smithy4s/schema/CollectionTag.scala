@@ -115,6 +115,38 @@ object CollectionTag {
       }
   }
 
+  /**
+    * Returns the primitive backing the members of a collection annotated with
+    * the [[smithy4s.UnboxedPrimitives]] hint, when it is one that can be
+    * stored in an unboxed fashion, looking through newtypes (which share the
+    * runtime representation of their underlying type).
+    *
+    * Used by the codecs to read and write lists annotated with
+    * `smithy4s.meta#unboxedPrimitives` straight into/from primitive arrays.
+    */
+  private[smithy4s] def unboxedPrimitive[A](
+      hints: Hints,
+      member: Schema[A]
+  ): Option[Primitive[A]] =
+    if (hints.has(UnboxedPrimitives)) primitiveOf(member) else None
+
+  private def primitiveOf[A](
+      member: Schema[A]
+  ): Option[Primitive[A]] = member match {
+    case Schema.PrimitiveSchema(_, _, tag) =>
+      tag match {
+        case Primitive.PShort | Primitive.PInt | Primitive.PFloat |
+            Primitive.PLong | Primitive.PDouble | Primitive.PByte |
+            Primitive.PBoolean =>
+          Some(tag)
+        case _ => None
+      }
+    case Schema.BijectionSchema(underlying, bijection)
+        if bijection.isInstanceOf[Newtype.Make[_, _]] =>
+      primitiveOf(underlying).map(_.asInstanceOf[Primitive[A]])
+    case _ => None
+  }
+
   private[this] def copyOf[A](original: Array[A], newLength: Int): Array[A] =
     ((original: @unchecked) match {
       case x: Array[AnyRef]  => java.util.Arrays.copyOf(x, newLength)
@@ -59,4 +59,88 @@ object CompilationCache {
     }
   }
 
+  /**
+    * A [[CompilationCache]] holding at most a given number of entries, that
+    * exposes counters of its activity.
+    */
+  trait Bounded[F[_]] extends CompilationCache[F] {
+    def stats: Stats
+  }
+
+  final case class Stats(hits: Long, misses: Long, evictions: Long, size: Int)
+
+  /**
+    * Creates a compilation cache holding at most `maxEntries` compiled
+    * entities, evicting the least recently used ones first.
+    *
+    * Contrary to [[make]], entries are keyed by a structural fingerprint of
+    * the schemas, which makes it suitable for schemas that are instantiated
+    * repeatedly, for instance out of a `DynamicSchemaIndex`, and lazy schemas
+    * get cached too. Functions embedded in schemas are identified by their
+    * class : schemas must not differ only by values captured in them.
+    *
+    * The cache can be shared by concurrent compilations. Schemas are
+    * compiled outside of any lock, and when two compilations of equal
+    * schemas race, the first result to be stored is kept and returned to
+    * both.
+    *
+    * The fingerprints of the schema instances met while compiling are
+    * memoised by identity, so that the lookups of nested schemas don't
+    * describe their subtrees over again. That memo is emptied once it holds
+    * `4 * maxEntries` instances.
+    */
+  def bounded[F[_]](maxEntries: Int): Bounded[F] = {
+    require(maxEntries > 0, s"maxEntries must be positive, got $maxEntries")
+    new BoundedImpl[F](maxEntries)
+  }
+
+  private final class BoundedImpl[F[_]](maxEntries: Int) extends Bounded[F] {
+    private[this] val store =
+      new java.util.LinkedHashMap[SchemaFingerprint, Any](16, 0.75f, true)
+    private[this] val fingerprints =
+      SchemaFingerprint.Memo.bounded(4 * math.max(maxEntries, 1))
+    private[this] var hits = 0L
+    private[this] var misses = 0L
+    private[this] var evictions = 0L
+
+    override def getOrElseUpdate[A](
+        schema: Schema[A],
+        fetch: Schema[A] => F[A]
+    ): F[A] = {
+      val key = SchemaFingerprint(schema, fingerprints)
+      lookup(key) match {
+        case Some(cached) => cached.asInstanceOf[F[A]]
+        case None         => insert(key, fetch(schema)).asInstanceOf[F[A]]
+      }
+    }
+
+    def stats: Stats = synchronized {
+      Stats(hits, misses, evictions, store.size())
+    }
+
+    private def lookup(key: SchemaFingerprint): Option[Any] = synchronized {
+      if (store.containsKey(key)) {
+        hits += 1
+        Some(store.get(key))
+      } else {
+        misses += 1
+        None
+      }
+    }
+
+    private def insert(key: SchemaFingerprint, value: Any): Any = synchronized {
+      if (store.containsKey(key)) store.get(key)
+      else {
+        store.put(key, value)
+        if (store.size() > maxEntries) {
+          val eldest = store.keySet().iterator()
+          eldest.next()
+          eldest.remove()
+          evictions += 1
+        }
+        value
+      }
+    }
+  }
+
 }
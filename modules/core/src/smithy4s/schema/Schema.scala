@@ -94,6 +94,8 @@ sealed trait Schema[A]{
 
   final def nullable: Schema[Nullable[A]] = Nullable.schema(this)
 
+  final def deferred: Schema[Deferred[A]] = Deferred.schema(this)
+
   final def isOption: Boolean = this match {
     case _: OptionSchema[_] => true
     case BijectionSchema(underlying, _) => underlying.isOption
@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package schema
+
+import smithy4s.schema.Schema._
+
+/**
+  * A structural description of a schema, used by [[CompilationCache]] as a
+  * key in place of the schema itself, whose equality isn't stable when
+  * schemas are re-instantiated.
+  *
+  * Functions embedded in schemas (constructors, accessors, bijections...)
+  * can't be compared, so they are identified by their class : schemas built
+  * by the same code out of the same shapes have equal fingerprints. Lazy
+  * schemas are followed, and references to a schema instance that is
+  * already being described are recorded by their distance to it, which
+  * keeps fingerprints of recursive schemas finite. Recursive schemas that
+  * re-instantiate themselves are cut by shape id once they unfolded
+  * `MaxUnfolding` times.
+  */
+private[schema] sealed trait SchemaFingerprint extends Product with Serializable
+
+private[schema] object SchemaFingerprint {
+
+  type FunctionId = Class[_]
+
+  final case class PrimitiveNode(shapeId: ShapeId, hints: Hints, tag: Any)
+      extends SchemaFingerprint
+  final case class CollectionNode(
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: Any,
+      member: SchemaFingerprint
+  ) extends SchemaFingerprint
+  final case class MapNode(
+      shapeId: ShapeId,
+      hints: Hints,
+      key: SchemaFingerprint,
+      value: SchemaFingerprint
+  ) extends SchemaFingerprint
+  final case class EnumerationNode(
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: Any,
+      values: List[Any],
+      total: FunctionId
+  ) extends SchemaFingerprint
+  final case class StructNode(
+      shapeId: ShapeId,
+      hints: Hints,
+      fields: Vector[MemberNode],
+      make: FunctionId
+  ) extends SchemaFingerprint
+  final case class UnionNode(
+      shapeId: ShapeId,
+      hints: Hints,
+      alternatives: Vector[MemberNode],
+      ordinal: FunctionId
+  ) extends SchemaFingerprint
+  final case class OptionNode(underlying: SchemaFingerprint)
+      extends SchemaFingerprint
+  final case class BijectionNode(
+      underlying: SchemaFingerprint,
+      functions: List[FunctionId]
+  ) extends SchemaFingerprint
+  final case class RefinementNode(
+      underlying: SchemaFingerprint,
+      constraintId: ShapeId,
+      constraint: Any,
+      refinement: FunctionId
+  ) extends SchemaFingerprint
+  // `distance` is the number of lazy schemas between the reference and the
+  // schema it refers to, or -1 when it was cut by shape id.
+  final case class RecursiveNode(shapeId: ShapeId, distance: Int)
+      extends SchemaFingerprint
+
+  // `accessor` identifies the getter of a field, or the injection of an
+  // alternative.
+  final case class MemberNode(
+      label: String,
+      schema: SchemaFingerprint,
+      accessor: FunctionId
+  )
+
+  private final val MaxUnfolding = 16
+
+  /**
+    * Fingerprints of schema instances computed earlier, which spare the
+    * description of the subtrees that were already described. Only the
+    * fingerprints that do not refer to enclosing schemas get stored, as
+    * they are the only ones that do not depend on where the schema is
+    * nested.
+    */
+  trait Memo {
+    // null when absent
+    def get(schema: Schema[_]): SchemaFingerprint
+    def put(schema: Schema[_], fingerprint: SchemaFingerprint): Unit
+  }
+
+  object Memo {
+    val none: Memo = new Memo {
+      def get(schema: Schema[_]): SchemaFingerprint = null
+      def put(schema: Schema[_], fingerprint: SchemaFingerprint): Unit = ()
+    }
+
+    /**
+      * A synchronised memo keyed by schema instance, which is emptied when
+      * it exceeds `maxEntries`.
+      */
+    def bounded(maxEntries: Int): Memo = new Memo {
+      private[this] val store =
+        new java.util.IdentityHashMap[Schema[_], SchemaFingerprint]()
+
+      def get(schema: Schema[_]): SchemaFingerprint = synchronized {
+        store.get(schema)
+      }
+
+      def put(schema: Schema[_], fingerprint: SchemaFingerprint): Unit =
+        synchronized {
+          if (store.size() >= maxEntries) store.clear()
+          store.put(schema, fingerprint)
+          ()
+        }
+    }
+  }
+
+  def apply(schema: Schema[_]): SchemaFingerprint = apply(schema, Memo.none)
+
+  def apply(schema: Schema[_], memo: Memo): SchemaFingerprint =
+    new Builder(memo).of(schema)
+
+  private final class Builder(memo: Memo) {
+    // The targets of the lazy schemas being described, innermost first.
+    private[this] var lazies: List[Schema[_]] = Nil
+    private[this] var depth = 0
+    // The outermost position in `lazies` (counted from the outermost one)
+    // referred to by the recursive nodes built so far, -1 when a node was
+    // cut by shape id.
+    private[this] var outermostRef = Int.MaxValue
+
+    def of(schema: Schema[_]): SchemaFingerprint = {
+      val memoised = memo.get(schema)
+      if (memoised ne null) memoised
+      else {
+        val enclosingRef = outermostRef
+        outermostRef = Int.MaxValue
+        val fingerprint = describe(schema)
+        if (outermostRef >= depth) memo.put(schema, fingerprint)
+        outermostRef = math.min(enclosingRef, outermostRef)
+        fingerprint
+      }
+    }
+
+    private def describe(schema: Schema[_]): SchemaFingerprint =
+      schema match {
+        case PrimitiveSchema(shapeId, hints, tag) =>
+          PrimitiveNode(shapeId, hints, tag)
+        case s: CollectionSchema[c, a] =>
+          CollectionNode(s.shapeId, s.hints, s.tag, of(s.member))
+        case s: MapSchema[k, v] =>
+          MapNode(s.shapeId, s.hints, of(s.key), of(s.value))
+        case s: EnumerationSchema[e] =>
+          EnumerationNode(s.shapeId, s.hints, s.tag, s.values, s.total.getClass)
+        case s: StructSchema[a] =>
+          val fields = s.fields.map { field =>
+            MemberNode(field.label, of(field.schema), field.get.getClass)
+          }
+          StructNode(s.shapeId, s.hints, fields, s.make.getClass)
+        case s: UnionSchema[u] =>
+          val alternatives = s.alternatives.map { alt =>
+            MemberNode(alt.label, of(alt.schema), alt.inject.getClass)
+          }
+          UnionNode(s.shapeId, s.hints, alternatives, s.ordinal.getClass)
+        case OptionSchema(underlying) =>
+          OptionNode(of(underlying))
+        case s: BijectionSchema[a, b] =>
+          val functions = s.bijection match {
+            case Bijection.Impl(to, from) => List(to.getClass, from.getClass)
+            case other                    => List(other.getClass)
+          }
+          BijectionNode(of(s.underlying), functions)
+        case s: RefinementSchema[a, b] =>
+          RefinementNode(
+            of(s.underlying),
+            s.refinement.tag.id,
+            s.refinement.constraint,
+            s.refinement.getClass
+          )
+        case LazySchema(suspend) =>
+          val target = suspend.value
+          val distance = lazies.indexWhere(_ eq target)
+          if (distance >= 0) {
+            outermostRef = math.min(outermostRef, depth - 1 - distance)
+            RecursiveNode(target.shapeId, distance)
+          } else if (
+            lazies.count(_.shapeId == target.shapeId) >= MaxUnfolding
+          ) {
+            outermostRef = -1
+            RecursiveNode(target.shapeId, -1)
+          } else {
+            lazies = target :: lazies
+            depth += 1
+            val fingerprint = of(target)
+            lazies = lazies.tail
+            depth -= 1
+            fingerprint
+          }
+      }
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package server
+
+import smithy4s.capability.MonadThrowLike
+
+/**
+  * A protocol-agnostic middleware caching the responses of endpoints
+  * annotated with `@smithy4s.meta#cacheable`. Endpoints without the trait
+  * are left untouched.
+  *
+  * The cache key is derived from the encoded request by `cacheKey`, which
+  * receives the input schema of the endpoint so that it can restrict
+  * itself to the parts of the request that are bound to the input. As
+  * extracting the key may consume the request, it returns the request to
+  * pass down to the handler alongside the key.
+  */
+object CacheableMiddleware {
+
+  trait CacheKey[F[_], Request] {
+    def apply(input: Schema[_]): Request => F[(Blob, Request)]
+  }
+
+  def apply[F[_], Request, Response](
+      makeCache: ResponseCache.Make[F, Response],
+      cacheKey: CacheKey[F, Request]
+  )(implicit
+      F: MonadThrowLike[F]
+  ): Endpoint.Middleware[Request => F[Response]] =
+    new Endpoint.Middleware[Request => F[Response]] {
+      def prepare[Alg[_[_, _, _, _, _]]](service: Service[Alg])(
+          endpoint: service.Endpoint[_, _, _, _, _]
+      ): (Request => F[Response]) => (Request => F[Response]) =
+        endpoint.hints.get(Cacheable) match {
+          case Some(cacheable) =>
+            val cache = makeCache(endpoint.id, cacheable)
+            val keyOf = cacheKey(endpoint.input)
+            handler =>
+              req =>
+                F.flatMap(keyOf(req)) { case (key, request) =>
+                  cache.getOrPopulate(key)(handler(request))
+                }
+          case None => identity
+        }
+    }
+
+}
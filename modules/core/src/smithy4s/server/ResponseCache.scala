@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package server
+
+/**
+  * A cache of encoded responses for a single `@cacheable` endpoint.
+  *
+  * Implementations are expected to run `populate` at most once per key
+  * at any given time : concurrent lookups of a key that is being
+  * populated should wait for the in-flight computation rather than
+  * starting their own. Failed populations are never cached.
+  */
+trait ResponseCache[F[_], Response] {
+  def getOrPopulate(key: Blob)(populate: F[Response]): F[Response]
+  def stats: F[ResponseCache.Stats]
+}
+
+object ResponseCache {
+
+  final case class Stats(hits: Long, misses: Long, evictions: Long, size: Int)
+
+  /**
+    * Creates the cache backing a given endpoint. Called once per
+    * `@cacheable` endpoint when the middleware is prepared.
+    */
+  trait Make[F[_], Response] {
+    def apply(
+        endpointId: ShapeId,
+        cacheable: Cacheable
+    ): ResponseCache[F, Response]
+  }
+
+  /**
+    * A bounded, synchronised LRU store with per-entry expiry, meant to be
+    * used as the storage layer of effectful [[ResponseCache]]
+    * implementations. Expired entries are dropped lazily, upon lookup,
+    * and the least recently accessed entry is evicted when `maxEntries`
+    * is exceeded.
+    */
+  final class Store[V] private (
+      maxEntries: Int,
+      ttlNanos: Long,
+      nanoTime: () => Long
+  ) {
+
+    private[this] val underlying =
+      new java.util.LinkedHashMap[Blob, Store.Entry[V]](16, 0.75f, true)
+    private[this] var hits = 0L
+    private[this] var misses = 0L
+    private[this] var evictions = 0L
+
+    def get(key: Blob): Option[V] = synchronized {
+      val entry = underlying.get(key)
+      if (entry == null) {
+        misses += 1
+        None
+      } else if (nanoTime() - entry.storedAt >= ttlNanos) {
+        underlying.remove(key)
+        misses += 1
+        None
+      } else {
+        hits += 1
+        Some(entry.value)
+      }
+    }
+
+    def put(key: Blob, value: V): Unit = synchronized {
+      underlying.put(key, Store.Entry(value, nanoTime()))
+      if (underlying.size() > maxEntries) {
+        val eldest = underlying.keySet().iterator()
+        eldest.next()
+        eldest.remove()
+        evictions += 1
+      }
+    }
+
+    def stats: Stats = synchronized {
+      Stats(hits, misses, evictions, underlying.size())
+    }
+
+  }
+
+  object Store {
+
+    def apply[V](cacheable: Cacheable): Store[V] =
+      apply(cacheable, () => System.nanoTime())
+
+    def apply[V](cacheable: Cacheable, nanoTime: () => Long): Store[V] =
+      new Store[V](
+        cacheable.maxEntries,
+        cacheable.ttlSeconds.toLong * 1000000000L,
+        nanoTime
+      )
+
+    private final case class Entry[V](value: V, storedAt: Long)
+
+  }
+
+}
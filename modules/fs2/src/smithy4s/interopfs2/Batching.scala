@@ -0,0 +1,228 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package interopfs2
+
+import cats.effect.Deferred
+import cats.effect.Resource
+import cats.effect.Temporal
+import cats.effect.std.Queue
+import cats.syntax.all._
+import fs2.Chunk
+import fs2.Stream
+import smithy4s.kinds._
+import smithy4s.schema.CollectionTag
+import smithy4s.schema.Schema
+import smithy4s.schema.Schema._
+
+import scala.concurrent.duration._
+
+/**
+  * Groups the concurrent calls to the operations annotated with
+  * `smithy4s.meta#batchedBy` into calls to their batch counterpart.
+  *
+  * Calls are accumulated until `maxBatchSize` of them are pending, or until
+  * `maxDelayMillis` elapsed since the first one, and are then sent as a
+  * single call to the batch operation. Its outputs are dispatched back to
+  * the callers according to their position, which the smithy4s validators
+  * guarantee to be meaningful. When the batch call fails, all the calls it
+  * groups fail with the same error.
+  *
+  * The members of the batch input other than the one holding the inputs
+  * are left to their default value (or absent), as enforced by the
+  * smithy4s validators.
+  */
+object Batching {
+
+  def apply[Alg[_[_, _, _, _, _]], Op[_, _, _, _, _], F[_]](
+      service: Service.Aux[Alg, Op]
+  )(
+      impl: FunctorAlgebra[Alg, F]
+  )(implicit F: Temporal[F]): Resource[F, FunctorAlgebra[Alg, F]] = {
+    val interpreter = service.toPolyFunction[Kind1[F]#toKind5](impl)
+    service.endpoints.toList
+      .flatMap(endpoint =>
+        endpoint.hints.get(BatchedBy).map(endpoint.id -> _)
+      )
+      .traverse { case (id, batchedBy) =>
+        batcher(service, interpreter, batchedBy).tupleLeft(id)
+      }
+      .map { batchers =>
+        val byId = batchers.toMap
+        service.fromPolyFunction[Kind1[F]#toKind5](
+          new PolyFunction5[Op, Kind1[F]#toKind5] {
+            def apply[I, E, O, SI, SO](op: Op[I, E, O, SI, SO]): F[O] =
+              byId.get(service.endpoint(op).id) match {
+                case Some(batcher) =>
+                  batcher.submit(service.input(op)).map(_.asInstanceOf[O])
+                case None => interpreter(op)
+              }
+          }
+        )
+      }
+  }
+
+  private type Pending[F[_]] = (Any, Deferred[F, Either[Throwable, Any]])
+
+  private final class Batcher[F[_]](queue: Queue[F, Pending[F]])(implicit
+      F: Temporal[F]
+  ) {
+    def submit(input: Any): F[Any] =
+      Deferred[F, Either[Throwable, Any]].flatMap { deferred =>
+        queue.offer(input -> deferred) *> deferred.get.rethrow
+      }
+  }
+
+  private def batcher[Alg[_[_, _, _, _, _]], Op[_, _, _, _, _], F[_]](
+      service: Service.Aux[Alg, Op],
+      interpreter: FunctorInterpreter[Op, F],
+      batchedBy: BatchedBy
+  )(implicit F: Temporal[F]): Resource[F, Batcher[F]] = {
+    val call = service.endpoints.find(_.id == batchedBy.operation) match {
+      case Some(endpoint) => batchCall(interpreter, endpoint, batchedBy)
+      case None =>
+        Left(s"${batchedBy.operation} is not an operation of ${service.id}")
+    }
+    val validCall =
+      F.fromEither(call.leftMap(new IllegalArgumentException(_)))
+    Resource.eval(validCall).flatMap { call =>
+      def fail(batch: Chunk[Pending[F]], error: Throwable): F[Unit] =
+        batch.traverse_(_._2.complete(Left(error)))
+
+      def run(batch: Chunk[Pending[F]]): F[Unit] =
+        call(batch.toList.map(_._1)).attempt.flatMap {
+          case Right(outputs) if outputs.size == batch.size =>
+            batch.toList.zip(outputs).traverse_ {
+              case ((_, deferred), output) => deferred.complete(Right(output))
+            }
+          case Right(outputs) =>
+            fail(
+              batch,
+              new IllegalStateException(
+                s"${batchedBy.operation} returned ${outputs.size} outputs " +
+                  s"for ${batch.size} inputs"
+              )
+            )
+          case Left(error) => fail(batch, error)
+        }
+
+      Resource
+        .eval(Queue.unbounded[F, Pending[F]])
+        .flatTap { queue =>
+          val pending = Stream.fromQueueUnterminated(queue)
+          val batches =
+            if (batchedBy.maxDelayMillis > 0)
+              pending.groupWithin(
+                batchedBy.maxBatchSize,
+                batchedBy.maxDelayMillis.millis
+              )
+            else pending.chunkLimit(batchedBy.maxBatchSize)
+          batches
+            .map(batch => Stream.eval(run(batch)))
+            .parJoinUnbounded
+            .compile
+            .drain
+            .background
+        }
+        .map(new Batcher(_))
+    }
+  }
+
+  private def batchCall[Op[_, _, _, _, _], F[_], I, E, O, SI, SO](
+      interpreter: FunctorInterpreter[Op, F],
+      batch: Endpoint[Op, I, E, O, SI, SO],
+      batchedBy: BatchedBy
+  )(implicit F: Temporal[F]): Either[String, List[Any] => F[List[Any]]] =
+    (
+      construct(batch.input, batchedBy.inputMember),
+      extract(batch.output, batchedBy.outputMember)
+    ).mapN { (make, outputs) => inputs =>
+      interpreter(batch.wrap(make(inputs).asInstanceOf[I])).map(outputs)
+    }
+
+  // Builds the batch input out of the inputs of the grouped calls.
+  private def construct(
+      schema: Schema[_],
+      member: String
+  ): Either[String, List[Any] => Any] = schema match {
+    case StructSchema(shapeId, _, fields, make) =>
+      fields.toList
+        .traverse { field =>
+          val builder: Either[String, List[Any] => Any] =
+            if (field.label == member)
+              fromItems(field.schema)
+                .toRight(s"$shapeId$$$member is not a list")
+            else
+              defaultOf(field.schema)
+                .map(default => (_: List[Any]) => default)
+                .toRight(s"$shapeId$$${field.label} has no default value")
+          builder
+        }
+        .map(builders => inputs => make(builders.map(_(inputs)).toIndexedSeq))
+    case LazySchema(suspend) => construct(suspend.value, member)
+    case _                   => Left(s"${schema.shapeId} is not a structure")
+  }
+
+  // Retrieves the outputs of the grouped calls out of the batch output.
+  private def extract(
+      schema: Schema[_],
+      member: String
+  ): Either[String, Any => List[Any]] = schema match {
+    case StructSchema(shapeId, _, fields, _) =>
+      fields.find(_.label == member) match {
+        case Some(field) =>
+          val get = field.get.asInstanceOf[Any => Any]
+          toItems(field.schema)
+            .map(get.andThen(_))
+            .toRight(s"$shapeId$$$member is not a list")
+        case None => Left(s"$shapeId has no member named $member")
+      }
+    case LazySchema(suspend) => extract(suspend.value, member)
+    case _                   => Left(s"${schema.shapeId} is not a structure")
+  }
+
+  private def fromItems(schema: Schema[_]): Option[List[Any] => Any] =
+    schema match {
+      case CollectionSchema(_, _, tag, _) =>
+        Some(items => tag.fromIterator(items.iterator))
+      case OptionSchema(underlying) =>
+        fromItems(underlying).map(_.andThen(Some(_)))
+      case LazySchema(suspend) => fromItems(suspend.value)
+      case _                   => None
+    }
+
+  private def toItems(schema: Schema[_]): Option[Any => List[Any]] =
+    schema match {
+      case CollectionSchema(_, _, tag, _) =>
+        Some(items => iterate(tag, items).toList)
+      case OptionSchema(underlying) =>
+        toItems(underlying).map { f => maybeItems =>
+          maybeItems.asInstanceOf[Option[Any]].fold(List.empty[Any])(f)
+        }
+      case LazySchema(suspend) => toItems(suspend.value)
+      case _                   => None
+    }
+
+  private def iterate[C[_]](tag: CollectionTag[C], items: Any): Iterator[Any] =
+    tag.iterator(items.asInstanceOf[C[Any]])
+
+  private def defaultOf(schema: Schema[_]): Option[Any] = schema match {
+    case OptionSchema(_) => Some(None)
+    case other           => other.getDefaultValue
+  }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package interopfs2
+package internals
+
+import fs2.Chunk
+import smithy4s.codecs.PayloadError
+import smithy4s.codecs.PayloadPath
+
+/**
+  * Splits bytes into the json values they hold, without parsing them: either
+  * the elements of a top-level array, or newline-delimited values. Only the
+  * bytes of the value being read are retained, so memory is bounded by the
+  * largest value rather than by the whole payload.
+  *
+  * Instances are stateful and must only be fed by a single stream.
+  */
+private[interopfs2] final class JsonFramer(
+    topLevelArray: Boolean,
+    maxValueSize: Int
+) {
+  import JsonFramer._
+
+  private[this] var buffer = new Array[Byte](256)
+  private[this] var size = 0
+  // nesting depth within the current value
+  private[this] var depth = 0
+  private[this] var inString = false
+  private[this] var escaped = false
+  // whether the brackets of the top-level array were read
+  private[this] var opened = false
+  private[this] var closed = false
+  // whether a ',' was read in the top-level array, which then expects a value
+  private[this] var separated = false
+  private[this] var failure: String = null
+  private[this] val values = Vector.newBuilder[Blob]
+
+  def feed(chunk: Chunk[Byte]): Either[PayloadError, Chunk[Blob]] = {
+    val slice = chunk.toArraySlice
+    val bytes = slice.values
+    var i = slice.offset
+    val end = slice.offset + slice.length
+    while (failure == null && i < end) {
+      step(bytes(i))
+      i += 1
+    }
+    result()
+  }
+
+  def finish(): Either[PayloadError, Chunk[Blob]] = {
+    if (failure == null) {
+      if (inString || depth > 0) failure = "unexpected end of input"
+      else if (!topLevelArray) emit()
+      else if (!closed) failure = "unexpected end of input, expected ']'"
+    }
+    result()
+  }
+
+  private def result(): Either[PayloadError, Chunk[Blob]] =
+    if (failure != null) Left(PayloadError(PayloadPath.root, expected, failure))
+    else {
+      val result = Chunk.from(values.result())
+      values.clear()
+      Right(result)
+    }
+
+  private def expected: String =
+    if (topLevelArray) "json array" else "newline-delimited json"
+
+  private def step(byte: Byte): Unit =
+    if (inString) {
+      append(byte)
+      if (escaped) escaped = false
+      else if (byte == '\\') escaped = true
+      else if (byte == '"') inString = false
+    } else if (topLevelArray && !opened) {
+      if (byte == '[') opened = true
+      else if (!isWhitespace(byte)) failure = "expected '['"
+    } else if (closed) {
+      if (!isWhitespace(byte)) failure = "unexpected content after ']'"
+    } else if (byte == '"') {
+      inString = true
+      append(byte)
+    } else if (byte == '{' || byte == '[') {
+      depth += 1
+      append(byte)
+    } else if ((byte == '}' || byte == ']') && depth > 0) {
+      depth -= 1
+      append(byte)
+    } else if (byte == ']' && topLevelArray) {
+      if (separated && size == 0) failure = "expected a value after ','"
+      else {
+        emit()
+        closed = true
+      }
+    } else if (byte == '}' || byte == ']') {
+      failure = s"unexpected '${byte.toChar}'"
+    } else if (byte == ',' && topLevelArray && depth == 0) {
+      if (size == 0) failure = "unexpected ','"
+      else {
+        emit()
+        separated = true
+      }
+    } else if (byte == '\n' && !topLevelArray && depth == 0) {
+      emit()
+    } else if (isWhitespace(byte)) {
+      if (size > 0) append(byte)
+    } else append(byte)
+
+  private def append(byte: Byte): Unit =
+    if (size == maxValueSize)
+      failure = s"value exceeds the maximum size of $maxValueSize bytes"
+    else {
+      if (size == buffer.length) {
+        val grown = math.min(buffer.length.toLong * 2, maxValueSize.toLong)
+        buffer = java.util.Arrays.copyOf(buffer, grown.toInt)
+      }
+      buffer(size) = byte
+      size += 1
+    }
+
+  private def emit(): Unit =
+    if (size > 0) {
+      values += Blob(java.util.Arrays.copyOf(buffer, size))
+      size = 0
+    }
+
+}
+
+private[interopfs2] object JsonFramer {
+
+  private def isWhitespace(byte: Byte): Boolean =
+    byte == ' ' || byte == '\n' || byte == '\r' || byte == '\t'
+
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package interopfs2
+package internals
+
+import fs2.Chunk
+import smithy4s.protobuf.ProtobufReadError
+
+import java.io.EOFException
+import java.io.IOException
+
+/**
+  * Splits bytes into the varint length-delimited protobuf messages they hold,
+  * as written by `writeDelimitedTo`. Messages held entirely by a chunk are
+  * sliced out of it, others are assembled into an array sized by their length
+  * prefix, so memory is bounded by the largest message.
+  *
+  * Instances are stateful and must only be fed by a single stream.
+  */
+private[interopfs2] final class ProtobufFramer(maxMessageSize: Int) {
+
+  // the length prefix being read
+  private[this] var length = 0
+  private[this] var shift = 0
+  // the message being assembled, null while a length prefix is read
+  private[this] var message: Array[Byte] = null
+  private[this] var filled = 0
+  private[this] var failure: ProtobufReadError = null
+  private[this] val messages = Vector.newBuilder[Blob]
+
+  def feed(chunk: Chunk[Byte]): Either[ProtobufReadError, Chunk[Blob]] = {
+    val slice = chunk.toArraySlice
+    val bytes = slice.values
+    var i = slice.offset
+    val end = slice.offset + slice.length
+    while (failure == null && i < end) {
+      if (message != null) {
+        val n = math.min(message.length - filled, end - i)
+        System.arraycopy(bytes, i, message, filled, n)
+        filled += n
+        i += n
+        if (filled == message.length) {
+          messages += Blob(message)
+          message = null
+        }
+      } else {
+        val byte = bytes(i)
+        i += 1
+        length |= (byte & 0x7f) << shift
+        shift += 7
+        if ((byte & 0x80) != 0) {
+          if (shift == 35) failure = malformed("malformed length prefix")
+        } else {
+          val size = length
+          length = 0
+          shift = 0
+          if (size < 0) failure = malformed("malformed length prefix")
+          else if (size > maxMessageSize)
+            failure = malformed(
+              s"message of $size bytes exceeds the maximum size of " +
+                s"$maxMessageSize bytes"
+            )
+          else if (end - i >= size) {
+            messages += new Blob.ArraySliceBlob(bytes, i, size)
+            i += size
+          } else {
+            message = new Array[Byte](size)
+            filled = 0
+          }
+        }
+      }
+    }
+    result()
+  }
+
+  def finish(): Either[ProtobufReadError, Chunk[Blob]] = {
+    if (failure == null && (message != null || shift > 0))
+      failure = ProtobufReadError.Other(
+        new EOFException("Input ended within a delimited message")
+      )
+    result()
+  }
+
+  private def result(): Either[ProtobufReadError, Chunk[Blob]] =
+    if (failure != null) Left(failure)
+    else {
+      val result = Chunk.from(messages.result())
+      messages.clear()
+      Right(result)
+    }
+
+  private def malformed(reason: String): ProtobufReadError =
+    ProtobufReadError.Other(new IOException(reason))
+
+}
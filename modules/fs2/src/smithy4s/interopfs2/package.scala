@@ -16,5 +16,131 @@
 
 package smithy4s
 
+import fs2.Chunk
+import fs2.Pipe
+import fs2.RaiseThrowable
+import fs2.Stream
+import smithy4s.interopfs2.internals.JsonFramer
+import smithy4s.interopfs2.internals.ProtobufFramer
+import smithy4s.json.Json
+import smithy4s.json.JsonPayloadCodecCompiler
+import smithy4s.protobuf.ProtobufCodec
+
 // scalafmt: {maxColumn = 120}
-package object interopfs2 {}
+package object interopfs2 {
+
+  /**
+    * The default maximum size of a single json value read by the decoding pipes. Streams holding larger values
+    * fail, which bounds the memory used by decoding regardless of the size of the stream.
+    */
+  val defaultMaxJsonValueSize: Int = 16 * 1024 * 1024
+
+  /**
+    * Decodes the elements of a top-level json array, as they are read.
+    */
+  def decodeJsonArray[F[_]: RaiseThrowable, A](
+      schema: Schema[A],
+      codecs: JsonPayloadCodecCompiler = Json.payloadCodecs,
+      maxValueSize: Int = defaultMaxJsonValueSize
+  ): Pipe[F, Byte, A] = decodeJson(schema, codecs, topLevelArray = true, maxValueSize)
+
+  /**
+    * Decodes newline-delimited json values (one value per line), as they are read. Blank lines are ignored.
+    */
+  def decodeJsonLines[F[_]: RaiseThrowable, A](
+      schema: Schema[A],
+      codecs: JsonPayloadCodecCompiler = Json.payloadCodecs,
+      maxValueSize: Int = defaultMaxJsonValueSize
+  ): Pipe[F, Byte, A] = decodeJson(schema, codecs, topLevelArray = false, maxValueSize)
+
+  /**
+    * Encodes values as the elements of a top-level json array. Each value is written as soon as it is pulled.
+    */
+  def encodeJsonArray[F[_], A](
+      schema: Schema[A],
+      codecs: JsonPayloadCodecCompiler = Json.payloadCodecs
+  ): Pipe[F, A, Byte] = {
+    val encoder = codecs.encoders.fromSchema(schema)
+    values =>
+      Stream.chunk(openBracket) ++
+        values.map(value => toChunk(encoder.encode(value))).intersperse(comma).flatMap(Stream.chunk) ++
+        Stream.chunk(closeBracket)
+  }
+
+  /**
+    * Encodes values as newline-delimited json. Each value is written as soon as it is pulled.
+    */
+  def encodeJsonLines[F[_], A](
+      schema: Schema[A],
+      codecs: JsonPayloadCodecCompiler = Json.payloadCodecs
+  ): Pipe[F, A, Byte] = {
+    val encoder = codecs.encoders.fromSchema(schema)
+    values => values.flatMap(value => Stream.chunk(toChunk(encoder.encode(value))) ++ Stream.chunk(newline))
+  }
+
+  /**
+    * The default maximum size of a single protobuf message read by the decoding pipes. Streams announcing larger
+    * messages fail before these are buffered.
+    */
+  val defaultMaxProtobufMessageSize: Int = ProtobufCodec.defaultMaxMessageSize
+
+  /**
+    * Decodes varint length-delimited protobuf messages, as written by protobuf's `writeDelimitedTo`, as they are
+    * read. Only the bytes of the message being read are retained.
+    */
+  def decodeProtobufDelimited[F[_]: RaiseThrowable, A](
+      schema: Schema[A],
+      maxMessageSize: Int = defaultMaxProtobufMessageSize
+  ): Pipe[F, Byte, A] = {
+    val codec = ProtobufCodec.fromSchema(schema)
+    bytes =>
+      Stream.suspend {
+        val framer = new ProtobufFramer(maxMessageSize)
+        val messages =
+          bytes.chunks.flatMap(chunk => Stream.fromEither[F](framer.feed(chunk))) ++
+            Stream.suspend(Stream.fromEither[F](framer.finish()))
+        messages.flatMap(Stream.chunk).map(codec.readBlob).rethrow
+      }
+  }
+
+  /**
+    * Encodes values as varint length-delimited protobuf messages, readable by protobuf's `parseDelimitedFrom`.
+    * Each value is written as soon as it is pulled.
+    */
+  def encodeProtobufDelimited[F[_], A](schema: Schema[A]): Pipe[F, A, Byte] = {
+    val codec = ProtobufCodec.fromSchema(schema)
+    values => values.flatMap(value => Stream.chunk(toChunk(codec.writeDelimitedBlob(value))))
+  }
+
+  private def decodeJson[F[_]: RaiseThrowable, A](
+      schema: Schema[A],
+      codecs: JsonPayloadCodecCompiler,
+      topLevelArray: Boolean,
+      maxValueSize: Int
+  ): Pipe[F, Byte, A] = {
+    val decoder = codecs.decoders.fromSchema(schema)
+    bytes =>
+      Stream.suspend {
+        val framer = new JsonFramer(topLevelArray, maxValueSize)
+        val values =
+          bytes.chunks.flatMap(chunk => Stream.fromEither[F](framer.feed(chunk))) ++
+            Stream.suspend(Stream.fromEither[F](framer.finish()))
+        values.flatMap(Stream.chunk).map(decoder.decode).rethrow
+      }
+  }
+
+  // Same as the http4s kernel's conversion, which this module doesn't depend on : blobs are immutable, so their
+  // underlying storage is shared with the chunk rather than copied into it.
+  private def toChunk(blob: Blob): Chunk[Byte] = blob match {
+    case slice: Blob.ArraySliceBlob  => Chunk.array(slice.arr, slice.offset, slice.length)
+    case buffer: Blob.ByteBufferBlob => Chunk.byteBuffer(buffer.asByteBufferUnsafe)
+    case mapped: Blob.MappedBlob     => Chunk.byteBuffer(mapped.asByteBufferUnsafe)
+    case other                       => Chunk.array(other.toArray)
+  }
+
+  private val openBracket = Chunk.singleton('['.toByte)
+  private val closeBracket = Chunk.singleton(']'.toByte)
+  private val comma = Chunk.singleton(','.toByte)
+  private val newline = Chunk.singleton('\n'.toByte)
+
+}
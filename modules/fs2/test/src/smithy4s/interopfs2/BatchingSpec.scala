@@ -0,0 +1,206 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package smithy4s
+package interopfs2
+
+import cats.effect.IO
+import cats.effect.Ref
+import cats.syntax.all._
+import smithy4s.kinds._
+import smithy4s.schema.Schema._
+import weaver._
+
+import scala.concurrent.duration._
+
+object BatchingSpec extends SimpleIOSuite {
+
+  case class Key(id: String)
+  object Key {
+    val schema: Schema[Key] =
+      struct(string.required[Key]("id", _.id))(Key.apply)
+  }
+
+  case class Item(id: String, name: String)
+  object Item {
+    val schema: Schema[Item] = struct(
+      string.required[Item]("id", _.id),
+      string.required[Item]("name", _.name)
+    )(Item.apply)
+  }
+
+  case class Keys(keys: List[Key], consistent: Option[Boolean])
+  object Keys {
+    val schema: Schema[Keys] = struct(
+      list(Key.schema).required[Keys]("keys", _.keys),
+      boolean.optional[Keys]("consistent", _.consistent)
+    )(Keys.apply)
+  }
+
+  case class Items(items: List[Item])
+  object Items {
+    val schema: Schema[Items] =
+      struct(list(Item.schema).required[Items]("items", _.items))(Items.apply)
+  }
+
+  sealed trait ItemOp[I, E, O, SI, SO] {
+    def input: I
+    def ordinal: Int
+  }
+  case class GetItem(input: Key)
+      extends ItemOp[Key, Nothing, Item, Nothing, Nothing] {
+    def ordinal: Int = 0
+  }
+  case class BatchGetItem(input: Keys)
+      extends ItemOp[Keys, Nothing, Items, Nothing, Nothing] {
+    def ordinal: Int = 1
+  }
+
+  private def service(
+      maxBatchSize: Int,
+      maxDelayMillis: Int
+  ): Service.Reflective[ItemOp] = {
+    val batchedBy = BatchedBy(
+      ShapeId("test", "BatchGetItem"),
+      inputMember = "keys",
+      outputMember = "items",
+      maxBatchSize = maxBatchSize,
+      maxDelayMillis = maxDelayMillis
+    )
+    val getItem = Endpoint[ItemOp, Key, Nothing, Item, Nothing, Nothing](
+      Schema
+        .operation(ShapeId("test", "GetItem"))
+        .withInput(Key.schema)
+        .withOutput(Item.schema)
+        .withHints(batchedBy),
+      GetItem(_)
+    )
+    val batchGetItem =
+      Endpoint[ItemOp, Keys, Nothing, Items, Nothing, Nothing](
+        Schema
+          .operation(ShapeId("test", "BatchGetItem"))
+          .withInput(Keys.schema)
+          .withOutput(Items.schema),
+        BatchGetItem(_)
+      )
+    // format: off
+    new Service.Reflective[ItemOp] {
+      def id: ShapeId = ShapeId("test", "ItemService")
+      def endpoints: Vector[Endpoint[_, _, _, _, _]] = Vector(getItem, batchGetItem)
+      def input[I, E, O, SI, SO](op: ItemOp[I, E, O, SI, SO]): I = op.input
+      def ordinal[I, E, O, SI, SO](op: ItemOp[I, E, O, SI, SO]): Int = op.ordinal
+      def version: String = "1.0"
+      def hints: Hints = Hints.empty
+    }
+    // format: on
+  }
+
+  // An implementation recording the batch calls it receives, which
+  // answers them with `answer`.
+  private def batching(
+      maxBatchSize: Int,
+      maxDelayMillis: Int,
+      calls: Ref[IO, List[Keys]]
+  )(
+      answer: Keys => IO[Items]
+  ): cats.effect.Resource[IO, PolyFunction5[ItemOp, Kind1[IO]#toKind5]] = {
+    val impl = new PolyFunction5[ItemOp, Kind1[IO]#toKind5] {
+      def apply[I, E, O, SI, SO](op: ItemOp[I, E, O, SI, SO]): IO[O] =
+        op match {
+          case BatchGetItem(keys) =>
+            (calls.update(_ :+ keys) *> answer(keys)).asInstanceOf[IO[O]]
+          case GetItem(_) =>
+            IO.raiseError(new IllegalStateException("Not batched"))
+        }
+    }
+    Batching[PolyFunction5.From[ItemOp]#Algebra, ItemOp, IO](
+      service(maxBatchSize, maxDelayMillis)
+    )(impl)
+  }
+
+  private def found(keys: Keys): IO[Items] =
+    IO.pure(Items(keys.keys.map(key => Item(key.id, s"item ${key.id}"))))
+
+  private val ids = List("a", "b", "c")
+
+  test("calls are sent as soon as maxBatchSize of them are pending") {
+    Ref[IO].of(List.empty[Keys]).flatMap { calls =>
+      batching(3, 1.hour.toMillis.toInt, calls)(found).use { client =>
+        ids
+          .parTraverse(id => client(GetItem(Key(id))))
+          .timeout(10.seconds)
+          .product(calls.get)
+          .map { case (items, batches) =>
+            expect(items.map(_.id) == ids) &&
+            expect(batches.map(_.keys.map(_.id).sorted) == List(ids))
+          }
+      }
+    }
+  }
+
+  test("pending calls are sent once maxDelayMillis elapsed") {
+    Ref[IO].of(List.empty[Keys]).flatMap { calls =>
+      batching(10, 10, calls)(found).use { client =>
+        client(GetItem(Key("a"))).timeout(10.seconds).product(calls.get).map {
+          case (item, batches) =>
+            expect(item == Item("a", "item a")) &&
+            expect(batches == List(Keys(List(Key("a")), None)))
+        }
+      }
+    }
+  }
+
+  test("each caller receives the output at the position of its input") {
+    Ref[IO].of(List.empty[Keys]).flatMap { calls =>
+      batching(3, 1.hour.toMillis.toInt, calls)(found).use { client =>
+        ids.parTraverse(id => client(GetItem(Key(id)))).map { items =>
+          expect(items == ids.map(id => Item(id, s"item $id")))
+        }
+      }
+    }
+  }
+
+  test("a failing batch call fails all the calls it groups") {
+    val error = new Exception("boom")
+    Ref[IO].of(List.empty[Keys]).flatMap { calls =>
+      batching(3, 1.hour.toMillis.toInt, calls)(_ => IO.raiseError(error))
+        .use { client =>
+          ids.parTraverse(id => client(GetItem(Key(id))).attempt).map {
+            results => expect(results == List.fill(3)(Left(error)))
+          }
+        }
+    }
+  }
+
+  test("a batch call returning too few outputs fails all its calls") {
+    Ref[IO].of(List.empty[Keys]).flatMap { calls =>
+      val partial = (keys: Keys) =>
+        found(keys).map(items => Items(items.items.take(2)))
+      batching(3, 1.hour.toMillis.toInt, calls)(partial)
+        .use { client =>
+          ids.parTraverse(id => client(GetItem(Key(id))).attempt).map {
+            results =>
+              expect(results.forall {
+                case Left(_: IllegalStateException) => true
+                case _                              => false
+              })
+          }
+        }
+    }
+  }
+
+}
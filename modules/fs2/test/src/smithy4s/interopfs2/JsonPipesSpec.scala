@@ -0,0 +1,132 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package interopfs2
+
+import fs2.Chunk
+import fs2.Fallible
+import fs2.Stream
+import munit._
+import smithy4s.codecs.PayloadError
+import smithy4s.schema.Schema._
+
+class JsonPipesSpec() extends FunSuite {
+
+  case class Item(name: String, tags: List[String])
+  object Item {
+    val schema: Schema[Item] = struct(
+      string.required[Item]("name", _.name),
+      list(string).required[Item]("tags", _.tags)
+    )(Item.apply)
+  }
+
+  val items = List(
+    Item("a", List("x", "y")),
+    Item("b]\"{", List.empty),
+    Item("c", List("z"))
+  )
+
+  // feeds the bytes in chunks of the given size, to exercise values that
+  // straddle chunk boundaries
+  private def bytes(json: String, chunkSize: Int): Stream[Fallible, Byte] =
+    Stream
+      .emits(json.getBytes("UTF-8").toSeq)
+      .chunkLimit(chunkSize)
+      .flatMap(Stream.chunk)
+      .covary[Fallible]
+
+  test("top-level json arrays are decoded element by element") {
+    val json =
+      """ [ {"name":"a","tags":["x","y"]},
+        |   {"name":"b]\"{","tags":[]}
+        |   ,{"name":"c","tags":["z"]} ] """.stripMargin
+    List(1, 3, 1024).foreach { chunkSize =>
+      val result = bytes(json, chunkSize)
+        .through(decodeJsonArray[Fallible, Item](Item.schema))
+        .compile
+        .toList
+      assertEquals(result, Right(items))
+    }
+  }
+
+  test("newline-delimited json is decoded line by line") {
+    val json =
+      """{"name":"a","tags":["x","y"]}
+        |
+        |{"name":"b]\"{","tags":[]}
+        |{"name":"c","tags":["z"]}""".stripMargin
+    List(1, 5, 1024).foreach { chunkSize =>
+      val result = bytes(json, chunkSize)
+        .through(decodeJsonLines[Fallible, Item](Item.schema))
+        .compile
+        .toList
+      assertEquals(result, Right(items))
+    }
+  }
+
+  test("encoding and decoding round-trip") {
+    val source = Stream.emits(items).covary[Fallible]
+    val array = source
+      .through(encodeJsonArray[Fallible, Item](Item.schema))
+      .through(decodeJsonArray[Fallible, Item](Item.schema))
+    val lines = source
+      .through(encodeJsonLines[Fallible, Item](Item.schema))
+      .through(decodeJsonLines[Fallible, Item](Item.schema))
+    assertEquals(array.compile.toList, Right(items))
+    assertEquals(lines.compile.toList, Right(items))
+  }
+
+  test("empty streams are encoded as empty arrays") {
+    val result = Stream
+      .empty
+      .covaryAll[Fallible, Item]
+      .through(encodeJsonArray[Fallible, Item](Item.schema))
+      .compile
+      .to(Chunk)
+      .map(chunk => new String(chunk.toArray, "UTF-8"))
+    assertEquals(result, Right("[]"))
+  }
+
+  test("truncated and oversized values fail the stream") {
+    val truncated = bytes("""[{"name":"a","tags":[]""", 4)
+      .through(decodeJsonArray[Fallible, Item](Item.schema))
+      .compile
+      .toList
+    assert(truncated.left.exists(_.isInstanceOf[PayloadError]))
+
+    val oversized = bytes("""[{"name":"a","tags":[]}]""", 4)
+      .through(decodeJsonArray[Fallible, Item](Item.schema, maxValueSize = 8))
+      .compile
+      .toList
+    assert(oversized.left.exists(_.isInstanceOf[PayloadError]))
+  }
+
+  test("trailing commas in top-level arrays fail the stream") {
+    List("""[{"name":"a","tags":[]},]""", """[{"name":"a","tags":[]}, ]""")
+      .foreach { json =>
+        val result = bytes(json, 4)
+          .through(decodeJsonArray[Fallible, Item](Item.schema))
+          .compile
+          .toList
+        assert(
+          result.left.exists(_.isInstanceOf[PayloadError]),
+          s"$json should fail, got $result"
+        )
+      }
+  }
+
+}
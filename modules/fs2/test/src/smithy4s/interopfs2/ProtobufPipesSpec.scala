@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package interopfs2
+
+import fs2.Chunk
+import fs2.Fallible
+import fs2.Stream
+import munit._
+import smithy4s.protobuf.ProtobufCodec
+import smithy4s.protobuf.ProtobufReadError
+import smithy4s.schema.Schema._
+
+class ProtobufPipesSpec() extends FunSuite {
+
+  case class Event(id: Int, payload: String)
+  object Event {
+    val schema: Schema[Event] = struct(
+      int.required[Event]("id", _.id),
+      string.required[Event]("payload", _.payload)
+    )(Event.apply)
+  }
+
+  // the last payload needs a two-byte length prefix
+  val events = List(
+    Event(1, "a"),
+    Event(0, ""),
+    Event(300, "x" * 200)
+  )
+
+  private val codec = ProtobufCodec.fromSchema(Event.schema)
+
+  // feeds the bytes in chunks of the given size, to exercise messages and
+  // length prefixes that straddle chunk boundaries
+  private def bytes(
+      array: Array[Byte],
+      chunkSize: Int
+  ): Stream[Fallible, Byte] =
+    Stream
+      .emits(array.toSeq)
+      .chunkLimit(chunkSize)
+      .flatMap(Stream.chunk)
+      .covary[Fallible]
+
+  private def delimited(events: List[Event]): Array[Byte] =
+    events.flatMap(codec.writeDelimitedBlob(_).toArray).toArray
+
+  test("delimited messages are decoded message by message") {
+    List(1, 3, 1024).foreach { chunkSize =>
+      val result = bytes(delimited(events), chunkSize)
+        .through(decodeProtobufDelimited[Fallible, Event](Event.schema))
+        .compile
+        .toList
+      assertEquals(result, Right(events))
+    }
+  }
+
+  test("encoding and decoding round-trip") {
+    val result = Stream
+      .emits(events)
+      .covary[Fallible]
+      .through(encodeProtobufDelimited[Fallible, Event](Event.schema))
+      .through(decodeProtobufDelimited[Fallible, Event](Event.schema))
+      .compile
+      .toList
+    assertEquals(result, Right(events))
+  }
+
+  test("encoded messages can be read from an input stream") {
+    val encoded = Stream
+      .emits(events)
+      .covary[Fallible]
+      .through(encodeProtobufDelimited[Fallible, Event](Event.schema))
+      .compile
+      .to(Chunk)
+      .map(_.toArray)
+    val in = new java.io.ByteArrayInputStream(encoded.toOption.get)
+    val result = Iterator
+      .continually(codec.unsafeReadDelimitedFrom(in))
+      .takeWhile(_.isDefined)
+      .flatten
+      .toList
+    assertEquals(result, events)
+  }
+
+  test("truncated and oversized messages fail the stream") {
+    val all = delimited(events)
+    val truncated = bytes(all.take(all.length - 1), 4)
+      .through(decodeProtobufDelimited[Fallible, Event](Event.schema))
+      .compile
+      .toList
+    assert(truncated.left.exists(_.isInstanceOf[ProtobufReadError]))
+
+    val oversized = bytes(all, 4)
+      .through(
+        decodeProtobufDelimited[Fallible, Event](
+          Event.schema,
+          maxMessageSize = 64
+        )
+      )
+      .compile
+      .toList
+    assert(oversized.left.exists(_.isInstanceOf[ProtobufReadError]))
+  }
+
+}
@@ -37,6 +37,10 @@ import fs2.Chunk
 // scalafmt: { maxColumn = 120}
 package object kernel {
 
+  /**
+    * Collects the body of the request into a heap-backed blob. Contrary to outgoing bodies, which can be backed by
+    * memory-mapped files (see `Blob.mapped`), incoming bodies are held in memory in full.
+    */
   def toSmithy4sHttpRequest[F[_]: Concurrent](req: Request[F]): F[Smithy4sHttpRequest[Blob]] = {
     val pathParams = req.attributes.lookup(pathParamsKey)
     val uri = toSmithy4sHttpUri(req.uri, pathParams)
@@ -206,6 +210,15 @@ package object kernel {
       blob: Blob
   ): Stream[F, Byte] =
     // Optimisation motivated by https://github.com/http4s/http4s/issues/7539
-    if (blob.isEmpty) Stream.empty else Stream.chunk(Chunk.array(blob.toArray))
+    if (blob.isEmpty) Stream.empty else Stream.chunk(toChunk(blob))
+
+  // Blobs are immutable, so their underlying storage is shared with the
+  // chunk rather than copied into it.
+  private[smithy4s] def toChunk(blob: Blob): Chunk[Byte] = blob match {
+    case slice: Blob.ArraySliceBlob  => Chunk.array(slice.arr, slice.offset, slice.length)
+    case buffer: Blob.ByteBufferBlob => Chunk.byteBuffer(buffer.asByteBufferUnsafe)
+    case mapped: Blob.MappedBlob     => Chunk.byteBuffer(mapped.asByteBufferUnsafe)
+    case other                       => Chunk.array(other.toArray)
+  }
 
 }
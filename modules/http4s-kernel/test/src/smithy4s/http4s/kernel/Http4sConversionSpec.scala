@@ -106,6 +106,17 @@ object Http4sConversionSpec extends SimpleIOSuite {
     )
   }
 
+  pureTest("Blobs are converted to chunks without copying their bytes") {
+    val bytes = "hello world".getBytes()
+    val slice = toChunk(smithy4s.Blob(bytes)).toArraySlice
+    val buffer = java.nio.ByteBuffer.wrap(bytes)
+    assert(slice.values eq bytes) &&
+    assert.same(
+      toChunk(smithy4s.Blob.view(buffer)).toArray.toList,
+      bytes.toList
+    )
+  }
+
   private def http4sToSmithyAndBackUriTest(input: Uri, output: Uri) = {
     pureTest(s"URI: http4s to smithy4s and back: $input -> $output") {
       assert.eql(
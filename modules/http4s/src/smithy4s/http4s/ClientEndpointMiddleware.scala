@@ -17,6 +17,7 @@
 package smithy4s
 package http4s
 
+import cats.effect.Async
 import org.http4s.client.Client
 
 object ClientEndpointMiddleware {
@@ -33,4 +34,27 @@ object ClientEndpointMiddleware {
       prepareWithHints(service.hints, endpoint.hints)
   }
 
+  final case class CoalescingStats(calls: Long, coalesced: Long) {
+    def coalescingRatio: Double =
+      if (calls == 0) 0.0 else coalesced.toDouble / calls
+  }
+
+  /**
+    * A middleware coalescing concurrent calls to the endpoints annotated
+    * with `@smithy4s.meta#singleFlight`, exposing how many calls were
+    * coalesced for each of these endpoints.
+    */
+  trait Coalescing[F[_]] extends ClientEndpointMiddleware[F] {
+    def stats: F[Map[ShapeId, CoalescingStats]]
+  }
+
+  /**
+    * Coalesces the calls to `@singleFlight` endpoints that are issued while
+    * an identical call is in flight, keyed by endpoint and encoded input.
+    * Only one request reaches the server, and its response (or error) is
+    * shared by all the callers.
+    */
+  def singleFlight[F[_]: Async]: F[Coalescing[F]] =
+    Async[F].delay(new internals.SingleFlightClientEndpointMiddleware[F])
+
 }
@@ -19,14 +19,42 @@ package http4s
 
 import cats.MonadThrow
 import cats.data.Kleisli
+import cats.effect.Async
 import org.http4s.Response
 import org.http4s.HttpApp
 import cats.implicits._
+import smithy4s.server.ResponseCache
 
 object ServerEndpointMiddleware {
 
   trait Simple[F[_]] extends Endpoint.Middleware.Simple[HttpApp[F]]
 
+  /**
+    * A middleware caching the responses of the endpoints annotated with
+    * `@smithy4s.meta#cacheable`, exposing the hit/miss counters of the
+    * cache of each of these endpoints.
+    */
+  trait Caching[F[_]] extends ServerEndpointMiddleware[F] {
+    def stats: F[Map[ShapeId, ResponseCache.Stats]]
+  }
+
+  /**
+    * Caches successful responses of `@cacheable` endpoints, keyed by the
+    * path, query parameters, input-bound headers, identity headers
+    * (`Authorization`, `Cookie`) and body of the request. Each endpoint gets
+    * its own LRU cache, sized and expired according to the trait.
+    * Concurrent requests with the same key share a single call to the
+    * underlying handler.
+    *
+    * Authentication middlewares must run before this one, for instance by
+    * composing them as `caching.andThen(auth)`, as cached responses are
+    * returned without calling the middlewares it wraps.
+    */
+  def cacheable[F[_]: Async]: F[Caching[F]] =
+    Async[F].delay(
+      new internals.CachingServerEndpointMiddleware[F](() => System.nanoTime())
+    )
+
   def mapErrors[F[_]: MonadThrow](
       f: PartialFunction[Throwable, Throwable]
   ): ServerEndpointMiddleware[F] =
@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.http4s.internals
+
+import cats.data.Kleisli
+import cats.effect.Async
+import cats.syntax.all._
+import fs2.Chunk
+import fs2.Stream
+import org.http4s.HttpApp
+import org.http4s.Request
+import org.http4s.Response
+import smithy4s.Blob
+import smithy4s.Cacheable
+import smithy4s.Schema
+import smithy4s.Service
+import smithy4s.ShapeId
+import smithy4s.http.HttpCacheKey
+import smithy4s.http4s.ServerEndpointMiddleware
+import smithy4s.http4s.kernel._
+import smithy4s.interopcats._
+import smithy4s.server.CacheableMiddleware
+import smithy4s.server.ResponseCache
+
+// scalafmt: { maxColumn = 120 }
+private[http4s] final class CachingServerEndpointMiddleware[F[_]](nanoTime: () => Long)(implicit
+    F: Async[F]
+) extends ServerEndpointMiddleware.Caching[F] {
+
+  private[this] var caches = Map.empty[ShapeId, ResponseCache[F, Response[F]]]
+
+  private def register(
+      endpointId: ShapeId,
+      cache: ResponseCache[F, Response[F]]
+  ): Unit = synchronized { caches = caches + (endpointId -> cache) }
+
+  private[this] val makeCache = new ResponseCache.Make[F, Response[F]] {
+    def apply(
+        endpointId: ShapeId,
+        cacheable: Cacheable
+    ): ResponseCache[F, Response[F]] = {
+      val cache = new SingleFlightCache(ResponseCache.Store(cacheable, nanoTime))
+      register(endpointId, cache)
+      cache
+    }
+  }
+
+  // The body is collected to compute the key, and replayed to the handler.
+  private[this] val cacheKey =
+    new CacheableMiddleware.CacheKey[F, Request[F]] {
+      def apply(input: Schema[_]): Request[F] => F[(Blob, Request[F])] = {
+        val keyOf = HttpCacheKey(input)
+        req =>
+          toSmithy4sHttpRequest(req).map { smithy4sRequest =>
+            val body = toChunk(smithy4sRequest.body)
+            (keyOf(smithy4sRequest), req.withBodyStream(Stream.chunk(body)))
+          }
+      }
+    }
+
+  private[this] val underlying =
+    CacheableMiddleware[F, Request[F], Response[F]](makeCache, cacheKey)
+
+  def prepare[Alg[_[_, _, _, _, _]]](service: Service[Alg])(
+      endpoint: service.Endpoint[_, _, _, _, _]
+  ): HttpApp[F] => HttpApp[F] = {
+    val middleware = underlying.prepare(service)(endpoint)
+    http => Kleisli(middleware(http.run))
+  }
+
+  def stats: F[Map[ShapeId, ResponseCache.Stats]] =
+    F.delay(synchronized(caches)).flatMap {
+      _.toList.traverse { case (id, cache) => cache.stats.tupleLeft(id) }.map(_.toMap)
+    }
+
+  private final class SingleFlightCache(store: ResponseCache.Store[Response[F]])
+      extends ResponseCache[F, Response[F]] {
+
+    private[this] val inFlight = new InFlightCalls[F, Response[F]]
+
+    // Responses are made strict before being stored, so that their body
+    // can be replayed.
+    private def strict(response: Response[F]): F[Response[F]] =
+      response.body.compile.to(Chunk).map { chunk =>
+        response.withBodyStream(Stream.chunk(chunk))
+      }
+
+    def getOrPopulate(key: Blob)(populate: F[Response[F]]): F[Response[F]] =
+      F.delay(store.get(key)).flatMap {
+        case Some(response) => F.pure(response)
+        case None =>
+          inFlight(key) {
+            populate.flatMap(strict).flatTap(response => F.delay(store.put(key, response)))
+          }
+      }
+
+    def stats: F[ResponseCache.Stats] = F.delay(store.stats)
+
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.http4s.internals
+
+import cats.effect.Async
+import cats.effect.Deferred
+import cats.syntax.all._
+import smithy4s.Blob
+
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+// scalafmt: { maxColumn = 120 }
+/**
+  * Shares the outcome of in-flight computations between all the callers
+  * asking for the same key, so that a single one runs at any given time.
+  */
+private[http4s] final class InFlightCalls[F[_], A](implicit F: Async[F]) {
+
+  private[this] val inFlight =
+    new ConcurrentHashMap[Blob, Deferred[F, Either[Throwable, A]]]()
+  private[this] val calls = new AtomicLong(0L)
+  private[this] val joined = new AtomicLong(0L)
+
+  /**
+    * Runs `fa`, unless a computation is already in flight for `key`, in
+    * which case its outcome is awaited instead. Failures are shared as well.
+    *
+    * The computation runs on its own fiber, so that cancelling any of the
+    * callers (including the one that started it) only cancels their wait.
+    */
+  def apply(key: Blob)(fa: F[A]): F[A] =
+    Deferred[F, Either[Throwable, A]].flatMap { deferred =>
+      F.uncancelable { _ =>
+        F.delay {
+          val existing = inFlight.putIfAbsent(key, deferred)
+          calls.incrementAndGet()
+          Option(existing)
+        }.flatMap {
+          case Some(existing) => F.delay(joined.incrementAndGet()).as(existing)
+          case None           => lead(key, deferred, fa).as(deferred)
+        }
+      }.flatMap(_.get.rethrow)
+    }
+
+  private def lead(
+      key: Blob,
+      deferred: Deferred[F, Either[Throwable, A]],
+      fa: F[A]
+  ): F[Unit] = {
+    def complete(result: Either[Throwable, A]): F[Unit] =
+      F.delay(inFlight.remove(key, deferred)) *> deferred.complete(result).void
+
+    F.start {
+      fa.attempt
+        .onCancel(complete(Left(new CancellationException("The in-flight call was cancelled"))))
+        .flatMap(complete)
+    }.void
+  }
+
+  /** The number of calls, and how many of them joined an in-flight one. */
+  def counters: F[(Long, Long)] = F.delay((calls.get(), joined.get()))
+
+}
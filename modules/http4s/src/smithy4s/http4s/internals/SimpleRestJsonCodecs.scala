@@ -56,11 +56,14 @@ private[http4s] class SimpleRestJsonCodecs(
     new SimpleRestJsonCodecs(jsonCodecs, explicitDefaultsEncoding, newHostPrefixInjection)
 
   // val mediaType = HttpMediaType("application/json")
-  private val payloadEncoders: BlobEncoder.Compiler =
-    jsonCodecs.configureJsoniterCodecCompiler(_.withHintMask(hintMask)).encoders
+  // Encoders and decoders come from the same compiler, so that deferred values
+  // decoded by the latter are copied verbatim by the former.
+  private val payloadCodecs =
+    jsonCodecs.configureJsoniterCodecCompiler(_.withHintMask(hintMask))
 
-  private val payloadDecoders =
-    jsonCodecs.configureJsoniterCodecCompiler(_.withHintMask(hintMask)).decoders
+  private val payloadEncoders: BlobEncoder.Compiler = payloadCodecs.encoders
+
+  private val payloadDecoders = payloadCodecs.decoders
 
   // Adding X-Amzn-Errortype as well to facilitate interop with Amazon-issued code-generators.
   private val errorHeaders = List(
@@ -0,0 +1,84 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.http4s.internals
+
+import cats.effect.Async
+import cats.effect.Resource
+import cats.syntax.all._
+import fs2.Chunk
+import fs2.Stream
+import org.http4s.Response
+import org.http4s.client.Client
+import smithy4s.Service
+import smithy4s.ShapeId
+import smithy4s.SingleFlight
+import smithy4s.http.HttpCacheKey
+import smithy4s.http4s.ClientEndpointMiddleware
+import smithy4s.http4s.kernel._
+
+// scalafmt: { maxColumn = 120 }
+private[http4s] final class SingleFlightClientEndpointMiddleware[F[_]](implicit
+    F: Async[F]
+) extends ClientEndpointMiddleware.Coalescing[F] {
+
+  // An endpoint gets registered once per client the middleware is applied to,
+  // each registration coalescing the calls issued through its own client.
+  private[this] var inFlight = Map.empty[ShapeId, List[InFlightCalls[F, Response[F]]]]
+
+  private def register(endpointId: ShapeId): InFlightCalls[F, Response[F]] = {
+    val calls = new InFlightCalls[F, Response[F]]
+    synchronized {
+      inFlight = inFlight.updated(endpointId, calls :: inFlight.getOrElse(endpointId, Nil))
+    }
+    calls
+  }
+
+  // Shared responses are made strict, so that each caller can consume
+  // their body independently.
+  private def strict(response: Response[F]): F[Response[F]] =
+    response.body.compile.to(Chunk).map { chunk =>
+      response.withBodyStream(Stream.chunk(chunk))
+    }
+
+  def prepare[Alg[_[_, _, _, _, _]]](service: Service[Alg])(
+      endpoint: service.Endpoint[_, _, _, _, _]
+  ): Client[F] => Client[F] = endpoint.hints.get(SingleFlight) match {
+    case Some(_) =>
+      val calls = register(endpoint.id)
+      val keyOf = HttpCacheKey(endpoint.input)
+      client =>
+        Client[F] { request =>
+          Resource.eval {
+            toSmithy4sHttpRequest(request).flatMap { smithy4sRequest =>
+              val replayable = request.withBodyStream(Stream.chunk(toChunk(smithy4sRequest.body)))
+              calls(keyOf(smithy4sRequest))(client.run(replayable).use(strict))
+            }
+          }
+        }
+    case None => identity
+  }
+
+  def stats: F[Map[ShapeId, ClientEndpointMiddleware.CoalescingStats]] =
+    F.delay(synchronized(inFlight)).flatMap {
+      _.toList.traverse { case (id, registrations) =>
+        registrations.traverse(_.counters).map { counters =>
+          id -> ClientEndpointMiddleware.CoalescingStats(counters.map(_._1).sum, counters.map(_._2).sum)
+        }
+      }.map(_.toMap)
+    }
+
+}
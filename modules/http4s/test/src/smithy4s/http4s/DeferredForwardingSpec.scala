@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package smithy4s
+package http4s
+
+import cats.effect.IO
+import cats.effect.Ref
+import fs2.Stream
+import org.http4s.Headers
+import org.http4s.HttpApp
+import org.http4s.Method
+import org.http4s.Request
+import org.http4s.Response
+import org.http4s.client.Client
+import org.http4s.implicits._
+import smithy4s.kinds.Kind1
+import smithy4s.kinds.PolyFunction5
+import smithy4s.schema.Schema._
+import weaver._
+
+object DeferredForwardingSpec extends SimpleIOSuite {
+
+  case class Envelope(id: String, payload: Deferred[Document])
+  object Envelope {
+    val schema: Schema[Envelope] = struct(
+      string.required[Envelope]("id", _.id),
+      document.deferred.required[Envelope]("payload", _.payload)
+    )(Envelope.apply)
+  }
+
+  sealed trait ForwardOp[I, E, O, SI, SO] {
+    def input: I
+  }
+  case class Forward(input: Envelope)
+      extends ForwardOp[Envelope, Nothing, Envelope, Nothing, Nothing]
+
+  private val forward =
+    Endpoint[ForwardOp, Envelope, Nothing, Envelope, Nothing, Nothing](
+      Schema
+        .operation(ShapeId("test", "Forward"))
+        .withInput(Envelope.schema)
+        .withOutput(Envelope.schema)
+        .withHints(
+          smithy.api.Http(
+            method = smithy.api.NonEmptyString("POST"),
+            uri = smithy.api.NonEmptyString("/forward"),
+            code = 200
+          )
+        ),
+      Forward(_)
+    )
+
+  // format: off
+  private val service = new Service.Reflective[ForwardOp] {
+    def id: ShapeId = ShapeId("test", "ForwardService")
+    def endpoints: Vector[Endpoint[_, _, _, _, _]] = Vector(forward)
+    def input[I, E, O, SI, SO](op: ForwardOp[I, E, O, SI, SO]): I = op.input
+    def ordinal[I, E, O, SI, SO](op: ForwardOp[I, E, O, SI, SO]): Int = 0
+    def version: String = "1.0"
+    def hints: Hints = Hints(alloy.SimpleRestJson())
+  }
+  // format: on
+
+  private type Impl = PolyFunction5[ForwardOp, Kind1[IO]#toKind5]
+
+  private val builder =
+    SimpleRestJsonBuilder[PolyFunction5.From[ForwardOp]#Algebra](service)
+
+  private def routes(impl: Impl): HttpApp[IO] =
+    builder.routes[IO](impl).make.toOption.get.orNotFound
+
+  // The payload holds whitespace and keys in an order that re-encoding the
+  // document would not preserve.
+  private val json = """{"id":"a","payload":{ "b" : [1, 2] ,"a":"x" }}"""
+
+  private def post(app: HttpApp[IO]): IO[String] =
+    app
+      .run(
+        Request[IO](
+          Method.POST,
+          uri"/forward",
+          headers = Headers("Content-Type" -> "application/json")
+        ).withBodyStream(Stream.emits(json.getBytes("UTF-8")))
+      )
+      .flatMap(_.bodyText.compile.string)
+
+  test("servers forward deferred values byte-for-byte") {
+    val echo = new Impl {
+      def apply[I, E, O, SI, SO](op: ForwardOp[I, E, O, SI, SO]): IO[O] =
+        IO.pure(op.input.asInstanceOf[O])
+    }
+    post(routes(echo)).map(body => expect.same(body, json))
+  }
+
+  test("deferred values decoded by a server are sent verbatim by a client") {
+    for {
+      received <- Ref[IO].of(Option.empty[String])
+      upstream = HttpApp[IO] { request =>
+        request.bodyText.compile.string.flatMap { body =>
+          received
+            .set(Some(body))
+            .as(Response[IO]().withBodyStream(request.body))
+        }
+      }
+      client = builder
+        .client[IO](Client.fromHttpApp(upstream))
+        .make
+        .toOption
+        .get
+      gateway = new Impl {
+        def apply[I, E, O, SI, SO](op: ForwardOp[I, E, O, SI, SO]): IO[O] =
+          client(op)
+      }
+      _ <- post(routes(gateway))
+      forwarded <- received.get
+    } yield expect.same(forwarded, Some(json))
+  }
+
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package smithy4s
+package http4s
+package internals
+
+import cats.effect.Deferred
+import cats.effect.IO
+import cats.effect.Ref
+import cats.implicits._
+import org.http4s.Header
+import org.http4s.HttpApp
+import org.http4s.Method
+import org.http4s.Request
+import org.http4s.Uri
+import org.http4s.implicits._
+import org.typelevel.ci._
+import smithy4s.example.HealthResponse
+import smithy4s.example.PizzaAdminService
+import smithy4s.example.PizzaAdminServiceGen
+import smithy4s.kinds.PolyFunction5
+import smithy4s.server.ResponseCache
+import weaver._
+
+import java.util.concurrent.atomic.AtomicLong
+
+object CachingServerEndpointMiddlewareSpec extends SimpleIOSuite {
+
+  // The health endpoint, annotated with @cacheable
+  private val service = Service.Builder
+    .fromService(PizzaAdminService)
+    .mapEndpointEach(
+      new PolyFunction5[
+        PizzaAdminServiceGen.Endpoint,
+        PizzaAdminServiceGen.Endpoint
+      ] {
+        def apply[I, E, O, SI, SO](
+            endpoint: PizzaAdminServiceGen.Endpoint[I, E, O, SI, SO]
+        ): PizzaAdminServiceGen.Endpoint[I, E, O, SI, SO] =
+          if (endpoint.name == "Health")
+            endpoint.mapSchema(
+              _.withHints(Cacheable(ttlSeconds = 60, maxEntries = 10))
+            )
+          else endpoint
+      }
+    )
+    .build
+
+  private val healthId = ShapeId("smithy4s.example", "Health")
+
+  private case class Fixture(
+      app: HttpApp[IO],
+      runs: Ref[IO, Int],
+      clock: AtomicLong,
+      middleware: ServerEndpointMiddleware.Caching[IO]
+  ) {
+    def health(query: String, headers: Header.ToRaw*): IO[String] =
+      app
+        .run(
+          Request[IO](
+            Method.GET,
+            Uri.unsafeFromString(s"/health?query=$query")
+          ).putHeaders(headers: _*)
+        )
+        .flatMap(_.bodyText.compile.string)
+
+    def stats: IO[Option[ResponseCache.Stats]] =
+      middleware.stats.map(_.get(healthId))
+  }
+
+  // Answers with the query and the number of runs so far, failing when the
+  // query is "fail", once `gate` is completed.
+  private def fixture(gate: IO[Unit] = IO.unit): IO[Fixture] =
+    Ref[IO].of(0).map { runs =>
+      val clock = new AtomicLong(0L)
+      val middleware =
+        new CachingServerEndpointMiddleware[IO](() => clock.get())
+      val impl = new PizzaAdminService.Default[IO](IO.stub) {
+        override def health(query: Option[String]): IO[HealthResponse] =
+          runs.updateAndGet(_ + 1).flatMap { n =>
+            gate *> {
+              if (query.contains("fail"))
+                IO.raiseError(new Exception("boom"))
+              else IO.pure(HealthResponse(s"${query.getOrElse("")}-$n"))
+            }
+          }
+      }
+      val app = SimpleRestJsonBuilder(service)
+        .routes(impl)
+        .middleware(middleware)
+        .make
+        .toOption
+        .get
+        .orNotFound
+      Fixture(app, runs, clock, middleware)
+    }
+
+  test("identical requests are answered from the cache") {
+    for {
+      f <- fixture()
+      first <- f.health("a")
+      second <- f.health("a")
+      other <- f.health("b")
+      runs <- f.runs.get
+      stats <- f.stats
+    } yield expect(first == second) &&
+      expect(first != other) &&
+      expect(runs == 2) &&
+      expect(stats == Some(ResponseCache.Stats(1, 2, 0, 2)))
+  }
+
+  test("requests with distinct identities do not share responses") {
+    val alice = Header.Raw(ci"Authorization", "Bearer alice")
+    val bob = Header.Raw(ci"Authorization", "Bearer bob")
+    for {
+      f <- fixture()
+      anonymous <- f.health("a")
+      first <- f.health("a", alice)
+      second <- f.health("a", bob)
+      again <- f.health("a", alice)
+      runs <- f.runs.get
+    } yield expect(List(anonymous, first, second).distinct.size == 3) &&
+      expect(first == again) &&
+      expect(runs == 3)
+  }
+
+  test("entries expire after ttlSeconds") {
+    for {
+      f <- fixture()
+      first <- f.health("a")
+      _ <- IO(f.clock.addAndGet(59L * 1000000000L))
+      cached <- f.health("a")
+      _ <- IO(f.clock.addAndGet(1000000000L))
+      expired <- f.health("a")
+      runs <- f.runs.get
+    } yield expect(first == cached) &&
+      expect(first != expired) &&
+      expect(runs == 2)
+  }
+
+  test("errors are not cached") {
+    for {
+      f <- fixture()
+      _ <- f.health("fail").attempt
+      _ <- f.health("fail").attempt
+      runs <- f.runs.get
+      stats <- f.stats
+    } yield expect(runs == 2) &&
+      expect(stats.map(_.size) == Some(0))
+  }
+
+  test("concurrent identical requests share a single call") {
+    for {
+      gate <- Deferred[IO, Unit]
+      f <- fixture(gate.get)
+      fibers <- List.fill(5)(f.health("a")).traverse(_.start)
+      _ <- f.stats.map(_.exists(_.misses >= 5)).iterateUntil(identity)
+      _ <- gate.complete(())
+      results <- fibers.traverse(_.joinWithNever)
+      runs <- f.runs.get
+    } yield expect(results.distinct.size == 1) && expect(runs == 1)
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s
+package http4s
+package internals
+
+import cats.effect.Deferred
+import cats.effect.IO
+import cats.effect.Ref
+import cats.implicits._
+import weaver._
+
+object InFlightCallsSpec extends SimpleIOSuite {
+
+  private val key = Blob("key")
+
+  // Waits until `n` calls were registered, so that all of them are
+  // guaranteed to overlap with the one that runs.
+  private def awaitCalls(calls: InFlightCalls[IO, Int], n: Long): IO[Unit] =
+    calls.counters.map(_._1 >= n).iterateUntil(identity).void
+
+  test("concurrent calls with the same key share a single run") {
+    for {
+      runs <- Ref[IO].of(0)
+      calls = new InFlightCalls[IO, Int]
+      run = runs.update(_ + 1) *> awaitCalls(calls, 10) *> IO.pure(42)
+      results <- List.fill(10)(calls(key)(run)).parSequence
+      ran <- runs.get
+      counters <- calls.counters
+    } yield expect(results == List.fill(10)(42)) &&
+      expect(ran == 1) &&
+      expect(counters == ((10L, 9L)))
+  }
+
+  test("failures are shared, and not remembered") {
+    val error = new Exception("boom")
+    for {
+      runs <- Ref[IO].of(0)
+      calls = new InFlightCalls[IO, Int]
+      failing = runs.update(_ + 1) *> awaitCalls(calls, 2) *>
+        IO.raiseError[Int](error)
+      failures <- List.fill(2)(calls(key)(failing).attempt).parSequence
+      next <- calls(key)(IO.pure(1))
+      ran <- runs.get
+    } yield expect(failures == List.fill(2)(Left(error))) &&
+      expect(ran == 1) &&
+      expect(next == 1)
+  }
+
+  test("cancelling the caller that started a run does not fail the others") {
+    for {
+      gate <- Deferred[IO, Unit]
+      calls = new InFlightCalls[IO, Int]
+      leader <- calls(key)(gate.get.as(42)).start
+      _ <- awaitCalls(calls, 1)
+      follower <- calls(key)(IO.pure(0)).start
+      _ <- awaitCalls(calls, 2)
+      _ <- leader.cancel
+      _ <- gate.complete(())
+      result <- follower.joinWithNever
+      outcome <- leader.join
+    } yield expect(result == 42) && expect(outcome.isCanceled)
+  }
+
+}
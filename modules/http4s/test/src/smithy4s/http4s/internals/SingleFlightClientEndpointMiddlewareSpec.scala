@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package smithy4s
+package http4s
+package internals
+
+import cats.effect.Deferred
+import cats.effect.IO
+import cats.effect.Ref
+import cats.implicits._
+import org.http4s.client.Client
+import org.http4s.implicits._
+import smithy4s.example.HealthResponse
+import smithy4s.example.PizzaAdminService
+import smithy4s.example.PizzaAdminServiceGen
+import smithy4s.kinds.PolyFunction5
+import weaver._
+
+object SingleFlightClientEndpointMiddlewareSpec extends SimpleIOSuite {
+
+  // The health endpoint, annotated with @singleFlight
+  private val service = Service.Builder
+    .fromService(PizzaAdminService)
+    .mapEndpointEach(
+      new PolyFunction5[
+        PizzaAdminServiceGen.Endpoint,
+        PizzaAdminServiceGen.Endpoint
+      ] {
+        def apply[I, E, O, SI, SO](
+            endpoint: PizzaAdminServiceGen.Endpoint[I, E, O, SI, SO]
+        ): PizzaAdminServiceGen.Endpoint[I, E, O, SI, SO] =
+          if (endpoint.name == "Health")
+            endpoint.mapSchema(_.withHints(SingleFlight()))
+          else endpoint
+      }
+    )
+    .build
+
+  private val healthId = ShapeId("smithy4s.example", "Health")
+
+  // A client whose server only answers once `gate` is completed, counting
+  // the requests it received for each query.
+  private def makeClient(
+      gate: Deferred[IO, Unit],
+      runs: Ref[IO, Map[Option[String], Int]]
+  ): IO[(PizzaAdminService[IO], ClientEndpointMiddleware.Coalescing[IO])] =
+    ClientEndpointMiddleware.singleFlight[IO].map { middleware =>
+      (clientWith(gate, runs, middleware), middleware)
+    }
+
+  private def clientWith(
+      gate: Deferred[IO, Unit],
+      runs: Ref[IO, Map[Option[String], Int]],
+      middleware: ClientEndpointMiddleware[IO]
+  ): PizzaAdminService[IO] = {
+    val impl = new PizzaAdminService.Default[IO](IO.stub) {
+      override def health(query: Option[String]): IO[HealthResponse] =
+        runs.update(m => m.updated(query, m.getOrElse(query, 0) + 1)) *>
+          gate.get.as(HealthResponse(query.getOrElse("ok")))
+    }
+    val routes = SimpleRestJsonBuilder(service).routes(impl).make.toOption.get
+    SimpleRestJsonBuilder(service)
+      .client(Client.fromHttpApp(routes.orNotFound))
+      .middleware(middleware)
+      .make
+      .toOption
+      .get
+  }
+
+  private def awaitCalls(
+      middleware: ClientEndpointMiddleware.Coalescing[IO],
+      n: Long
+  ): IO[Unit] =
+    middleware.stats
+      .map(_.get(healthId).exists(_.calls >= n))
+      .iterateUntil(identity)
+      .void
+
+  test("identical concurrent calls reach the server once") {
+    for {
+      gate <- Deferred[IO, Unit]
+      runs <- Ref[IO].of(Map.empty[Option[String], Int])
+      made <- makeClient(gate, runs)
+      client = made._1
+      middleware = made._2
+      fibers <- List.fill(5)(client.health(Some("a"))).traverse(_.start)
+      _ <- awaitCalls(middleware, 5)
+      _ <- gate.complete(())
+      results <- fibers.traverse(_.joinWithNever)
+      ran <- runs.get
+      stats <- middleware.stats
+    } yield expect(results == List.fill(5)(HealthResponse("a"))) &&
+      expect(ran == Map(Option("a") -> 1)) &&
+      expect(stats.get(healthId).map(_.coalesced) == Some(4L))
+  }
+
+  test("calls with different inputs are not coalesced") {
+    for {
+      gate <- Deferred[IO, Unit]
+      runs <- Ref[IO].of(Map.empty[Option[String], Int])
+      made <- makeClient(gate, runs)
+      client = made._1
+      middleware = made._2
+      fibers <- List("a", "b").traverse(q => client.health(Some(q)).start)
+      _ <- awaitCalls(middleware, 2)
+      _ <- gate.complete(())
+      results <- fibers.traverse(_.joinWithNever)
+      ran <- runs.get
+    } yield expect(results == List(HealthResponse("a"), HealthResponse("b"))) &&
+      expect(ran == Map(Option("a") -> 1, Option("b") -> 1))
+  }
+
+  test("stats add up the calls of all the clients sharing the middleware") {
+    for {
+      gate <- Deferred[IO, Unit]
+      runs <- Ref[IO].of(Map.empty[Option[String], Int])
+      middleware <- ClientEndpointMiddleware.singleFlight[IO]
+      first = clientWith(gate, runs, middleware)
+      second = clientWith(gate, runs, middleware)
+      fibers <- List(first, first, second)
+        .traverse(_.health(Some("a")).start)
+      _ <- awaitCalls(middleware, 3)
+      _ <- gate.complete(())
+      _ <- fibers.traverse(_.joinWithNever)
+      stats <- middleware.stats
+    } yield expect(
+      stats.get(healthId) ==
+        Some(ClientEndpointMiddleware.CoalescingStats(calls = 3, coalesced = 1))
+    )
+  }
+
+  test("cancelling the first caller does not fail the coalesced ones") {
+    for {
+      gate <- Deferred[IO, Unit]
+      runs <- Ref[IO].of(Map.empty[Option[String], Int])
+      made <- makeClient(gate, runs)
+      client = made._1
+      middleware = made._2
+      first <- client.health(Some("a")).start
+      _ <- awaitCalls(middleware, 1)
+      second <- client.health(Some("a")).start
+      _ <- awaitCalls(middleware, 2)
+      _ <- first.cancel
+      _ <- gate.complete(())
+      result <- second.joinWithNever
+    } yield expect(result == HealthResponse("a"))
+  }
+
+}
@@ -55,4 +55,14 @@ trait JsonPayloadCodecCompiler {
   def decoders: CachedSchemaCompiler[PayloadDecoder]
   def encoders: CachedSchemaCompiler[PayloadEncoder]
 
+  /**
+    * Like [[encoders]], but producing encoders that can also write into output streams, byte buffers or
+    * slices of arrays, without materialising intermediate arrays.
+    *
+    * The default implementation writes the payloads produced by [[encoders]], for implementations that predate
+    * this method.
+    */
+  def writers: CachedSchemaCompiler[JsonPayloadWriter] =
+    encoders.mapK(JsonPayloadWriter.fromEncoderK)
+
 }
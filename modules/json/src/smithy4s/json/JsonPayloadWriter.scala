@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.json
+
+import smithy4s.Blob
+import smithy4s.codecs.PayloadEncoder
+import smithy4s.kinds.PolyFunction
+
+import java.io.OutputStream
+import java.nio.BufferOverflowException
+import java.nio.ByteBuffer
+
+/**
+  * Writes the json representation of values straight into caller-provided
+  * sinks, without materialising the intermediate byte array that a
+  * [[smithy4s.codecs.PayloadEncoder]] produces.
+  *
+  * Jsoniter keeps one writer, along with its internal buffer, per thread, so
+  * these methods don't allocate buffers of their own : pooled or reused
+  * sinks result in no per-call allocation of payload-sized arrays.
+  */
+trait JsonPayloadWriter[A] extends PayloadEncoder[A] {
+
+  /**
+    * Writes the json representation of `value` into `out`, which is neither
+    * flushed nor closed.
+    */
+  def writeToStream(value: A, out: OutputStream): Unit
+
+  /**
+    * Writes the json representation of `value` into `buffer`, from its
+    * current position, which gets advanced past the written bytes.
+    *
+    * @throws java.nio.BufferOverflowException if the buffer doesn't have
+    *   enough remaining space
+    */
+  def writeToByteBuffer(value: A, buffer: ByteBuffer): Unit
+
+  /**
+    * Writes the json representation of `value` into `array`, from index
+    * `from` to index `to` (exclusive), and returns the index following the
+    * last written byte.
+    *
+    * @throws java.lang.ArrayIndexOutOfBoundsException if the json doesn't
+    *   fit in the slice
+    */
+  def writeToSubArray(value: A, array: Array[Byte], from: Int, to: Int): Int
+
+  /**
+    * Writes the json representation of `value` into a [[smithy4s.Blob]]
+    * backed by an array of the exact size of the payload.
+    */
+  def encode(value: A): Blob
+
+}
+
+object JsonPayloadWriter {
+
+  /**
+    * Lifts payload encoders into writers that encode values into blobs, and
+    * copy these blobs into the sinks.
+    */
+  val fromEncoderK: PolyFunction[PayloadEncoder, JsonPayloadWriter] =
+    new PolyFunction[PayloadEncoder, JsonPayloadWriter] {
+      def apply[A](encoder: PayloadEncoder[A]): JsonPayloadWriter[A] =
+        new FromEncoder(encoder)
+    }
+
+  private final class FromEncoder[A](encoder: PayloadEncoder[A])
+      extends JsonPayloadWriter[A] {
+    def encode(value: A): Blob = encoder.encode(value)
+
+    def writeToStream(value: A, out: OutputStream): Unit =
+      encode(value).writeTo(out)
+
+    def writeToByteBuffer(value: A, buffer: ByteBuffer): Unit = {
+      val blob = encode(value)
+      if (buffer.remaining() < blob.size) throw new BufferOverflowException()
+      val _ = blob.copyToBuffer(buffer, 0, blob.size)
+    }
+
+    def writeToSubArray(
+        value: A,
+        array: Array[Byte],
+        from: Int,
+        to: Int
+    ): Int = {
+      val blob = encode(value)
+      if (to - from < blob.size) {
+        throw new ArrayIndexOutOfBoundsException(from + blob.size - 1)
+      }
+      blob.copyToArray(array, from, 0, blob.size)
+      from + blob.size
+    }
+  }
+
+}
@@ -33,6 +33,13 @@ private[internals] class Cursor private[internals] () {
     codec.decodeValue(this, in)
   }
 
+  /**
+    * Records what is being decoded, for codecs that read values straight from
+    * the JsonReader rather than through `decode`.
+    */
+  def expect(expecting: String): Unit =
+    this.expecting = expecting
+
   def under[A](segment: PayloadPath.Segment)(f: => A): A =
     segment match {
       case i: PayloadPath.Segment.Index => under(i.index)(f)
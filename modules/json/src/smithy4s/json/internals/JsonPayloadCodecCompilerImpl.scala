@@ -56,29 +56,66 @@ private[json] case class JsonPayloadCodecCompilerImpl(
   ): JsonPayloadCodecCompiler =
     copy(jsoniterWriterConfig = jsoniterWriterConfig)
 
-  def encoders: CachedSchemaCompiler[PayloadEncoder] =
-    new CachedSchemaCompiler[PayloadEncoder] {
-      type Cache = jsoniterCodecCompiler.Cache
-      def createCache(): Cache = jsoniterCodecCompiler.createCache()
-
-      def fromSchema[A](schema: Schema[A], cache: Cache): PayloadEncoder[A] = {
-        val jcodec = jsoniterCodecCompiler.fromSchema(schema, cache)
-        (value: A) =>
-          Blob(
-            writeToArray(value, jsoniterWriterConfig)(jcodec)
-          )
+  // Deferred values get decoded with the reader config of the payloads
+  // they were captured from. The same compiler instance is shared by the
+  // writers and decoders, so that the captured bytes are copied verbatim.
+  private lazy val codecCompiler: JsoniterCodecCompiler =
+    jsoniterCodecCompiler match {
+      case impl: JsoniterCodecCompilerImpl =>
+        impl.withDeferredReaderConfig(
+          jsoniterReaderConfig.withCheckForEndOfInput(true)
+        )
+      case other => other
+    }
+
+  def encoders: CachedSchemaCompiler[PayloadEncoder] = writers
+
+  override def writers: CachedSchemaCompiler[JsonPayloadWriter] =
+    new CachedSchemaCompiler[JsonPayloadWriter] {
+      type Cache = codecCompiler.Cache
+      def createCache(): Cache = codecCompiler.createCache()
+
+      def fromSchema[A](
+          schema: Schema[A],
+          cache: Cache
+      ): JsonPayloadWriter[A] = {
+        val jcodec = codecCompiler.fromSchema(schema, cache)
+        new JsoniterPayloadWriter(jcodec)
       }
-      def fromSchema[A](schema: Schema[A]): PayloadEncoder[A] =
+      def fromSchema[A](schema: Schema[A]): JsonPayloadWriter[A] =
         fromSchema(schema, createCache())
     }
 
+  private class JsoniterPayloadWriter[A](jcodec: JsonCodec[A])
+      extends JsonPayloadWriter[A] {
+    def encode(value: A): Blob =
+      Blob(writeToArray(value, jsoniterWriterConfig)(jcodec))
+
+    def writeToStream(value: A, out: java.io.OutputStream): Unit =
+      com.github.plokhotnyuk.jsoniter_scala.core
+        .writeToStream(value, out, jsoniterWriterConfig)(jcodec)
+
+    def writeToByteBuffer(value: A, buffer: java.nio.ByteBuffer): Unit =
+      com.github.plokhotnyuk.jsoniter_scala.core
+        .writeToByteBuffer(value, buffer, jsoniterWriterConfig)(jcodec)
+
+    def writeToSubArray(
+        value: A,
+        array: Array[Byte],
+        from: Int,
+        to: Int
+    ): Int =
+      com.github.plokhotnyuk.jsoniter_scala.core
+        .writeToSubArray(value, array, from, to, jsoniterWriterConfig)(jcodec)
+  }
+
   def decoders: CachedSchemaCompiler[PayloadDecoder] =
     new CachedSchemaCompiler[PayloadDecoder] {
-      type Cache = jsoniterCodecCompiler.Cache
-      def createCache(): Cache = jsoniterCodecCompiler.createCache()
+      type Cache = codecCompiler.Cache
+      def createCache(): Cache = codecCompiler.createCache()
 
       def fromSchema[A](schema: Schema[A], cache: Cache): PayloadDecoder[A] = {
-        val jcodec = jsoniterCodecCompiler.fromSchema(schema, cache)
+        val jcodec = codecCompiler.fromSchema(schema, cache)
         new JsonPayloadDecoder(jcodec, schema.getDefaultValue)
       }
 
@@ -106,6 +143,10 @@ private[json] case class JsonPayloadCodecCompilerImpl(
                 )(jcodec)
               case b: Blob.ByteBufferBlob =>
                 readFromByteBuffer(b.buf, jsoniterReaderConfig)(jcodec)
+              case b: Blob.MappedBlob =>
+                readFromByteBuffer(b.asByteBufferUnsafe, jsoniterReaderConfig)(
+                  jcodec
+                )
               case other =>
                 readFromArray(other.toArray, jsoniterReaderConfig)(jcodec)
             }
@@ -17,7 +17,13 @@
 package smithy4s.json
 package internals
 
+import com.github.plokhotnyuk.jsoniter_scala.core.ReaderConfig
+import smithy4s.DecodeLimits
+import smithy4s.Deferred
 import smithy4s.HintMask
+import smithy4s.Interned
+import smithy4s.UnboxedPrimitives
+import smithy4s.internals.StringInterner
 import smithy4s.schema._
 
 private[smithy4s] case class JsoniterCodecCompilerImpl(
@@ -28,12 +34,32 @@ private[smithy4s] case class JsoniterCodecCompilerImpl(
     preserveMapOrder: Boolean,
     hintMask: Option[HintMask],
     lenientTaggedUnionDecoding: Boolean,
-    lenientNumericDecoding: Boolean
+    lenientNumericDecoding: Boolean,
+    deferredReaderConfig: ReaderConfig
 ) extends CachedSchemaCompiler.Impl[JCodec]
     with JsoniterCodecCompiler {
 
   type Aux[A] = JCodec[A]
 
+  private val stringInterner: StringInterner = StringInterner()
+
+  // Identifies the bytes captured by the deferred values decoded by the
+  // codecs of equally configured compilers, which are the only ones allowed
+  // to copy them verbatim. Only the settings that affect how values are
+  // encoded, or which bytes are accepted, are accounted for.
+  private val deferredFormat: Deferred.Format = new Deferred.Format(
+    "json",
+    (
+      explicitDefaultsEncoding,
+      flexibleCollectionsSupport,
+      infinitySupport,
+      preserveMapOrder,
+      hintMask,
+      lenientTaggedUnionDecoding,
+      lenientNumericDecoding
+    )
+  )
+
   def withMaxArity(max: Int): JsoniterCodecCompiler = copy(maxArity = max)
 
   def withExplicitDefaultsEncoding(
@@ -63,6 +89,11 @@ private[smithy4s] case class JsoniterCodecCompilerImpl(
   def withLenientNumericDecoding: JsoniterCodecCompiler =
     copy(lenientNumericDecoding = true)
 
+  private[json] def withDeferredReaderConfig(
+      deferredReaderConfig: ReaderConfig
+  ): JsoniterCodecCompilerImpl =
+    copy(deferredReaderConfig = deferredReaderConfig)
+
   def fromSchema[A](schema: Schema[A], cache: Cache): JCodec[A] = {
     val visitor = new SchemaVisitorJCodec(
       maxArity,
@@ -72,10 +103,14 @@ private[smithy4s] case class JsoniterCodecCompilerImpl(
       preserveMapOrder,
       lenientTaggedUnionDecoding,
       lenientNumericDecoding,
+      stringInterner,
+      deferredFormat,
+      deferredReaderConfig,
       cache
     )
     val amendedSchema =
       hintMask
+        .map(mask => mask ++ JsoniterCodecCompilerImpl.alwaysKeptHints)
         .map(mask => schema.transformHintsTransitively(mask.apply))
         .getOrElse(schema)
     amendedSchema.compile(visitor)
@@ -85,6 +120,14 @@ private[smithy4s] case class JsoniterCodecCompilerImpl(
 
 private[smithy4s] object JsoniterCodecCompilerImpl {
 
+  // Hints that are protocol-agnostic, and therefore survive any hint mask
+  private val alwaysKeptHints: HintMask =
+    HintMask(Interned, DecodeLimits, UnboxedPrimitives)
+
+  // The captured bytes hold exactly one JSON value
+  private val defaultDeferredReaderConfig: ReaderConfig =
+    ReaderConfig.withAppendHexDumpToParseException(true)
+
   val defaultJsoniterCodecCompiler: JsoniterCodecCompiler =
     JsoniterCodecCompilerImpl(
       maxArity = JsoniterCodecCompiler.defaultMaxArity,
@@ -94,7 +137,8 @@ private[smithy4s] object JsoniterCodecCompilerImpl {
       preserveMapOrder = false,
       lenientTaggedUnionDecoding = false,
       lenientNumericDecoding = false,
-      hintMask = Some(JsoniterCodecCompiler.defaultHintMask)
+      hintMask = Some(JsoniterCodecCompiler.defaultHintMask),
+      deferredReaderConfig = defaultDeferredReaderConfig
     )
 
 }
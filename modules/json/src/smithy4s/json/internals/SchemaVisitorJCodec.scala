@@ -23,6 +23,7 @@ import java.util
 
 import com.github.plokhotnyuk.jsoniter_scala.core.JsonReader
 import com.github.plokhotnyuk.jsoniter_scala.core.JsonWriter
+import com.github.plokhotnyuk.jsoniter_scala.core.ReaderConfig
 import smithy.api.JsonName
 import smithy.api.TimestampFormat
 import alloy.Discriminated
@@ -30,6 +31,7 @@ import alloy.JsonUnknown
 import alloy.Nullable
 import alloy.Untagged
 import smithy4s.internals.DiscriminatedUnionMember
+import smithy4s.internals.StringInterner
 import smithy4s.schema._
 import smithy4s.schema.Primitive._
 import smithy4s.Timestamp
@@ -48,6 +50,9 @@ private[smithy4s] class SchemaVisitorJCodec(
     preserveMapOrder: Boolean,
     lenientTaggedUnionDecoding: Boolean,
     lenientNumericDecoding: Boolean,
+    stringInterner: StringInterner,
+    deferredFormat: Deferred.Format,
+    deferredReaderConfig: ReaderConfig,
     val cache: CompilationCache[JCodec]
 ) extends SchemaVisitor.Cached[JCodec] { self =>
   private val emptyMetadata: MMap[String, Any] = MMap.empty
@@ -84,6 +89,21 @@ private[smithy4s] class SchemaVisitorJCodec(
         def encodeKey(x: String, out: JsonWriter): Unit = out.writeKey(x)
       }
 
+    val internedString: JCodec[String] =
+      new JCodec[String] {
+        def expecting: String = "string"
+
+        def decodeValue(cursor: Cursor, in: JsonReader): String =
+          stringInterner.intern(in.readString(null))
+
+        def encodeValue(x: String, out: JsonWriter): Unit = out.writeVal(x)
+
+        def decodeKey(in: JsonReader): String =
+          stringInterner.intern(in.readKeyAsString())
+
+        def encodeKey(x: String, out: JsonWriter): Unit = out.writeKey(x)
+      }
+
     private abstract class NumericJCodec[A] extends JCodec[A] {
       def decodeJsonNumber(cursor: Cursor, in: JsonReader): A
       // Allows numerics to be received as JSON Strings
@@ -553,7 +573,7 @@ private[smithy4s] class SchemaVisitorJCodec(
     tag match {
       case PBigDecimal => PrimitiveJCodecs.bigdecimal
       case PBigInt     => PrimitiveJCodecs.bigint
-      case PBlob       => PrimitiveJCodecs.bytes
+      case PBlob       => blobJCodec(hints)
       case PBoolean    => PrimitiveJCodecs.boolean
       case PByte       => PrimitiveJCodecs.byte
       case PDocument   => documentJCodec
@@ -562,13 +582,68 @@ private[smithy4s] class SchemaVisitorJCodec(
       case PInt        => PrimitiveJCodecs.int
       case PLong       => PrimitiveJCodecs.long
       case PShort      => PrimitiveJCodecs.short
-      case PString     => PrimitiveJCodecs.string
+      case PString     => stringJCodec(hints)
       case PTimestamp  => timestampJCodec(hints)
 
       case PUUID => PrimitiveJCodecs.uuid
     }
   }
 
+  def stringJCodec(hints: Hints): JCodec[String] = {
+    val codec =
+      if (hints.has(Interned)) PrimitiveJCodecs.internedString
+      else PrimitiveJCodecs.string
+    DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) =>
+        limitBytes(codec, maxBytes)(DecodeLimits.exceedsUtf8Bytes)
+      case None => codec
+    }
+  }
+
+  private def blobJCodec(hints: Hints): JCodec[Blob] =
+    DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) =>
+        limitBytes(PrimitiveJCodecs.bytes, maxBytes)(_.size > _)
+      case None => PrimitiveJCodecs.bytes
+    }
+
+  /**
+    * Fails the decoding of values that exceed the `maxBytes` limit of their
+    * shape. Jsoniter materialises strings and base64 payloads in one go, so
+    * the check happens once the value is read: the global buffer limits of
+    * the reader config still bound what gets allocated beforehand.
+    */
+  private def limitBytes[A](codec: JCodec[A], maxBytes: Int)(
+      exceeds: (A, Int) => Boolean
+  ): JCodec[A] = new JCodec[A] {
+    def expecting: String = codec.expecting
+
+    override def canBeKey: Boolean = codec.canBeKey
+
+    def decodeValue(cursor: Cursor, in: JsonReader): A = {
+      val result = codec.decodeValue(cursor, in)
+      if (exceeds(result, maxBytes)) {
+        throw cursor.payloadError(
+          this,
+          s"Input $expecting exceeded max size of $maxBytes bytes"
+        )
+      }
+      result
+    }
+
+    def encodeValue(x: A, out: JsonWriter): Unit = codec.encodeValue(x, out)
+
+    def decodeKey(in: JsonReader): A = {
+      val result = codec.decodeKey(in)
+      if (exceeds(result, maxBytes)) {
+        in.decodeError(s"Key exceeded max size of $maxBytes bytes")
+      }
+      result
+    }
+
+    def encodeKey(x: A, out: JsonWriter): Unit = codec.encodeKey(x, out)
+  }
+
   def timestampJCodec(
       hints: Hints,
       defaultTimestamp: TimestampFormat = TimestampFormat.EPOCH_SECONDS
@@ -581,7 +656,10 @@ private[smithy4s] class SchemaVisitorJCodec(
     }
   }
 
-  private def listImpl[A](member: Schema[A]) = new JCodec[List[A]] {
+  private def listImpl[A](
+      member: Schema[A],
+      maxArity: Int
+  ): JCodec[List[A]] = new JCodec[List[A]] {
     private[this] val a: JCodec[A] = apply(member)
 
     def expecting: String = "list"
@@ -632,7 +710,8 @@ private[smithy4s] class SchemaVisitorJCodec(
   }
 
   private def vector[A](
-      member: Schema[A]
+      member: Schema[A],
+      maxArity: Int
   ): JCodec[Vector[A]] = new JCodec[Vector[A]] {
     private[this] val a = apply(member)
 
@@ -680,7 +759,8 @@ private[smithy4s] class SchemaVisitorJCodec(
   }
 
   private def indexedSeq[A](
-      member: Schema[A]
+      member: Schema[A],
+      maxArity: Int
   ): JCodec[IndexedSeq[A]] = new JCodec[IndexedSeq[A]] {
     private[this] val a = apply(member)
     def expecting: String = "list"
@@ -740,8 +820,122 @@ private[smithy4s] class SchemaVisitorJCodec(
       )
   }
 
+  private def unboxedIndexedSeq[A](
+      hints: Hints,
+      member: Schema[A],
+      maxArity: Int
+  ): Option[JCodec[IndexedSeq[A]]] = {
+    import SchemaVisitorJCodec.UnboxedArrayOps
+    def unboxed[P](ops: UnboxedArrayOps[P]): JCodec[IndexedSeq[P]] =
+      new UnboxedIndexedSeqJCodec(
+        apply(member).asInstanceOf[JCodec[P]],
+        maxArity,
+        ops
+      )
+    CollectionTag.unboxedPrimitive(hints, member).collect {
+      case PDouble  => unboxed(UnboxedArrayOps.Doubles)
+      case PFloat   => unboxed(UnboxedArrayOps.Floats)
+      case PLong    => unboxed(UnboxedArrayOps.Longs)
+      case PInt     => unboxed(UnboxedArrayOps.Ints)
+      case PShort   => unboxed(UnboxedArrayOps.Shorts)
+      case PByte    => unboxed(UnboxedArrayOps.Bytes)
+      case PBoolean => unboxed(UnboxedArrayOps.Booleans)
+    }.map(_.asInstanceOf[JCodec[IndexedSeq[A]]])
+  }
+
+  /**
+    * Codec for `IndexedSeq`s of primitives, backed by primitive arrays. The
+    * elements are read from and written to jsoniter directly, without boxing
+    * them. The member codec is only used for numerics that are received as
+    * JSON strings, and for non-finite floating point values.
+    */
+  private final class UnboxedIndexedSeqJCodec[A](
+      member: JCodec[A],
+      maxArity: Int,
+      ops: SchemaVisitorJCodec.UnboxedArrayOps[A]
+  ) extends JCodec[IndexedSeq[A]] {
+    def expecting: String = "list"
+
+    override def canBeKey: Boolean = false
+
+    private[this] val empty: IndexedSeq[A] =
+      ArraySeq.unsafeWrapArray(ops.newArray(0))
+
+    def decodeValue(cursor: Cursor, in: JsonReader): IndexedSeq[A] =
+      if (in.isNextToken('[')) {
+        if (in.isNextToken(']')) empty
+        else {
+          in.rollbackToken()
+          decodeElements(cursor, in)
+        }
+      } else in.decodeError("Expected JSON array")
+
+    // Reads the elements of a non-empty array
+    private[this] def decodeElements(
+        cursor: Cursor,
+        in: JsonReader
+    ): IndexedSeq[A] = {
+      var as = ops.newArray(8)
+      var capacity = 8
+      var i = 0
+      while ({
+        if (i >= maxArity) maxArityError(cursor)
+        if (i == capacity) {
+          capacity = i << 1
+          as = ops.copyOf(as, capacity)
+        }
+        cursor.push(i)
+        cursor.expect(member.expecting)
+        if (ops.acceptsJsonStrings && isJsonString(in))
+          ops.update(as, i, member.decodeValue(cursor, in))
+        else ops.read(as, i, in)
+        cursor.pop()
+        i += 1
+        in.isNextToken(',')
+      }) ()
+      if (!in.isCurrentToken(']')) {
+        in.arrayEndOrCommaError()
+      }
+      ArraySeq.unsafeWrapArray(if (i < capacity) ops.copyOf(as, i) else as)
+    }
+
+    def encodeValue(xs: IndexedSeq[A], out: JsonWriter): Unit = {
+      val as = ops.unsafeArray(xs)
+      val length = xs.length
+      out.writeArrayStart()
+      var i = 0
+      while (i < length) {
+        if (infinitySupport && !ops.isFinite(as, i))
+          member.encodeValue(ops.get(as, i), out)
+        else ops.write(as, i, out)
+        i += 1
+      }
+      out.writeArrayEnd()
+    }
+
+    def decodeKey(in: JsonReader): IndexedSeq[A] =
+      in.decodeError("Cannot use vectors as keys")
+
+    def encodeKey(xs: IndexedSeq[A], out: JsonWriter): Unit =
+      out.encodeError("Cannot use vectors as keys")
+
+    private[this] def isJsonString(in: JsonReader): Boolean =
+      allowJsonStringNumerics && {
+        val isString = in.isNextToken('"')
+        in.rollbackToken()
+        isString
+      }
+
+    private[this] def maxArityError(cursor: Cursor): Nothing =
+      throw cursor.payloadError(
+        this,
+        s"Input $expecting exceeded max arity of $maxArity"
+      )
+  }
+
   private def set[A](
-      member: Schema[A]
+      member: Schema[A],
+      maxArity: Int
   ): JCodec[Set[A]] = new JCodec[Set[A]] {
     private[this] val a = apply(member)
     def expecting: String = "list"
@@ -789,7 +983,8 @@ private[smithy4s] class SchemaVisitorJCodec(
 
   private def objectMap[K, V](
       jk: JCodec[K],
-      jv: JCodec[V]
+      jv: JCodec[V],
+      maxArity: Int
   ): JCodec[Map[K, V]] = new JCodec[Map[K, V]] {
     val expecting: String = "map"
 
@@ -848,19 +1043,21 @@ private[smithy4s] class SchemaVisitorJCodec(
 
   private def arrayMap[K, V](
       k: Schema[K],
-      v: Schema[V]
+      v: Schema[V],
+      maxArity: Int
   ): JCodec[Map[K, V]] = {
     val kField = Field.required[(K, V), K]("key", k, _._1)
     val vField = Field.required[(K, V), V]("value", v, _._2)
     val kvCodec = Schema.struct(Vector(kField, vField))(fields =>
       (fields(0).asInstanceOf[K], fields(1).asInstanceOf[V])
     )
-    listImpl(kvCodec).biject(_.toMap, _.toList)
+    listImpl(kvCodec, maxArity).biject(_.toMap, _.toList)
   }
 
   private def flexibleNullParsingMap[K, V](
       jk: JCodec[K],
-      jv: JCodec[V]
+      jv: JCodec[V],
+      maxArity: Int
   ): JCodec[Map[K, V]] =
     new JCodec[Map[K, V]] {
       val expecting: String = "map"
@@ -923,11 +1120,14 @@ private[smithy4s] class SchemaVisitorJCodec(
       tag: CollectionTag[C],
       member: Schema[A]
   ): JCodec[C[A]] = {
+    val maxArity = DecodeLimits.maxElements(hints, this.maxArity)
     tag match {
-      case CollectionTag.ListTag       => listImpl(member)
-      case CollectionTag.SetTag        => set(member)
-      case CollectionTag.VectorTag     => vector(member)
-      case CollectionTag.IndexedSeqTag => indexedSeq(member)
+      case CollectionTag.ListTag   => listImpl(member, maxArity)
+      case CollectionTag.SetTag    => set(member, maxArity)
+      case CollectionTag.VectorTag => vector(member, maxArity)
+      case CollectionTag.IndexedSeqTag =>
+        unboxedIndexedSeq(hints, member, maxArity)
+          .getOrElse(indexedSeq(member, maxArity))
     }
   }
 
@@ -939,18 +1139,65 @@ private[smithy4s] class SchemaVisitorJCodec(
   ): JCodec[Map[K, V]] = {
     val jk = apply(key)
     val jv = apply(value)
+    val maxArity = DecodeLimits.maxElements(hints, this.maxArity)
     if (jk.canBeKey) {
       if (flexibleCollectionsSupport && !value.isOption)
-        flexibleNullParsingMap(jk, jv)
-      else objectMap(jk, jv)
-    } else arrayMap(key, value)
+        flexibleNullParsingMap(jk, jv, maxArity)
+      else objectMap(jk, jv, maxArity)
+    } else arrayMap(key, value, maxArity)
   }
 
   override def biject[A, B](
       schema: Schema[A],
       bijection: Bijection[A, B]
-  ): JCodec[B] =
-    apply(schema).biject(bijection, bijection.from)
+  ): JCodec[B] = bijection match {
+    case _: Deferred.SchemaBijection[_] =>
+      deferred(apply(schema)).asInstanceOf[JCodec[B]]
+    case _ =>
+      apply(schema).biject(bijection, bijection.from)
+  }
+
+  /**
+    * Captures the raw bytes of the value instead of decoding it, and only
+    * decodes them when the value is accessed. The captured bytes are written
+    * verbatim when the value gets encoded by a codec of the same compiler.
+    *
+    * Decoding errors are reported under the path at which the bytes were
+    * captured.
+    */
+  private def deferred[A](codec: JCodec[A]): JCodec[Deferred[A]] =
+    new JCodec[Deferred[A]] {
+      def expecting: String = codec.expecting
+
+      override def canBeKey: Boolean = false
+
+      def decodeValue(cursor: Cursor, in: JsonReader): Deferred[A] = {
+        val path = cursor.getPath(Nil)
+        val raw = Blob(in.readRawValAsBytes())
+        Deferred.fromBlob(deferredFormat, raw)(decodeCaptured(path, _))
+      }
+
+      private def decodeCaptured(path: PayloadPath, bytes: Blob): A =
+        try {
+          com.github.plokhotnyuk.jsoniter_scala.core
+            .readFromArray(bytes.toArrayUnsafe, deferredReaderConfig)(codec)
+        } catch {
+          case e: PayloadError =>
+            throw e.copy(path = PayloadPath(path.segments ++ e.path.segments))
+        }
+
+      def encodeValue(x: Deferred[A], out: JsonWriter): Unit =
+        x.raw(deferredFormat) match {
+          case Some(bytes) => out.writeRawVal(bytes.toArrayUnsafe)
+          case None        => codec.encodeValue(x.value, out)
+        }
+
+      def decodeKey(in: JsonReader): Deferred[A] =
+        in.decodeError("Cannot use deferred values as keys")
+
+      def encodeKey(x: Deferred[A], out: JsonWriter): Unit =
+        out.encodeError("Cannot use deferred values as keys")
+    }
 
   override def refine[A, B](
       schema: Schema[A],
@@ -1759,3 +2006,132 @@ private[smithy4s] class SchemaVisitorJCodec(
     }
   }
 }
+
+private[smithy4s] object SchemaVisitorJCodec {
+
+  /**
+    * Operations over the primitive arrays backing the unboxed `IndexedSeq`
+    * codecs. They take the arrays along with element indexes, so that
+    * elements are never boxed.
+    */
+  private[internals] abstract class UnboxedArrayOps[A] {
+    def newArray(size: Int): Array[A]
+    def copyOf(as: Array[A], size: Int): Array[A]
+    def unsafeArray(xs: IndexedSeq[A]): Array[A]
+    def read(as: Array[A], i: Int, in: JsonReader): Unit
+    def write(as: Array[A], i: Int, out: JsonWriter): Unit
+    // whether numerics received as JSON strings are accepted
+    def acceptsJsonStrings: Boolean = true
+    def isFinite(as: Array[A], i: Int): Boolean = true
+    // boxed accessors, only used when delegating to the member codec
+    def get(as: Array[A], i: Int): A = as(i)
+    def update(as: Array[A], i: Int, a: A): Unit = as(i) = a
+  }
+
+  private[internals] object UnboxedArrayOps {
+
+    object Doubles extends UnboxedArrayOps[Double] {
+      def newArray(size: Int): Array[Double] = new Array[Double](size)
+      def copyOf(as: Array[Double], size: Int): Array[Double] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Double]): Array[Double] = xs match {
+        case x: ArraySeq.ofDouble => x.unsafeArray
+        case _                    => xs.toArray
+      }
+      def read(as: Array[Double], i: Int, in: JsonReader): Unit =
+        as(i) = in.readDouble()
+      def write(as: Array[Double], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+      override def isFinite(as: Array[Double], i: Int): Boolean =
+        java.lang.Double.isFinite(as(i))
+    }
+
+    object Floats extends UnboxedArrayOps[Float] {
+      def newArray(size: Int): Array[Float] = new Array[Float](size)
+      def copyOf(as: Array[Float], size: Int): Array[Float] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Float]): Array[Float] = xs match {
+        case x: ArraySeq.ofFloat => x.unsafeArray
+        case _                   => xs.toArray
+      }
+      def read(as: Array[Float], i: Int, in: JsonReader): Unit =
+        as(i) = in.readFloat()
+      def write(as: Array[Float], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+      override def isFinite(as: Array[Float], i: Int): Boolean =
+        java.lang.Float.isFinite(as(i))
+    }
+
+    object Longs extends UnboxedArrayOps[Long] {
+      def newArray(size: Int): Array[Long] = new Array[Long](size)
+      def copyOf(as: Array[Long], size: Int): Array[Long] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Long]): Array[Long] = xs match {
+        case x: ArraySeq.ofLong => x.unsafeArray
+        case _                  => xs.toArray
+      }
+      def read(as: Array[Long], i: Int, in: JsonReader): Unit =
+        as(i) = in.readLong()
+      def write(as: Array[Long], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+    }
+
+    object Ints extends UnboxedArrayOps[Int] {
+      def newArray(size: Int): Array[Int] = new Array[Int](size)
+      def copyOf(as: Array[Int], size: Int): Array[Int] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Int]): Array[Int] = xs match {
+        case x: ArraySeq.ofInt => x.unsafeArray
+        case _                 => xs.toArray
+      }
+      def read(as: Array[Int], i: Int, in: JsonReader): Unit =
+        as(i) = in.readInt()
+      def write(as: Array[Int], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+    }
+
+    object Shorts extends UnboxedArrayOps[Short] {
+      def newArray(size: Int): Array[Short] = new Array[Short](size)
+      def copyOf(as: Array[Short], size: Int): Array[Short] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Short]): Array[Short] = xs match {
+        case x: ArraySeq.ofShort => x.unsafeArray
+        case _                   => xs.toArray
+      }
+      def read(as: Array[Short], i: Int, in: JsonReader): Unit =
+        as(i) = in.readShort()
+      def write(as: Array[Short], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+    }
+
+    object Bytes extends UnboxedArrayOps[Byte] {
+      def newArray(size: Int): Array[Byte] = new Array[Byte](size)
+      def copyOf(as: Array[Byte], size: Int): Array[Byte] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Byte]): Array[Byte] = xs match {
+        case x: ArraySeq.ofByte => x.unsafeArray
+        case _                  => xs.toArray
+      }
+      def read(as: Array[Byte], i: Int, in: JsonReader): Unit =
+        as(i) = in.readByte()
+      def write(as: Array[Byte], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+    }
+
+    object Booleans extends UnboxedArrayOps[Boolean] {
+      def newArray(size: Int): Array[Boolean] = new Array[Boolean](size)
+      def copyOf(as: Array[Boolean], size: Int): Array[Boolean] =
+        util.Arrays.copyOf(as, size)
+      def unsafeArray(xs: IndexedSeq[Boolean]): Array[Boolean] = xs match {
+        case x: ArraySeq.ofBoolean => x.unsafeArray
+        case _                     => xs.toArray
+      }
+      def read(as: Array[Boolean], i: Int, in: JsonReader): Unit =
+        as(i) = in.readBoolean()
+      def write(as: Array[Boolean], i: Int, out: JsonWriter): Unit =
+        out.writeVal(as(i))
+      override def acceptsJsonStrings: Boolean = false
+    }
+  }
+
+}
@@ -104,4 +104,56 @@ class JsonCodecApiTests extends FunSuite {
     }
   }
 
+  test("writers write into streams, byte buffers and sub-arrays") {
+    val schema = Schema
+      .struct[String]
+      .apply(Schema.string.required[String]("a", identity))(identity)
+    val writer = Json.payloadCodecs.writers.fromSchema(schema)
+    val expected = """{"a":"test"}"""
+
+    val out = new java.io.ByteArrayOutputStream()
+    writer.writeToStream("test", out)
+    assertEquals(new String(out.toByteArray, "UTF-8"), expected)
+
+    val buffer = java.nio.ByteBuffer.allocate(64)
+    buffer.position(2)
+    writer.writeToByteBuffer("test", buffer)
+    assertEquals(buffer.position(), 2 + expected.length)
+    buffer.flip()
+    buffer.position(2)
+    assertEquals(Blob(buffer), Blob(expected))
+
+    val array = new Array[Byte](64)
+    val end = writer.writeToSubArray("test", array, 4, 64)
+    assertEquals(end, 4 + expected.length)
+    assertEquals(new String(array, 4, end - 4, "UTF-8"), expected)
+
+    assertEquals(writer.encode("test"), Blob(expected))
+  }
+
+  test("writers lifted from encoders write into byte buffers and sub-arrays") {
+    val schema = Schema
+      .struct[String]
+      .apply(Schema.string.required[String]("a", identity))(identity)
+    val encoder = Json.payloadCodecs.encoders.fromSchema(schema)
+    val writer = JsonPayloadWriter.fromEncoderK(encoder)
+    val expected = """{"a":"test"}"""
+
+    val buffer = java.nio.ByteBuffer.allocate(64)
+    writer.writeToByteBuffer("test", buffer)
+    buffer.flip()
+    assertEquals(Blob(buffer), Blob(expected))
+
+    val array = new Array[Byte](64)
+    val end = writer.writeToSubArray("test", array, 4, 64)
+    assertEquals(new String(array, 4, end - 4, "UTF-8"), expected)
+
+    intercept[java.nio.BufferOverflowException] {
+      writer.writeToByteBuffer("test", java.nio.ByteBuffer.allocate(4))
+    }
+    intercept[ArrayIndexOutOfBoundsException] {
+      writer.writeToSubArray("test", array, 0, 4)
+    }
+  }
+
 }
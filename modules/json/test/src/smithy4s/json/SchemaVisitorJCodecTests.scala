@@ -38,6 +38,7 @@ import smithy4s.example.UntaggedUnion
 import smithy4s.example.{OpenEnumTest, OpenIntEnumTest}
 import smithy4s.schema.Schema._
 
+import scala.collection.compat.immutable.ArraySeq
 import scala.collection.immutable.ListMap
 import scala.util.Try
 import smithy4s.json.internals.JsoniterCodecCompilerImpl
@@ -650,6 +651,150 @@ class SchemaVisitorJCodecTests() extends FunSuite {
     }
   }
 
+  test("Primitive indexedSeq is backed by a primitive array") {
+    implicit val doubles: Schema[IndexedSeq[Double]] =
+      indexedSeq(double).addHints(UnboxedPrimitives())
+    implicit val booleans: Schema[IndexedSeq[Boolean]] =
+      indexedSeq(boolean).addHints(UnboxedPrimitives())
+    val decodedDoubles = readFromString[IndexedSeq[Double]]("[1.5, -2, 3e2]")
+    val decodedBooleans = readFromString[IndexedSeq[Boolean]]("[true,false]")
+    expect(decodedDoubles.isInstanceOf[ArraySeq.ofDouble])
+    expect(decodedBooleans.isInstanceOf[ArraySeq.ofBoolean])
+    expect.same(decodedDoubles, IndexedSeq(1.5, -2.0, 300.0))
+    expect.same(writeToString(decodedDoubles), "[1.5,-2.0,300.0]")
+    expect.same(writeToString(decodedBooleans), "[true,false]")
+    val boxed: IndexedSeq[Double] = Vector(1.0, 2.0)
+    expect.same(writeToString(boxed), "[1.0,2.0]")
+  }
+
+  test("throw PayloadError on primitive indexedSeq inserts over maxArity") {
+    implicit val ints: Schema[IndexedSeq[Int]] =
+      indexedSeq(int).addHints(UnboxedPrimitives())
+    try {
+      val items = List.fill(1025)("1").mkString("[", ",", "]")
+      val _ = readFromString[IndexedSeq[Int]](items)
+      fail("Unexpected success")
+    } catch {
+      case PayloadError(_, _, message) =>
+        expect.same(message, "Input list exceeded max arity of 1024")
+    }
+  }
+
+  case class Envelope(id: String, payload: Deferred[Foo])
+  object Envelope {
+    implicit val schema: Schema[Envelope] = {
+      val id = string.required[Envelope]("id", _.id)
+      val payload =
+        Foo.schema.deferred.required[Envelope]("payload", _.payload)
+      struct(id, payload)(Envelope.apply)
+    }
+  }
+
+  test("Deferred values are decoded on access") {
+    val json = """{"id":"a","payload":{"a": 1, "_b": 2}}"""
+    val result = readFromString[Envelope](json)
+    expect(!result.payload.isEvaluated)
+    expect.same(result.payload.value, Foo(1, Some(2)))
+    expect(result.payload.isEvaluated)
+  }
+
+  test("Deferred values are re-encoded verbatim") {
+    val json = """{"id":"a","payload":{"a": 1, "_b": 2}}"""
+    val result = readFromString[Envelope](json)
+    expect.same(writeToString(result), json)
+    expect.same(
+      writeToString(Envelope("a", Deferred(Foo(1, Some(2))))),
+      """{"id":"a","payload":{"a":1,"_b":2}}"""
+    )
+  }
+
+  test("Deferred values surface decoding errors on access") {
+    val json = """{"id":"a","payload":{"a": "oops"}}"""
+    val result = readFromString[Envelope](json)
+    try {
+      val _ = result.payload.value
+      fail("Unexpected success")
+    } catch {
+      case PayloadError(path, _, _) =>
+        expect.same(path, PayloadPath("payload", "a"))
+    }
+  }
+
+  test("Deferred values that cannot be decoded can be compared") {
+    val json = """{"id":"a","payload":{"a": "oops"}}"""
+    val result = readFromString[Envelope](json)
+    val other = readFromString[Envelope](json)
+    expect(result == other)
+    expect(result.## == other.##)
+    expect(result != Envelope("a", Deferred(Foo(1, None))))
+  }
+
+  test("Deferred values are copied verbatim by equally configured compilers") {
+    val json = """{"id":"a","payload":{"a": 1}}"""
+    val result = readFromString[Envelope](json)
+    val sameCodec: JsonCodec[Envelope] =
+      JsoniterCodecCompilerImpl.defaultJsoniterCodecCompiler
+        .withHintMask(JsoniterCodecCompiler.defaultHintMask)
+        .fromSchema(Envelope.schema)
+    expect.same(writeToString(result)(sameCodec), json)
+  }
+
+  test("Deferred values are re-encoded by differently configured compilers") {
+    val json = """{"id":"a","payload":{"a": 1}}"""
+    val result = readFromString[Envelope](json)
+    val otherCodec: JsonCodec[Envelope] =
+      JsoniterCodecCompilerImpl.defaultJsoniterCodecCompiler
+        .withExplicitDefaultsEncoding(true)
+        .fromSchema(Envelope.schema)
+    expect.same(
+      writeToString(result)(otherCodec),
+      """{"id":"a","payload":{"a":1,"_b":null}}"""
+    )
+  }
+
+  test("Interned strings are deduplicated when decoded") {
+    implicit val regions: Schema[List[String]] =
+      list(string.addHints(Interned()))
+    val decoded = readFromString[List[String]]("""["eu-west-1","eu-west-1"]""")
+    expect.same(decoded, List("eu-west-1", "eu-west-1"))
+    expect(decoded(0) eq decoded(1))
+  }
+
+  test("DecodeLimits override maxArity for the shape they annotate") {
+    implicit val longs: Schema[List[Long]] =
+      list(long).addHints(DecodeLimits(maxElements = Some(2)))
+    expect.same(readFromString[List[Long]]("[1,2]"), List(1L, 2L))
+    try {
+      val _ = readFromString[List[Long]]("[1,2,3]")
+      fail("Unexpected success")
+    } catch {
+      case PayloadError(_, _, message) =>
+        expect.same(message, "Input list exceeded max arity of 2")
+    }
+  }
+
+  test("DecodeLimits allow collections larger than maxArity") {
+    implicit val longs: Schema[Map[String, Long]] =
+      map(string, long).addHints(DecodeLimits(maxElements = Some(2048)))
+    val items =
+      List.range(0, 1025).map(i => s""""$i":$i""").mkString("{", ",", "}")
+    expect.same(readFromString[Map[String, Long]](items).size, 1025)
+  }
+
+  test("DecodeLimits bound the UTF-8 size of strings") {
+    implicit val names: Schema[String] =
+      string.addHints(DecodeLimits(maxBytes = Some(4)))
+    expect.same(readFromString[String](""""abcd""""), "abcd")
+    try {
+      // 2 characters, encoded on 6 bytes
+      val _ = readFromString[String](""""€€"""")
+      fail("Unexpected success")
+    } catch {
+      case PayloadError(_, _, message) =>
+        expect.same(message, "Input string exceeded max size of 4 bytes")
+    }
+  }
+
   test("throw PayloadError on Document list inserts over maxArity") {
     try {
       val items = List.fill(1025)("1").mkString("[", ",", "]")
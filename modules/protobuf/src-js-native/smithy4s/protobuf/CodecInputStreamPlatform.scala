@@ -19,16 +19,44 @@ package smithy4s.protobuf
 import smithy4s.Blob
 import com.google.protobuf.CodedInputStream
 
+import java.nio.ByteBuffer
+
+// Aliasing is not supported by the runtime of these platforms: blobs are
+// always read as copies.
 private[protobuf] object CodecInputStreamPlatform {
 
-  private[protobuf] def blobToCodecInputStream(blob: Blob): CodedInputStream =
+  private[protobuf] def blobToCodecInputStream(
+      blob: Blob,
+      aliasing: Boolean
+  ): CodedInputStream =
     blob match {
       case asb: Blob.ArraySliceBlob =>
         CodedInputStream.newInstance(asb.arr, asb.offset, asb.length)
       case bbb: Blob.ByteBufferBlob =>
-        CodedInputStream.newInstance(bbb.toArray)
+        bufferToCodecInputStream(bbb.asByteBufferUnsafe, aliasing)
+      case mb: Blob.MappedBlob =>
+        bufferToCodecInputStream(mb.asByteBufferUnsafe, aliasing)
       case qb: Blob.QueueBlob =>
         CodedInputStream.newInstance(qb.toArray)
     }
 
+  private[protobuf] def bufferToCodecInputStream(
+      buffer: ByteBuffer,
+      aliasing: Boolean
+  ): CodedInputStream =
+    if (buffer.hasArray()) {
+      CodedInputStream.newInstance(
+        buffer.array(),
+        buffer.arrayOffset() + buffer.position(),
+        buffer.remaining()
+      )
+    } else {
+      val bytes = new Array[Byte](buffer.remaining())
+      buffer.duplicate().get(bytes)
+      CodedInputStream.newInstance(bytes)
+    }
+
+  private[protobuf] def readAliasedBlob(is: CodedInputStream): Blob =
+    Blob(is.readByteArray())
+
 }
@@ -19,19 +19,71 @@ package smithy4s.protobuf
 import com.google.protobuf.CodedInputStream
 import smithy4s.Blob
 
+import java.nio.ByteBuffer
+
 private[protobuf] object CodecInputStreamPlatform {
 
-  private[protobuf] def blobToCodecInputStream(blob: Blob): CodedInputStream =
-    blob match {
+  /** Decodes the blob in place, from its underlying array or buffer. With
+    * `aliasing`, length-delimited blob fields are read as slices of the input.
+    */
+  private[protobuf] def blobToCodecInputStream(
+      blob: Blob,
+      aliasing: Boolean
+  ): CodedInputStream = {
+    val is = blob match {
       case asb: Blob.ArraySliceBlob =>
         CodedInputStream.newInstance(asb.arr, asb.offset, asb.length)
       case bbb: Blob.ByteBufferBlob =>
-        CodedInputStream.newInstance(bbb.asByteBufferUnsafe)
+        fromBuffer(bbb.asByteBufferUnsafe)
+      case mb: Blob.MappedBlob =>
+        fromBuffer(mb.asByteBufferUnsafe)
       case qb: Blob.QueueBlob =>
         import scala.jdk.CollectionConverters._
         CodedInputStream.newInstance {
           qb.blobs.view.map(_.asByteBufferUnsafe).asJava
         }
     }
+    is.enableAliasing(aliasing)
+    is
+  }
+
+  /** Decodes the remaining bytes of the buffer in place, without moving its
+    * position.
+    */
+  private[protobuf] def bufferToCodecInputStream(
+      buffer: ByteBuffer,
+      aliasing: Boolean
+  ): CodedInputStream = {
+    val is = fromBuffer(buffer)
+    is.enableAliasing(aliasing)
+    is
+  }
+
+  /** Reads a length-delimited field as a slice of the input, which requires
+    * aliasing to be enabled on the stream. Inputs that cannot be sliced (such
+    * as streams) still produce a copy.
+    */
+  private[protobuf] def readAliasedBlob(is: CodedInputStream): Blob = {
+    val buffer = is.readByteBuffer()
+    if (buffer.hasArray()) {
+      new Blob.ArraySliceBlob(
+        buffer.array(),
+        buffer.arrayOffset() + buffer.position(),
+        buffer.remaining()
+      )
+    } else Blob.view(buffer)
+  }
+
+  // Heap buffers go through the array overload: the buffer overload treats
+  // them as immutable, which disables aliasing. Direct buffers are read in
+  // place where the runtime supports it.
+  private def fromBuffer(buffer: ByteBuffer): CodedInputStream =
+    if (buffer.hasArray()) {
+      CodedInputStream.newInstance(
+        buffer.array(),
+        buffer.arrayOffset() + buffer.position(),
+        buffer.remaining()
+      )
+    } else CodedInputStream.newInstance(buffer)
 
 }
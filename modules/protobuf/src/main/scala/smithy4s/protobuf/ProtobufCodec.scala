@@ -20,13 +20,18 @@ import alloy.proto.ProtoIndex
 import com.google.protobuf.CodedInputStream
 import com.google.protobuf.CodedOutputStream
 import smithy4s._
+import smithy4s.internals.StringInterner
+import smithy4s.protobuf.internals.Delimited
+import smithy4s.protobuf.internals.SizeCache
 import smithy4s.protobuf.internals.TaggedCodec
 import smithy4s.protobuf.internals.TaggedCodec._
 import smithy4s.schema.CachedSchemaCompiler
+import smithy4s.schema.CompilationCache
 import smithy4s.schema.Schema
 
 import java.io.InputStream
 import java.io.OutputStream
+import java.nio.ByteBuffer
 
 // scalafmt: {maxColumn = 120}
 trait ProtobufCodec[A] {
@@ -40,17 +45,80 @@ trait ProtobufCodec[A] {
   def unsafeReadBlob(blob: Blob): A
   def unsafeReadInputStream(inputStream: InputStream, closeAfter: Boolean): A
   def writeToOutputStream(a: A, outputStream: OutputStream, bufferSize: Int): Unit
+
+  /**
+    * Writes the message preceded by its size as a varint, the framing used by protobuf's `writeDelimitedTo`, so
+    * that several messages can be concatenated in a single payload.
+    */
+  def writeDelimitedBlob(a: A): Blob
+
+  /**
+    * Writes the message preceded by its size as a varint, compatible with protobuf's `parseDelimitedFrom`. The
+    * output stream is flushed but not closed.
+    */
+  def writeDelimitedTo(a: A, outputStream: OutputStream, bufferSize: Int): Unit
+
+  /**
+    * Reads the next length-delimited message of the stream, as written by `writeDelimitedTo`, returning None if
+    * the stream ended before it. Only the bytes of that message are consumed and held in memory, so the stream
+    * can be read message by message.
+    *
+    * Messages announcing more than `maxMessageSize` bytes fail before anything gets allocated for them.
+    */
+  def unsafeReadDelimitedFrom(inputStream: InputStream, maxMessageSize: Int): Option[A]
+
+  final def unsafeReadDelimitedFrom(inputStream: InputStream): Option[A] =
+    unsafeReadDelimitedFrom(inputStream, ProtobufCodec.defaultMaxMessageSize)
+
+  /**
+    * Reads the next length-delimited message of the buffer, advancing its position past it, returning None if the
+    * buffer has no remaining bytes. The message is read in place, unless the buffer is direct and the platform
+    * cannot read direct buffers.
+    *
+    * Messages announcing more than `maxMessageSize` bytes fail, leaving the position of the buffer unchanged.
+    */
+  def unsafeReadDelimitedFrom(buffer: ByteBuffer, maxMessageSize: Int): Option[A]
+
+  final def unsafeReadDelimitedFrom(buffer: ByteBuffer): Option[A] =
+    unsafeReadDelimitedFrom(buffer, ProtobufCodec.defaultMaxMessageSize)
 }
 
 object ProtobufCodec extends CachedSchemaCompiler.DerivingImpl[ProtobufCodec] {
 
   def apply[A](implicit ev: ProtobufCodec[A]): ev.type = ev
 
+  /**
+    * The default maximum size of the length-delimited messages read by codecs, which protects readers from
+    * allocating the arbitrary sizes announced by untrusted inputs.
+    */
+  val defaultMaxMessageSize: Int = 64 * 1024 * 1024
+
   type Aux[A] = TaggedCodec[A]
 
-  def fromSchema[A](schema: Schema[A], cache: Cache): ProtobufCodec[A] = {
+  private val stringInterner: StringInterner = StringInterner()
+
+  def fromSchema[A](schema: Schema[A], cache: Cache): ProtobufCodec[A] =
+    compile(schema, cache, aliasBlobs = false)
+
+  /** Compiles codecs that decode blob fields as slices of their input rather than as copies, when reading from
+    * arrays, array slices or byte buffers (direct ones included). The decoded blobs share the storage of the input,
+    * which must therefore not be modified or released (for instance, returned to a pool) while they are in use.
+    *
+    * Aliasing is only supported on the JVM. Other platforms read copies.
+    */
+  val aliasing: CachedSchemaCompiler[ProtobufCodec] = new CachedSchemaCompiler.Impl[ProtobufCodec] {
+    protected type Aux[A] = TaggedCodec[A]
+    def fromSchema[A](schema: Schema[A], cache: Cache): ProtobufCodec[A] =
+      compile(schema, cache, aliasBlobs = true)
+  }
+
+  private def compile[A](
+      schema: Schema[A],
+      cache: CompilationCache[TaggedCodec],
+      aliasBlobs: Boolean
+  ): ProtobufCodec[A] = {
     val taggedCodec =
-      new smithy4s.protobuf.internals.TaggedCodecSchemaVisitor(cache)(
+      new smithy4s.protobuf.internals.TaggedCodecSchemaVisitor(cache, stringInterner, aliasBlobs)(
         schema.addHints(ProtoIndex(1))
       )
     val messageCodec = taggedCodec match {
@@ -65,23 +133,83 @@ object ProtobufCodec extends CachedSchemaCompiler.DerivingImpl[ProtobufCodec] {
     }
     new ProtobufCodec[A] {
       def writeBlob(a: A): Blob = {
-        val node = messageCodec.prepareWriteNoTag(a)
-        val arr = new Array[Byte](node.serialisedSize)
+        val sizes = new SizeCache
+        val arr = new Array[Byte](messageCodec.sizeNoTag(a, sizes))
         val os = CodedOutputStream.newInstance(arr)
-        node.write(os)
+        messageCodec.writeNoTag(a, sizes, os)
         os.checkNoSpaceLeft()
         Blob(arr)
       }
 
       def writeToOutputStream(a: A, outputStream: OutputStream, bufferSize: Int): Unit = {
-        val node = messageCodec.prepareWriteNoTag(a)
+        val sizes = new SizeCache
+        messageCodec.sizeNoTag(a, sizes)
         val os = CodedOutputStream.newInstance(outputStream, bufferSize)
-        node.write(os)
+        messageCodec.writeNoTag(a, sizes, os)
+      }
+
+      def writeDelimitedBlob(a: A): Blob = {
+        val sizes = new SizeCache
+        val size = messageCodec.sizeNoTag(a, sizes)
+        val arr = new Array[Byte](CodedOutputStream.computeUInt32SizeNoTag(size) + size)
+        val os = CodedOutputStream.newInstance(arr)
+        os.writeUInt32NoTag(size)
+        messageCodec.writeNoTag(a, sizes, os)
+        os.checkNoSpaceLeft()
+        Blob(arr)
+      }
+
+      def writeDelimitedTo(a: A, outputStream: OutputStream, bufferSize: Int): Unit = {
+        val sizes = new SizeCache
+        val size = messageCodec.sizeNoTag(a, sizes)
+        val os = CodedOutputStream.newInstance(outputStream, bufferSize)
+        os.writeUInt32NoTag(size)
+        messageCodec.writeNoTag(a, sizes, os)
+        os.flush()
+      }
+
+      def unsafeReadBlob(blob: Blob): A =
+        read(CodecInputStreamPlatform.blobToCodecInputStream(blob, aliasBlobs))
+
+      def unsafeReadDelimitedFrom(inputStream: InputStream, maxMessageSize: Int): Option[A] = {
+        val length = Delimited.readLength(inputStream)
+        if (length == -1) None
+        else if (length > maxMessageSize) throw Delimited.tooLarge(length, maxMessageSize)
+        else {
+          val bytes = new Array[Byte](length)
+          Delimited.readFully(inputStream, bytes)
+          Some(read(CodecInputStreamPlatform.blobToCodecInputStream(Blob(bytes), aliasBlobs)))
+        }
+      }
+
+      def unsafeReadDelimitedFrom(buffer: ByteBuffer, maxMessageSize: Int): Option[A] = {
+        val start = buffer.position()
+        // the buffer is left untouched when the prefix is truncated or malformed
+        val length =
+          try Delimited.readLength(buffer)
+          catch {
+            case scala.util.control.NonFatal(e) =>
+              buffer.position(start)
+              throw e
+          }
+        if (length == -1) None
+        else if (length > maxMessageSize) {
+          buffer.position(start)
+          throw Delimited.tooLarge(length, maxMessageSize)
+        } else if (buffer.remaining() < length) {
+          buffer.position(start)
+          throw Delimited.truncated("message")
+        } else {
+          val frame = buffer.duplicate()
+          frame.limit(frame.position() + length)
+          val result = read(CodecInputStreamPlatform.bufferToCodecInputStream(frame, aliasBlobs))
+          buffer.position(buffer.position() + length)
+          Some(result)
+        }
       }
 
-      def unsafeReadBlob(blob: Blob): A = {
+      private def read(is: CodedInputStream): A = {
         val node = messageCodec.prepareReadNoTag()
-        val is = CodecInputStreamPlatform.blobToCodecInputStream(blob)
         node.readOne(is)
         node.complete()
       }
@@ -0,0 +1,103 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.protobuf.internals
+
+import smithy4s.protobuf.ProtobufReadError
+
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+
+// scalafmt: {maxColumn = 120}
+/**
+  * Reading of the varint length prefixes written by `writeDelimitedTo`. The
+  * prefix is read byte by byte so that nothing past the message it announces
+  * is consumed from the underlying input.
+  */
+private[protobuf] object Delimited {
+
+  // A length prefix is an unsigned 32 bits varint, so at most 5 bytes long.
+  private final val MaxPrefixSize = 5
+
+  /**
+    * Reads a length prefix, returning -1 if the stream was exhausted before
+    * its first byte.
+    */
+  def readLength(inputStream: InputStream): Int = {
+    var result = 0
+    var shift = 0
+    var done = false
+    while (!done) {
+      val byte = inputStream.read()
+      if (byte == -1) {
+        if (shift == 0) return -1
+        else throw truncated("length prefix")
+      }
+      result |= (byte & 0x7f) << shift
+      shift += 7
+      if ((byte & 0x80) == 0) done = true
+      else if (shift == MaxPrefixSize * 7) throw malformedPrefix
+    }
+    checked(result)
+  }
+
+  /**
+    * Reads a length prefix, returning -1 if the buffer has no remaining
+    * bytes.
+    */
+  def readLength(buffer: ByteBuffer): Int =
+    if (!buffer.hasRemaining()) -1
+    else {
+      var result = 0
+      var shift = 0
+      var done = false
+      while (!done) {
+        if (!buffer.hasRemaining()) throw truncated("length prefix")
+        val byte = buffer.get()
+        result |= (byte & 0x7f) << shift
+        shift += 7
+        if ((byte & 0x80) == 0) done = true
+        else if (shift == MaxPrefixSize * 7) throw malformedPrefix
+      }
+      checked(result)
+    }
+
+  def readFully(inputStream: InputStream, bytes: Array[Byte]): Unit = {
+    var read = 0
+    while (read < bytes.length) {
+      val n = inputStream.read(bytes, read, bytes.length - read)
+      if (n == -1) throw truncated("message")
+      read += n
+    }
+  }
+
+  def truncated(what: String): ProtobufReadError =
+    ProtobufReadError.Other(new EOFException(s"Input ended within a delimited $what"))
+
+  def malformedPrefix: ProtobufReadError =
+    ProtobufReadError.Other(new IOException("Malformed length prefix"))
+
+  def tooLarge(length: Int, maxMessageSize: Int): ProtobufReadError =
+    ProtobufReadError.Other(
+      new IOException(s"Delimited message of $length bytes exceeds the maximum size of $maxMessageSize bytes")
+    )
+
+  private def checked(length: Int): Int =
+    if (length < 0) throw malformedPrefix else length
+
+}
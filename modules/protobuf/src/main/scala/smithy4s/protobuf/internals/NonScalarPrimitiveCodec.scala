@@ -18,6 +18,12 @@ package smithy4s.protobuf.internals
 
 import com.google.protobuf.CodedInputStream
 import com.google.protobuf.CodedOutputStream
+import smithy4s.Blob
+import smithy4s.DecodeLimits
+import smithy4s.protobuf.CodecInputStreamPlatform
+import smithy4s.protobuf.ProtobufReadError
+
+import java.nio.charset.StandardCharsets
 
 /** A codec for primitive types that are length-delimited
   */
@@ -38,14 +44,64 @@ private[internals] object NonScalarPrimitiveCodec {
     def read(is: CodedInputStream): String = is.readString()
   }
 
-  object ByteArrayCodec extends NonScalarPrimitiveCodec[Array[Byte]] {
-    def zero: Array[Byte] = Array.empty
-    def isZero(a: Array[Byte]) = a.isEmpty
-    def sizeNoTag(a: Array[Byte]): Int = CodedOutputStream.computeByteArraySizeNoTag(a)
-    def sizeTag(tag: Int, a: Array[Byte]): Int = CodedOutputStream.computeByteArraySize(tag, a)
-    def writeNoTag(a: Array[Byte], os: CodedOutputStream): Unit = os.writeByteArrayNoTag(a)
-    def writeTag(tag: Int, a: Array[Byte], os: CodedOutputStream): Unit = os.writeByteArray(tag, a)
-    def read(is: CodedInputStream): Array[Byte] = is.readByteArray()
+  /** Writes blobs held by array slices without copying them. When `aliasing` is set, the blobs are read as slices
+    * of the input rather than copies, where the platform allows it (see `CodecInputStreamPlatform`). The length
+    * prefix is checked against `maxBytes`, before the value gets allocated when it is copied.
+    */
+  final case class BlobCodec(maxBytes: Option[Int], aliasing: Boolean) extends NonScalarPrimitiveCodec[Blob] {
+    def zero: Blob = Blob.empty
+    def isZero(a: Blob) = a.isEmpty
+    def sizeNoTag(a: Blob): Int = CodedOutputStream.computeUInt32SizeNoTag(a.size) + a.size
+    def sizeTag(tag: Int, a: Blob): Int = CodedOutputStream.computeTagSize(tag) + sizeNoTag(a)
+    def writeNoTag(a: Blob, os: CodedOutputStream): Unit = {
+      os.writeUInt32NoTag(a.size)
+      a match {
+        case slice: Blob.ArraySliceBlob => os.writeRawBytes(slice.arr, slice.offset, slice.length)
+        case other                      => os.writeRawBytes(other.toArray)
+      }
+    }
+    def writeTag(tag: Int, a: Blob, os: CodedOutputStream): Unit = {
+      os.writeTag(tag, Wire.WireType.LengthDelimited)
+      writeNoTag(a, os)
+    }
+    def read(is: CodedInputStream): Blob =
+      if (aliasing) {
+        val blob = CodecInputStreamPlatform.readAliasedBlob(is)
+        maxBytes.foreach(checkLength(blob.size, _))
+        blob
+      } else
+        maxBytes match {
+          case Some(max) => Blob(is.readRawBytes(readLength(is, max)))
+          case None      => Blob(is.readByteArray())
+        }
+  }
+
+  /** Variant of the string codec that checks the length prefix of the payload against the `maxBytes` limit of the
+    * shape, failing before the value gets allocated.
+    */
+  final case class LimitedStringCodec(maxBytes: Int) extends NonScalarPrimitiveCodec[String] {
+    def zero: String = StringCodec.zero
+    def isZero(a: String) = StringCodec.isZero(a)
+    def sizeNoTag(a: String): Int = StringCodec.sizeNoTag(a)
+    def sizeTag(tag: Int, a: String): Int = StringCodec.sizeTag(tag, a)
+    def writeNoTag(a: String, os: CodedOutputStream): Unit = StringCodec.writeNoTag(a, os)
+    def writeTag(tag: Int, a: String, os: CodedOutputStream): Unit = StringCodec.writeTag(tag, a, os)
+    def read(is: CodedInputStream): String =
+      new String(is.readRawBytes(readLength(is, maxBytes)), StandardCharsets.UTF_8)
   }
 
+  private def readLength(is: CodedInputStream, maxBytes: Int): Int = {
+    val length = is.readRawVarint32()
+    checkLength(length, maxBytes)
+    length
+  }
+
+  private def checkLength(length: Int, maxBytes: Int): Unit =
+    if (length > maxBytes) {
+      throw ProtobufReadError.ViolatedConstraint(
+        DecodeLimits(maxBytes = Some(maxBytes)),
+        s"Input exceeded max size of $maxBytes bytes (got $length)"
+      )
+    }
+
 }
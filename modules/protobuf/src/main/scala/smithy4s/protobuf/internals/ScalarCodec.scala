@@ -51,7 +51,17 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Boolean = is.readBool()
   }
 
-  def intCodec(maybeNumType: Option[ProtoNumType]): ScalarCodec[Int] = maybeNumType match {
+  /** Scalar codecs for ints, exposing methods that do not box their values, for
+    * the benefit of packed repeated fields backed by primitive arrays.
+    */
+  sealed abstract class IntScalarCodec extends ScalarCodec[Int] {
+    def zero: Int = 0
+    def sizeNoTag(a: Int): Int
+    def writeNoTag(a: Int, os: CodedOutputStream): Unit
+    def read(is: CodedInputStream): Int
+  }
+
+  def intCodec(maybeNumType: Option[ProtoNumType]): IntScalarCodec = maybeNumType match {
     case None               => IntCodec
     case Some(FIXED)        => FixedIntCodec
     case Some(FIXED_SIGNED) => SignedFixedIntCodec
@@ -59,8 +69,7 @@ private[protobuf] object ScalarCodec {
     case Some(UNSIGNED)     => UnsignedIntCodec
   }
 
-  object IntCodec extends ScalarCodec[Int] {
-    def zero: Int = 0
+  object IntCodec extends IntScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Int): Int = CodedOutputStream.computeInt32SizeNoTag(a)
     def sizeTag(field: Int, a: Int): Int = CodedOutputStream.computeInt32Size(field, a)
@@ -69,8 +78,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Int = is.readInt32()
   }
 
-  object SignedIntCodec extends ScalarCodec[Int] {
-    def zero: Int = 0
+  object SignedIntCodec extends IntScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Int): Int = CodedOutputStream.computeSInt32SizeNoTag(a)
     def sizeTag(field: Int, a: Int): Int = CodedOutputStream.computeSInt32Size(field, a)
@@ -79,8 +87,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Int = is.readSInt32()
   }
 
-  object UnsignedIntCodec extends ScalarCodec[Int] {
-    def zero: Int = 0
+  object UnsignedIntCodec extends IntScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Int): Int = CodedOutputStream.computeUInt32SizeNoTag(a)
     def sizeTag(field: Int, a: Int): Int = CodedOutputStream.computeUInt32Size(field, a)
@@ -89,8 +96,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Int = is.readUInt32()
   }
 
-  object FixedIntCodec extends ScalarCodec[Int] {
-    def zero: Int = 0
+  object FixedIntCodec extends IntScalarCodec {
     def wireType: Int = Wire.WireType.Fixed32
     def sizeNoTag(a: Int): Int = CodedOutputStream.computeFixed32SizeNoTag(a)
     def sizeTag(field: Int, a: Int): Int = CodedOutputStream.computeFixed32Size(field, a)
@@ -99,8 +105,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Int = is.readFixed32()
   }
 
-  object SignedFixedIntCodec extends ScalarCodec[Int] {
-    def zero: Int = 0
+  object SignedFixedIntCodec extends IntScalarCodec {
     def wireType: Int = Wire.WireType.Fixed32
     def sizeNoTag(a: Int): Int = CodedOutputStream.computeSFixed32SizeNoTag(a)
     def sizeTag(field: Int, a: Int): Int = CodedOutputStream.computeSFixed32Size(field, a)
@@ -112,7 +117,17 @@ private[protobuf] object ScalarCodec {
   val ByteCodec = IntCodec.imap[Byte](_.toByte, _.toInt)
   val ShortCodec = IntCodec.imap[Short](_.toShort, _.toInt)
 
-  def longCodec(maybeNumType: Option[ProtoNumType]): ScalarCodec[Long] = maybeNumType match {
+  /** Scalar codecs for longs, exposing methods that do not box their values, for
+    * the benefit of packed repeated fields backed by primitive arrays.
+    */
+  sealed abstract class LongScalarCodec extends ScalarCodec[Long] {
+    def zero: Long = 0
+    def sizeNoTag(a: Long): Int
+    def writeNoTag(a: Long, os: CodedOutputStream): Unit
+    def read(is: CodedInputStream): Long
+  }
+
+  def longCodec(maybeNumType: Option[ProtoNumType]): LongScalarCodec = maybeNumType match {
     case None               => LongCodec
     case Some(FIXED)        => FixedLongCodec
     case Some(FIXED_SIGNED) => SignedFixedLongCodec
@@ -120,8 +135,7 @@ private[protobuf] object ScalarCodec {
     case Some(UNSIGNED)     => UnsignedLongCodec
   }
 
-  object LongCodec extends ScalarCodec[Long] {
-    def zero: Long = 0
+  object LongCodec extends LongScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Long): Int = CodedOutputStream.computeInt64SizeNoTag(a)
     def sizeTag(field: Int, a: Long): Int = CodedOutputStream.computeInt64Size(field, a)
@@ -130,8 +144,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Long = is.readInt64()
   }
 
-  object SignedLongCodec extends ScalarCodec[Long] {
-    def zero: Long = 0
+  object SignedLongCodec extends LongScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Long): Int = CodedOutputStream.computeSInt64SizeNoTag(a)
     def sizeTag(field: Int, a: Long): Int = CodedOutputStream.computeSInt64Size(field, a)
@@ -140,8 +153,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Long = is.readSInt64()
   }
 
-  object UnsignedLongCodec extends ScalarCodec[Long] {
-    def zero: Long = 0
+  object UnsignedLongCodec extends LongScalarCodec {
     def wireType: Int = Wire.WireType.Varint
     def sizeNoTag(a: Long): Int = CodedOutputStream.computeUInt64SizeNoTag(a)
     def sizeTag(field: Int, a: Long): Int = CodedOutputStream.computeUInt64Size(field, a)
@@ -150,8 +162,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Long = is.readUInt64()
   }
 
-  object FixedLongCodec extends ScalarCodec[Long] {
-    def zero: Long = 0
+  object FixedLongCodec extends LongScalarCodec {
     def wireType: Int = Wire.WireType.Fixed64
     def sizeNoTag(a: Long): Int = CodedOutputStream.computeFixed64SizeNoTag(a)
     def sizeTag(field: Int, a: Long): Int = CodedOutputStream.computeFixed64Size(field, a)
@@ -160,8 +171,7 @@ private[protobuf] object ScalarCodec {
     def read(is: CodedInputStream): Long = is.readFixed64()
   }
 
-  object SignedFixedLongCodec extends ScalarCodec[Long] {
-    def zero: Long = 0
+  object SignedFixedLongCodec extends LongScalarCodec {
     def wireType: Int = Wire.WireType.Fixed64
     def sizeNoTag(a: Long): Int = CodedOutputStream.computeSFixed64SizeNoTag(a)
     def sizeTag(field: Int, a: Long): Int = CodedOutputStream.computeSFixed64Size(field, a)
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.protobuf.internals
+
+/** Holds the sizes of the length-delimited parts of a message (nested
+  * messages and packed fields), computed by a first pass over the value so
+  * that the second pass can write them as headers without recomputing them.
+  *
+  * Both passes traverse the value depth-first in the same order: a part
+  * reserves its slot before its children are sized, so the sizes are consumed
+  * by the writing pass in the order the slots were reserved.
+  */
+private[protobuf] final class SizeCache {
+
+  private[this] var sizes = new Array[Int](16)
+  private[this] var count = 0
+  private[this] var cursor = 0
+
+  def reserve(): Int = {
+    if (count == sizes.length) {
+      sizes = java.util.Arrays.copyOf(sizes, count << 1)
+    }
+    count += 1
+    count - 1
+  }
+
+  def update(slot: Int, size: Int): Unit = sizes(slot) = size
+
+  def push(size: Int): Unit = update(reserve(), size)
+
+  def next(): Int = {
+    val size = sizes(cursor)
+    cursor += 1
+    size
+  }
+
+}
@@ -19,23 +19,34 @@ package smithy4s.protobuf.internals
 import com.google.protobuf.CodedInputStream
 import com.google.protobuf.CodedOutputStream
 import smithy4s.Bijection
+import smithy4s.DecodeLimits
 import smithy4s.Lazy
 import smithy4s.protobuf.internals.TaggedCodec.FieldTags.OneOf
 import smithy4s.protobuf.internals.TaggedCodec.FieldTags.Simple
 import smithy4s.schema.CollectionTag
 
+import scala.collection.compat.immutable.ArraySeq
 import scala.collection.mutable.Buffer
 
 import TaggedCodec._
 import smithy4s.protobuf.ProtobufReadError
 import smithy4s.ShapeId
 
+// scalafmt: {maxColumn = 120}
 private[protobuf] sealed trait TaggedCodec[A] {
   def wireType: Int
   def isPrimitive: Boolean
   def isMessage: Boolean
-  def prepareWrite(protoIndex: Int, a: A): WriteNode
-  def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode
+
+  /** Computes the serialised size of the field, recording the sizes of its length-delimited parts. Zero values are
+    * skipped, unless `nonEmpty` is set (which oneOf alternatives require).
+    */
+  def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int
+
+  /** Writes the field, consuming the sizes recorded by `sizeOf` for the same value.
+    */
+  def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit
+
   def prepareRead(): ReadNode[A]
 
   final def imap[B](biject: Bijection[A, B]): TaggedCodec[B] =
@@ -72,19 +83,11 @@ private[protobuf] object TaggedCodec {
     def isPrimitive: Boolean = true
     def isMessage: Boolean = false
     def oneOfTags: Option[Seq[Int]] = None
-    def write(protoIndex: Int, a: A, os: CodedOutputStream): Unit =
-      underlying.writeTag(protoIndex, a, os)
-    def prepareWrite(protoIndex: Int, a: A): WriteNode = {
-      if (underlying.isZero(a)) {
-        WriteNode.empty
-      } else prepareNonEmptyWrite(protoIndex, a)
-    }
-    def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode = {
-      new WriteNode(underlying.sizeTag(protoIndex, a)) {
-        def write(os: CodedOutputStream): Unit =
-          underlying.writeTag(protoIndex, a, os)
-      }
-    }
+    def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int =
+      if (!nonEmpty && underlying.isZero(a)) 0
+      else underlying.sizeTag(protoIndex, a)
+    def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      if (nonEmpty || !underlying.isZero(a)) underlying.writeTag(protoIndex, a, os)
     override def prepareRead(): ReadNode[A] = new ReadNode[A] {
       var wasRead: Boolean = false
       var value: A = underlying.zero
@@ -105,18 +108,12 @@ private[protobuf] object TaggedCodec {
     def isMessage: Boolean = false
     def oneOfTags: Option[Seq[Int]] = None
 
-    def prepareWrite(protoIndex: Int, a: A): WriteNode = {
-      if (underlying.isZero(a)) {
-        WriteNode.empty
-      } else prepareNonEmptyWrite(protoIndex, a)
-    }
+    def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int =
+      if (!nonEmpty && underlying.isZero(a)) 0
+      else underlying.sizeTag(protoIndex, a)
 
-    def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode = {
-      new WriteNode(underlying.sizeTag(protoIndex, a)) {
-        def write(os: CodedOutputStream): Unit =
-          underlying.writeTag(protoIndex, a, os)
-      }
-    }
+    def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      if (nonEmpty || !underlying.isZero(a)) underlying.writeTag(protoIndex, a, os)
     override def prepareRead(): ReadNode[A] = new ReadNode[A] {
       var wasRead: Boolean = false
       var value: A = underlying.zero
@@ -131,40 +128,34 @@ private[protobuf] object TaggedCodec {
 
   final case class PackedRepeatedFieldCodec[C[_], A](
       scalarCodec: ScalarCodec[A],
-      collectionTag: CollectionTag[C]
+      collectionTag: CollectionTag[C],
+      maxElements: Int = Int.MaxValue
   ) extends TaggedCodec[C[A]] {
     def isPrimitive: Boolean = false
     def isMessage: Boolean = false
     def wireType: Int = Wire.WireType.LengthDelimited
     def oneOfTags: Option[Seq[Int]] = None
 
-    def prepareWrite(protoIndex: Int, ca: C[A]): WriteNode =
-      if (collectionTag.isEmpty(ca)) {
-        WriteNode.empty
-      } else prepareNonEmptyWrite(protoIndex, ca)
-
-    def prepareNonEmptyWrite(protoIndex: Int, ca: C[A]): WriteNode = {
-      var payloadSize = 0
-      collectionTag
-        .iterator(ca)
-        .foreach(payloadSize += scalarCodec.sizeNoTag(_))
-      val size = {
-        val sizeOfPayloadSizeTag =
-          CodedOutputStream.computeUInt32SizeNoTag(payloadSize)
+    def sizeOf(protoIndex: Int, ca: C[A], nonEmpty: Boolean, sizes: SizeCache): Int =
+      if (!nonEmpty && collectionTag.isEmpty(ca)) 0
+      else {
+        var payloadSize = 0
+        collectionTag
+          .iterator(ca)
+          .foreach(payloadSize += scalarCodec.sizeNoTag(_))
+        sizes.push(payloadSize)
         // a number of bytes for the tag
         // however many bytes for encoding the size of the payload (as a varint)
         // See https://developers.google.com/protocol-buffers/docs/encoding#packed
-        val tagSize = CodedOutputStream.computeTagSize(protoIndex)
-        tagSize + sizeOfPayloadSizeTag + payloadSize
-      }
-      new WriteNode(size) {
-        def write(os: CodedOutputStream): Unit = {
-          os.writeTag(protoIndex, 2)
-          os.writeUInt32NoTag(payloadSize)
-          collectionTag.iterator(ca).foreach(scalarCodec.writeNoTag(_, os))
-        }
+        lengthDelimitedSize(protoIndex, payloadSize)
+      }
+
+    def writeTo(protoIndex: Int, ca: C[A], nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      if (nonEmpty || !collectionTag.isEmpty(ca)) {
+        os.writeTag(protoIndex, 2)
+        os.writeUInt32NoTag(sizes.next())
+        collectionTag.iterator(ca).foreach(scalarCodec.writeNoTag(_, os))
       }
-    }
 
     def prepareRead(): ReadNode[C[A]] = new ReadNode[C[A]] {
       var wasRead: Boolean = false
@@ -173,6 +164,7 @@ private[protobuf] object TaggedCodec {
         val messageLength = is.readRawVarint32()
         val oldLimit = is.pushLimit(messageLength)
         while (is.getBytesUntilLimit > 0) {
+          if (buffer.size >= maxElements) maxElementsExceeded(maxElements)
           buffer += scalarCodec.read(is)
         }
         is.popLimit(oldLimit)
@@ -183,38 +175,207 @@ private[protobuf] object TaggedCodec {
     }
   }
 
+  /** A packed repeated field of primitives, backed by a primitive array. The
+    * elements are read and written without being boxed.
+    */
+  final case class UnboxedPackedRepeatedFieldCodec[A](
+      ops: UnboxedArrayOps[A],
+      maxElements: Int = Int.MaxValue
+  ) extends TaggedCodec[IndexedSeq[A]] {
+    def isPrimitive: Boolean = false
+    def isMessage: Boolean = false
+    def wireType: Int = Wire.WireType.LengthDelimited
+    def oneOfTags: Option[Seq[Int]] = None
+
+    def sizeOf(protoIndex: Int, as: IndexedSeq[A], nonEmpty: Boolean, sizes: SizeCache): Int =
+      if (!nonEmpty && as.isEmpty) 0
+      else {
+        val size = ops.payloadSize(ops.unsafeArray(as))
+        sizes.push(size)
+        lengthDelimitedSize(protoIndex, size)
+      }
+
+    def writeTo(protoIndex: Int, as: IndexedSeq[A], nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      if (nonEmpty || !as.isEmpty) {
+        os.writeTag(protoIndex, 2)
+        os.writeUInt32NoTag(sizes.next())
+        val arr = ops.unsafeArray(as)
+        val length = as.length
+        var i = 0
+        while (i < length) {
+          ops.writeNoTag(arr, i, os)
+          i += 1
+        }
+      }
+
+    def prepareRead(): ReadNode[IndexedSeq[A]] = new ReadNode[IndexedSeq[A]] {
+      var wasRead: Boolean = false
+      var buffer: Array[A] = ops.newArray(8)
+      var capacity: Int = 8
+      var size: Int = 0
+      def readOne(is: CodedInputStream): Unit = {
+        val messageLength = is.readRawVarint32()
+        val oldLimit = is.pushLimit(messageLength)
+        while (is.getBytesUntilLimit > 0) {
+          if (size >= maxElements) maxElementsExceeded(maxElements)
+          if (size == capacity) {
+            capacity = size << 1
+            buffer = ops.copyOf(buffer, capacity)
+          }
+          ops.read(buffer, size, is)
+          size += 1
+        }
+        is.popLimit(oldLimit)
+        wasRead = true
+      }
+      def readOne(tag: Int, is: CodedInputStream): Unit = readOne(is)
+      def complete(): IndexedSeq[A] =
+        ArraySeq.unsafeWrapArray(if (size < capacity) ops.copyOf(buffer, size) else buffer)
+    }
+  }
+
+  /** Operations over the primitive arrays backing [[UnboxedPackedRepeatedFieldCodec]]. They take the
+    * arrays along with element indexes, so that elements are never boxed.
+    */
+  sealed abstract class UnboxedArrayOps[A] {
+    def newArray(size: Int): Array[A]
+    def copyOf(arr: Array[A], size: Int): Array[A]
+    def unsafeArray(as: IndexedSeq[A]): Array[A]
+    def sizeNoTag(arr: Array[A], index: Int): Int
+    def writeNoTag(arr: Array[A], index: Int, os: CodedOutputStream): Unit
+    def read(arr: Array[A], index: Int, is: CodedInputStream): Unit
+
+    def payloadSize(arr: Array[A]): Int = {
+      val length = arr.length
+      var size = 0
+      var i = 0
+      while (i < length) {
+        size += sizeNoTag(arr, i)
+        i += 1
+      }
+      size
+    }
+  }
+
+  object UnboxedArrayOps {
+
+    case object Doubles extends UnboxedArrayOps[Double] {
+      def newArray(size: Int): Array[Double] = new Array[Double](size)
+      def copyOf(arr: Array[Double], size: Int): Array[Double] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Double]): Array[Double] = as match {
+        case a: ArraySeq.ofDouble => a.unsafeArray
+        case _                    => as.toArray
+      }
+      def sizeNoTag(arr: Array[Double], index: Int): Int = CodedOutputStream.computeDoubleSizeNoTag(0)
+      override def payloadSize(arr: Array[Double]): Int = arr.length * CodedOutputStream.computeDoubleSizeNoTag(0)
+      def writeNoTag(arr: Array[Double], index: Int, os: CodedOutputStream): Unit = os.writeDoubleNoTag(arr(index))
+      def read(arr: Array[Double], index: Int, is: CodedInputStream): Unit = arr(index) = is.readDouble()
+    }
+
+    case object Floats extends UnboxedArrayOps[Float] {
+      def newArray(size: Int): Array[Float] = new Array[Float](size)
+      def copyOf(arr: Array[Float], size: Int): Array[Float] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Float]): Array[Float] = as match {
+        case a: ArraySeq.ofFloat => a.unsafeArray
+        case _                   => as.toArray
+      }
+      def sizeNoTag(arr: Array[Float], index: Int): Int = CodedOutputStream.computeFloatSizeNoTag(0)
+      override def payloadSize(arr: Array[Float]): Int = arr.length * CodedOutputStream.computeFloatSizeNoTag(0)
+      def writeNoTag(arr: Array[Float], index: Int, os: CodedOutputStream): Unit = os.writeFloatNoTag(arr(index))
+      def read(arr: Array[Float], index: Int, is: CodedInputStream): Unit = arr(index) = is.readFloat()
+    }
+
+    case object Booleans extends UnboxedArrayOps[Boolean] {
+      def newArray(size: Int): Array[Boolean] = new Array[Boolean](size)
+      def copyOf(arr: Array[Boolean], size: Int): Array[Boolean] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Boolean]): Array[Boolean] = as match {
+        case a: ArraySeq.ofBoolean => a.unsafeArray
+        case _                     => as.toArray
+      }
+      def sizeNoTag(arr: Array[Boolean], index: Int): Int = CodedOutputStream.computeBoolSizeNoTag(false)
+      override def payloadSize(arr: Array[Boolean]): Int = arr.length * CodedOutputStream.computeBoolSizeNoTag(false)
+      def writeNoTag(arr: Array[Boolean], index: Int, os: CodedOutputStream): Unit = os.writeBoolNoTag(arr(index))
+      def read(arr: Array[Boolean], index: Int, is: CodedInputStream): Unit = arr(index) = is.readBool()
+    }
+
+    final case class Ints(scalarCodec: ScalarCodec.IntScalarCodec) extends UnboxedArrayOps[Int] {
+      def newArray(size: Int): Array[Int] = new Array[Int](size)
+      def copyOf(arr: Array[Int], size: Int): Array[Int] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Int]): Array[Int] = as match {
+        case a: ArraySeq.ofInt => a.unsafeArray
+        case _                 => as.toArray
+      }
+      def sizeNoTag(arr: Array[Int], index: Int): Int = scalarCodec.sizeNoTag(arr(index))
+      def writeNoTag(arr: Array[Int], index: Int, os: CodedOutputStream): Unit = scalarCodec.writeNoTag(arr(index), os)
+      def read(arr: Array[Int], index: Int, is: CodedInputStream): Unit = arr(index) = scalarCodec.read(is)
+    }
+
+    final case class Longs(scalarCodec: ScalarCodec.LongScalarCodec) extends UnboxedArrayOps[Long] {
+      def newArray(size: Int): Array[Long] = new Array[Long](size)
+      def copyOf(arr: Array[Long], size: Int): Array[Long] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Long]): Array[Long] = as match {
+        case a: ArraySeq.ofLong => a.unsafeArray
+        case _                  => as.toArray
+      }
+      def sizeNoTag(arr: Array[Long], index: Int): Int = scalarCodec.sizeNoTag(arr(index))
+      def writeNoTag(arr: Array[Long], index: Int, os: CodedOutputStream): Unit = scalarCodec.writeNoTag(arr(index), os)
+      def read(arr: Array[Long], index: Int, is: CodedInputStream): Unit = arr(index) = scalarCodec.read(is)
+    }
+
+    // Shorts and bytes are encoded as int32 (see ScalarCodec.ShortCodec and ScalarCodec.ByteCodec)
+    case object Shorts extends UnboxedArrayOps[Short] {
+      def newArray(size: Int): Array[Short] = new Array[Short](size)
+      def copyOf(arr: Array[Short], size: Int): Array[Short] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Short]): Array[Short] = as match {
+        case a: ArraySeq.ofShort => a.unsafeArray
+        case _                   => as.toArray
+      }
+      def sizeNoTag(arr: Array[Short], index: Int): Int = CodedOutputStream.computeInt32SizeNoTag(arr(index).toInt)
+      def writeNoTag(arr: Array[Short], index: Int, os: CodedOutputStream): Unit = os.writeInt32NoTag(arr(index).toInt)
+      def read(arr: Array[Short], index: Int, is: CodedInputStream): Unit = arr(index) = is.readInt32().toShort
+    }
+
+    case object Bytes extends UnboxedArrayOps[Byte] {
+      def newArray(size: Int): Array[Byte] = new Array[Byte](size)
+      def copyOf(arr: Array[Byte], size: Int): Array[Byte] = java.util.Arrays.copyOf(arr, size)
+      def unsafeArray(as: IndexedSeq[Byte]): Array[Byte] = as match {
+        case a: ArraySeq.ofByte => a.unsafeArray
+        case _                  => as.toArray
+      }
+      def sizeNoTag(arr: Array[Byte], index: Int): Int = CodedOutputStream.computeInt32SizeNoTag(arr(index).toInt)
+      def writeNoTag(arr: Array[Byte], index: Int, os: CodedOutputStream): Unit = os.writeInt32NoTag(arr(index).toInt)
+      def read(arr: Array[Byte], index: Int, is: CodedInputStream): Unit = arr(index) = is.readInt32().toByte
+    }
+  }
+
   final case class UnpackedRepeatedFieldCodec[C[_], A](
       codec: TaggedCodec[A],
-      collectionTag: CollectionTag[C]
+      collectionTag: CollectionTag[C],
+      maxElements: Int = Int.MaxValue
   ) extends TaggedCodec[C[A]] {
     def wireType: Int = codec.wireType
     def isPrimitive: Boolean = false
     def isMessage: Boolean = false
     def oneOfTags: Option[Seq[Int]] = None
 
-    def prepareWrite(protoIndex: Int, ca: C[A]): WriteNode =
-      if (collectionTag.isEmpty(ca)) {
-        WriteNode.empty
-      } else prepareNonEmptyWrite(protoIndex, ca)
-
-    def prepareNonEmptyWrite(protoIndex: Int, ca: C[A]): WriteNode = {
-      val aNodes =
-        collectionTag
-          .iterator(ca)
-          .map(codec.prepareWrite(protoIndex, _))
-          .toVector
+    def sizeOf(protoIndex: Int, ca: C[A], nonEmpty: Boolean, sizes: SizeCache): Int = {
       var serialisedSize = 0 // scalafix:ok
-      aNodes.foreach(serialisedSize += _.serialisedSize)
-      new WriteNode(serialisedSize) {
-        override def write(os: CodedOutputStream): Unit =
-          aNodes.foreach(_.write(os))
-      }
+      collectionTag
+        .iterator(ca)
+        .foreach(serialisedSize += codec.sizeOf(protoIndex, _, nonEmpty = false, sizes))
+      serialisedSize
     }
 
+    def writeTo(protoIndex: Int, ca: C[A], nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      collectionTag
+        .iterator(ca)
+        .foreach(codec.writeTo(protoIndex, _, nonEmpty = false, sizes, os))
+
     def prepareRead(): ReadNode[C[A]] = new ReadNode[C[A]] {
       var wasRead: Boolean = false
       val buffer = Buffer.empty[A]
       def readOne(is: CodedInputStream): Unit = {
+        if (buffer.size >= maxElements) maxElementsExceeded(maxElements)
         // dynamically creating a node as re-using
         // may be dangerous in case of messages.
         // an alternative could be to have a `def resetState()` method.
@@ -231,6 +392,16 @@ private[protobuf] object TaggedCodec {
     }
   }
 
+  // the size of a length-delimited field, including its tag and the varint encoding its payload size
+  private def lengthDelimitedSize(protoIndex: Int, payloadSize: Int): Int =
+    CodedOutputStream.computeTagSize(protoIndex) + CodedOutputStream.computeUInt32SizeNoTag(payloadSize) + payloadSize
+
+  private def maxElementsExceeded(maxElements: Int): Nothing =
+    throw ProtobufReadError.ViolatedConstraint(
+      DecodeLimits(maxElements = Some(maxElements)),
+      s"Input exceeded max number of elements of $maxElements"
+    )
+
   sealed trait FieldTags
 
   object FieldTags {
@@ -255,8 +426,11 @@ private[protobuf] object TaggedCodec {
       case OneOf(_)           => 0
     }
 
-    def prepareWrite(s: S): WriteNode =
-      codec.prepareWrite(writeTag, get(s))
+    def sizeOf(s: S, sizes: SizeCache): Int =
+      codec.sizeOf(writeTag, get(s), nonEmpty = false, sizes)
+
+    def writeTo(s: S, sizes: SizeCache, os: CodedOutputStream): Unit =
+      codec.writeTo(writeTag, get(s), nonEmpty = false, sizes, os)
 
   }
 
@@ -270,40 +444,42 @@ private[protobuf] object TaggedCodec {
     def wireType: Int = Wire.WireType.LengthDelimited
     def oneOfTags: Option[Seq[Int]] = None
 
-    /** Prepares a Node that doesn't serialise a tag nor the size, thus can be
-      * used to serialise top-level messages.
+    /** Computes the size of the message without a tag nor a size header, thus
+      * can be used to serialise top-level messages.
       */
-    def prepareWriteNoTag(a: A): WriteNode = {
-      val allNodes = codecs.map(_.prepareWrite(a))
+    def sizeNoTag(a: A, sizes: SizeCache): Int = {
       var payloadSize = 0
-      allNodes.foreach(n => payloadSize += n.serialisedSize)
-      new WriteNode(payloadSize) {
-        def write(os: CodedOutputStream): Unit = {
-          allNodes.foreach(_.write(os))
-        }
+      var i = 0
+      while (i < codecs.length) {
+        payloadSize += codecs(i).sizeOf(a, sizes)
+        i += 1
       }
+      payloadSize
     }
 
-    def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode =
-      prepareWrite(protoIndex, a)
-
-    def prepareWrite(protoIndex: Int, a: A): WriteNode = {
-      val allNodes = codecs.map(_.prepareWrite(a))
-      var payloadSize = 0
-      allNodes.foreach(n => payloadSize += n.serialisedSize)
-      val sizeOfPayloadSizeTag =
-        CodedOutputStream.computeUInt32SizeNoTag(payloadSize)
-      val tagSize = CodedOutputStream.computeTagSize(protoIndex)
-      val size = tagSize + sizeOfPayloadSizeTag + payloadSize
-      new WriteNode(size) {
-        def write(os: CodedOutputStream): Unit = {
-          os.writeTag(protoIndex, 2)
-          os.writeUInt32NoTag(payloadSize)
-          allNodes.foreach(_.write(os))
-        }
+    def writeNoTag(a: A, sizes: SizeCache, os: CodedOutputStream): Unit = {
+      var i = 0
+      while (i < codecs.length) {
+        codecs(i).writeTo(a, sizes, os)
+        i += 1
       }
     }
 
+    def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int = {
+      // the slot is reserved before the fields record theirs, matching the
+      // order in which `writeTo` consumes them
+      val slot = sizes.reserve()
+      val payloadSize = sizeNoTag(a, sizes)
+      sizes.update(slot, payloadSize)
+      lengthDelimitedSize(protoIndex, payloadSize)
+    }
+
+    def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit = {
+      os.writeTag(protoIndex, 2)
+      os.writeUInt32NoTag(sizes.next())
+      writeNoTag(a, sizes, os)
+    }
+
     override def prepareRead(): ReadNode[A] = new ReadNode[A] {
       private val noTag = prepareReadNoTag()
       def wasRead: Boolean = noTag.wasRead
@@ -370,9 +546,10 @@ private[protobuf] object TaggedCodec {
       project: PartialFunction[U, A]
   ) {
     def tag = Wire.encodeTag(protoIndex, codec.wireType)
-    def unsafePrepareWrite(u: U): WriteNode = {
-      codec.prepareNonEmptyWrite(protoIndex, project(u))
-    }
+    def unsafeSizeOf(u: U, sizes: SizeCache): Int =
+      codec.sizeOf(protoIndex, project(u), nonEmpty = true, sizes)
+    def unsafeWriteTo(u: U, sizes: SizeCache, os: CodedOutputStream): Unit =
+      codec.writeTo(protoIndex, project(u), nonEmpty = true, sizes, os)
   }
 
   final case class OneOfCodec[U](
@@ -382,26 +559,19 @@ private[protobuf] object TaggedCodec {
 
     override def wireType: Int = throw new IllegalAccessError("Coding error")
 
-    override def prepareWrite(protoIndex: Int, u: U): WriteNode = {
-      // Disregarding the protoIndex received as the information is inherent
-      // to which instance of `U` is received
-      val index = ordinal(u)
-      alts(index).unsafePrepareWrite(u)
-    }
+    // Disregarding the protoIndex received as the information is inherent
+    // to which instance of `U` is received
+    def sizeOf(protoIndex: Int, u: U, nonEmpty: Boolean, sizes: SizeCache): Int =
+      alts(ordinal(u)).unsafeSizeOf(u, sizes)
 
-    def prepareNonEmptyWrite(protoIndex: Int, u: U): WriteNode =
-      prepareWrite(protoIndex, u)
+    def writeTo(protoIndex: Int, u: U, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      alts(ordinal(u)).unsafeWriteTo(u, sizes, os)
 
     def oneOfTags: Option[Seq[Int]] = Some(alts.map(_.tag).toList)
 
     def isPrimitive: Boolean = false
     def isMessage: Boolean = false
 
-    def prepareWrite(u: U): WriteNode = {
-      val index = ordinal(u)
-      alts(index).unsafePrepareWrite(u)
-    }
-
     val nodeMap: Map[Int, () => ReadNode[U]] = alts.map {
       case alt: OneOfAlternative[U, a] =>
         alt.tag -> (() => alt.codec.prepareRead().map(alt.inject))
@@ -433,11 +603,11 @@ private[protobuf] object TaggedCodec {
     def wireType: Int = underlying.wireType
     def oneOfTags: Option[Seq[Int]] = underlying.oneOfTags
 
-    def prepareWrite(protoIndex: Int, b: B): WriteNode =
-      underlying.prepareWrite(protoIndex, from(b))
+    def sizeOf(protoIndex: Int, b: B, nonEmpty: Boolean, sizes: SizeCache): Int =
+      underlying.sizeOf(protoIndex, from(b), nonEmpty, sizes)
 
-    def prepareNonEmptyWrite(protoIndex: Int, b: B): WriteNode =
-      underlying.prepareNonEmptyWrite(protoIndex, from(b))
+    def writeTo(protoIndex: Int, b: B, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      underlying.writeTo(protoIndex, from(b), nonEmpty, sizes, os)
 
     def prepareRead(): ReadNode[B] = underlying.prepareRead().map(to)
   }
@@ -449,13 +619,16 @@ private[protobuf] object TaggedCodec {
     def wireType = underlying.wireType
     def oneOfTags: Option[Seq[Int]] = underlying.oneOfTags
 
-    def prepareWrite(protoIndex: Int, a: Option[A]): WriteNode = a match {
-      case None        => WriteNode.empty
-      case Some(value) => underlying.prepareWrite(protoIndex: Int, value)
+    def sizeOf(protoIndex: Int, a: Option[A], nonEmpty: Boolean, sizes: SizeCache): Int = a match {
+      case None        => 0
+      case Some(value) => underlying.sizeOf(protoIndex, value, nonEmpty = false, sizes)
     }
 
-    def prepareNonEmptyWrite(protoIndex: Int, a: Option[A]): WriteNode =
-      prepareWrite(protoIndex, a)
+    def writeTo(protoIndex: Int, a: Option[A], nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      a match {
+        case None        => ()
+        case Some(value) => underlying.writeTo(protoIndex, value, nonEmpty = false, sizes, os)
+      }
 
     override def prepareRead(): ReadNode[Option[A]] = new ReadNode[Option[A]] {
       val readA = underlying.prepareRead()
@@ -483,11 +656,11 @@ private[protobuf] object TaggedCodec {
     def wireType = underlying.wireType
     def oneOfTags: Option[Seq[Int]] = underlying.oneOfTags
 
-    def prepareWrite(protoIndex: Int, a: A): WriteNode =
-      underlying.prepareWrite(protoIndex: Int, a)
+    def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int =
+      underlying.sizeOf(protoIndex, a, nonEmpty = false, sizes)
 
-    def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode =
-      prepareWrite(protoIndex, a)
+    def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      underlying.writeTo(protoIndex, a, nonEmpty = false, sizes, os)
 
     override def prepareRead(): ReadNode[A] = new ReadNode[A] {
       val readA = underlying.prepareRead()
@@ -514,11 +687,11 @@ private[protobuf] object TaggedCodec {
     def oneOfTags: Option[Seq[Int]] = None
 
     lazy val underlying = suspended.value
-    def prepareWrite(protoIndex: Int, a: A): WriteNode =
-      underlying.prepareWrite(protoIndex, a)
+    def sizeOf(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache): Int =
+      underlying.sizeOf(protoIndex, a, nonEmpty, sizes)
 
-    def prepareNonEmptyWrite(protoIndex: Int, a: A): WriteNode =
-      underlying.prepareNonEmptyWrite(protoIndex, a)
+    def writeTo(protoIndex: Int, a: A, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit =
+      underlying.writeTo(protoIndex, a, nonEmpty, sizes, os)
 
     def prepareRead(): ReadNode[A] = new ReadNode[A] {
       // not using a lazy val because the logic that exercises
@@ -560,26 +733,16 @@ private[protobuf] object TaggedCodec {
     val enumToIntMap = rest.map(_.swap).toMap + (default -> 0)
     val intToEnumMap = rest.toMap
 
-    def prepareWrite(protoIndex: Int, enumValue: E): WriteNode = {
+    def sizeOf(protoIndex: Int, enumValue: E, nonEmpty: Boolean, sizes: SizeCache): Int = {
       val protoIntValue = enumToIntMap(enumValue)
-      if (protoIntValue == 0) {
-        WriteNode.empty
-      } else {
-        new WriteNode(ScalarCodec.IntCodec.sizeTag(protoIndex, protoIntValue)) {
-          def write(os: CodedOutputStream): Unit = {
-            ScalarCodec.IntCodec.writeTag(protoIndex, protoIntValue, os)
-          }
-        }
-      }
+      if (!nonEmpty && protoIntValue == 0) 0
+      else ScalarCodec.IntCodec.sizeTag(protoIndex, protoIntValue)
     }
 
-    def prepareNonEmptyWrite(protoIndex: Int, enumValue: E): WriteNode = {
+    def writeTo(protoIndex: Int, enumValue: E, nonEmpty: Boolean, sizes: SizeCache, os: CodedOutputStream): Unit = {
       val protoIntValue = enumToIntMap(enumValue)
-
-      new WriteNode(ScalarCodec.IntCodec.sizeTag(protoIndex, protoIntValue)) {
-        def write(os: CodedOutputStream): Unit = {
-          ScalarCodec.IntCodec.writeTag(protoIndex, protoIntValue, os)
-        }
+      if (nonEmpty || protoIntValue != 0) {
+        ScalarCodec.IntCodec.writeTag(protoIndex, protoIntValue, os)
       }
     }
 
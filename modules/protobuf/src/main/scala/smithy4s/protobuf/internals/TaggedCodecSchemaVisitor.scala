@@ -28,6 +28,7 @@ import smithy4s.Document.DNull
 import smithy4s.Document.DNumber
 import smithy4s.Document.DObject
 import smithy4s.Document.DString
+import smithy4s.internals.StringInterner
 import smithy4s.protobuf.internals.TaggedCodec._
 import smithy4s.schema.CompilationCache
 import smithy4s.schema.EnumTag.ClosedIntEnum
@@ -43,8 +44,11 @@ import smithy.api.Required
 import smithy4s.protobuf.ProtobufReadError
 
 // scalafmt: {maxColumn = 120}
-private[protobuf] class TaggedCodecSchemaVisitor(val cache: CompilationCache[TaggedCodec])
-    extends SchemaVisitor.Cached[TaggedCodec] {
+private[protobuf] class TaggedCodecSchemaVisitor(
+    val cache: CompilationCache[TaggedCodec],
+    stringInterner: StringInterner,
+    aliasBlobs: Boolean
+) extends SchemaVisitor.Cached[TaggedCodec] {
 
   def primitive[P](
       shapeId: ShapeId,
@@ -65,14 +69,14 @@ private[protobuf] class TaggedCodecSchemaVisitor(val cache: CompilationCache[Tag
       case PFloat   => wrapScalar(FloatCodec)
       case PByte    => wrapScalar(ByteCodec)
       case PShort   => wrapScalar(ShortCodec)
-      case PString  => wrapLen(StringCodec)
+      case PString  => stringCodec(hints)
       case PUUID =>
         if (hints.has(ProtoCompactUUID)) {
           compactUUIDSchema.compile(this)
         } else {
           wrapLen(StringCodec).imap(UUID.fromString(_), _.toString())
         }
-      case PBlob       => wrapLen(ByteArrayCodec).imap(Blob(_), _.toArray)
+      case PBlob       => blobCodec(hints)
       case PBigDecimal => wrapLen(StringCodec).imap(bigDecimalConversion)
       case PBigInt     => wrapLen(StringCodec).imap(bigIntegerConversion)
       case PTimestamp =>
@@ -86,6 +90,20 @@ private[protobuf] class TaggedCodecSchemaVisitor(val cache: CompilationCache[Tag
     if (hints.has(ProtoWrapped)) underlying.wrap else underlying
   }
 
+  private def stringCodec(hints: Hints): TaggedCodec[String] = {
+    val underlying = DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) => NonScalarPrimitiveCodec.LimitedStringCodec(maxBytes)
+      case None           => NonScalarPrimitiveCodec.StringCodec
+    }
+    val codec = TaggedCodec.NonScalarPrimitiveFieldCodec(underlying)
+    if (hints.has(Interned)) codec.imap(stringInterner.intern(_), identity[String]) else codec
+  }
+
+  private def blobCodec(hints: Hints): TaggedCodec[Blob] =
+    TaggedCodec.NonScalarPrimitiveFieldCodec(
+      NonScalarPrimitiveCodec.BlobCodec(DecodeLimits.maxBytes(hints), aliasBlobs)
+    )
+
   private val bigDecimalConversion = {
     def to(string: String) = if (string.isEmpty()) BigDecimal(0) else BigDecimal(string)
     def from(bigDecimal: BigDecimal) = if (bigDecimal == BigDecimal(0)) "" else bigDecimal.toString()
@@ -163,31 +181,77 @@ private[protobuf] class TaggedCodecSchemaVisitor(val cache: CompilationCache[Tag
       collectionTag: CollectionTag[C],
       member: Schema[A]
   ): TaggedCodec[C[A]] = {
+    val maxElements = DecodeLimits.maxElements(hints, Int.MaxValue)
     def drillDownImap[AA, B](taggedCodec: TaggedCodec.IMapCodec[AA, B]): TaggedCodec[C[B]] =
       taggedCodec.underlying match {
         case ScalarFieldCodec(scalarCodec) =>
-          PackedRepeatedFieldCodec(scalarCodec.imap(taggedCodec.to, taggedCodec.from), collectionTag)
+          PackedRepeatedFieldCodec(scalarCodec.imap(taggedCodec.to, taggedCodec.from), collectionTag, maxElements)
         case _ =>
-          UnpackedRepeatedFieldCodec(taggedCodec, collectionTag)
+          UnpackedRepeatedFieldCodec(taggedCodec, collectionTag, maxElements)
       }
 
-    val underlying = this(member) match {
-      case ScalarFieldCodec(scalarCodec) => PackedRepeatedFieldCodec(scalarCodec, collectionTag)
-      case imapCodec: IMapCodec[a, A]    => drillDownImap(imapCodec)
-      case other                         => UnpackedRepeatedFieldCodec(other, collectionTag)
+    val memberCodec = this(member)
+    val maybeUnboxed = collectionTag match {
+      case CollectionTag.IndexedSeqTag =>
+        unboxedIndexedSeq(hints, member, memberCodec, maxElements).map(_.asInstanceOf[TaggedCodec[C[A]]])
+      case _ => None
+    }
+    val underlying = maybeUnboxed.getOrElse {
+      memberCodec match {
+        case ScalarFieldCodec(scalarCodec) => PackedRepeatedFieldCodec(scalarCodec, collectionTag, maxElements)
+        case imapCodec: IMapCodec[a, A]    => drillDownImap(imapCodec)
+        case other                         => UnpackedRepeatedFieldCodec(other, collectionTag, maxElements)
+      }
     }
     if (hints.has(ProtoWrapped)) underlying.wrap else underlying
   }
 
+  // Primitives (or newtypes thereof) stored in IndexedSeqs annotated with `UnboxedPrimitives` are backed by
+  // primitive arrays, and read/written without boxing.
+  private def unboxedIndexedSeq[A](
+      hints: Hints,
+      member: Schema[A],
+      memberCodec: TaggedCodec[A],
+      maxElements: Int
+  ): Option[TaggedCodec[IndexedSeq[A]]] = {
+    val maybeScalarCodec: Option[ScalarCodec[_]] = memberCodec match {
+      case ScalarFieldCodec(scalarCodec)                  => Some(scalarCodec)
+      case IMapCodec(ScalarFieldCodec(scalarCodec), _, _) => Some(scalarCodec)
+      case _                                              => None
+    }
+    def packed[P](ops: UnboxedArrayOps[P]): Option[TaggedCodec[_]] =
+      Some(UnboxedPackedRepeatedFieldCodec(ops, maxElements))
+    def unboxedCodec(primitive: Primitive[_], scalarCodec: ScalarCodec[_]): Option[TaggedCodec[_]] =
+      (primitive, scalarCodec) match {
+        case (Primitive.PDouble, _)                                    => packed(UnboxedArrayOps.Doubles)
+        case (Primitive.PFloat, _)                                     => packed(UnboxedArrayOps.Floats)
+        case (Primitive.PBoolean, _)                                   => packed(UnboxedArrayOps.Booleans)
+        case (Primitive.PInt, intCodec: ScalarCodec.IntScalarCodec)    => packed(UnboxedArrayOps.Ints(intCodec))
+        case (Primitive.PLong, longCodec: ScalarCodec.LongScalarCodec) => packed(UnboxedArrayOps.Longs(longCodec))
+        case (Primitive.PShort, _)                                     => packed(UnboxedArrayOps.Shorts)
+        case (Primitive.PByte, _)                                      => packed(UnboxedArrayOps.Bytes)
+        case _                                                         => None
+      }
+    val unboxed = for {
+      primitive <- CollectionTag.unboxedPrimitive(hints, member)
+      scalarCodec <- maybeScalarCodec
+      codec <- unboxedCodec(primitive, scalarCodec)
+    } yield codec
+    unboxed.map(_.asInstanceOf[TaggedCodec[IndexedSeq[A]]])
+  }
+
   def map[K, V](
       shapeId: ShapeId,
       hints: Hints,
       key: Schema[K],
       value: Schema[V]
   ): TaggedCodec[Map[K, V]] = {
+    // the decode limits of the map apply to the vector of entries
+    val limits = hints.get(DecodeLimits).fold(Hints.empty)(Hints(_))
     val underlying = this(
       Schema
         .vector(Schema.tuple(key.addHints(ProtoIndex(1)), value.addHints(ProtoIndex(2))))
+        .addHints(limits)
         .biject(_.toMap)(_.toVector)
     )
     if (hints.has(ProtoWrapped)) underlying.wrap else underlying
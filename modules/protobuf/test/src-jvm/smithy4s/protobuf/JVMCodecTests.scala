@@ -139,4 +139,57 @@ class JVMCodecTests() extends FunSuite {
     assertEquals(parsedProtoJson, protoJson)
   }
 
+  case class Payload(id: Int, data: Blob)
+  object Payload {
+    val schema: Schema[Payload] = Schema.struct(
+      Schema.int.required[Payload]("id", _.id),
+      Schema.bytes.required[Payload]("data", _.data)
+    )(Payload.apply)
+  }
+
+  test("Aliasing codecs read blobs as slices of array inputs") {
+    val payload = Payload(1, Blob("hello"))
+    val bytes = ProtobufCodec.fromSchema(Payload.schema).writeBlob(payload)
+    // surrounding garbage exercises the offsets of the input
+    val input = Array[Byte](42) ++ bytes.toArray ++ Array[Byte](42)
+    val codec = ProtobufCodec.aliasing.fromSchema(Payload.schema)
+    val decoded = codec.unsafeReadBlob(Blob.slice(input, 1, bytes.size))
+    assertEquals(decoded, payload)
+    decoded.data match {
+      case slice: Blob.ArraySliceBlob => assert(slice.arr eq input)
+      case other => fail(s"Expected an array slice, got $other")
+    }
+  }
+
+  test("Aliasing codecs read blobs as slices of direct buffers") {
+    val payload = Payload(1, Blob("hello"))
+    val bytes = ProtobufCodec.fromSchema(Payload.schema).writeBlob(payload)
+    val buffer = java.nio.ByteBuffer.allocateDirect(bytes.size)
+    buffer.put(bytes.toArray).flip()
+    val codec = ProtobufCodec.aliasing.fromSchema(Payload.schema)
+    val decoded = codec.unsafeReadBlob(Blob.view(buffer))
+    assertEquals(decoded, payload)
+    assert(decoded.data.asByteBufferUnsafe.isDirect())
+    // the non-aliasing codec copies
+    val copied = ProtobufCodec
+      .fromSchema(Payload.schema)
+      .unsafeReadBlob(Blob.view(buffer))
+    assertEquals(copied, payload)
+    assert(!copied.data.asByteBufferUnsafe.isDirect())
+  }
+
+  test("Aliasing codecs enforce decode limits") {
+    val limits: smithy4s.Hint = smithy4s.DecodeLimits(maxBytes = Some(2))
+    val limited = Schema.struct(
+      Schema.int.required[Payload]("id", _.id),
+      Schema.bytes.addHints(limits).required[Payload]("data", _.data)
+    )(Payload.apply)
+    val bytes =
+      ProtobufCodec.fromSchema(limited).writeBlob(Payload(1, Blob("hello")))
+    val result = ProtobufCodec.aliasing.fromSchema(limited).readBlob(bytes)
+    assert(
+      result.left.exists(_.isInstanceOf[ProtobufReadError.ViolatedConstraint])
+    )
+  }
+
 }
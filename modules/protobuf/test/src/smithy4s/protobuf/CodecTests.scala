@@ -17,11 +17,14 @@
 package smithy4s.protobuf
 
 import munit._
+import scala.collection.compat.immutable.ArraySeq
 import scalapb.GeneratedMessage
 import smithy4s.Blob
+import smithy4s.DecodeLimits
 import smithy4s.example.protobuf
 import smithy4s.schema.Schema
 import smithy4s.ShapeId
+import smithy4s.UnboxedPrimitives
 
 class CodecTests() extends FunSuite {
 
@@ -188,6 +191,92 @@ class CodecTests() extends FunSuite {
     )
   }
 
+  test("Scalar indexedSeq is backed by a primitive array") {
+    val smithy = IntIndexedSeqWrapper(IndexedSeq(1, 2, 3))
+    checkEncode(smithy, protobuf.protobuf.IntListWrapper(List(1, 2, 3)))
+    checkRoundTrip(smithy)
+    val decoded = ProtobufCodec[IntIndexedSeqWrapper].unsafeReadBlob(
+      Blob(protobuf.protobuf.IntListWrapper(List(1, 2, 3)).toByteArray)
+    )
+    assert(decoded.ints.isInstanceOf[ArraySeq.ofInt])
+  }
+
+  test("Scalar indexedSeq (empty)") {
+    checkFull(
+      IntIndexedSeqWrapper(IndexedSeq.empty),
+      protobuf.protobuf.IntListWrapper(Nil)
+    )
+  }
+
+  test("Newtype indexedSeq is backed by a primitive array") {
+    val smithy =
+      MyIntIndexedSeqWrapper(IndexedSeq(1, 2, 3).map(protobuf.MyInt(_)))
+    checkEncode(smithy, protobuf.protobuf.IntListWrapper(List(1, 2, 3)))
+    checkRoundTrip(smithy)
+    val decoded = ProtobufCodec[MyIntIndexedSeqWrapper].unsafeReadBlob(
+      ProtobufCodec[MyIntIndexedSeqWrapper].writeBlob(smithy)
+    )
+    assert(decoded.ints.isInstanceOf[ArraySeq.ofInt])
+  }
+
+  test("Scalar indexedSeq without UnboxedPrimitives is not specialised") {
+    val codec = ProtobufCodec.fromSchema(
+      Schema
+        .struct(
+          Schema
+            .indexedSeq(Schema.int)
+            .required[IntIndexedSeqWrapper]("ints", _.ints)
+        )(IntIndexedSeqWrapper(_))
+    )
+    val decoded = codec.unsafeReadBlob(
+      Blob(protobuf.protobuf.IntListWrapper(List(1, 2, 3)).toByteArray)
+    )
+    assertEquals(decoded, IntIndexedSeqWrapper(IndexedSeq(1, 2, 3)))
+    assert(!decoded.ints.isInstanceOf[ArraySeq.ofInt])
+  }
+
+  test("Decode limits") {
+    checkDecodeLimits(unboxed = false)
+  }
+
+  test("Decode limits (unboxed)") {
+    checkDecodeLimits(unboxed = true)
+  }
+
+  private def checkDecodeLimits(unboxed: Boolean)(implicit
+      loc: Location
+  ): Unit = {
+    val limits: smithy4s.Hint = DecodeLimits(maxElements = Some(2))
+    val hints =
+      if (unboxed) List(limits, UnboxedPrimitives(): smithy4s.Hint)
+      else List(limits)
+    val codec = ProtobufCodec.fromSchema(
+      Schema
+        .struct(
+          Schema
+            .indexedSeq(Schema.int)
+            .addHints(hints: _*)
+            .required[IntIndexedSeqWrapper]("ints", _.ints)
+        )(IntIndexedSeqWrapper(_))
+    )
+    val withinLimits = codec.readBlob(
+      Blob(protobuf.protobuf.IntListWrapper(List(1, 2)).toByteArray)
+    )
+    assertEquals(withinLimits, Right(IntIndexedSeqWrapper(IndexedSeq(1, 2))))
+    assertEquals(
+      withinLimits.exists(_.ints.isInstanceOf[ArraySeq.ofInt]),
+      unboxed
+    )
+    val overLimits = codec.readBlob(
+      Blob(protobuf.protobuf.IntListWrapper(List(1, 2, 3)).toByteArray)
+    )
+    overLimits match {
+      case Left(e: ProtobufReadError.ViolatedConstraint) if e.hint == limits =>
+        ()
+      case other => fail(clue(other.toString))
+    }
+  }
+
   test("MessageWrapper") {
     checkFull(
       protobuf.MessageWrapper(protobuf.Integers(1, 1, 1, 1, 1)),
@@ -390,6 +479,135 @@ class CodecTests() extends FunSuite {
     )
   }
 
+  test("Deeply nested messages") {
+    // deep enough for the outer size headers to span several bytes
+    val smithy = (1 to 200).foldLeft(protobuf.Recursive()) { (inner, _) =>
+      protobuf.Recursive(Some(inner))
+    }
+    val proto = (1 to 200).foldLeft(protobuf.protobuf.Recursive()) {
+      (inner, _) => protobuf.protobuf.Recursive(Some(inner))
+    }
+    checkFull(smithy, proto)
+  }
+
+  test("Delimited messages are compatible with scalapb") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    val smithy = List(
+      protobuf.Integers(1, 2, 3, 4, 5),
+      protobuf.Integers(0, 0, 0, 0, 0),
+      protobuf.Integers(-1, -300, 70000, 1 << 20, Int.MaxValue)
+    )
+    val proto = List(
+      protobuf.protobuf.Integers(1, 2, 3, 4, 5),
+      protobuf.protobuf.Integers(0, 0, 0, 0, 0),
+      protobuf.protobuf.Integers(-1, -300, 70000, 1 << 20, Int.MaxValue)
+    )
+
+    val protoOut = new java.io.ByteArrayOutputStream()
+    proto.foreach(_.writeDelimitedTo(protoOut))
+    val smithyOut = new java.io.ByteArrayOutputStream()
+    smithy.foreach(codec.writeDelimitedTo(_, smithyOut, 16))
+    assertEquals(smithyOut.toByteArray.toVector, protoOut.toByteArray.toVector)
+    assertEquals(
+      smithy.flatMap(codec.writeDelimitedBlob(_).toArray).toVector,
+      protoOut.toByteArray.toVector
+    )
+
+    val protoIn = new java.io.ByteArrayInputStream(smithyOut.toByteArray)
+    val protoParsed = Iterator
+      .continually(protobuf.protobuf.Integers.parseDelimitedFrom(protoIn))
+      .takeWhile(_.isDefined)
+      .flatten
+      .toList
+    assertEquals(protoParsed, proto)
+
+    val smithyIn = new java.io.ByteArrayInputStream(protoOut.toByteArray)
+    val smithyParsed = Iterator
+      .continually(codec.unsafeReadDelimitedFrom(smithyIn))
+      .takeWhile(_.isDefined)
+      .flatten
+      .toList
+    assertEquals(smithyParsed, smithy)
+  }
+
+  test("Delimited messages are read from byte buffers in place") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    val messages = List(
+      protobuf.Integers(1, 2, 3, 4, 5),
+      protobuf.Integers(6, 7, 8, 9, 10)
+    )
+    val bytes = messages.flatMap(codec.writeDelimitedBlob(_).toArray).toArray
+    // leading garbage exercises the array offset of the buffer
+    val buffer =
+      java.nio.ByteBuffer.wrap(Array[Byte](42, 42) ++ bytes, 2, bytes.length)
+    assertEquals(codec.unsafeReadDelimitedFrom(buffer), Some(messages(0)))
+    assertEquals(
+      codec.unsafeReadDelimitedFrom(buffer.slice()),
+      Some(messages(1))
+    )
+    val direct = java.nio.ByteBuffer.allocateDirect(bytes.length)
+    direct.put(bytes).flip()
+    val read = List.fill(3)(codec.unsafeReadDelimitedFrom(direct))
+    assertEquals(read, messages.map(Some(_)) :+ None)
+  }
+
+  test("Truncated delimited messages fail") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    val bytes =
+      codec.writeDelimitedBlob(protobuf.Integers(1, 2, 3, 4, 5)).toArray
+    val truncated = bytes.take(bytes.length - 1)
+    intercept[ProtobufReadError](
+      codec.unsafeReadDelimitedFrom(new java.io.ByteArrayInputStream(truncated))
+    )
+    val buffer = java.nio.ByteBuffer.wrap(truncated)
+    intercept[ProtobufReadError](codec.unsafeReadDelimitedFrom(buffer))
+    assertEquals(buffer.position(), 0)
+  }
+
+  test("Delimited messages with a truncated length prefix fail") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    // a continuation bit on the last byte means the varint prefix goes on
+    val truncated = Array[Byte](42, 0x80.toByte, 0x80.toByte)
+    val buffer = java.nio.ByteBuffer.wrap(truncated, 1, 2)
+    intercept[ProtobufReadError](codec.unsafeReadDelimitedFrom(buffer))
+    assertEquals(buffer.position(), 1)
+    val malformed = Array.fill[Byte](6)(0x80.toByte)
+    val malformedBuffer = java.nio.ByteBuffer.wrap(malformed)
+    intercept[ProtobufReadError](codec.unsafeReadDelimitedFrom(malformedBuffer))
+    assertEquals(malformedBuffer.position(), 0)
+  }
+
+  test("Delimited messages larger than the maximum size fail") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    val bytes =
+      codec.writeDelimitedBlob(protobuf.Integers(1, 2, 3, 4, 5)).toArray
+    val size = bytes.length - 1
+    intercept[ProtobufReadError](
+      codec.unsafeReadDelimitedFrom(
+        new java.io.ByteArrayInputStream(bytes),
+        size - 1
+      )
+    )
+    val buffer = java.nio.ByteBuffer.wrap(bytes)
+    intercept[ProtobufReadError](
+      codec.unsafeReadDelimitedFrom(buffer, size - 1)
+    )
+    assertEquals(buffer.position(), 0)
+    assertEquals(
+      codec.unsafeReadDelimitedFrom(buffer, size),
+      Some(protobuf.Integers(1, 2, 3, 4, 5))
+    )
+  }
+
+  test("Delimited messages announcing huge sizes fail before allocating") {
+    val codec = ProtobufCodec[protobuf.Integers]
+    // a length prefix of 2^31 - 1 bytes, followed by nothing
+    val prefix = Array[Byte](-1, -1, -1, -1, 7)
+    intercept[ProtobufReadError](
+      codec.unsafeReadDelimitedFrom(new java.io.ByteArrayInputStream(prefix))
+    )
+  }
+
   def checkMutual[SmithyType: Schema, ProtoType <: GeneratedMessage](
       smithy: SmithyType,
       proto: ProtoType
@@ -433,4 +651,30 @@ class CodecTests() extends FunSuite {
     assertEquals(decoded, initial)
   }
 
+  case class IntIndexedSeqWrapper(ints: IndexedSeq[Int])
+  object IntIndexedSeqWrapper {
+    implicit val schema: Schema[IntIndexedSeqWrapper] =
+      Schema
+        .struct(
+          Schema
+            .indexedSeq(Schema.int)
+            .addHints(UnboxedPrimitives())
+            .required[IntIndexedSeqWrapper]("ints", _.ints)
+        )(IntIndexedSeqWrapper(_))
+        .withId(ShapeId("smithy4s.example.protobuf", "IntIndexedSeqWrapper"))
+  }
+
+  case class MyIntIndexedSeqWrapper(ints: IndexedSeq[protobuf.MyInt])
+  object MyIntIndexedSeqWrapper {
+    implicit val schema: Schema[MyIntIndexedSeqWrapper] =
+      Schema
+        .struct(
+          Schema
+            .indexedSeq(protobuf.MyInt.schema)
+            .addHints(UnboxedPrimitives())
+            .required[MyIntIndexedSeqWrapper]("ints", _.ints)
+        )(MyIntIndexedSeqWrapper(_))
+        .withId(ShapeId("smithy4s.example.protobuf", "MyIntIndexedSeqWrapper"))
+  }
+
 }
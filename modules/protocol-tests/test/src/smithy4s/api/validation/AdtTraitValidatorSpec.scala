@@ -16,7 +16,9 @@
 
 package smithy4s.api.validation
 
+import smithy4s.meta.AdtMemberTrait
 import smithy4s.meta.AdtTrait
+import smithy4s.meta.validation.AdtMemberTraitValidator
 import smithy4s.meta.validation.AdtTraitValidator
 import software.amazon.smithy.model.Model
 import software.amazon.smithy.model.shapes._
@@ -273,4 +275,71 @@ object AdtTraitValidatorSpec extends FunSuite {
     )
     expect(result == expected)
   }
+
+  test("AdtTrait - reports the single stray reference in a 100k shapes model") {
+    val unionCount = 10000
+    val membersPerUnion = 4
+    val shapes = (0 until unionCount).flatMap { u =>
+      val unionShapeId = ShapeId.fromParts("test", s"MyUnion$u")
+      val structs = (0 until membersPerUnion).map { m =>
+        StructureShape
+          .builder()
+          .id(s"test#Struct${u}_$m")
+          .addTrait(new AdtMemberTrait(unionShapeId))
+          .addMember(
+            MemberShape
+              .builder()
+              .id(s"test#Struct${u}_$m$$testing")
+              .target("smithy.api#String")
+              .build()
+          )
+          .build()
+      }
+      val union = UnionShape
+        .builder()
+        .id(unionShapeId)
+        .addTrait(new AdtTrait())
+      structs.zipWithIndex.foreach { case (struct, m) =>
+        union.addMember(
+          MemberShape
+            .builder()
+            .id(unionShapeId.withMember(s"member$m"))
+            .target(struct.getId)
+            .build()
+        )
+      }
+      structs :+ union.build()
+    }
+    val stray = StructureShape
+      .builder()
+      .id("test#Stray")
+      .addMember(
+        MemberShape
+          .builder()
+          .id("test#Stray$oops")
+          .target("test#Struct0_0")
+          .build()
+      )
+      .build()
+    val model = Model.builder().addShapes(shapes.asJava).addShape(stray).build()
+    expect(model.toSet().size() > 100000)
+
+    val adtResult = validator.validate(model).asScala.toList
+    val adtMemberResult =
+      new AdtMemberTraitValidator().validate(model).asScala.toList
+
+    val expected = List(
+      ValidationEvent
+        .builder()
+        .id("AdtValidator")
+        .shape(stray)
+        .severity(Severity.ERROR)
+        .message(
+          "ADT member test#Struct0_0 must not be referenced in any other shape but test#MyUnion0"
+        )
+        .build()
+    )
+    expect(adtResult == expected) &&
+    expect(adtMemberResult == expected)
+  }
 }
@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.validation.BatchedByTraitValidator
+import software.amazon.smithy.model.Model
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object BatchedByTraitValidatorSpec extends FunSuite {
+  private val validator = new BatchedByTraitValidator()
+
+  private def validate(
+      batchedBy: String,
+      batchInput: String,
+      batchOutput: String = "@required\nresults: GetItemOutputs"
+  ) = {
+    val modelString =
+      s"""|$$version: "2.0"
+          |
+          |namespace test
+          |
+          |use smithy4s.meta#batchedBy
+          |
+          |@readonly
+          |@batchedBy($batchedBy)
+          |operation GetItem {
+          |    input := {
+          |        @required
+          |        id: String
+          |    }
+          |    output := {
+          |        name: String
+          |    }
+          |}
+          |
+          |@readonly
+          |operation BatchGetItem {
+          |    input := {
+          |        $batchInput
+          |    }
+          |    output := {
+          |        $batchOutput
+          |    }
+          |}
+          |
+          |list GetItemInputs {
+          |    member: GetItemInput
+          |}
+          |
+          |@uniqueItems
+          |list UniqueGetItemInputs {
+          |    member: GetItemInput
+          |}
+          |
+          |list GetItemOutputs {
+          |    member: GetItemOutput
+          |}
+          |""".stripMargin
+    val model = Model
+      .assembler()
+      .disableValidation()
+      .discoverModels()
+      .addUnparsedModel("test.smithy", modelString)
+      .assemble()
+      .unwrap()
+    validator
+      .validate(model)
+      .asScala
+      .toList
+      .map(event => (event.getId(), event.getMessage()))
+  }
+
+  private val validBatchedBy =
+    """operation: BatchGetItem, inputMember: "items", outputMember: "results", maxBatchSize: 25, maxDelayMillis: 5"""
+
+  test("return no error when the members are lists of inputs and outputs") {
+    val result = validate(
+      validBatchedBy,
+      """|@required
+         |items: GetItemInputs
+         |consistentRead: Boolean""".stripMargin
+    )
+    expect(result == List.empty)
+  }
+
+  test("fail when the members do not match the batch operation") {
+    val result = validate(
+      """operation: BatchGetItem, inputMember: "keys", outputMember: "items", maxBatchSize: 25, maxDelayMillis: 5""",
+      "items: GetItemInputs"
+    )
+    val expected = List(
+      "BatchedByTrait" -> "test#BatchGetItemInput has no input member named keys",
+      "BatchedByTrait" -> "test#BatchGetItemOutput has no output member named items"
+    )
+    expect(result == expected)
+  }
+
+  test("fail when a member does not target a list of inputs") {
+    val result = validate(validBatchedBy, "items: GetItemOutputs")
+    val expected = List(
+      "BatchedByTrait" -> "test#BatchGetItemInput$items must target a list of test#GetItemInput"
+    )
+    expect(result == expected)
+  }
+
+  test("fail when other members of the batch input are required") {
+    val result = validate(
+      validBatchedBy,
+      """|items: GetItemInputs
+         |@required
+         |table: String""".stripMargin
+    )
+    val expected = List(
+      "BatchedByTrait" -> "test#BatchGetItemInput$table must be optional or have a default value, as batch calls only populate items"
+    )
+    expect(result == expected)
+  }
+
+  test("fail when a member targets a list with unique items") {
+    val result = validate(validBatchedBy, "items: UniqueGetItemInputs")
+    val expected = List(
+      "BatchedByTrait" -> "test#BatchGetItemInput$items must target an ordered list, without @uniqueItems"
+    )
+    expect(result == expected)
+  }
+
+  test("fail when the batch output has other members") {
+    val result = validate(
+      validBatchedBy,
+      "items: GetItemInputs",
+      """|@required
+         |results: GetItemOutputs
+         |unprocessedKeys: GetItemInputs""".stripMargin
+    )
+    val expected = List(
+      "BatchedByTrait" -> "test#BatchGetItemOutput$unprocessedKeys is not supported, as batch outputs are matched to inputs by their position in results"
+    )
+    expect(result == expected)
+  }
+
+  test("fail when the limits are out of bounds") {
+    val result = validate(
+      """operation: BatchGetItem, inputMember: "items", outputMember: "results", maxBatchSize: 0, maxDelayMillis: -1""",
+      "items: GetItemInputs"
+    )
+    val expected = List(
+      "BatchedByTrait" -> "maxBatchSize must be positive",
+      "BatchedByTrait" -> "maxDelayMillis must not be negative"
+    )
+    expect(result == expected)
+  }
+
+}
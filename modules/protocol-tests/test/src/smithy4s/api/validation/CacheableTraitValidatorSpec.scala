@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.CacheableTrait
+import smithy4s.meta.validation.CacheableTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.traits.ReadonlyTrait
+import software.amazon.smithy.model.traits.RequiredTrait
+import software.amazon.smithy.model.traits.StreamingTrait
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object CacheableTraitValidatorSpec extends FunSuite {
+  private val validator = new CacheableTraitValidator()
+  private val smithy4sMetaImport = classOf[CacheableTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private def validate(shapes: Shape*): List[ValidationEvent] = {
+    val model =
+      Model
+        .assembler()
+        .addShapes(shapes: _*)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  private def error(shape: Shape, message: String): ValidationEvent =
+    ValidationEvent
+      .builder()
+      .id("CacheableTrait")
+      .shape(shape)
+      .severity(Severity.ERROR)
+      .message(message)
+      .build()
+
+  private def cacheable(ttlSeconds: Int, maxEntries: Int) =
+    CacheableTrait
+      .builder()
+      .ttlSeconds(ttlSeconds)
+      .maxEntries(maxEntries)
+      .build()
+
+  test("return no error when used on a readonly operation") {
+    val op = OperationShape
+      .builder()
+      .id("test#GetMenu")
+      .addTrait(new ReadonlyTrait())
+      .addTrait(cacheable(60, 1000))
+      .build()
+    expect(validate(op) == List.empty)
+  }
+
+  test("fail when used on a non-readonly operation") {
+    val op = OperationShape
+      .builder()
+      .id("test#AddPizza")
+      .addTrait(cacheable(60, 1000))
+      .build()
+    val expected = List(
+      error(op, "@cacheable can only be used on @readonly operations")
+    )
+    expect(validate(op) == expected)
+  }
+
+  test("fail when the ttl or the size are not positive") {
+    val op = OperationShape
+      .builder()
+      .id("test#GetMenu")
+      .addTrait(new ReadonlyTrait())
+      .addTrait(cacheable(0, -1))
+      .build()
+    val expected = List(
+      error(op, "ttlSeconds must be positive"),
+      error(op, "maxEntries must be positive")
+    )
+    expect(validate(op) == expected)
+  }
+
+  test("fail when the output has a streaming member") {
+    val stream = BlobShape
+      .builder()
+      .id("test#Stream")
+      .addTrait(new StreamingTrait())
+      .build()
+    val output = StructureShape
+      .builder()
+      .id("test#DownloadOutput")
+      .addMember(
+        MemberShape
+          .builder()
+          .id("test#DownloadOutput$data")
+          .target(stream.getId())
+          .addTrait(new RequiredTrait())
+          .build()
+      )
+      .build()
+    val op = OperationShape
+      .builder()
+      .id("test#Download")
+      .output(output)
+      .addTrait(new ReadonlyTrait())
+      .addTrait(cacheable(60, 10))
+      .build()
+    val expected = List(
+      error(
+        op,
+        "@cacheable cannot be used on operations with streaming members"
+      )
+    )
+    expect(validate(stream, output, op) == expected)
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.DecodeLimitsTrait
+import smithy4s.meta.validation.DecodeLimitsTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object DecodeLimitsTraitValidatorSpec extends FunSuite {
+  private val validator = new DecodeLimitsTraitValidator()
+  private val smithy4sMetaImport = classOf[DecodeLimitsTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private def validate(shapes: Shape*): List[ValidationEvent] = {
+    val model =
+      Model
+        .assembler()
+        .addShapes(shapes: _*)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  private def error(shape: Shape, message: String): ValidationEvent =
+    ValidationEvent
+      .builder()
+      .id("DecodeLimitsTrait")
+      .shape(shape)
+      .severity(Severity.ERROR)
+      .message(message)
+      .build()
+
+  test("return no error when maxElements is used on a list") {
+    val list = ListShape
+      .builder()
+      .id("test#tags")
+      .member(ShapeId.from("smithy.api#String"))
+      .addTrait(DecodeLimitsTrait.builder().maxElements(16).build())
+      .build()
+    expect(validate(list) == List.empty)
+  }
+
+  test("return no error when maxBytes is used on a member targeting a blob") {
+    val struct = StructureShape
+      .builder()
+      .id("test#struct")
+      .addMember(
+        MemberShape
+          .builder()
+          .id("test#struct$avatar")
+          .target("smithy.api#Blob")
+          .addTrait(DecodeLimitsTrait.builder().maxBytes(65536).build())
+          .build()
+      )
+      .build()
+    expect(validate(struct) == List.empty)
+  }
+
+  test("fail when no limit is declared") {
+    val string = StringShape
+      .builder()
+      .id("test#name")
+      .addTrait(DecodeLimitsTrait.builder().build())
+      .build()
+    val expected = List(
+      error(
+        string,
+        "@decodeLimits must declare at least one of maxElements or maxBytes"
+      )
+    )
+    expect(validate(string) == expected)
+  }
+
+  test("fail when a limit does not apply to the target") {
+    val member = MemberShape
+      .builder()
+      .id("test#struct$name")
+      .target("smithy.api#String")
+      .addTrait(DecodeLimitsTrait.builder().maxElements(16).build())
+      .build()
+    val struct = StructureShape
+      .builder()
+      .id("test#struct")
+      .addMember(member)
+      .build()
+    val expected = List(
+      error(
+        member,
+        "maxElements only applies to lists and maps, but smithy.api#String is a string"
+      )
+    )
+    expect(validate(struct) == expected)
+  }
+
+  test("fail when a limit is negative") {
+    val blob = BlobShape
+      .builder()
+      .id("test#payload")
+      .addTrait(DecodeLimitsTrait.builder().maxBytes(-1).build())
+      .build()
+    expect(validate(blob) == List(error(blob, "maxBytes must not be negative")))
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.InternedTrait
+import smithy4s.meta.validation.InternedTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object InternedTraitValidatorSpec extends FunSuite {
+  private val validator = new InternedTraitValidator()
+  private val smithy4sMetaImport = classOf[InternedTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private def validate(shapes: Shape*): List[ValidationEvent] = {
+    val model =
+      Model
+        .assembler()
+        .addShapes(shapes: _*)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  test("return no error when used on a string shape") {
+    val string = StringShape
+      .builder()
+      .id("test#region")
+      .addTrait(new InternedTrait())
+      .build()
+    expect(validate(string) == List.empty)
+  }
+
+  test("return no error when used on a member targeting a string shape") {
+    val struct = StructureShape
+      .builder()
+      .id("test#struct")
+      .addMember(
+        MemberShape
+          .builder()
+          .id("test#struct$region")
+          .target("smithy.api#String")
+          .addTrait(new InternedTrait())
+          .build()
+      )
+      .build()
+    expect(validate(struct) == List.empty)
+  }
+
+  test("fail when used on a member targeting an integer shape") {
+    val member = MemberShape
+      .builder()
+      .id("test#struct$count")
+      .target("smithy.api#Integer")
+      .addTrait(new InternedTrait())
+      .build()
+    val struct = StructureShape
+      .builder()
+      .id("test#struct")
+      .addMember(member)
+      .build()
+    val expected = List(
+      ValidationEvent
+        .builder()
+        .id("InternedTrait")
+        .shape(member)
+        .severity(Severity.ERROR)
+        .message(
+          "@interned can only be used on members targeting string shapes, but test#struct$count targets smithy.api#Integer"
+        )
+        .build()
+    )
+    expect(validate(struct) == expected)
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.LazyMemberTrait
+import smithy4s.meta.validation.LazyMemberTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.node.Node
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.traits.DefaultTrait
+import software.amazon.smithy.model.traits.HttpHeaderTrait
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object LazyMemberTraitValidatorSpec extends FunSuite {
+  private val validator = new LazyMemberTraitValidator()
+  private val smithy4sMetaImport = classOf[LazyMemberTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private val list = ListShape
+    .builder()
+    .id("test#list")
+    .member(ShapeId.from("smithy.api#String"))
+    .build()
+
+  private def validate(member: MemberShape): List[ValidationEvent] = {
+    val struct =
+      StructureShape
+        .builder()
+        .id("test#struct")
+        .addMember(member)
+        .build()
+    val model =
+      Model
+        .assembler()
+        .addShapes(list, struct)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  private def member() = MemberShape
+    .builder()
+    .id("test#struct$testing")
+    .target(list.getId())
+    .addTrait(new LazyMemberTrait())
+
+  test("return no error when used on a member targeting a list") {
+    val result = validate(member().build())
+    expect(result == List.empty)
+  }
+
+  test("fail when used on a member with a default value") {
+    val theMember = member().addTrait(new DefaultTrait(Node.arrayNode())).build()
+    val result = validate(theMember)
+    val expected = List(
+      ValidationEvent
+        .builder()
+        .id("LazyMemberTrait")
+        .shape(theMember)
+        .severity(Severity.ERROR)
+        .message("@lazyMember cannot be used on members with a default value")
+        .build()
+    )
+    expect(result == expected)
+  }
+
+  test("warn when used on a member bound to an http header") {
+    val theMember = member().addTrait(new HttpHeaderTrait("X-Testing")).build()
+    val result = validate(theMember)
+    val expected = List(
+      ValidationEvent
+        .builder()
+        .id("LazyMemberTrait")
+        .shape(theMember)
+        .severity(Severity.WARNING)
+        .message(
+          "@lazyMember has no effect on members bound to HTTP headers or query parameters"
+        )
+        .build()
+    )
+    expect(result == expected)
+  }
+
+}
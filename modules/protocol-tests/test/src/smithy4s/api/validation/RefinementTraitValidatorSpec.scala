@@ -366,6 +366,68 @@ object RefinementTraitValidatorSpec extends weaver.FunSuite {
     )
   }
 
+  test(
+    "validation events are ordered by shape id, errors before warnings"
+  ) {
+    val model = loadModel(
+      """|$version: "2"
+         |
+         |namespace test
+         |
+         |use smithy4s.meta#refinement
+         |
+         |@trait()
+         |@refinement(targetType: "test.one", providerImport: "test.one.prov")
+         |structure trtOne {}
+         |
+         |@trtOne
+         |@default(5)
+         |integer C
+         |
+         |@trtOne
+         |@range(min: 1)
+         |integer B
+         |
+         |@trtOne
+         |@length(min: 1)
+         |string A
+         |""".stripMargin
+    )
+
+    val result = validator.validate(model).asScala.toList
+    val refinementError =
+      "refinements can only be used on simpleShapes, list, set, and map. Simple shapes must not be constrained by enum, length, range, or pattern traits"
+    val expected = List(
+      ValidationEvent
+        .builder()
+        .sourceLocation(new SourceLocation("test.smithy", 21, 1))
+        .id("RefinementTrait")
+        .shapeId(ShapeId.fromParts("test", "A"))
+        .severity(Severity.ERROR)
+        .message(refinementError)
+        .build(),
+      ValidationEvent
+        .builder()
+        .sourceLocation(new SourceLocation("test.smithy", 17, 1))
+        .id("RefinementTrait")
+        .shapeId(ShapeId.fromParts("test", "B"))
+        .severity(Severity.ERROR)
+        .message(refinementError)
+        .build(),
+      ValidationEvent
+        .builder()
+        .sourceLocation(new SourceLocation("test.smithy", 13, 1))
+        .id("RefinementTrait")
+        .shapeId(ShapeId.fromParts("test", "C"))
+        .severity(Severity.WARNING)
+        .message(
+          "test#trtOne is a refinement trait. It is applied to test#C along with a @default trait. You should avoid mixing the two."
+        )
+        .build()
+    )
+    expect.same(result, expected)
+  }
+
   private def loadModel(modelString: String): Model = {
     Model
       .assembler()
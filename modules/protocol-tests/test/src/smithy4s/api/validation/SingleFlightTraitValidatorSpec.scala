@@ -0,0 +1,114 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.SingleFlightTrait
+import smithy4s.meta.validation.SingleFlightTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.traits.ReadonlyTrait
+import software.amazon.smithy.model.traits.RequiredTrait
+import software.amazon.smithy.model.traits.StreamingTrait
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object SingleFlightTraitValidatorSpec extends FunSuite {
+  private val validator = new SingleFlightTraitValidator()
+  private val smithy4sMetaImport = classOf[SingleFlightTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private def validate(shapes: Shape*): List[ValidationEvent] = {
+    val model =
+      Model
+        .assembler()
+        .addShapes(shapes: _*)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  private def error(shape: Shape, message: String): ValidationEvent =
+    ValidationEvent
+      .builder()
+      .id("SingleFlightTrait")
+      .shape(shape)
+      .severity(Severity.ERROR)
+      .message(message)
+      .build()
+
+  test("return no error when used on a readonly operation") {
+    val op = OperationShape
+      .builder()
+      .id("test#GetGreeting")
+      .addTrait(new ReadonlyTrait())
+      .addTrait(new SingleFlightTrait())
+      .build()
+    expect(validate(op) == List.empty)
+  }
+
+  test("fail when used on a non-readonly operation") {
+    val op = OperationShape
+      .builder()
+      .id("test#Greet")
+      .addTrait(new SingleFlightTrait())
+      .build()
+    val expected = List(
+      error(op, "@singleFlight can only be used on @readonly operations")
+    )
+    expect(validate(op) == expected)
+  }
+
+  test("fail when the output has a streaming member") {
+    val stream = BlobShape
+      .builder()
+      .id("test#Stream")
+      .addTrait(new StreamingTrait())
+      .build()
+    val output = StructureShape
+      .builder()
+      .id("test#DownloadOutput")
+      .addMember(
+        MemberShape
+          .builder()
+          .id("test#DownloadOutput$data")
+          .target(stream.getId())
+          .addTrait(new RequiredTrait())
+          .build()
+      )
+      .build()
+    val op = OperationShape
+      .builder()
+      .id("test#Download")
+      .output(output)
+      .addTrait(new ReadonlyTrait())
+      .addTrait(new SingleFlightTrait())
+      .build()
+    val expected = List(
+      error(
+        op,
+        "@singleFlight cannot be used on operations with streaming members"
+      )
+    )
+    expect(validate(stream, output, op) == expected)
+  }
+
+}
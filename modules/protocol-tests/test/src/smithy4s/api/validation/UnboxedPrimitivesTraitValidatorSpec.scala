@@ -0,0 +1,96 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.api.validation
+
+import smithy4s.meta.UnboxedPrimitivesTrait
+import smithy4s.meta.validation.UnboxedPrimitivesTraitValidator
+import software.amazon.smithy.model.Model
+import software.amazon.smithy.model.shapes._
+import software.amazon.smithy.model.traits.SparseTrait
+import software.amazon.smithy.model.validation.Severity
+import software.amazon.smithy.model.validation.ValidationEvent
+import weaver._
+
+import scala.jdk.CollectionConverters._
+
+object UnboxedPrimitivesTraitValidatorSpec extends FunSuite {
+  private val validator = new UnboxedPrimitivesTraitValidator()
+  private val smithy4sMetaImport = classOf[UnboxedPrimitivesTrait]
+    .getClassLoader()
+    .getResource("META-INF/smithy/smithy4s.meta.smithy")
+
+  private def listOf(target: String, sparse: Boolean = false): ListShape = {
+    val builder = ListShape
+      .builder()
+      .id("test#list")
+      .member(ShapeId.from(target))
+      .addTrait(new UnboxedPrimitivesTrait())
+    if (sparse) builder.addTrait(new SparseTrait())
+    builder.build()
+  }
+
+  private def validate(shape: Shape): List[ValidationEvent] = {
+    val model =
+      Model
+        .assembler()
+        .addShape(shape)
+        .addImport(smithy4sMetaImport)
+        .assemble()
+        .unwrap()
+    validator.validate(model).asScala.toList
+  }
+
+  private def error(s: Shape, message: String) = ValidationEvent
+    .builder()
+    .id("UnboxedPrimitivesTrait")
+    .shape(s)
+    .severity(Severity.ERROR)
+    .message(message)
+    .build()
+
+  test("return no error when the member targets a primitive number") {
+    val result = validate(listOf("smithy.api#Double"))
+    expect(result == List.empty)
+  }
+
+  test("return no error when the member targets a boolean") {
+    val result = validate(listOf("smithy.api#Boolean"))
+    expect(result == List.empty)
+  }
+
+  test("fail when the member targets a string") {
+    val list = listOf("smithy.api#String")
+    val result = validate(list)
+    val expected = List(
+      error(
+        list,
+        "@unboxedPrimitives can only be used on lists whose member targets an integer, long, float, double, short, byte or boolean shape, but test#list targets smithy.api#String"
+      )
+    )
+    expect(result == expected)
+  }
+
+  test("fail when the list is sparse") {
+    val list = listOf("smithy.api#Integer", sparse = true)
+    val result = validate(list)
+    val expected = List(
+      error(list, "@unboxedPrimitives cannot be used on sparse lists")
+    )
+    expect(result == expected)
+  }
+
+}
@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta;
+
+import software.amazon.smithy.model.SourceException;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.AbstractTrait;
+import software.amazon.smithy.model.traits.AbstractTraitBuilder;
+import software.amazon.smithy.model.traits.TraitService;
+import software.amazon.smithy.utils.SmithyBuilder;
+import software.amazon.smithy.utils.ToSmithyBuilder;
+
+public final class BatchedByTrait extends AbstractTrait implements ToSmithyBuilder<BatchedByTrait> {
+
+	public static final ShapeId ID = ShapeId.from("smithy4s.meta#batchedBy");
+
+	private final ShapeId operation;
+	private final String inputMember;
+	private final String outputMember;
+	private final Integer maxBatchSize;
+	private final Integer maxDelayMillis;
+
+	private BatchedByTrait(BatchedByTrait.Builder builder) {
+		super(ID, builder.getSourceLocation());
+		this.operation = builder.operation;
+		this.inputMember = builder.inputMember;
+		this.outputMember = builder.outputMember;
+		this.maxBatchSize = builder.maxBatchSize;
+		this.maxDelayMillis = builder.maxDelayMillis;
+
+		if (operation == null) {
+			throw new SourceException("An operation must be provided.", getSourceLocation());
+		}
+
+		if (inputMember == null) {
+			throw new SourceException("An inputMember must be provided.", getSourceLocation());
+		}
+
+		if (outputMember == null) {
+			throw new SourceException("An outputMember must be provided.", getSourceLocation());
+		}
+
+		if (maxBatchSize == null) {
+			throw new SourceException("A maxBatchSize must be provided.", getSourceLocation());
+		}
+
+		if (maxDelayMillis == null) {
+			throw new SourceException("A maxDelayMillis must be provided.", getSourceLocation());
+		}
+	}
+
+	public ShapeId getOperation() {
+		return this.operation;
+	}
+
+	public String getInputMember() {
+		return this.inputMember;
+	}
+
+	public String getOutputMember() {
+		return this.outputMember;
+	}
+
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	public int getMaxDelayMillis() {
+		return this.maxDelayMillis;
+	}
+
+	@Override
+	protected Node createNode() {
+		ObjectNode.Builder builder = Node.objectNodeBuilder();
+		builder.withMember("operation", Node.from(getOperation().toString()));
+		builder.withMember("inputMember", Node.from(getInputMember()));
+		builder.withMember("outputMember", Node.from(getOutputMember()));
+		builder.withMember("maxBatchSize", Node.from(getMaxBatchSize()));
+		builder.withMember("maxDelayMillis", Node.from(getMaxDelayMillis()));
+		return builder.build();
+	}
+
+	@Override
+	public SmithyBuilder<BatchedByTrait> toBuilder() {
+		return builder().operation(operation).inputMember(inputMember).outputMember(outputMember)
+				.maxBatchSize(maxBatchSize).maxDelayMillis(maxDelayMillis).sourceLocation(getSourceLocation());
+	}
+
+	/**
+	 * @return Returns a new BatchedByTrait builder.
+	 */
+	public static BatchedByTrait.Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder extends AbstractTraitBuilder<BatchedByTrait, BatchedByTrait.Builder> {
+
+		private ShapeId operation;
+		private String inputMember;
+		private String outputMember;
+		private Integer maxBatchSize;
+		private Integer maxDelayMillis;
+
+		public BatchedByTrait.Builder operation(ShapeId operation) {
+			this.operation = operation;
+			return this;
+		}
+
+		public BatchedByTrait.Builder inputMember(String inputMember) {
+			this.inputMember = inputMember;
+			return this;
+		}
+
+		public BatchedByTrait.Builder outputMember(String outputMember) {
+			this.outputMember = outputMember;
+			return this;
+		}
+
+		public BatchedByTrait.Builder maxBatchSize(Integer maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		public BatchedByTrait.Builder maxDelayMillis(Integer maxDelayMillis) {
+			this.maxDelayMillis = maxDelayMillis;
+			return this;
+		}
+
+		@Override
+		public BatchedByTrait build() {
+			return new BatchedByTrait(this);
+		}
+	}
+
+	public static final class Provider implements TraitService {
+
+		@Override
+		public ShapeId getShapeId() {
+			return ID;
+		}
+
+		@Override
+		public BatchedByTrait createTrait(ShapeId target, Node value) {
+			ObjectNode objectNode = value.expectObjectNode();
+			ShapeId operation = objectNode.getMember("operation")
+					.map(node -> ShapeId.fromOptionalNamespace(target.getNamespace(), node.expectStringNode().getValue()))
+					.orElse(null);
+			String inputMember = objectNode.getMember("inputMember")
+					.map(node -> node.expectStringNode().getValue()).orElse(null);
+			String outputMember = objectNode.getMember("outputMember")
+					.map(node -> node.expectStringNode().getValue()).orElse(null);
+			Integer maxBatchSize = objectNode.getMember("maxBatchSize")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			Integer maxDelayMillis = objectNode.getMember("maxDelayMillis")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			return builder().sourceLocation(value).operation(operation).inputMember(inputMember)
+					.outputMember(outputMember).maxBatchSize(maxBatchSize).maxDelayMillis(maxDelayMillis).build();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta;
+
+import software.amazon.smithy.model.SourceException;
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.AbstractTrait;
+import software.amazon.smithy.model.traits.AbstractTraitBuilder;
+import software.amazon.smithy.model.traits.TraitService;
+import software.amazon.smithy.utils.SmithyBuilder;
+import software.amazon.smithy.utils.ToSmithyBuilder;
+
+public final class CacheableTrait extends AbstractTrait implements ToSmithyBuilder<CacheableTrait> {
+
+	public static final ShapeId ID = ShapeId.from("smithy4s.meta#cacheable");
+
+	private final Integer ttlSeconds;
+	private final Integer maxEntries;
+
+	private CacheableTrait(CacheableTrait.Builder builder) {
+		super(ID, builder.getSourceLocation());
+		this.ttlSeconds = builder.ttlSeconds;
+		this.maxEntries = builder.maxEntries;
+
+		if (ttlSeconds == null) {
+			throw new SourceException("A ttlSeconds must be provided.", getSourceLocation());
+		}
+
+		if (maxEntries == null) {
+			throw new SourceException("A maxEntries must be provided.", getSourceLocation());
+		}
+	}
+
+	public int getTtlSeconds() {
+		return this.ttlSeconds;
+	}
+
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	@Override
+	protected Node createNode() {
+		ObjectNode.Builder builder = Node.objectNodeBuilder();
+		builder.withMember("ttlSeconds", Node.from(getTtlSeconds()));
+		builder.withMember("maxEntries", Node.from(getMaxEntries()));
+		return builder.build();
+	}
+
+	@Override
+	public SmithyBuilder<CacheableTrait> toBuilder() {
+		return builder().ttlSeconds(ttlSeconds).maxEntries(maxEntries).sourceLocation(getSourceLocation());
+	}
+
+	/**
+	 * @return Returns a new CacheableTrait builder.
+	 */
+	public static CacheableTrait.Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder extends AbstractTraitBuilder<CacheableTrait, CacheableTrait.Builder> {
+
+		private Integer ttlSeconds;
+		private Integer maxEntries;
+
+		public CacheableTrait.Builder ttlSeconds(Integer ttlSeconds) {
+			this.ttlSeconds = ttlSeconds;
+			return this;
+		}
+
+		public CacheableTrait.Builder maxEntries(Integer maxEntries) {
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		@Override
+		public CacheableTrait build() {
+			return new CacheableTrait(this);
+		}
+	}
+
+	public static final class Provider implements TraitService {
+
+		@Override
+		public ShapeId getShapeId() {
+			return ID;
+		}
+
+		@Override
+		public CacheableTrait createTrait(ShapeId target, Node value) {
+			ObjectNode objectNode = value.expectObjectNode();
+			Integer ttlSeconds = objectNode.getMember("ttlSeconds")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			Integer maxEntries = objectNode.getMember("maxEntries")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			return builder().sourceLocation(value).ttlSeconds(ttlSeconds).maxEntries(maxEntries).build();
+		}
+	}
+}
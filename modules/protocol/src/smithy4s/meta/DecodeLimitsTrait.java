@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta;
+
+import software.amazon.smithy.model.node.Node;
+import software.amazon.smithy.model.node.ObjectNode;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.AbstractTrait;
+import software.amazon.smithy.model.traits.AbstractTraitBuilder;
+import software.amazon.smithy.model.traits.TraitService;
+import software.amazon.smithy.utils.SmithyBuilder;
+import software.amazon.smithy.utils.ToSmithyBuilder;
+import java.util.Optional;
+
+public final class DecodeLimitsTrait extends AbstractTrait implements ToSmithyBuilder<DecodeLimitsTrait> {
+
+	public static final ShapeId ID = ShapeId.from("smithy4s.meta#decodeLimits");
+
+	private final Integer maxElements;
+	private final Integer maxBytes;
+
+	private DecodeLimitsTrait(DecodeLimitsTrait.Builder builder) {
+		super(ID, builder.getSourceLocation());
+		this.maxElements = builder.maxElements;
+		this.maxBytes = builder.maxBytes;
+	}
+
+	public Optional<Integer> getMaxElements() {
+		return Optional.ofNullable(this.maxElements);
+	}
+
+	public Optional<Integer> getMaxBytes() {
+		return Optional.ofNullable(this.maxBytes);
+	}
+
+	@Override
+	protected Node createNode() {
+		ObjectNode.Builder builder = Node.objectNodeBuilder();
+		getMaxElements().ifPresent(value -> builder.withMember("maxElements", Node.from(value)));
+		getMaxBytes().ifPresent(value -> builder.withMember("maxBytes", Node.from(value)));
+		return builder.build();
+	}
+
+	@Override
+	public SmithyBuilder<DecodeLimitsTrait> toBuilder() {
+		return builder().maxElements(maxElements).maxBytes(maxBytes).sourceLocation(getSourceLocation());
+	}
+
+	/**
+	 * @return Returns a new DecodeLimitsTrait builder.
+	 */
+	public static DecodeLimitsTrait.Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder extends AbstractTraitBuilder<DecodeLimitsTrait, DecodeLimitsTrait.Builder> {
+
+		private Integer maxElements;
+		private Integer maxBytes;
+
+		public DecodeLimitsTrait.Builder maxElements(Integer maxElements) {
+			this.maxElements = maxElements;
+			return this;
+		}
+
+		public DecodeLimitsTrait.Builder maxBytes(Integer maxBytes) {
+			this.maxBytes = maxBytes;
+			return this;
+		}
+
+		@Override
+		public DecodeLimitsTrait build() {
+			return new DecodeLimitsTrait(this);
+		}
+	}
+
+	public static final class Provider implements TraitService {
+
+		@Override
+		public ShapeId getShapeId() {
+			return ID;
+		}
+
+		@Override
+		public DecodeLimitsTrait createTrait(ShapeId target, Node value) {
+			ObjectNode objectNode = value.expectObjectNode();
+			Integer maxElements = objectNode.getMember("maxElements")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			Integer maxBytes = objectNode.getMember("maxBytes")
+					.map(node -> node.expectNumberNode().getValue().intValue()).orElse(null);
+			return builder().sourceLocation(value).maxElements(maxElements).maxBytes(maxBytes).build();
+		}
+	}
+}
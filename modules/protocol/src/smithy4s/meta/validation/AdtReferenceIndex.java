@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.knowledge.KnowledgeIndex;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+
+import java.util.*;
+
+/**
+ * Reverse index from a shape to the member shapes that target it.
+ *
+ * The index is built in a single pass over the members of the model and is
+ * cached on the model itself, so that it is shared between the
+ * `AdtTraitValidator` and the `AdtMemberTraitValidator`.
+ */
+final class AdtReferenceIndex implements KnowledgeIndex {
+
+	private final Map<ShapeId, List<MemberShape>> referencingMembers = new HashMap<>();
+
+	AdtReferenceIndex(Model model) {
+		model.getMemberShapes().forEach(memberShape -> referencingMembers
+				.computeIfAbsent(memberShape.getTarget(), id -> new ArrayList<>()).add(memberShape));
+	}
+
+	public static AdtReferenceIndex of(Model model) {
+		return model.getKnowledge(AdtReferenceIndex.class, AdtReferenceIndex::new);
+	}
+
+	/**
+	 * @return the member shapes targeting the given shape, in the iteration
+	 *         order of the model's member shapes.
+	 */
+	public List<MemberShape> getReferencingMembers(ShapeId target) {
+		return referencingMembers.getOrDefault(target, Collections.emptyList());
+	}
+}
@@ -49,15 +49,10 @@ final class AdtValidatorCommon {
 		}
 	}
 
-	private static List<Reference> getReferences(Model model, Shape adtMemberShape, Shape adtParent) {
-		return model.getMemberShapes().stream().flatMap(memberShape -> {
-			boolean doesMemberTargetAdtShape = memberShape.getTarget().equals(adtMemberShape.getId());
+	private static List<Reference> getReferences(AdtReferenceIndex index, Shape adtMemberShape, Shape adtParent) {
+		return index.getReferencingMembers(adtMemberShape.getId()).stream().map(memberShape -> {
 			boolean isMemberShapeInDesiredTarget = memberShape.getContainer().equals(adtParent.toShapeId());
-			if (doesMemberTargetAdtShape) {
-				return Stream.of(new Reference(isMemberShapeInDesiredTarget, memberShape.getContainer()));
-			} else {
-				return Stream.empty();
-			}
+			return new Reference(isMemberShapeInDesiredTarget, memberShape.getContainer());
 		}).collect(Collectors.toList());
 	}
 
@@ -68,8 +63,9 @@ final class AdtValidatorCommon {
 
 	public static Stream<ValidationEvent> getReferenceEvents(Model model, Collection<Shape> adtMemberShapes,
 			Shape adtParent) {
+		AdtReferenceIndex index = AdtReferenceIndex.of(model);
 		return adtMemberShapes.stream().flatMap(adtMemberShape -> {
-			List<Reference> references = getReferences(model, adtMemberShape, adtParent);
+			List<Reference> references = getReferences(index, adtMemberShape, adtParent);
 			List<ShapeId> illegalReferencers = references.stream().filter(Reference::getIsInvalid)
 					.map(Reference::getReferencer).collect(Collectors.toList());
 			List<Reference> legalReferences = references.stream().filter(Reference::getIsValid)
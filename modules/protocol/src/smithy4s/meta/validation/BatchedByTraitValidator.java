@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.BatchedByTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.ListShape;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.DefaultTrait;
+import software.amazon.smithy.model.traits.RequiredTrait;
+import software.amazon.smithy.model.traits.UniqueItemsTrait;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Validates that `@batchedBy` links an operation to a distinct batch
+ * operation whose `inputMember` is a list of the inputs of the annotated
+ * operation, and whose `outputMember` is a list of its outputs. The other
+ * members of the batch input cannot be required without a default value,
+ * as batching clients cannot populate them.
+ *
+ * Batching clients match outputs to inputs by position, so both lists must
+ * be ordered (not `@uniqueItems`, which are rendered as sets), and the batch
+ * output cannot have other members: outputs that are keyed by item, or that
+ * report unprocessed items (like DynamoDB's `UnprocessedKeys`), cannot be
+ * dispatched by position.
+ */
+public final class BatchedByTraitValidator extends AbstractValidator {
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(BatchedByTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asOperationShape()))
+				.flatMap(operation -> validateOperation(model, operation))
+				.collect(Collectors.toList());
+	}
+
+	private Stream<ValidationEvent> validateOperation(Model model, OperationShape operation) {
+		BatchedByTrait trait = operation.expectTrait(BatchedByTrait.class);
+		List<ValidationEvent> events = new ArrayList<>();
+		if (trait.getMaxBatchSize() <= 0) {
+			events.add(error(operation, trait, "maxBatchSize must be positive"));
+		}
+		if (trait.getMaxDelayMillis() < 0) {
+			events.add(error(operation, trait, "maxDelayMillis must not be negative"));
+		}
+		Optional<OperationShape> maybeBatch = model.getShape(trait.getOperation())
+				.flatMap(Shape::asOperationShape);
+		if (!maybeBatch.isPresent()) {
+			events.add(error(operation, trait, String.format("%s is not an operation", trait.getOperation())));
+		} else if (maybeBatch.get().getId().equals(operation.getId())) {
+			events.add(error(operation, trait, "an operation cannot be batched by itself"));
+		} else {
+			OperationShape batch = maybeBatch.get();
+			checkMember(model, batch.getInputShape(), trait.getInputMember(), operation.getInputShape(), "input")
+					.ifPresent(message -> events.add(error(operation, trait, message)));
+			model.getShape(batch.getInputShape()).map(Shape::members).ifPresent(members -> members.stream()
+					.filter(member -> !member.getMemberName().equals(trait.getInputMember()))
+					.filter(member -> member.hasTrait(RequiredTrait.class) && !member.hasTrait(DefaultTrait.class))
+					.forEach(member -> events.add(error(operation, trait, String.format(
+							"%s must be optional or have a default value, as batch calls only populate %s",
+							member.getId(), trait.getInputMember())))));
+			checkMember(model, batch.getOutputShape(), trait.getOutputMember(), operation.getOutputShape(), "output")
+					.ifPresent(message -> events.add(error(operation, trait, message)));
+			model.getShape(batch.getOutputShape()).map(Shape::members).ifPresent(members -> members.stream()
+					.filter(member -> !member.getMemberName().equals(trait.getOutputMember()))
+					.forEach(member -> events.add(error(operation, trait, String.format(
+							"%s is not supported, as batch outputs are matched to inputs by their position in %s",
+							member.getId(), trait.getOutputMember())))));
+		}
+		return events.stream();
+	}
+
+	// Returns an error message unless `memberName` is a member of `structure`
+	// targeting a list of `expectedItem`.
+	private Optional<String> checkMember(Model model, ShapeId structure, String memberName, ShapeId expectedItem,
+			String kind) {
+		Optional<MemberShape> maybeMember = model.getShape(structure).flatMap(shape -> shape.getMember(memberName));
+		if (!maybeMember.isPresent()) {
+			return Optional.of(String.format("%s has no %s member named %s", structure, kind, memberName));
+		}
+		Optional<ListShape> list = model.getShape(maybeMember.get().getTarget()).flatMap(Shape::asListShape);
+		Optional<ShapeId> item = list.map(ListShape::getMember).map(MemberShape::getTarget);
+		if (!item.equals(Optional.of(expectedItem))) {
+			return Optional.of(String.format("%s must target a list of %s", maybeMember.get().getId(), expectedItem));
+		}
+		if (list.get().hasTrait(UniqueItemsTrait.class)) {
+			return Optional.of(String.format("%s must target an ordered list, without @uniqueItems",
+					maybeMember.get().getId()));
+		}
+		return Optional.empty();
+	}
+}
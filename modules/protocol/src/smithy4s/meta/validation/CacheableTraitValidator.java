@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.CacheableTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.MemberShape;
+import software.amazon.smithy.model.shapes.OperationShape;
+import software.amazon.smithy.model.shapes.ShapeId;
+import software.amazon.smithy.model.traits.ReadonlyTrait;
+import software.amazon.smithy.model.traits.StreamingTrait;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * `@cacheable` can only be applied to `@readonly` operations, as only those
+ * can be answered from a cache without altering the behaviour of the service.
+ * Operations with streaming members are rejected too, as the caching
+ * middlewares keep whole responses in memory.
+ */
+public final class CacheableTraitValidator extends AbstractValidator {
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(CacheableTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asOperationShape()))
+				.flatMap(operation -> validateOperation(model, operation))
+				.collect(Collectors.toList());
+	}
+
+	private Stream<ValidationEvent> validateOperation(Model model, OperationShape operation) {
+		CacheableTrait trait = operation.expectTrait(CacheableTrait.class);
+		List<ValidationEvent> events = new ArrayList<>();
+		if (!operation.hasTrait(ReadonlyTrait.class)) {
+			events.add(error(operation, trait, "@cacheable can only be used on @readonly operations"));
+		}
+		if (trait.getTtlSeconds() <= 0) {
+			events.add(error(operation, trait, "ttlSeconds must be positive"));
+		}
+		if (trait.getMaxEntries() <= 0) {
+			events.add(error(operation, trait, "maxEntries must be positive"));
+		}
+		if (hasStreamingMember(model, operation.getInput()) || hasStreamingMember(model, operation.getOutput())) {
+			events.add(error(operation, trait, "@cacheable cannot be used on operations with streaming members"));
+		}
+		return events.stream();
+	}
+
+	private boolean hasStreamingMember(Model model, Optional<ShapeId> maybeStructure) {
+		return maybeStructure.flatMap(model::getShape).map(structure -> structure.members().stream()
+				.map(MemberShape::getTarget)
+				.anyMatch(target -> model.getShape(target).map(t -> t.hasTrait(StreamingTrait.class)).orElse(false)))
+				.orElse(false);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.DecodeLimitsTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeType;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * `@decodeLimits` must declare at least one limit, and each limit must be
+ * relevant to the shape it is applied to: `maxElements` for lists and maps,
+ * `maxBytes` for strings and blobs. Member applications are checked against
+ * the type of their target.
+ */
+public final class DecodeLimitsTraitValidator extends AbstractValidator {
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(DecodeLimitsTrait.class).stream()
+				.flatMap(shape -> validateShape(model, shape))
+				.collect(Collectors.toList());
+	}
+
+	private Stream<ValidationEvent> validateShape(Model model, Shape shape) {
+		DecodeLimitsTrait trait = shape.expectTrait(DecodeLimitsTrait.class);
+		Optional<Shape> maybeTarget = shape.asMemberShape().isPresent()
+				? model.getShape(shape.asMemberShape().get().getTarget())
+				: Optional.of(shape);
+		return OptionHelper.toStream(maybeTarget).flatMap(target -> {
+			ShapeType type = target.getType();
+			boolean isCollection = type == ShapeType.LIST || type == ShapeType.SET || type == ShapeType.MAP;
+			boolean isSized = type == ShapeType.STRING || type == ShapeType.BLOB;
+			List<ValidationEvent> events = new ArrayList<>();
+			if (!trait.getMaxElements().isPresent() && !trait.getMaxBytes().isPresent()) {
+				events.add(error(shape, trait, "@decodeLimits must declare at least one of maxElements or maxBytes"));
+			}
+			trait.getMaxElements().ifPresent(max -> {
+				if (max < 0) {
+					events.add(error(shape, trait, "maxElements must not be negative"));
+				}
+				if (!isCollection) {
+					events.add(error(shape, trait, String.format(
+							"maxElements only applies to lists and maps, but %s is a %s", target.getId(), type)));
+				}
+			});
+			trait.getMaxBytes().ifPresent(max -> {
+				if (max < 0) {
+					events.add(error(shape, trait, "maxBytes must not be negative"));
+				}
+				if (!isSized) {
+					events.add(error(shape, trait, String.format(
+							"maxBytes only applies to strings and blobs, but %s is a %s", target.getId(), type)));
+				}
+			});
+			return events.stream();
+		});
+	}
+}
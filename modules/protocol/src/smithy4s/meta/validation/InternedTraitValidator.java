@@ -0,0 +1,46 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.InternedTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.ShapeType;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * `@interned` can only be applied to string shapes, per the selector, or to
+ * members targeting string shapes. Enumerations are excluded, as their values
+ * are already shared by construction.
+ */
+public final class InternedTraitValidator extends AbstractValidator {
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(InternedTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asMemberShape()))
+				.flatMap(member -> OptionHelper.toStream(model.getShape(member.getTarget()))
+						.filter(target -> target.getType() != ShapeType.STRING)
+						.map(target -> error(member, String.format(
+								"@interned can only be used on members targeting string shapes, but %s targets %s",
+								member.getId(), target.getId()))))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.LazyMemberTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.traits.DefaultTrait;
+import software.amazon.smithy.model.traits.HttpHeaderTrait;
+import software.amazon.smithy.model.traits.HttpPrefixHeadersTrait;
+import software.amazon.smithy.model.traits.HttpQueryParamsTrait;
+import software.amazon.smithy.model.traits.HttpQueryTrait;
+import software.amazon.smithy.model.traits.TraitDefinition;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * `@lazyMember` is required to be applied on a structure's member targeting an
+ * aggregate shape, per the selector. The member cannot have a default value,
+ * nor belong to a trait shape, as deferred values cannot be rendered as
+ * literals. A warning is emitted when the member is bound to HTTP metadata, as
+ * only payload codecs can defer decoding.
+ */
+public final class LazyMemberTraitValidator extends AbstractValidator {
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(LazyMemberTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asMemberShape())).flatMap(member -> {
+					final List<ValidationEvent> validation = new ArrayList<>();
+					if (member.hasTrait(DefaultTrait.class)) {
+						validation.add(error(member, "@lazyMember cannot be used on members with a default value"));
+					}
+					final boolean inTrait = model.getShape(member.getContainer())
+							.filter(container -> container.hasTrait(TraitDefinition.class)).isPresent();
+					if (inTrait) {
+						validation.add(error(member, "@lazyMember cannot be used on members of trait shapes"));
+					}
+					if (member.hasTrait(HttpHeaderTrait.class) || member.hasTrait(HttpPrefixHeadersTrait.class)
+							|| member.hasTrait(HttpQueryTrait.class) || member.hasTrait(HttpQueryParamsTrait.class)) {
+						validation.add(warning(member,
+								"@lazyMember has no effect on members bound to HTTP headers or query parameters"));
+					}
+					return validation.stream();
+				}).collect(Collectors.toList());
+	}
+}
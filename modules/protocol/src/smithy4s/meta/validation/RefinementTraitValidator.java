@@ -18,6 +18,7 @@ package smithy4s.meta.validation;
 
 import software.amazon.smithy.model.Model;
 import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeId;
 import software.amazon.smithy.model.shapes.ShapeType;
 import software.amazon.smithy.model.traits.*;
 import software.amazon.smithy.model.validation.AbstractValidator;
@@ -25,11 +26,12 @@ import software.amazon.smithy.model.validation.ValidationEvent;
 import software.amazon.smithy.model.SourceLocation;
 import smithy4s.meta.RefinementTrait;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Collections;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.Set;
 
 public final class RefinementTraitValidator extends AbstractValidator {
@@ -71,32 +73,67 @@ public final class RefinementTraitValidator extends AbstractValidator {
 		return defaultTrait.filter(d -> !isSyntheticDefault(shape, d)).isPresent();
 	}
 
-	Stream<ValidationEvent> refinedTraitsNoDefault(Model model) {
-		return model.getShapesWithTrait(RefinementTrait.class).stream().flatMap(refinedTrait -> {
-			return model.getShapesWithTrait(refinedTrait.getId()).stream().filter(shape -> hasUserDefault(shape))
-					.map(shape -> warning(shape, refinedTrait.getId() + " is a refinement trait. It is applied to "
-							+ shape.getId() + " along with a @default trait. You should avoid mixing the two."));
-		});
+	private static final class ShapeEvents {
+		private final ShapeId shapeId;
+		private final List<ValidationEvent> errors;
+		private final List<ValidationEvent> warnings;
+
+		ShapeEvents(ShapeId shapeId, List<ValidationEvent> errors, List<ValidationEvent> warnings) {
+			this.shapeId = shapeId;
+			this.errors = errors;
+			this.warnings = warnings;
+		}
+
+		ShapeId getShapeId() {
+			return shapeId;
+		}
+
+		boolean isEmpty() {
+			return errors.isEmpty() && warnings.isEmpty();
+		}
 	}
 
+	private ShapeEvents validateShape(Model model, Set<ShapeId> refinementTraitIds, Shape shape) {
+		List<ShapeId> refinedTraits = shape.getAllTraits().keySet().stream().filter(refinementTraitIds::contains)
+				.sorted().collect(Collectors.toList());
+		if (refinedTraits.isEmpty()) {
+			return new ShapeEvents(shape.getId(), Collections.emptyList(), Collections.emptyList());
+		}
+		List<ValidationEvent> errors = new ArrayList<>();
+		if (refinedTraits.size() > 1) {
+			errors.add(error(shape, "Shapes may only be annotated with one refinement trait"));
+		} else if (!isAllowedType(model, shape)) {
+			errors.add(error(shape,
+					"refinements can only be used on simpleShapes, list, set, and map. Simple shapes must not be constrained by enum, length, range, or pattern traits"));
+		}
+		List<ValidationEvent> warnings = new ArrayList<>();
+		if (hasUserDefault(shape)) {
+			refinedTraits.forEach(refinedTrait -> warnings.add(warning(shape, refinedTrait
+					+ " is a refinement trait. It is applied to " + shape.getId()
+					+ " along with a @default trait. You should avoid mixing the two.")));
+		}
+		return new ShapeEvents(shape.getId(), errors, warnings);
+	}
+
+	/**
+	 * The set of refinement traits is computed once, after which every shape is
+	 * inspected in a single (parallel) pass. Events are sorted by shape id so that
+	 * the output does not depend on how the pass was split: errors come first,
+	 * followed by the warnings about refinements mixed with `@default`.
+	 */
 	@Override
 	public List<ValidationEvent> validate(Model model) {
-		Stream<ValidationEvent> countErrors = model.shapes().flatMap(s -> {
-			long numRefinedTraits = s.getAllTraits().values().stream().flatMap(t -> {
-				return OptionHelper.toStream(model.getShape(t.toShapeId())).flatMap(traitShape -> {
-					return OptionHelper.toStream(traitShape.getTrait(RefinementTrait.class));
-				});
-			}).count();
-			if (numRefinedTraits > 1) {
-				return Stream.of(error(s, "Shapes may only be annotated with one refinement trait"));
-			} else if (numRefinedTraits == 1 && !isAllowedType(model, s)) {
-				return Stream.of(error(s,
-						"refinements can only be used on simpleShapes, list, set, and map. Simple shapes must not be constrained by enum, length, range, or pattern traits"));
-			} else {
-				return Stream.empty();
-			}
-		});
-		Stream<ValidationEvent> defaultUsageWarnings = refinedTraitsNoDefault(model);
-		return Stream.of(countErrors, defaultUsageWarnings).flatMap(s -> s).collect(Collectors.toList());
+		Set<ShapeId> refinementTraitIds = model.getShapesWithTrait(RefinementTrait.class).stream().map(Shape::getId)
+				.collect(Collectors.toSet());
+		if (refinementTraitIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<ShapeEvents> shapeEvents = model.shapes().parallel()
+				.map(shape -> validateShape(model, refinementTraitIds, shape)).filter(events -> !events.isEmpty())
+				.sorted(Comparator.comparing(ShapeEvents::getShapeId)).collect(Collectors.toList());
+		List<ValidationEvent> result = new ArrayList<>();
+		shapeEvents.forEach(events -> result.addAll(events.errors));
+		shapeEvents.forEach(events -> result.addAll(events.warnings));
+		return result;
 	}
 }
@@ -0,0 +1,74 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.meta.validation;
+
+import smithy4s.OptionHelper;
+import smithy4s.meta.RefinementTrait;
+import smithy4s.meta.UnboxedPrimitivesTrait;
+import software.amazon.smithy.model.Model;
+import software.amazon.smithy.model.shapes.Shape;
+import software.amazon.smithy.model.shapes.ShapeType;
+import software.amazon.smithy.model.traits.SparseTrait;
+import software.amazon.smithy.model.validation.AbstractValidator;
+import software.amazon.smithy.model.validation.ValidationEvent;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * `@unboxedPrimitives` can only be applied to non-sparse lists whose member
+ * targets an integer, long, float, double, short, byte or boolean shape, as
+ * these are the only ones that can be backed by a primitive array. The target
+ * must not be refined, as refinements change the runtime representation of the
+ * members.
+ */
+public final class UnboxedPrimitivesTraitValidator extends AbstractValidator {
+
+	private static final Set<ShapeType> UNBOXABLE_TYPES = EnumSet.of(ShapeType.INTEGER, ShapeType.LONG,
+			ShapeType.FLOAT, ShapeType.DOUBLE, ShapeType.SHORT, ShapeType.BYTE, ShapeType.BOOLEAN);
+
+	@Override
+	public List<ValidationEvent> validate(Model model) {
+		return model.getShapesWithTrait(UnboxedPrimitivesTrait.class).stream()
+				.flatMap(shape -> OptionHelper.toStream(shape.asListShape())).flatMap(list -> {
+					final List<ValidationEvent> validation = new ArrayList<>();
+					if (list.hasTrait(SparseTrait.class)) {
+						validation.add(error(list, "@unboxedPrimitives cannot be used on sparse lists"));
+					}
+					OptionHelper.toStream(model.getShape(list.getMember().getTarget())).forEach(target -> {
+						if (!UNBOXABLE_TYPES.contains(target.getType())) {
+							validation.add(error(list, String.format(
+									"@unboxedPrimitives can only be used on lists whose member targets an integer, long, float, double, short, byte or boolean shape, but %s targets %s",
+									list.getId(), target.getId())));
+						} else if (isRefined(model, target) || isRefined(model, list.getMember())) {
+							validation.add(error(list, String.format(
+									"@unboxedPrimitives cannot be used on lists whose members are refined, but the member of %s is",
+									list.getId())));
+						}
+					});
+					return validation.stream();
+				}).collect(Collectors.toList());
+	}
+
+	private static boolean isRefined(Model model, Shape shape) {
+		return shape.getAllTraits().keySet().stream()
+				.anyMatch(traitId -> model.getShape(traitId).filter(t -> t.hasTrait(RefinementTrait.class)).isPresent());
+	}
+}
@@ -17,14 +17,22 @@
 package smithy4s.xml
 
 import smithy4s.Blob
+import smithy4s.internals.StringInterner
+import smithy4s.schema.CompilationCache
 import smithy4s.schema.Schema
+import smithy4s.xml.XmlDocument.XmlQName
+import smithy4s.xml.internals.XmlEventDecoder
+import smithy4s.xml.internals.XmlEventDecoderSchemaVisitor
+import smithy4s.xml.internals.XmlOutput
+import smithy4s.xml.internals.XmlWriter
 import fs2._
 import fs2.data.xml._
-import fs2.data.xml.dom._
 import cats.syntax.all._
 import smithy4s.codecs._
 import cats.effect.SyncIO
 
+import java.io.OutputStream
+
 object Xml {
 
   /**
@@ -33,10 +41,8 @@ object Xml {
     * Beware : using this method with a non-static schema (for instance, dynamically generated) may
     * result in memory leaks.
     */
-  def read[A: Schema](blob: Blob): Either[XmlDecodeError, A] = {
-    val decoder = deriveXmlDecoder[A]
-    parseXmlDocument(blob).flatMap(decoder.decode)
-  }
+  def read[A: Schema](blob: Blob): Either[XmlDecodeError, A] =
+    compileDecoder(Schema[A], decoderCacheGlobal)(blob)
 
   /**
     * Writes the XML representation for an instance of `A` into a [[smithy4s.Blob]].
@@ -44,12 +50,17 @@ object Xml {
     * Beware : using this method with a non-static schema (for instance, dynamically generated) may
     * result in memory leaks.
     */
-  def write[A: Schema](a: A): Blob = {
-    val result = writeToBytes[A](a).compile
-      .to(Collector.supportsArray(Array))
+  def write[A: Schema](a: A): Blob =
+    writeToOutput[A](a).toBlob
 
-    Blob(result)
-  }
+  /**
+    * Writes the XML representation for an instance of `A` to an [[java.io.OutputStream]].
+    *
+    * Beware : using this method with a non-static schema (for instance, dynamically generated) may
+    * result in memory leaks.
+    */
+  def writeTo[A: Schema](a: A, outputStream: OutputStream): Unit =
+    writeToOutput[A](a).writeTo(outputStream)
 
   /**
     * Writes the XML representation for an instance of `A` into a String.
@@ -58,17 +69,21 @@ object Xml {
     * result in memory leaks.
     */
   def writeToString[A: Schema](a: A): Option[String] =
-    writeToStringStream[A](a).compile.last
+    Some(writeToOutput[A](a).toBlob.toUTF8String)
 
+  /**
+    * Decoders reading payloads in a single pass over the XML events, without
+    * building an intermediate [[XmlDocument]]. Elements that the schema does
+    * not know about are skipped as they are read.
+    */
   val decoders: BlobDecoder.Compiler = new BlobDecoder.Compiler {
-    type Cache = XmlDocument.Decoder.Cache
-    def createCache(): Cache = XmlDocument.Decoder.createCache()
+    type Cache = CompilationCache[XmlEventDecoder]
+    def createCache(): Cache = CompilationCache.make[XmlEventDecoder]
     def fromSchema[A](schema: Schema[A], cache: Cache): BlobDecoder[A] = {
-      val xmlDocumentDecoder = XmlDocument.Decoder.fromSchema(schema, cache)
+      val decodeXml = compileDecoder(schema, cache)
       new BlobDecoder[A] {
         def decode(blob: Blob): Either[PayloadError, A] =
-          parseXmlDocument(blob)
-            .flatMap(xmlDocumentDecoder.decode(_))
+          decodeXml(blob)
             .leftMap { case XmlDecodeError(xPath, message) =>
               PayloadError(xPath.toPayloadPath, "", message)
             }
@@ -81,44 +96,53 @@ object Xml {
   object encoders
       extends smithy4s.xml.internals.XmlPayloadEncoderCompilerImpl(false)
 
-  private val decoderCacheGlobal = XmlDocument.Decoder.createCache()
-  private val encoderCacheGlobal = XmlDocument.Encoder.createCache()
+  private val decoderCacheGlobal = CompilationCache.make[XmlEventDecoder]
+  private val encoderCacheGlobal = CompilationCache.make[XmlWriter]
+  private val stringInterner: StringInterner = StringInterner()
 
-  private def deriveXmlDecoder[A: Schema]: XmlDocument.Decoder[A] =
-    XmlDocument.Decoder.fromSchema(Schema[A], decoderCacheGlobal)
+  private def writeToOutput[A: Schema](a: A): XmlOutput = {
+    val out = new XmlOutput(escapeAttributes = false)
+    XmlWriter.document(Schema[A], encoderCacheGlobal)(a, out)
+    out
+  }
 
-  private def deriveXmlEncoder[A: Schema]: XmlDocument.Encoder[A] =
-    XmlDocument.Encoder.fromSchema(Schema[A], encoderCacheGlobal)
+  private def compileDecoder[A](
+      schema: Schema[A],
+      cache: CompilationCache[XmlEventDecoder]
+  ): Blob => Either[XmlDecodeError, A] = {
+    val startingPath = XmlDocument.getStartingPath(schema)
+    val schemaVisitor = new XmlEventDecoderSchemaVisitor(cache, stringInterner)
+    val decoder = schemaVisitor(schema)
+    blob => decodeEvents(decoder, startingPath, blob)
+  }
 
-  private def parseXmlDocument(
+  private def decodeEvents[A](
+      decoder: XmlEventDecoder[A],
+      startingPath: List[XmlQName],
       blob: Blob
-  ): Either[XmlDecodeError, XmlDocument] =
+  ): Either[XmlDecodeError, A] = {
+    val driver = new XmlEventDecoder.Driver(decoder, startingPath)
     Stream
       .emit(blob.toUTF8String)
       .through(events[SyncIO, String]())
       .through(referenceResolver())
       .through(normalize)
-      .through(documents[SyncIO, XmlDocument])
+      .chunks
+      .foreach(chunk => SyncIO(chunk.foreach(driver.feed)))
       .compile
-      .onlyOrError
+      .drain
       .attempt
-      .unsafeRunSync()
-      .leftMap { error =>
-        XmlDecodeError(
-          XPath(List.empty),
-          s"Could not parse XML document: ${error.getMessage()}"
+      .unsafeRunSync() match {
+      case Right(_)                    => driver.finish()
+      case Left(error: XmlDecodeError) => Left(error)
+      case Left(error) =>
+        Left(
+          XmlDecodeError(
+            XPath(List.empty),
+            s"Could not parse XML document: ${error.getMessage()}"
+          )
         )
-      }
-
-  private def writeToStringStream[A: Schema](a: A): Stream[fs2.Pure, String] = {
-    val xmlDocument = deriveXmlEncoder[A].encode(a)
-
-    XmlDocument.documentEventifier
-      .eventify(xmlDocument)
-      .through(render.raw(collapseEmpty = false))
+    }
   }
 
-  private def writeToBytes[A: Schema](a: A): Stream[fs2.Pure, Byte] =
-    writeToStringStream[A](a).through(fs2.text.utf8.encode[fs2.Pure])
-
 }
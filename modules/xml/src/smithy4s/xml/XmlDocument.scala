@@ -28,6 +28,7 @@ import fs2.data.xml.dom.DocumentBuilder
 import fs2.data.xml.dom.DocumentEventifier
 import smithy.api.XmlName
 import smithy4s.ShapeId
+import smithy4s.internals.StringInterner
 import smithy4s.schema.Schema
 import smithy4s.xml.internals.XmlCursor
 import smithy4s.xml.internals.XmlDecoder
@@ -85,7 +86,7 @@ object XmlDocument {
     }
   }
 
-  private def getRootName[A](schema: Schema[A]): XmlQName = {
+  private[xml] def getRootName[A](schema: Schema[A]): XmlQName = {
     schema.hints
       .get(XmlName)
       .map(_.value)
@@ -93,7 +94,7 @@ object XmlDocument {
       .getOrElse(XmlQName.fromShapeId(schema.shapeId))
   }
 
-  private def getStartingPath[A](schema: Schema[A]): List[XmlQName] = {
+  private[xml] def getStartingPath[A](schema: Schema[A]): List[XmlQName] = {
     schema.hints
       .get(internals.XmlStartingPath)
       .map(_.path.map(XmlQName.parse))
@@ -109,9 +110,10 @@ object XmlDocument {
   implicit def decoderFromSchema[A: Schema]: Decoder[A] = Decoder.derivedImplicitInstance
   object Decoder extends CachedSchemaCompiler.DerivingImpl[Decoder] {
     protected override type Aux[A] = XmlDecoder[A]
+    private val stringInterner: StringInterner = StringInterner()
     def fromSchema[A](schema: Schema[A], cache: Cache): Decoder[A] = {
       val startingPath: List[XmlQName] = getStartingPath(schema)
-      val schemaVisitor = new XmlDecoderSchemaVisitor(cache)
+      val schemaVisitor = new XmlDecoderSchemaVisitor(cache, stringInterner)
       val xmlDecoder = schemaVisitor(schema)
       (xmlDocument: XmlDocument) => {
         val documentCursor = XmlCursor.fromDocument(xmlDocument)
@@ -266,8 +268,8 @@ object XmlDocument {
       case '<'  => "&lt;"
       case '>'  => "&gt;"
       case '&'  => "&amp;"
-      case '\'' => "$apos;"
-      case '"'  => "$quot;"
+      case '\'' => "&apos;"
+      case '"'  => "&quot;"
       case c    => c.toString()
     }
   }
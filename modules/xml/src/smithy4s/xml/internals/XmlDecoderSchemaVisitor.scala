@@ -23,13 +23,15 @@ import smithy.api.XmlFlattened
 import smithy.api.XmlName
 import smithy4s._
 import smithy4s.internals.SchemaDescription
+import smithy4s.internals.StringInterner
 import smithy4s.schema.Schema
 import smithy4s.schema._
 
 import XmlDocument.XmlQName
 
 private[smithy4s] class XmlDecoderSchemaVisitor(
-    val cache: CompilationCache[XmlDecoder]
+    val cache: CompilationCache[XmlDecoder],
+    stringInterner: StringInterner
 ) extends SchemaVisitor.Cached[XmlDecoder]
     with smithy4s.ScalaCompat { compile =>
 
@@ -40,10 +42,21 @@ private[smithy4s] class XmlDecoderSchemaVisitor(
   ): XmlDecoder[P] = {
     val desc = SchemaDescription.primitive(shapeId, hints, tag)
     val trim = (tag != Primitive.PString && tag != Primitive.PBlob)
-    Primitive.stringParser(tag, hints) match {
+    val decoder: XmlDecoder[P] = Primitive.stringParser(tag, hints) match {
+      case Some(_) if tag == Primitive.PString && hints.has(Interned) =>
+        XmlDecoder
+          .fromStringParser(desc, trim)(s => Some(stringInterner.intern(s)))
+          .asInstanceOf[XmlDecoder[P]]
       case Some(parser) => XmlDecoder.fromStringParser(desc, trim)(parser)
       case None => XmlDecoder.alwaysFailing(s"Cannot decode $desc from XML")
     }
+    // XML text content is fully materialised by the parser, so sizes can
+    // only be checked once the value is extracted
+    DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) =>
+        decoder.emap(DecodeLimits.checkBytes(tag, maxBytes))
+      case None => decoder
+    }
   }
 
   def collection[C[_], A](
@@ -54,17 +67,32 @@ private[smithy4s] class XmlDecoderSchemaVisitor(
   ): XmlDecoder[C[A]] = {
     val xmlName = getXmlName(member.hints, "member")
     val isFlattened = hints.has(XmlFlattened)
+    val maxElements = DecodeLimits.maxElements(hints, Int.MaxValue)
     val memberDecoder = compile(member)
+    // IndexedSeqs of primitives annotated with UnboxedPrimitives get backed
+    // by primitive arrays
+    val fromIterator: Iterator[A] => C[A] = tag match {
+      case CollectionTag.IndexedSeqTag if hints.has(UnboxedPrimitives) =>
+        val withBuilder = CollectionTag.IndexedSeqTag.compactBuilder(member)
+        (it: Iterator[A]) =>
+          withBuilder(put => it.foreach(put)).asInstanceOf[C[A]]
+      case _ => tag.fromIterator(_)
+    }
     new XmlDecoder[C[A]] {
       def decode(cursor: XmlCursor): Either[XmlDecodeError, C[A]] = {
         val realCursor = if (isFlattened) cursor else cursor.down(xmlName)
         realCursor match {
+          case XmlCursor.SingleNode(history, _) if maxElements < 1 =>
+            Left(maxElementsError(history, maxElements))
+          case XmlCursor.Nodes(history, nodes) if nodes.size > maxElements =>
+            // checked before any of the members gets decoded
+            Left(maxElementsError(history, maxElements))
           case XmlCursor.SingleNode(history, node) =>
             memberDecoder
               .decode(
                 XmlCursor.SingleNode(history.appendIndex(0), node)
               )
-              .map(value => tag.fromIterator(Iterator.single(value)))
+              .map(value => fromIterator(Iterator.single(value)))
           case XmlCursor.Nodes(history, nodes) =>
             nodes.zipWithIndex
               .traverse { case (elem, index) =>
@@ -72,7 +100,7 @@ private[smithy4s] class XmlDecoderSchemaVisitor(
                   XmlCursor.SingleNode(history.appendIndex(index), elem)
                 )
               }
-              .map(list => tag.fromIterator(list.iterator))
+              .map(list => fromIterator(list.iterator))
           case XmlCursor.NoNode(_) => Right(tag.empty)
           case other =>
             Left(
@@ -83,6 +111,12 @@ private[smithy4s] class XmlDecoderSchemaVisitor(
     }
   }
 
+  private def maxElementsError(history: XPath, maxElements: Int) =
+    XmlDecodeError(
+      history,
+      s"Input exceeded max number of elements of $maxElements"
+    )
+
   def map[K, V](
       shapeId: ShapeId,
       hints: Hints,
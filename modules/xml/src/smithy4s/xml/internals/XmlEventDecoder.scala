@@ -0,0 +1,587 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.xml
+package internals
+
+import fs2.data.xml.Attr
+import fs2.data.xml.QName
+import fs2.data.xml.XmlEvent
+import smithy4s.ConstraintError
+import smithy4s.xml.XmlDocument.XmlQName
+
+import scala.collection.compat.immutable.ArraySeq
+import scala.collection.mutable.ArrayBuffer
+
+import XmlEventDecoder._
+
+/**
+  * A decoder that consumes the events of an XML payload in a single forward
+  * pass, without materialising an intermediate `XmlDocument`. It mirrors the
+  * semantics of `XmlDecoder`, which works against a fully parsed document.
+  *
+  * Decoding happens in two steps : a `Collector` receives the elements (or
+  * the attribute) the decoder applies to, as the events are read, and `result`
+  * turns what was collected into a value once the enclosing element has been
+  * fully read. Combinators such as `map` or `optional` share the collector of
+  * the decoder they wrap, and only act on its result.
+  *
+  * Errors detected while events are being read are thrown, and caught by the
+  * `Driver`.
+  */
+private[smithy4s] trait XmlEventDecoder[A] { self =>
+  def collector(parent: Position, segment: XPath.Segment, index: Int): Collector
+  def result(collector: Collector): Either[XmlDecodeError, A]
+
+  final def map[B](f: A => B): XmlEventDecoder[B] = new XmlEventDecoder[B] {
+    def collector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ): Collector =
+      self.collector(parent, segment, index)
+    def result(collector: Collector): Either[XmlDecodeError, B] =
+      self.result(collector).map(f)
+  }
+  final def emap[B](f: A => Either[ConstraintError, B]): XmlEventDecoder[B] =
+    new XmlEventDecoder[B] {
+      def collector(
+          parent: Position,
+          segment: XPath.Segment,
+          index: Int
+      ): Collector =
+        self.collector(parent, segment, index)
+      def result(collector: Collector): Either[XmlDecodeError, B] =
+        self.result(collector).flatMap {
+          f(_) match {
+            case Left(e) => Left(XmlDecodeError(collector.path, e.message))
+            case Right(value) => Right(value)
+          }
+        }
+    }
+  final def optional: XmlEventDecoder[Option[A]] =
+    new XmlEventDecoder[Option[A]] {
+      def collector(
+          parent: Position,
+          segment: XPath.Segment,
+          index: Int
+      ): Collector =
+        self.collector(parent, segment, index)
+      def result(collector: Collector): Either[XmlDecodeError, Option[A]] =
+        if (collector.isEmpty) Right(None)
+        else self.result(collector).map(Some(_))
+    }
+  final def withDefault(value: A): XmlEventDecoder[A] =
+    new XmlEventDecoder[A] {
+      def collector(
+          parent: Position,
+          segment: XPath.Segment,
+          index: Int
+      ): Collector =
+        self.collector(parent, segment, index)
+      def result(collector: Collector): Either[XmlDecodeError, A] =
+        if (collector.isEmpty) Right(value)
+        else self.result(collector)
+    }
+}
+
+private[smithy4s] object XmlEventDecoder {
+
+  /**
+    * A location in the payload. Paths are only rendered when reporting errors,
+    * so that decoding does not pay for them.
+    */
+  abstract class Position {
+    def path: XPath
+  }
+
+  object Position {
+    def apply(xPath: XPath): Position = new Position {
+      def path: XPath = xPath
+    }
+  }
+
+  /**
+    * Receives the content of an element : its text and its children.
+    */
+  abstract class Handler {
+    def startChild(name: QName, attributes: List[Attr]): Handler = Skip
+    def text(value: String): Unit = ()
+  }
+
+  /**
+    * Skips the content of elements that are not relevant to the schema,
+    * without allocating anything.
+    */
+  object Skip extends Handler
+
+  /**
+    * Receives the nodes matched by a decoder, under a given parent. A segment
+    * (when not null) and an index (when positive) get appended to the path of
+    * the parent.
+    */
+  abstract class Collector(
+      parent: Position,
+      segment: XPath.Segment,
+      index: Int
+  ) extends Handler {
+    private[this] var received: Int = 0
+
+    final def path: XPath = {
+      val parentPath = parent.path
+      val withSegment =
+        if (segment == null) parentPath
+        else XPath(segment :: parentPath.reversedSegments)
+      if (index < 0) withSegment else withSegment.appendIndex(index)
+    }
+
+    /** Whether no node was received, which is the equivalent of `NoNode`. */
+    final def isEmpty: Boolean = received == 0
+    protected final def count: Int = received
+
+    final def element(attributes: List[Attr]): Handler = {
+      received += 1
+      onElement(attributes)
+    }
+    final def attribute(value: String): Unit = {
+      received += 1
+      onAttribute(value)
+    }
+
+    protected def onElement(attributes: List[Attr]): Handler
+    protected def onAttribute(value: String): Unit =
+      throw XmlDecodeError(path, "Expected an element, not an attribute")
+  }
+
+  def alwaysFailing[A](message: String): XmlEventDecoder[A] =
+    new XmlEventDecoder[A] {
+      def collector(
+          parent: Position,
+          segment: XPath.Segment,
+          index: Int
+      ): Collector =
+        new TextCollector(parent, segment, index)
+      def result(collector: Collector): Either[XmlDecodeError, A] =
+        Left(XmlDecodeError(collector.path, message))
+    }
+
+  /**
+    * This is the method that is used to define primitive decoders, as all
+    * primitives are decoded from text content, whether it's in elements or in
+    * attributes.
+    */
+  def fromStringParser[A](expectedType: String, trim: Boolean)(
+      f: String => Option[A]
+  ): XmlEventDecoder[A] = new XmlEventDecoder[A] {
+    def collector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ): Collector =
+      new TextCollector(parent, segment, index)
+    def result(collector: Collector): Either[XmlDecodeError, A] = {
+      val textCollector = collector.asInstanceOf[TextCollector]
+      if (textCollector.isEmpty || textCollector.hasChildren) {
+        Left(
+          XmlDecodeError(
+            collector.path,
+            s"Expected a single node with text content"
+          )
+        )
+      } else {
+        val value = textCollector.value
+        val rendered = if (value.isEmpty) "empty string" else value
+        f(if (trim) value.trim() else value).toRight(
+          XmlDecodeError(
+            collector.path,
+            s"Could not extract $expectedType from $rendered"
+          )
+        )
+      }
+    }
+  }
+
+  /**
+    * Accumulates the text content of a single element, or the value of an
+    * attribute.
+    */
+  final class TextCollector(
+      parent: Position,
+      segment: XPath.Segment,
+      index: Int
+  ) extends Collector(parent, segment, index) {
+    // the common case of a single text event doesn't require a builder
+    private[this] var single: String = null
+    private[this] var builder: java.lang.StringBuilder = null
+    var hasChildren: Boolean = false
+
+    protected def onElement(attributes: List[Attr]): Handler = {
+      if (count > 1) throw multipleNodes(path)
+      this
+    }
+    override protected def onAttribute(value: String): Unit = {
+      if (count > 1) throw multipleNodes(path)
+      single = value
+    }
+    override def startChild(name: QName, attributes: List[Attr]): Handler = {
+      hasChildren = true
+      Skip
+    }
+    override def text(value: String): Unit =
+      if (single == null) single = value
+      else {
+        if (builder == null) builder = new java.lang.StringBuilder(single)
+        builder.append(value)
+      }
+
+    def value: String =
+      if (builder != null) builder.toString()
+      else if (single != null) single
+      else ""
+  }
+
+  /**
+    * A struct field, which is read either from a child element or from an
+    * attribute of the struct's element.
+    */
+  final class FieldDecoder(
+      val name: XmlQName,
+      val isAttribute: Boolean,
+      val decoder: XmlEventDecoder[Any]
+  ) {
+    val segment: XPath.Segment =
+      if (isAttribute) XPath.Segment.Attr(name) else XPath.Segment.Tag(name)
+  }
+
+  def struct[S](
+      fields: Array[FieldDecoder],
+      make: IndexedSeq[Any] => S
+  ): XmlEventDecoder[S] = new XmlEventDecoder[S] {
+    def collector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ): Collector =
+      new StructCollector(fields, parent, segment, index)
+    def result(collector: Collector): Either[XmlDecodeError, S] = {
+      val structCollector = collector.asInstanceOf[StructCollector]
+      if (structCollector.isEmpty) {
+        if (fields.isEmpty) Right(make(IndexedSeq.empty))
+        else {
+          val firstField = fields(0)
+          val path =
+            XPath(firstField.segment :: collector.path.reversedSegments)
+          Left(XmlDecodeError(path, "Could not decode failed node"))
+        }
+      } else {
+        val collectors = structCollector.fieldCollectors
+        val values = new Array[Any](fields.length)
+        var i = 0
+        var error: XmlDecodeError = null
+        while (error == null && i < fields.length) {
+          fields(i).decoder.result(collectors(i)) match {
+            case Right(value) => values(i) = value
+            case Left(e)      => error = e
+          }
+          i += 1
+        }
+        if (error != null) Left(error)
+        else Right(make(ArraySeq.unsafeWrapArray(values)))
+      }
+    }
+  }
+
+  private final class StructCollector(
+      fields: Array[FieldDecoder],
+      parent: Position,
+      segment: XPath.Segment,
+      index: Int
+  ) extends Collector(parent, segment, index) {
+    val fieldCollectors: Array[Collector] = new Array[Collector](fields.length)
+
+    protected def onElement(attributes: List[Attr]): Handler = {
+      if (count > 1) throw multipleNodes(path)
+      var i = 0
+      while (i < fields.length) {
+        val field = fields(i)
+        val collector = field.decoder.collector(this, field.segment, -1)
+        fieldCollectors(i) = collector
+        if (field.isAttribute) {
+          attributes.find(attr => matches(field.name, attr.name)) match {
+            case Some(attr) => collector.attribute(attributeValue(attr))
+            case None       => ()
+          }
+        }
+        i += 1
+      }
+      this
+    }
+
+    override def startChild(name: QName, attributes: List[Attr]): Handler = {
+      var i = 0
+      while (i < fields.length) {
+        val field = fields(i)
+        if (!field.isAttribute && matches(field.name, name)) {
+          return fieldCollectors(i).element(attributes)
+        }
+        i += 1
+      }
+      Skip
+    }
+  }
+
+  def collection[C[_], A](
+      member: XmlEventDecoder[A],
+      memberName: XmlQName,
+      isFlattened: Boolean,
+      maxElements: Int,
+      fromIterator: Iterator[A] => C[A]
+  ): XmlEventDecoder[C[A]] = new CollectionDecoder[C, A](
+    member,
+    memberName,
+    isFlattened,
+    maxElements,
+    fromIterator
+  )
+
+  private final class CollectionDecoder[C[_], A](
+      member: XmlEventDecoder[A],
+      memberName: XmlQName,
+      isFlattened: Boolean,
+      maxElements: Int,
+      fromIterator: Iterator[A] => C[A]
+  ) extends XmlEventDecoder[C[A]] {
+    private val memberSegment: XPath.Segment = XPath.Segment.Tag(memberName)
+
+    def collector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ): Collector =
+      new CollectionCollector(parent, segment, index)
+
+    def result(collector: Collector): Either[XmlDecodeError, C[A]] = {
+      val collectionCollector = collector.asInstanceOf[CollectionCollector]
+      if (!isFlattened && collectionCollector.isEmpty) {
+        val path = XPath(memberSegment :: collector.path.reversedSegments)
+        Left(XmlDecodeError(path, s"Expected one or multiple nodes"))
+      } else {
+        try {
+          Right(fromIterator(collectionCollector.values().iterator))
+        } catch {
+          case e: XmlDecodeError => Left(e)
+        }
+      }
+    }
+
+    final class CollectionCollector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ) extends Collector(parent, segment, index) {
+      private[this] val buffer = ArrayBuffer.empty[A]
+      // members are finalised lazily, when the next one starts or when the
+      // result is requested, as collectors are not notified of closing tags
+      private[this] var current: Collector = null
+      private[this] var size: Int = 0
+
+      private def flush(): Unit = if (current != null) {
+        member.result(current) match {
+          case Right(value) => buffer += value
+          case Left(error)  => throw error
+        }
+        current = null
+      }
+
+      private def nextMember(attributes: List[Attr]): Handler = {
+        flush()
+        if (size >= maxElements) {
+          val maxElementsPath =
+            if (isFlattened) path
+            else XPath(memberSegment :: path.reversedSegments)
+          throw XmlDecodeError(
+            maxElementsPath,
+            s"Input exceeded max number of elements of $maxElements"
+          )
+        }
+        val memberPath = if (isFlattened) null else memberSegment
+        current = member.collector(this, memberPath, size)
+        size += 1
+        current.element(attributes)
+      }
+
+      protected def onElement(attributes: List[Attr]): Handler =
+        if (isFlattened) nextMember(attributes)
+        else if (count > 1) {
+          val nodesPath = XPath(memberSegment :: path.reversedSegments)
+          throw XmlDecodeError(nodesPath, s"Expected one or multiple nodes")
+        } else this
+
+      override def startChild(name: QName, attributes: List[Attr]): Handler =
+        if (!isFlattened && matches(memberName, name)) nextMember(attributes)
+        else Skip
+
+      def values(): ArrayBuffer[A] = {
+        flush()
+        buffer
+      }
+    }
+  }
+
+  def union[U](
+      alternatives: Map[XmlQName, XmlEventDecoder[U]]
+  ): XmlEventDecoder[U] = new XmlEventDecoder[U] {
+    def collector(
+        parent: Position,
+        segment: XPath.Segment,
+        index: Int
+    ): Collector =
+      new UnionCollector(alternatives, parent, segment, index)
+    def result(collector: Collector): Either[XmlDecodeError, U] = {
+      val unionCollector = collector.asInstanceOf[UnionCollector[U]]
+      if (unionCollector.isEmpty) {
+        Left(XmlDecodeError(collector.path, "Expected a single node"))
+      } else if (unionCollector.alternative == null) {
+        Left(
+          XmlDecodeError(
+            collector.path,
+            "Expected a single node but found no element"
+          )
+        )
+      } else unionCollector.alternative.result(unionCollector.altCollector)
+    }
+  }
+
+  private final class UnionCollector[U](
+      alternatives: Map[XmlQName, XmlEventDecoder[U]],
+      parent: Position,
+      segment: XPath.Segment,
+      index: Int
+  ) extends Collector(parent, segment, index) {
+    var alternative: XmlEventDecoder[U] = null
+    var altCollector: Collector = null
+
+    protected def onElement(attributes: List[Attr]): Handler = {
+      if (count > 1) throw XmlDecodeError(path, "Expected a single node")
+      this
+    }
+
+    override def startChild(name: QName, attributes: List[Attr]): Handler = {
+      if (alternative != null) {
+        throw XmlDecodeError(path, "Expected a single node but found several")
+      }
+      val xmlName = XmlQName(name.prefix, name.local)
+      alternatives.get(xmlName) match {
+        case Some(decoder) =>
+          alternative = decoder
+          val segment = XPath.Segment.Tag(xmlName)
+          altCollector = decoder.collector(this, segment, -1)
+          altCollector.element(attributes)
+        case None =>
+          throw XmlDecodeError(path, s"Not a valid alternative: $xmlName")
+      }
+    }
+
+    override def text(value: String): Unit =
+      // newlines or other blank text nodes are ignored at this level
+      if (value.exists(c => !c.isWhitespace)) {
+        throw XmlDecodeError(
+          path,
+          s"Expected a single node but found text content"
+        )
+      }
+  }
+
+  /**
+    * Feeds the events of a document to a decoder, after descending along the
+    * starting path.
+    */
+  final class Driver[A](
+      decoder: XmlEventDecoder[A],
+      startingPath: List[XmlQName]
+  ) {
+    private[this] val names: Array[XmlQName] = startingPath.toArray
+    private[this] val rootPosition =
+      Position(XPath(startingPath.reverse.map(XPath.Segment.Tag(_))))
+    private[this] val root: Collector =
+      decoder.collector(rootPosition, null, -1)
+    private[this] var stack: Array[Handler] = new Array[Handler](16)
+    private[this] var depth: Int = 0
+    private[this] var seenRoot: Boolean = false
+
+    // descends the starting path, which lists the root element first
+    private final class PathHandler(level: Int) extends Handler {
+      override def startChild(name: QName, attributes: List[Attr]): Handler =
+        if (matches(names(level), name)) enter(level, attributes)
+        else Skip
+    }
+
+    private def enter(level: Int, attributes: List[Attr]): Handler =
+      if (level == names.length - 1) root.element(attributes)
+      else new PathHandler(level + 1)
+
+    private def push(handler: Handler): Unit = {
+      if (depth == stack.length) {
+        stack = java.util.Arrays.copyOf(stack, depth * 2)
+      }
+      stack(depth) = handler
+      depth += 1
+    }
+
+    def feed(event: XmlEvent): Unit = event match {
+      case XmlEvent.StartTag(name, attributes, _) =>
+        if (depth > 0) push(stack(depth - 1).startChild(name, attributes))
+        else if (!seenRoot && matches(names(0), name)) {
+          seenRoot = true
+          push(enter(0, attributes))
+        } else {
+          throw XmlDecodeError(
+            XPath.root.appendTag(names(0)),
+            "Could not decode failed node"
+          )
+        }
+      case XmlEvent.EndTag(_) =>
+        depth -= 1
+        stack(depth) = null
+      case XmlEvent.XmlString(value, _) =>
+        if (depth > 0) stack(depth - 1).text(value)
+      case _ => ()
+    }
+
+    def finish(): Either[XmlDecodeError, A] =
+      if (!seenRoot) {
+        Left(
+          XmlDecodeError(
+            XPath.root,
+            "Could not parse XML document: no root element"
+          )
+        )
+      } else decoder.result(root)
+  }
+
+  private def matches(expected: XmlQName, name: QName): Boolean =
+    expected.name == name.local && expected.prefix == name.prefix
+
+  private def attributeValue(attr: Attr): String = attr.value match {
+    case XmlEvent.XmlString(value, _) :: Nil => value
+    case values =>
+      values.collect { case XmlEvent.XmlString(value, _) => value }.mkString
+  }
+
+  private def multipleNodes(path: XPath): XmlDecodeError =
+    XmlDecodeError(path, "Expected a single node but found several")
+
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.xml
+package internals
+
+import smithy.api.XmlAttribute
+import smithy.api.XmlFlattened
+import smithy.api.XmlName
+import smithy4s._
+import smithy4s.internals.SchemaDescription
+import smithy4s.internals.StringInterner
+import smithy4s.schema.Schema
+import smithy4s.schema._
+
+import XmlDocument.XmlQName
+
+/**
+  * Compiles schemas into decoders that consume XML events, following the same
+  * rules as [[XmlDecoderSchemaVisitor]].
+  */
+private[smithy4s] class XmlEventDecoderSchemaVisitor(
+    val cache: CompilationCache[XmlEventDecoder],
+    stringInterner: StringInterner
+) extends SchemaVisitor.Cached[XmlEventDecoder]
+    with smithy4s.ScalaCompat { compile =>
+
+  def primitive[P](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: Primitive[P]
+  ): XmlEventDecoder[P] = {
+    val desc = SchemaDescription.primitive(shapeId, hints, tag)
+    val trim = (tag != Primitive.PString && tag != Primitive.PBlob)
+    val parser = Primitive.stringParser(tag, hints)
+    val decoder: XmlEventDecoder[P] = parser match {
+      case Some(_) if tag == Primitive.PString && hints.has(Interned) =>
+        XmlEventDecoder
+          .fromStringParser(desc, trim)(s => Some(stringInterner.intern(s)))
+          .asInstanceOf[XmlEventDecoder[P]]
+      case Some(parser) => XmlEventDecoder.fromStringParser(desc, trim)(parser)
+      case None =>
+        XmlEventDecoder.alwaysFailing(s"Cannot decode $desc from XML")
+    }
+    DecodeLimits.maxBytes(hints) match {
+      case Some(maxBytes) =>
+        decoder.emap(DecodeLimits.checkBytes(tag, maxBytes))
+      case None => decoder
+    }
+  }
+
+  def collection[C[_], A](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: CollectionTag[C],
+      member: Schema[A]
+  ): XmlEventDecoder[C[A]] = {
+    val xmlName = getXmlName(member.hints, "member")
+    val isFlattened = hints.has(XmlFlattened)
+    val maxElements = DecodeLimits.maxElements(hints, Int.MaxValue)
+    // IndexedSeqs of primitives get backed by primitive arrays
+    val fromIterator: Iterator[A] => C[A] = tag match {
+      case CollectionTag.IndexedSeqTag =>
+        val withBuilder = CollectionTag.IndexedSeqTag.compactBuilder(member)
+        (it: Iterator[A]) =>
+          withBuilder(put => it.foreach(put)).asInstanceOf[C[A]]
+      case _ => tag.fromIterator(_)
+    }
+    XmlEventDecoder.collection(
+      compile(member),
+      xmlName,
+      isFlattened,
+      maxElements,
+      fromIterator
+    )
+  }
+
+  def map[K, V](
+      shapeId: ShapeId,
+      hints: Hints,
+      key: Schema[K],
+      value: Schema[V]
+  ): XmlEventDecoder[Map[K, V]] = {
+    type KV = (K, V)
+    val kvSchema: Schema[(K, V)] = {
+      val kField = key.required[KV]("key", _._1)
+      val vField = value.required[KV]("value", _._2)
+      Schema.struct(kField, vField)((_, _))
+    }
+    compile(Schema.vector(kvSchema.addHints(XmlName("entry"))).addHints(hints))
+      .map(_.toMap)
+  }
+
+  def enumeration[E](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: EnumTag[E],
+      values: List[EnumValue[E]],
+      total: E => EnumValue[E]
+  ): XmlEventDecoder[E] = {
+    tag match {
+      case EnumTag.IntEnum() =>
+        val desc = s"enum[${values.map(_.intValue).mkString(", ")}]"
+        val valueMap = values.map(ev => ev.intValue -> ev.value).toMap
+        val handler: String => Option[E] =
+          tag match {
+            case EnumTag.OpenIntEnum(unknown) =>
+              _.toIntOption.map(i => valueMap.getOrElse(i, unknown(i)))
+            case _ =>
+              _.toIntOption.flatMap(valueMap.get)
+          }
+        XmlEventDecoder.fromStringParser(desc, trim = true)(handler)
+      case _ =>
+        val desc = s"enum[${values.map(_.stringValue).mkString(", ")}]"
+        val valueMap = values.map(ev => ev.stringValue -> ev.value).toMap
+        val handler: String => Option[E] =
+          tag match {
+            case EnumTag.OpenStringEnum(unknown) =>
+              s => Some(valueMap.getOrElse(s, unknown(s)))
+            case _ =>
+              valueMap.get(_)
+          }
+        XmlEventDecoder.fromStringParser(desc, trim = false)(handler)
+    }
+  }
+
+  def struct[S](
+      shapeId: ShapeId,
+      hints: Hints,
+      fields: Vector[Field[S, _]],
+      make: IndexedSeq[Any] => S
+  ): XmlEventDecoder[S] = {
+    def fieldDecoder[A](field: Field[S, A]): XmlEventDecoder.FieldDecoder = {
+      val decoder = field.getDefaultValue match {
+        case None => compile(field.schema)
+        case Some(defaultValue) =>
+          compile(field.schema).withDefault(defaultValue)
+      }
+      new XmlEventDecoder.FieldDecoder(
+        getXmlName(field.memberHints, field.label),
+        field.memberHints.has(XmlAttribute),
+        decoder.asInstanceOf[XmlEventDecoder[Any]]
+      )
+    }
+    XmlEventDecoder.struct(fields.map(fieldDecoder(_)).toArray, make)
+  }
+
+  def union[U](
+      shapeId: ShapeId,
+      hints: Hints,
+      alternatives: Vector[Alt[U, _]],
+      dispatch: Alt.Dispatcher[U]
+  ): XmlEventDecoder[U] = {
+    def altDecoder[A](alt: Alt[U, A]): (XmlQName, XmlEventDecoder[U]) =
+      (getXmlName(alt.hints, alt.label), compile(alt.schema).map(alt.inject))
+    XmlEventDecoder.union(alternatives.map(altDecoder(_)).toMap)
+  }
+
+  def biject[A, B](
+      schema: Schema[A],
+      bijection: Bijection[A, B]
+  ): XmlEventDecoder[B] =
+    schema.compile(this).map(bijection.to)
+
+  def refine[A, B](
+      schema: Schema[A],
+      refinement: Refinement[A, B]
+  ): XmlEventDecoder[B] =
+    schema.compile(this).emap(refinement.asFunction)
+
+  def lazily[A](suspend: Lazy[Schema[A]]): XmlEventDecoder[A] =
+    new XmlEventDecoder[A] {
+      lazy val underlying: XmlEventDecoder[A] = compile(suspend.value)
+      def collector(
+          parent: XmlEventDecoder.Position,
+          segment: XPath.Segment,
+          index: Int
+      ): XmlEventDecoder.Collector =
+        underlying.collector(parent, segment, index)
+      def result(
+          collector: XmlEventDecoder.Collector
+      ): Either[XmlDecodeError, A] =
+        underlying.result(collector)
+    }
+
+  def option[A](schema: Schema[A]): XmlEventDecoder[Option[A]] =
+    compile(schema).optional
+
+  private def getXmlName(
+      hints: Hints,
+      default: String
+  ): XmlDocument.XmlQName =
+    hints
+      .get(XmlName)
+      .map(_.value)
+      .map(XmlQName.parse)
+      .getOrElse(XmlQName(None, default))
+
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.xml
+package internals
+
+import smithy4s.Blob
+
+import java.io.OutputStream
+import java.nio.charset.StandardCharsets
+
+/**
+  * A growable buffer that XML gets written to as UTF-8 bytes. Text is
+  * escaped and encoded in place, without going through intermediate strings.
+  *
+  * Attribute values are only escaped when `escapeAttributes` is set, which
+  * matches the behaviour of the `XmlDocument` rendering.
+  */
+private[smithy4s] final class XmlOutput(escapeAttributes: Boolean) {
+  private[this] var buffer: Array[Byte] = new Array[Byte](256)
+  private[this] var size: Int = 0
+  private[this] var inAttribute: Boolean = false
+
+  private def ensureCapacity(extra: Int): Unit =
+    if (size + extra > buffer.length) {
+      val newLength = math.max(buffer.length * 2, size + extra)
+      buffer = java.util.Arrays.copyOf(buffer, newLength)
+    }
+
+  /** Writes bytes that have been encoded ahead of time, such as names. */
+  def raw(bytes: Array[Byte]): Unit = {
+    ensureCapacity(bytes.length)
+    System.arraycopy(bytes, 0, buffer, size, bytes.length)
+    size += bytes.length
+  }
+
+  def byte(b: Byte): Unit = {
+    ensureCapacity(1)
+    buffer(size) = b
+    size += 1
+  }
+
+  /**
+    * Writes the value of an attribute, whose name (followed by `="`) has
+    * already been written.
+    */
+  def attribute[A](value: A)(writeText: A => Unit): Unit = {
+    inAttribute = true
+    try writeText(value)
+    finally inAttribute = false
+    byte('"'.toByte)
+  }
+
+  /** Writes text content, escaping it if needed. */
+  def text(value: String): Unit = {
+    val escape = !inAttribute || escapeAttributes
+    val length = value.length
+    ensureCapacity(length)
+    var buf = buffer
+    var pos = size
+    var i = 0
+    while (i < length) {
+      // a single char never takes more than 6 bytes, once escaped
+      if (pos + 6 > buf.length) {
+        size = pos
+        ensureCapacity(6 + length - i)
+        buf = buffer
+      }
+      val c = value.charAt(i)
+      if (c < 0x80) {
+        if (escape && XmlOutput.needsEscaping(c)) {
+          val escaped = XmlOutput.escaped(c)
+          System.arraycopy(escaped, 0, buf, pos, escaped.length)
+          pos += escaped.length
+        } else {
+          buf(pos) = c.toByte
+          pos += 1
+        }
+      } else if (c < 0x800) {
+        buf(pos) = (0xc0 | (c >> 6)).toByte
+        buf(pos + 1) = (0x80 | (c & 0x3f)).toByte
+        pos += 2
+      } else if (Character.isHighSurrogate(c)) {
+        if (
+          i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))
+        ) {
+          val codePoint = Character.toCodePoint(c, value.charAt(i + 1))
+          buf(pos) = (0xf0 | (codePoint >> 18)).toByte
+          buf(pos + 1) = (0x80 | ((codePoint >> 12) & 0x3f)).toByte
+          buf(pos + 2) = (0x80 | ((codePoint >> 6) & 0x3f)).toByte
+          buf(pos + 3) = (0x80 | (codePoint & 0x3f)).toByte
+          pos += 4
+          i += 1
+        } else {
+          // unpaired surrogates get replaced, as the JDK's encoder does
+          buf(pos) = '?'.toByte
+          pos += 1
+        }
+      } else if (Character.isLowSurrogate(c)) {
+        buf(pos) = '?'.toByte
+        pos += 1
+      } else {
+        buf(pos) = (0xe0 | (c >> 12)).toByte
+        buf(pos + 1) = (0x80 | ((c >> 6) & 0x3f)).toByte
+        buf(pos + 2) = (0x80 | (c & 0x3f)).toByte
+        pos += 3
+      }
+      i += 1
+    }
+    size = pos
+  }
+
+  def toBlob: Blob = Blob.slice(buffer, 0, size)
+
+  def writeTo(outputStream: OutputStream): Unit =
+    outputStream.write(buffer, 0, size)
+
+}
+
+private[smithy4s] object XmlOutput {
+
+  def bytes(string: String): Array[Byte] =
+    string.getBytes(StandardCharsets.UTF_8)
+
+  private def needsEscaping(c: Char): Boolean =
+    c == '<' || c == '>' || c == '&' || c == '\'' || c == '"'
+
+  private val lt = bytes("&lt;")
+  private val gt = bytes("&gt;")
+  private val amp = bytes("&amp;")
+  private val apos = bytes("&apos;")
+  private val quot = bytes("&quot;")
+
+  private def escaped(c: Char): Array[Byte] = c match {
+    case '<'  => lt
+    case '>'  => gt
+    case '&'  => amp
+    case '\'' => apos
+    case _    => quot
+  }
+
+}
@@ -17,27 +17,21 @@
 package smithy4s.xml
 package internals
 
-import fs2.Collector
-import smithy4s.Blob
 import smithy4s.codecs.BlobEncoder
+import smithy4s.schema.CompilationCache
 import smithy4s.schema.Schema
 
 private[xml] class XmlPayloadEncoderCompilerImpl(escapeAttributes: Boolean)
     extends XmlPayloadEncoderCompiler {
-  type Cache = XmlDocument.Encoder.Cache
-  def createCache(): Cache = XmlDocument.Encoder.createCache()
+  type Cache = CompilationCache[XmlWriter]
+  def createCache(): Cache = CompilationCache.make[XmlWriter]
   def fromSchema[A](schema: Schema[A], cache: Cache): BlobEncoder[A] = {
-    val xmlDocumentEncoder = XmlDocument.Encoder.fromSchema(schema, cache)
-    val eventifier = XmlDocument.makeDocumentEventifier(escapeAttributes)
-    (a: A) =>
-      Blob {
-        eventifier
-          .eventify(xmlDocumentEncoder.encode(a))
-          .through(fs2.data.xml.render.raw(collapseEmpty = false))
-          .through(fs2.text.utf8.encode[fs2.Pure])
-          .compile
-          .to(Collector.supportsArray(Array))
-      }
+    val documentWriter = XmlWriter.document(schema, cache)
+    (a: A) => {
+      val out = new XmlOutput(escapeAttributes)
+      documentWriter(a, out)
+      out.toBlob
+    }
   }
   def fromSchema[A](schema: Schema[A]): BlobEncoder[A] =
     fromSchema(schema, createCache())
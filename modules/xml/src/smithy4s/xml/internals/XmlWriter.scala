@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.xml
+package internals
+
+import smithy.api.XmlNamespace
+import smithy4s.schema.CompilationCache
+import smithy4s.schema.Schema
+import smithy4s.xml.XmlDocument.XmlQName
+
+/**
+  * The counterpart of `XmlEncoder` that writes UTF-8 bytes to an `XmlOutput`
+  * directly, rather than building `XmlContent` values. The names of elements
+  * and attributes get encoded once, when writers are compiled.
+  *
+  * As attributes have to be written in the start tag of the enclosing
+  * element, before any of its children, a writer exposes them separately
+  * from its content.
+  */
+private[smithy4s] trait XmlWriter[-A] { self =>
+  def writeAttributes(value: A, out: XmlOutput): Unit
+  def writeContent(value: A, out: XmlOutput): Unit
+
+  def contramap[B](f: B => A): XmlWriter[B] = new XmlWriter[B] {
+    def writeAttributes(value: B, out: XmlOutput): Unit =
+      self.writeAttributes(f(value), out)
+    def writeContent(value: B, out: XmlOutput): Unit =
+      self.writeContent(f(value), out)
+    override def down(tag: XmlQName): XmlWriter[B] =
+      self.down(tag).contramap(f)
+    override def optional: XmlWriter[Option[B]] =
+      self.optional.contramap[Option[B]](_.map(f))
+    override def attribute(name: XmlQName): XmlWriter[B] =
+      self.attribute(name).contramap(f)
+  }
+
+  def attribute(name: XmlQName): XmlWriter[A] = new XmlWriter[A] {
+    private val prefix = XmlOutput.bytes(" " + name.render + "=\"")
+    def writeAttributes(value: A, out: XmlOutput): Unit = {
+      out.raw(prefix)
+      out.attribute(value)(self.writeContent(_, out))
+    }
+    def writeContent(value: A, out: XmlOutput): Unit = ()
+  }
+
+  /**
+    * Prepends a namespace declaration, rendered as `name="uri"`, to the
+    * attributes of this writer.
+    */
+  def addXmlNamespace(maybeNs: Option[(XmlQName, String)]): XmlWriter[A] =
+    maybeNs match {
+      case None => this
+      case Some((name, uri)) =>
+        new XmlWriter[A] {
+          private val prefix = XmlOutput.bytes(" " + name.render + "=\"")
+          def writeAttributes(value: A, out: XmlOutput): Unit = {
+            out.raw(prefix)
+            out.attribute(uri)(out.text(_))
+            self.writeAttributes(value, out)
+          }
+          def writeContent(value: A, out: XmlOutput): Unit =
+            self.writeContent(value, out)
+        }
+    }
+
+  def optional: XmlWriter[Option[A]] = new XmlWriter[Option[A]] {
+    def writeAttributes(value: Option[A], out: XmlOutput): Unit =
+      value match {
+        case Some(value) => self.writeAttributes(value, out)
+        case None        => ()
+      }
+    def writeContent(value: Option[A], out: XmlOutput): Unit =
+      value match {
+        case Some(value) => self.writeContent(value, out)
+        case None        => ()
+      }
+    override def attribute(name: XmlQName): XmlWriter[Option[A]] =
+      self.attribute(name).optional
+    override def down(tag: XmlQName): XmlWriter[Option[A]] =
+      self.down(tag).optional
+  }
+
+  def down(tag: XmlQName): XmlWriter[A] = new XmlWriter[A] {
+    private val open = XmlOutput.bytes("<" + tag.render)
+    private val close = XmlOutput.bytes("</" + tag.render + ">")
+    def writeAttributes(value: A, out: XmlOutput): Unit = ()
+    def writeContent(value: A, out: XmlOutput): Unit =
+      XmlWriter.writeElement(open, close, self, value, out)
+  }
+
+}
+
+private[smithy4s] object XmlWriter {
+
+  /**
+    * Compiles a writer for top-level documents, wrapping the content in the
+    * root element of the schema.
+    */
+  def document[A](
+      schema: Schema[A],
+      cache: CompilationCache[XmlWriter]
+  ): (A, XmlOutput) => Unit = {
+    val rootName = XmlDocument.getRootName(schema)
+    val rootNamespace = schema.hints.get(XmlNamespace).map(namespaceAttribute)
+    val writer =
+      new XmlWriterSchemaVisitor(cache)(schema).addXmlNamespace(rootNamespace)
+    val open = XmlOutput.bytes("<" + rootName.render)
+    val close = XmlOutput.bytes("</" + rootName.render + ">")
+    (value: A, out: XmlOutput) => writeElement(open, close, writer, value, out)
+  }
+
+  def namespaceAttribute(ns: XmlNamespace): (XmlQName, String) = {
+    val qName = ns.prefix match {
+      case Some(prefix) => XmlQName(Some("xmlns"), prefix.value)
+      case None         => XmlQName(None, "xmlns")
+    }
+    (qName, ns.uri.value)
+  }
+
+  val nil: XmlWriter[Any] = new XmlWriter[Any] {
+    def writeAttributes(value: Any, out: XmlOutput): Unit = ()
+    def writeContent(value: Any, out: XmlOutput): Unit = ()
+  }
+
+  /**
+    * Writes an element, `open` and `close` being the encoded start tag (up to
+    * the attributes) and end tag. Empty elements are not collapsed.
+    */
+  def writeElement[A](
+      open: Array[Byte],
+      close: Array[Byte],
+      writer: XmlWriter[A],
+      value: A,
+      out: XmlOutput
+  ): Unit = {
+    out.raw(open)
+    writer.writeAttributes(value, out)
+    out.byte('>'.toByte)
+    writer.writeContent(value, out)
+    out.raw(close)
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ *  Copyright 2021-2024 Disney Streaming
+ *
+ *  Licensed under the Tomorrow Open Source Technology License, Version 1.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     https://disneystreaming.github.io/TOST-1.0.txt
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package smithy4s.xml
+package internals
+
+import smithy.api.XmlAttribute
+import smithy.api.XmlFlattened
+import smithy.api.XmlName
+import smithy4s.schema._
+import smithy4s.{Schema => _, _}
+
+import XmlDocument._
+
+/**
+  * Compiles schemas into writers that render the same XML as the writers
+  * produced by [[XmlEncoderSchemaVisitor]].
+  */
+private[smithy4s] class XmlWriterSchemaVisitor(
+    val cache: CompilationCache[XmlWriter]
+) extends SchemaVisitor.Cached[XmlWriter] { compile =>
+
+  def primitive[P](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: Primitive[P]
+  ): XmlWriter[P] = Primitive.stringWriter(tag, hints) match {
+    case None => XmlWriter.nil
+    case Some(writer) =>
+      new XmlWriter[P] {
+        def writeAttributes(value: P, out: XmlOutput): Unit = ()
+        def writeContent(value: P, out: XmlOutput): Unit =
+          out.text(writer(value))
+      }
+  }
+
+  def struct[S](
+      shapeId: ShapeId,
+      hints: Hints,
+      fields: Vector[Field[S, _]],
+      make: IndexedSeq[Any] => S
+  ): XmlWriter[S] = {
+    def fieldWriter[A](field: Field[S, A]): XmlWriter[S] = {
+      val isAttribute = field.memberHints.has(XmlAttribute)
+      val xmlName = getXmlName(field.memberHints, field.label)
+      val namespace = getXmlNamespace(field.memberHints)
+      val aWriter =
+        if (isAttribute)
+          compile(field.schema).attribute(xmlName)
+        else compile(field.schema).addXmlNamespace(namespace).down(xmlName)
+
+      new XmlWriter[S] {
+        def writeAttributes(s: S, out: XmlOutput): Unit =
+          field.getUnlessDefault(s) match {
+            case Some(value) => aWriter.writeAttributes(value, out)
+            case None        => ()
+          }
+        def writeContent(s: S, out: XmlOutput): Unit =
+          field.getUnlessDefault(s) match {
+            case Some(value) => aWriter.writeContent(value, out)
+            case None        => ()
+          }
+      }
+    }
+    // attribute fields only ever contribute attributes, and other fields
+    // only ever contribute content
+    val (attributes, elements) =
+      fields.partition(_.memberHints.has(XmlAttribute))
+    val attributeWriters = attributes.map(fieldWriter(_)).toArray
+    val elementWriters = elements.map(fieldWriter(_)).toArray
+    new XmlWriter[S] {
+      def writeAttributes(value: S, out: XmlOutput): Unit = {
+        var i = 0
+        while (i < attributeWriters.length) {
+          attributeWriters(i).writeAttributes(value, out)
+          i += 1
+        }
+      }
+      def writeContent(value: S, out: XmlOutput): Unit = {
+        var i = 0
+        while (i < elementWriters.length) {
+          elementWriters(i).writeContent(value, out)
+          i += 1
+        }
+      }
+    }
+  }
+
+  def collection[C[_], A](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: CollectionTag[C],
+      member: Schema[A]
+  ): XmlWriter[C[A]] =
+    new XmlWriter[C[A]] { self =>
+      val isFlattened: Boolean = hints.has(XmlFlattened)
+      val xmlName = getXmlName(member.hints.memberHints, "member")
+      val namespace = getXmlNamespace(member.hints.memberHints)
+      val memberWriter =
+        if (isFlattened) compile(member)
+        else compile(member).addXmlNamespace(namespace).down(xmlName)
+
+      def writeAttributes(value: C[A], out: XmlOutput): Unit =
+        tag.iterator(value).foreach(memberWriter.writeAttributes(_, out))
+
+      def writeContent(value: C[A], out: XmlOutput): Unit =
+        tag.iterator(value).foreach(memberWriter.writeContent(_, out))
+
+      override def down(name: XmlQName): XmlWriter[C[A]] = {
+        if (isFlattened) {
+          new XmlWriter[C[A]] {
+            private val open = XmlOutput.bytes("<" + name.render)
+            private val close = XmlOutput.bytes("</" + name.render + ">")
+            def writeAttributes(value: C[A], out: XmlOutput): Unit = ()
+            def writeContent(value: C[A], out: XmlOutput): Unit =
+              tag.iterator(value).foreach { a =>
+                XmlWriter.writeElement(open, close, memberWriter, a, out)
+              }
+            override def addXmlNamespace(
+                maybeNs: Option[(XmlQName, String)]
+            ): XmlWriter[C[A]] = this
+          }
+        } else super.down(name)
+      }
+    }
+
+  def map[K, V](
+      shapeId: ShapeId,
+      hints: Hints,
+      key: Schema[K],
+      value: Schema[V]
+  ): XmlWriter[Map[K, V]] = {
+    type KV = (K, V)
+    val kvSchema: Schema[(K, V)] = {
+      val kField = key.required[KV]("key", _._1)
+      val vField = value.required[KV]("value", _._2)
+      Schema.struct(kField, vField)((_, _))
+    }
+    compile(
+      Schema.vector(kvSchema.addMemberHints(XmlName("entry"))).addHints(hints)
+    )
+      .contramap(_.toVector)
+  }
+
+  def enumeration[E](
+      shapeId: ShapeId,
+      hints: Hints,
+      tag: EnumTag[E],
+      values: List[EnumValue[E]],
+      total: E => EnumValue[E]
+  ): XmlWriter[E] = tag match {
+    case EnumTag.IntEnum() =>
+      new XmlWriter[E] {
+        def writeAttributes(value: E, out: XmlOutput): Unit = ()
+        def writeContent(value: E, out: XmlOutput): Unit =
+          out.text(total(value).intValue.toString())
+      }
+
+    case _ =>
+      new XmlWriter[E] {
+        def writeAttributes(value: E, out: XmlOutput): Unit = ()
+        def writeContent(value: E, out: XmlOutput): Unit =
+          out.text(total(value).stringValue)
+      }
+  }
+
+  def union[U](
+      shapeId: ShapeId,
+      hints: Hints,
+      alternatives: Vector[Alt[U, _]],
+      dispatch: Alt.Dispatcher[U]
+  ): XmlWriter[U] = {
+    def altWriter[A](alt: Alt[U, A]): XmlWriter[U] = {
+      val xmlName = getXmlName(alt.schema.hints, alt.label)
+      compile(alt.schema).down(xmlName).contramap(alt.project)
+    }
+    val altWriters = alternatives.map(altWriter(_)).toArray
+    new XmlWriter[U] {
+      def writeAttributes(value: U, out: XmlOutput): Unit = ()
+      def writeContent(value: U, out: XmlOutput): Unit =
+        altWriters(dispatch.ordinal(value)).writeContent(value, out)
+    }
+  }
+
+  def biject[A, B](
+      schema: Schema[A],
+      bijection: Bijection[A, B]
+  ): XmlWriter[B] = compile(schema).contramap(bijection.from)
+
+  def refine[A, B](
+      schema: Schema[A],
+      refinement: Refinement[A, B]
+  ): XmlWriter[B] = compile(schema).contramap(refinement.from)
+
+  def lazily[A](suspend: Lazy[Schema[A]]): XmlWriter[A] = new XmlWriter[A] {
+    lazy val underlying = suspend.map(compile(_)).value
+    def writeAttributes(value: A, out: XmlOutput): Unit =
+      underlying.writeAttributes(value, out)
+    def writeContent(value: A, out: XmlOutput): Unit =
+      underlying.writeContent(value, out)
+  }
+
+  def option[A](schema: Schema[A]): XmlWriter[Option[A]] =
+    compile(schema).optional
+
+  private def getXmlName(hints: Hints, default: String): XmlDocument.XmlQName =
+    hints
+      .get(XmlName)
+      .map(_.value)
+      .map(XmlQName.parse)
+      .getOrElse(XmlQName(None, default))
+
+  private def getXmlNamespace(hints: Hints): Option[(XmlQName, String)] =
+    hints
+      .get(smithy.api.XmlNamespace)
+      .map(XmlWriter.namespaceAttribute)
+
+}
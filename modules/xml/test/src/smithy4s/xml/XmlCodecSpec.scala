@@ -573,6 +573,91 @@ object XmlCodecSpec extends SimpleIOSuite {
       }
   }
 
+  test("Streaming decoding: unknown elements are skipped") {
+    case class Foo(x: Int, y: Option[String])
+    object Foo {
+      implicit val schema: Schema[Foo] = {
+        val x = int.required[Foo]("x", _.x)
+        val y = string.optional[Foo]("y", _.y)
+        struct(x, y)(Foo.apply)
+      }.n
+    }
+
+    val xml = """|<Foo>
+                 |   <z><x>2</x><z><y>nested</y></z></z>
+                 |   <x>1</x>
+                 |   <!-- comment -->
+                 |   <w/>
+                 |</Foo>""".stripMargin
+    checkDocument(xml, Foo(1, None))
+  }
+
+  test("Streaming decoding: starting path") {
+    case class Foo(x: Int)
+    object Foo {
+      implicit val schema: Schema[Foo] = {
+        val x = int.required[Foo]("x", _.x)
+        struct(x)(Foo.apply)
+      }.n
+    }
+
+    val xml = """|<FooResponse>
+                 |   <ResponseMetadata><x>2</x></ResponseMetadata>
+                 |   <FooResult>
+                 |     <x>1</x>
+                 |   </FooResult>
+                 |</FooResponse>""".stripMargin
+    val startingPath =
+      internals.XmlStartingPath(List("FooResponse", "FooResult"))
+    val schema = Foo.schema.addHints(startingPath)
+    decodeStreaming(xml)(schema).map(result => expect.same(result, Foo(1)))
+  }
+
+  test("Streaming decoding: failures") {
+    case class Foo(x: Int, ys: List[Int])
+    object Foo {
+      implicit val schema: Schema[Foo] = {
+        val x = int.required[Foo]("x", _.x)
+        val ys = list(int).required[Foo]("ys", _.ys)
+        struct(x, ys)(Foo.apply)
+      }.withId(ShapeId("foo", "Foo"))
+    }
+
+    val wrongRoot = "<Bar><x>1</x><ys/></Bar>"
+    val wrongMember = "<Foo><x>1</x><ys><member>a</member></ys></Foo>"
+    val duplicated = "<Foo><x>1</x><x>2</x><ys/></Foo>"
+    for {
+      rootResult <- decodeStreaming[Foo](wrongRoot).attempt
+      memberResult <- decodeStreaming[Foo](wrongMember).attempt
+      duplicatedResult <- decodeStreaming[Foo](duplicated).attempt
+    } yield {
+      expect.same(
+        rootResult,
+        Left(
+          smithy4s.codecs.PayloadError(
+            XPath.root.appendTag("Foo").toPayloadPath,
+            "",
+            "Could not decode failed node"
+          )
+        )
+      ) && expect.same(
+        memberResult,
+        Left(
+          smithy4s.codecs.PayloadError(
+            XPath.root
+              .appendTag("Foo")
+              .appendTag("ys")
+              .appendTag("member")
+              .appendIndex(0)
+              .toPayloadPath,
+            "",
+            "Could not extract Int from a"
+          )
+        )
+      ) && expect(duplicatedResult.isLeft)
+    }
+  }
+
   private def checkContent[A: Schema](xmlString: String, expected: A)(implicit
       loc: SourceLocation
   ): IO[Expectations] = {
@@ -595,16 +680,40 @@ object XmlCodecSpec extends SimpleIOSuite {
         IO(expect.same(encoded, document).traced(here))
       }
 
-      (decodingChecks |+| encodingChecks)
+      val streamingChecks = decodeStreaming[A](xmlString)
+        .map(result => expect.same(result, expected).traced(here))
+
+      val writingChecks = {
+        val written = Xml.encoders.fromSchema(schemaOf[A]).encode(expected)
+        parseDocument(written.toUTF8String)
+          .map(result => expect.same(result, document).traced(here))
+      }
+
+      (decodingChecks |+| encodingChecks |+| streamingChecks |+| writingChecks)
     }
   }
 
   private def checkDocument[A: Schema](xmlString: String, expected: A)(implicit
       loc: SourceLocation
   ): IO[Expectations] = {
-    parseDocument(xmlString)
+    val domChecks = parseDocument(xmlString)
       .flatMap(decodeDocument[A](_))
       .map(result => expect.same(result, expected))
+    val streamingChecks = decodeStreaming[A](xmlString)
+      .map(result => expect.same(result, expected))
+    domChecks |+| streamingChecks
+  }
+
+  private def schemaOf[A](implicit schema: Schema[A]): Schema[A] = schema
+
+  private def decodeStreaming[A](
+      xmlString: String
+  )(implicit schema: Schema[A]): IO[A] = {
+    Xml.decoders
+      .fromSchema(schema)
+      .decode(Blob(xmlString))
+      .leftWiden[Throwable]
+      .liftTo[IO]
   }
 
   private def decodeDocument[A](
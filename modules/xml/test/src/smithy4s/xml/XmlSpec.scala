@@ -53,4 +53,33 @@ object XmlSpec extends FunSuite {
     expect.same(encoded, """<Foo x="x->(y)"></Foo>""")
   }
 
+  test("special characters in text get escaped") {
+    case class Foo(x: String)
+    object Foo {
+      implicit val schema: Schema[Foo] = {
+        val x = string.required[Foo]("x", _.x)
+        struct(x)(Foo.apply).withId(ShapeId("test", "Foo"))
+      }
+    }
+
+    val value = Foo("<a href='b'>\"c\" & d</a>")
+    val encoded = Xml.write[Foo](value).toUTF8String
+    val expected = "<Foo><x>" +
+      "&lt;a href=&apos;b&apos;&gt;&quot;c&quot; &amp; d&lt;/a&gt;" +
+      "</x></Foo>"
+    expect.same(encoded, expected) &&
+    expect.same(Some(value), Xml.read[Foo](Blob(encoded)).toOption)
+  }
+
+  test("non-ascii characters get encoded as UTF-8") {
+    implicit val schema: Schema[String] = string.x
+    val value = "caf\u00e9 \u20ac \ud83d\ude00"
+    val encoded = Xml.write[String](value)
+    val expected = Blob(s"<x>$value</x>")
+    val out = new java.io.ByteArrayOutputStream()
+    Xml.writeTo[String](value, out)
+    expect(encoded.sameBytesAs(expected)) &&
+    expect(Blob(out.toByteArray()).sameBytesAs(expected))
+  }
+
 }